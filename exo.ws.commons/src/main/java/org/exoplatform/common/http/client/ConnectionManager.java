@@ -0,0 +1,431 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.common.http.client;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Process wide pool of idle keep-alive sockets shared by all instances of
+ * {@link HTTPConnection}. When all responses received over socket are read,
+ * the socket is returned here instead of being kept by its connection until
+ * idle timeout, and {@link HTTPConnection} checks this pool before it opens new
+ * socket. So short-lived connections to the same server reuse sockets
+ * transparently.
+ * <p>
+ * Sockets are keyed by protocol, host and port of origin server, proxy and
+ * local address. Limit of requests announced by server with
+ * <code>Keep-Alive: max=n</code> header is passed together with socket to the
+ * connection which reuses it, and <code>Keep-Alive: timeout=n</code> limits
+ * time the socket is kept in pool. Expired sockets are closed by timer thread
+ * even if pool is not used any more, timer thread stops when pool is empty.
+ * Socket closed by server while it is in pool may be detected only when it is
+ * reused, then request is retried with new socket, see {@link RetryModule}.
+ * </p>
+ * <p>
+ * Pool is configured with system properties:
+ * <ul>
+ * <li><code>HTTPClient.disableConnectionSharing</code> - do not share sockets</li>
+ * <li><code>HTTPClient.connectionManager.maxIdlePerRoute</code> - max number
+ * of idle sockets per key, default 8</li>
+ * <li><code>HTTPClient.connectionManager.maxIdle</code> - max number of idle
+ * sockets, default 64</li>
+ * <li><code>HTTPClient.connectionManager.idleTimeout</code> - time in
+ * milliseconds after which idle socket is closed, default 15000</li>
+ * </ul>
+ * </p>
+ *
+ * @version $Id: $
+ */
+public final class ConnectionManager
+{
+
+   /**
+    * Idle socket.
+    */
+   static final class PooledSocket
+   {
+      final Socket socket;
+
+      /** Version of HTTP protocol of server. */
+      final int protocolVersion;
+
+      /** Number of requests server still accepts, -1 if not limited. */
+      final int requestsLeft;
+
+      /** Time when socket is closed if not reused. */
+      final long expires;
+
+      PooledSocket(Socket socket, int protocolVersion, int requestsLeft, long expires)
+      {
+         this.socket = socket;
+         this.protocolVersion = protocolVersion;
+         this.requestsLeft = requestsLeft;
+         this.expires = expires;
+      }
+   }
+
+   private static final Log LOG = ExoLogger.getLogger("exo.ws.commons.ConnectionManager");
+
+   private static final boolean DISABLED = Boolean.getBoolean("HTTPClient.disableConnectionSharing");
+
+   private static final int MAX_IDLE_PER_ROUTE = Integer.getInteger("HTTPClient.connectionManager.maxIdlePerRoute", 8);
+
+   private static final int MAX_IDLE = Integer.getInteger("HTTPClient.connectionManager.maxIdle", 64);
+
+   private static final long IDLE_TIMEOUT = Long.getLong("HTTPClient.connectionManager.idleTimeout", 15000);
+
+   /** Interval (ms) of check of expired sockets. */
+   private static final long REAP_INTERVAL = Math.max(1, Math.min(IDLE_TIMEOUT, 1000));
+
+   /** Timer which closes expired sockets. */
+   private static final SocketTimeout REAPER = new SocketTimeout(REAP_INTERVAL, 1);
+
+   private static final Runnable REAP = new Runnable()
+   {
+      public void run()
+      {
+         reap();
+      }
+   };
+
+   /** Idle sockets, most recently released last. */
+   private static final Map<String, List<PooledSocket>> IDLE = new HashMap<String, List<PooledSocket>>();
+
+   private static int idleCount;
+
+   /** <code>true</code> if check of expired sockets is scheduled. */
+   private static boolean reapScheduled;
+
+   private static long hitCount;
+
+   private static long missCount;
+
+   private static long releaseCount;
+
+   private ConnectionManager()
+   {
+   }
+
+   /**
+    * @return <code>true</code> if sockets are shared between connections
+    */
+   static boolean isEnabled()
+   {
+      return !DISABLED && MAX_IDLE > 0 && MAX_IDLE_PER_ROUTE > 0;
+   }
+
+   /**
+    * Get idle socket for <code>key</code>.
+    *
+    * @param key key of socket
+    * @return idle socket or <code>null</code> if there is no one
+    */
+   static PooledSocket lease(String key)
+   {
+      while (true)
+      {
+         PooledSocket pooled = null;
+         List<Socket> expired = new ArrayList<Socket>();
+         synchronized (IDLE)
+         {
+            long now = System.currentTimeMillis();
+            removeExpired(now, expired);
+            List<PooledSocket> list = IDLE.get(key);
+            if (list != null)
+            {
+               pooled = list.remove(list.size() - 1);
+               if (list.isEmpty())
+                  IDLE.remove(key);
+               idleCount--;
+            }
+            else
+            {
+               missCount++;
+            }
+         }
+         close(expired);
+         if (pooled == null)
+            return null;
+         if (isAlive(pooled.socket))
+         {
+            synchronized (IDLE)
+            {
+               hitCount++;
+            }
+            if (LOG.isDebugEnabled())
+               LOG.debug("Reusing socket " + pooled.socket + " for " + key);
+            return pooled;
+         }
+         close(pooled.socket);
+      }
+   }
+
+   /**
+    * Put socket in pool. Socket is closed if pool is full or server does not
+    * accept more requests on it.
+    *
+    * @param key key of socket
+    * @param socket socket
+    * @param protocolVersion version of HTTP protocol of server
+    * @param keepAlive value of Keep-Alive header of last response or
+    *        <code>null</code>
+    */
+   static void release(String key, Socket socket, int protocolVersion, String keepAlive)
+   {
+      int requestsLeft = -1;
+      long timeout = IDLE_TIMEOUT;
+      if (keepAlive != null)
+      {
+         try
+         {
+            Vector params = Util.parseHeader(keepAlive);
+            HttpHeaderElement max = Util.getElement(params, "max");
+            if (max != null && max.getValue() != null)
+               requestsLeft = Integer.parseInt(max.getValue().trim());
+            HttpHeaderElement to = Util.getElement(params, "timeout");
+            if (to != null && to.getValue() != null)
+               timeout = Math.min(timeout, Long.parseLong(to.getValue().trim()) * 1000);
+         }
+         catch (ParseException e)
+         {
+            if (LOG.isTraceEnabled())
+               LOG.trace("An exception occurred: " + e.getMessage());
+         }
+         catch (NumberFormatException e)
+         {
+            if (LOG.isTraceEnabled())
+               LOG.trace("An exception occurred: " + e.getMessage());
+         }
+      }
+      if (requestsLeft == 0 || timeout <= 0 || socket.isClosed() || socket.isInputShutdown()
+         || socket.isOutputShutdown())
+      {
+         close(socket);
+         return;
+      }
+
+      List<Socket> discarded = new ArrayList<Socket>();
+      boolean schedule = false;
+      synchronized (IDLE)
+      {
+         long now = System.currentTimeMillis();
+         removeExpired(now, discarded);
+         if (!reapScheduled)
+         {
+            reapScheduled = true;
+            schedule = true;
+         }
+         List<PooledSocket> list = IDLE.get(key);
+         if (list != null && list.size() >= MAX_IDLE_PER_ROUTE)
+         {
+            discarded.add(list.remove(0).socket);
+            idleCount--;
+         }
+         else if (idleCount >= MAX_IDLE)
+         {
+            removeOldest(discarded);
+            list = IDLE.get(key);
+         }
+         if (list == null)
+         {
+            list = new ArrayList<PooledSocket>(2);
+            IDLE.put(key, list);
+         }
+         list.add(new PooledSocket(socket, protocolVersion, requestsLeft, now + timeout));
+         idleCount++;
+         releaseCount++;
+      }
+      close(discarded);
+      if (schedule)
+         REAPER.setTimeout(REAP);
+      if (LOG.isDebugEnabled())
+         LOG.debug("Socket " + socket + " released for " + key);
+   }
+
+   /**
+    * Close all idle sockets.
+    */
+   public static void closeIdle()
+   {
+      List<Socket> discarded = new ArrayList<Socket>();
+      synchronized (IDLE)
+      {
+         for (List<PooledSocket> list : IDLE.values())
+         {
+            for (PooledSocket pooled : list)
+               discarded.add(pooled.socket);
+         }
+         IDLE.clear();
+         idleCount = 0;
+      }
+      close(discarded);
+   }
+
+   /**
+    * @return number of idle sockets
+    */
+   public static int getIdleCount()
+   {
+      synchronized (IDLE)
+      {
+         return idleCount;
+      }
+   }
+
+   /**
+    * @return number of times when idle socket was reused
+    */
+   public static long getHitCount()
+   {
+      synchronized (IDLE)
+      {
+         return hitCount;
+      }
+   }
+
+   /**
+    * @return number of times when there was no idle socket and new one was
+    *         opened
+    */
+   public static long getMissCount()
+   {
+      synchronized (IDLE)
+      {
+         return missCount;
+      }
+   }
+
+   /**
+    * @return number of sockets returned to pool
+    */
+   public static long getReleaseCount()
+   {
+      synchronized (IDLE)
+      {
+         return releaseCount;
+      }
+   }
+
+   /**
+    * Close expired sockets and schedule next check if pool is not empty.
+    */
+   private static void reap()
+   {
+      List<Socket> expired = new ArrayList<Socket>();
+      boolean schedule;
+      synchronized (IDLE)
+      {
+         removeExpired(System.currentTimeMillis(), expired);
+         schedule = reapScheduled = idleCount > 0;
+      }
+      close(expired);
+      if (schedule)
+         REAPER.setTimeout(REAP);
+   }
+
+   /**
+    * Check is socket is not closed and server did not send anything
+    * unexpected. Socket closed by server is not detected here, it is not
+    * worth blocking read, request is retried if it fails on such socket.
+    */
+   private static boolean isAlive(Socket socket)
+   {
+      if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown())
+         return false;
+      try
+      {
+         return socket.getInputStream().available() == 0;
+      }
+      catch (IOException e)
+      {
+         return false;
+      }
+   }
+
+   private static void removeExpired(long now, List<Socket> expired)
+   {
+      for (Iterator<List<PooledSocket>> i = IDLE.values().iterator(); i.hasNext();)
+      {
+         List<PooledSocket> list = i.next();
+         for (Iterator<PooledSocket> j = list.iterator(); j.hasNext();)
+         {
+            PooledSocket pooled = j.next();
+            if (pooled.expires <= now)
+            {
+               j.remove();
+               idleCount--;
+               expired.add(pooled.socket);
+            }
+         }
+         if (list.isEmpty())
+            i.remove();
+      }
+   }
+
+   private static void removeOldest(List<Socket> discarded)
+   {
+      String oldestKey = null;
+      PooledSocket oldest = null;
+      for (Map.Entry<String, List<PooledSocket>> e : IDLE.entrySet())
+      {
+         PooledSocket first = e.getValue().get(0);
+         if (oldest == null || first.expires < oldest.expires)
+         {
+            oldest = first;
+            oldestKey = e.getKey();
+         }
+      }
+      if (oldest != null)
+      {
+         List<PooledSocket> list = IDLE.get(oldestKey);
+         list.remove(0);
+         if (list.isEmpty())
+            IDLE.remove(oldestKey);
+         idleCount--;
+         discarded.add(oldest.socket);
+      }
+   }
+
+   private static void close(List<Socket> sockets)
+   {
+      for (Socket socket : sockets)
+         close(socket);
+   }
+
+   private static void close(Socket socket)
+   {
+      try
+      {
+         socket.close();
+      }
+      catch (IOException e)
+      {
+         if (LOG.isTraceEnabled())
+            LOG.trace("An exception occurred: " + e.getMessage());
+      }
+   }
+}
@@ -46,6 +46,7 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.ConnectException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.NoRouteToHostException;
 import java.net.Socket;
 import java.net.SocketException;
@@ -55,6 +56,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -257,6 +260,12 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
    /** have we been able to determine the above yet? */
    private boolean keepAliveUnknown = true;
 
+   /**
+    * number of requests the server accepts over socket obtained from the
+    * ConnectionManager, or -1
+    */
+   private int leasedRequestsLeft = -1;
+
    /** the maximum number of requests over a HTTP/1.0 keep-alive connection */
    private int keepAliveReqMax = -1;
 
@@ -290,6 +299,9 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
    /** the timeout to use for reading responses */
    private int Timeout;
 
+   /** the transport for the asynchronous requests, null for the default */
+   private NioTransport nioTransport = null;
+
    /** The list of default http headers */
    private NVPair[] DefaultHeaders = new NVPair[0];
 
@@ -1791,6 +1803,110 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
       return setupRequest(method.trim(), stripRef(file), headers, null, os);
    }
 
+   /**
+    * GETs the file without blocking. The request and the response are handled
+    * by the same modules as for <code>Get()</code>, but they are sent and read
+    * by the non-blocking transport, so the calling thread does not wait for
+    * the server. The returned future is completed when the whole response is
+    * received. The response modules are invoked when the response is first
+    * accessed; any new request they generate (e.g. for a redirection) is sent
+    * with the same transport and waited for in the thread accessing the
+    * response. Note that dependent actions of the future run in the thread
+    * completing it, which is a thread of <code>ForkJoinPool.commonPool()</code>
+    * unless the transport is created with its own executor; an action that
+    * accesses the response may block that thread while a redirection or an
+    * authorization is handled, so use the transport with a dedicated executor
+    * or the async methods of the future with one in that case.
+    * @param file the absolute path of the file
+    * @return the future of the HTTPResponse
+    * @see #setNioTransport(NioTransport)
+    */
+   public CompletableFuture<HTTPResponse> GetAsync(String file)
+   {
+      return GetAsync(file, null, null);
+   }
+
+   /**
+    * GETs the file with a query consisting of the specified form-data without
+    * blocking.
+    * @param file the absolute path of the file
+    * @param form_data an array of Name/Value pairs
+    * @param headers additional headers
+    * @return the future of the HTTPResponse
+    * @see #GetAsync(String)
+    */
+   public CompletableFuture<HTTPResponse> GetAsync(String file, NVPair[] form_data, NVPair[] headers)
+   {
+      String query = Codecs.nv2query(form_data);
+      StringBuilder resource = new StringBuilder(stripRef(file));
+
+      if (query != null && query.length() > 0)
+      {
+         resource.append("?");
+         resource.append(query);
+      }
+
+      return setupRequestAsync("GET", resource.toString(), headers, null);
+   }
+
+   /**
+    * POSTs the raw data to the specified file without blocking.
+    * @param file the absolute path of the file
+    * @param data the data
+    * @param headers additional headers
+    * @return the future of the HTTPResponse
+    * @see #GetAsync(String)
+    */
+   public CompletableFuture<HTTPResponse> PostAsync(String file, byte data[], NVPair[] headers)
+   {
+      if (data == null)
+         data = new byte[0]; // POST must always have a CL
+      return setupRequestAsync("POST", stripRef(file), headers, data);
+   }
+
+   /**
+    * PUTs the raw data into the specified file without blocking.
+    * @param file the absolute path of the file
+    * @param data the data
+    * @param headers additional headers
+    * @return the future of the HTTPResponse
+    * @see #GetAsync(String)
+    */
+   public CompletableFuture<HTTPResponse> PutAsync(String file, byte data[], NVPair[] headers)
+   {
+      if (data == null)
+         data = new byte[0]; // PUT must always have a CL
+      return setupRequestAsync("PUT", stripRef(file), headers, data);
+   }
+
+   /**
+    * Requests that <var>file</var> be DELETEd from the server without
+    * blocking.
+    * @param file the absolute path of the resource
+    * @param headers additional headers
+    * @return the future of the HTTPResponse
+    * @see #GetAsync(String)
+    */
+   public CompletableFuture<HTTPResponse> DeleteAsync(String file, NVPair[] headers)
+   {
+      return setupRequestAsync("DELETE", stripRef(file), headers, null);
+   }
+
+   /**
+    * Sends an arbitrary request without blocking.
+    * @param method the extension method
+    * @param file the absolute path of the resource, or null
+    * @param data optional data, or null
+    * @param headers optional headers, or null
+    * @return the future of the HTTPResponse
+    * @see #GetAsync(String)
+    */
+   public CompletableFuture<HTTPResponse> ExtensionMethodAsync(String method, String file, byte[] data,
+      NVPair[] headers)
+   {
+      return setupRequestAsync(method.trim(), stripRef(file), headers, data);
+   }
+
    /**
     * Aborts all the requests currently in progress on this connection and closes
     * all associated sockets. You usually do <em>not</em> need to invoke this -
@@ -1812,6 +1928,40 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
          demux.abort();
    }
 
+   /**
+    * Tells whether this connection has no requests in progress, i.e. no
+    * request is waiting for the response headers. Used by connection pools to
+    * check connection before it is reused.
+    * @return <code>true</code> if there are no requests in progress
+    */
+   public boolean isIdle()
+   {
+      return RequestList.getFirst() == null;
+   }
+
+   /**
+    * Tells whether sockets kept by this connection may be used for next
+    * request, i.e. they are not closed and server did not send anything
+    * unexpected. Socket closed by server without notice is detected only when
+    * it is used, then idempotent requests are retried once with new socket,
+    * see {@link RetryModule}. Connection which keeps no sockets, e.g. it
+    * returned them to {@link ConnectionManager}, is always alive.
+    * @return <code>true</code> if connection may be reused
+    */
+   public boolean isAlive()
+   {
+      synchronized (DemuxList)
+      {
+         for (StreamDemultiplexor demux = (StreamDemultiplexor)DemuxList.enumerate(); demux != null; demux =
+            (StreamDemultiplexor)DemuxList.next())
+         {
+            if (!demux.isAlive())
+               return false;
+         }
+      }
+      return true;
+   }
+
    /**
     * Sets the default http headers to be sent with each request. The actual
     * headers sent are determined as follows: for each header specified in
@@ -2052,6 +2202,27 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
       return Timeout;
    }
 
+   /**
+    * Sets the non-blocking transport used by the asynchronous request methods
+    * such as <code>GetAsync()</code>.
+    * @param transport the transport, or null to use the default one
+    * @see NioTransport#getDefault()
+    */
+   public void setNioTransport(NioTransport transport)
+   {
+      nioTransport = transport;
+   }
+
+   /**
+    * Gets the non-blocking transport used by the asynchronous request methods.
+    * @return the transport set for this connection, or the default one
+    */
+   public NioTransport getNioTransport()
+   {
+      NioTransport transport = nioTransport;
+      return transport != null ? transport : NioTransport.getDefault();
+   }
+
    /**
     * Controls whether modules are allowed to prompt the user or pop up dialogs
     * if neccessary.
@@ -2838,6 +3009,62 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
       }
    }
 
+   /**
+    * Sets up the request to be sent with the non-blocking transport, invokes
+    * the request handlers of the modules and sends the request. Any exception
+    * completes the returned future.
+    * @param method GET, POST, etc.
+    * @param resource the resource
+    * @param headers an array of headers to be used
+    * @param entity the entity (or null)
+    * @return the future of the response.
+    */
+   protected final CompletableFuture<HTTPResponse> setupRequestAsync(String method, String resource,
+      NVPair[] headers, byte[] entity)
+   {
+      final CompletableFuture<HTTPResponse> result = new CompletableFuture<HTTPResponse>();
+      Request req = new Request(this, method, resource, mergedHeaders(headers), entity, null, allowUI);
+      req.nio_transport = getNioTransport();
+      RequestList.addToEnd(req);
+
+      try
+      {
+         final HTTPResponse resp = new HTTPResponse(gen_mod_insts(), Timeout, req);
+         handleRequest(req, resp, null, true);
+         if (req.nio_pending == null)
+         {
+            // a module generated the response
+            result.complete(resp);
+         }
+         else
+         {
+            req.nio_pending.whenComplete(new BiConsumer<Void, Throwable>()
+            {
+               public void accept(Void ignored, Throwable error)
+               {
+                  if (error != null)
+                     result.completeExceptionally(error);
+                  else
+                     result.complete(resp);
+               }
+            });
+         }
+      }
+      catch (IOException ioe)
+      {
+         result.completeExceptionally(ioe);
+      }
+      catch (ModuleException me)
+      {
+         result.completeExceptionally(me);
+      }
+      finally
+      {
+         RequestList.remove(req);
+      }
+      return result;
+   }
+
    /**
     * This merges built-in default headers, user-specified default headers, and
     * method-specified headers. Method-specified take precedence over user
@@ -2989,7 +3216,9 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 
       // Send the request across the wire
 
-      if (req.getStream() != null && req.getStream().getLength() == -1)
+      if (req.nio_transport != null)
+         http_resp.set(req, sendRequestAsync(req, http_resp.getTimeout()));
+      else if (req.getStream() != null && req.getStream().getLength() == -1)
       {
          if (!ServProtVersKnown || ServerProtocolVersion < HTTP_1_1 || no_chunked)
          {
@@ -3233,6 +3462,15 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
                   input_demux = new StreamDemultiplexor(Protocol, sock, this);
                   DemuxList.addToEnd(input_demux);
                   keepAliveReqLeft = keepAliveReqMax;
+                  if (leasedRequestsLeft != -1)
+                  {
+                     // socket was used by other connection, the server
+                     // limited number of requests on it (Keep-Alive: max=n)
+                     if (keepAliveReqMax == -1 || leasedRequestsLeft - 1 < keepAliveReqLeft)
+                        keepAliveReqLeft = leasedRequestsLeft - 1;
+                     if (keepAliveReqMax == -1)
+                        keepAliveReqMax = leasedRequestsLeft;
+                  }
                }
 
                if (req.aborted)
@@ -3448,6 +3686,59 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
       return resp;
    }
 
+   /**
+    * sends the request with the non-blocking transport. Requests sent this way
+    * are never pipelined, so there is no need to wait for the previous
+    * responses.
+    * @param req the request; it must not have an output stream
+    * @param timeout the max time in milliseconds between two reads, 0 means
+    *          wait indefinitely
+    * @return the response; reading from it blocks until the exchange is
+    *         completed, see <var>req.nio_pending</var>
+    * @exception IOException if the request can't be sent
+    * @exception ProtocolNotSuppException if the connection uses https or a
+    *              SOCKS server
+    */
+   Response sendRequestAsync(Request req, int timeout) throws IOException
+   {
+      if (Protocol != HTTP || Socks_client != null)
+         throw new ProtocolNotSuppException("Non-blocking transport does not support "
+            + (Socks_client != null ? "SOCKS servers" : getProtocol()));
+      if (req.getStream() != null)
+         throw new IOException("Non-blocking transport does not support output streams");
+      if (req.aborted)
+         throw new IOException("Request aborted by user");
+
+      ByteArrayOutputStream hdr_buf = new ByteArrayOutputStream(600);
+      String[] con_hdrs = assembleHeaders(req, hdr_buf);
+      if (req.getData() != null)
+         hdr_buf.write(req.getData());
+
+      boolean keep_alive;
+      try
+      {
+         keep_alive = !Util.hasToken(con_hdrs[0], "close");
+      }
+      catch (ParseException pe)
+      {
+         throw new IOException(pe.toString(), pe);
+      }
+
+      // resolve the address here, not in the selector thread
+      InetSocketAddress address =
+         Proxy_Host != null ? new InetSocketAddress(Proxy_Host, Proxy_Port) : new InetSocketAddress(Host, Port);
+
+      NioTransport.Exchange exchange =
+         req.nio_transport.send(address, hdr_buf.toByteArray(), req.getMethod().equals("HEAD"),
+            IdempotentSequence.methodIsIdempotent(req.getMethod()), keep_alive, timeout);
+      req.nio_pending = exchange.getFuture();
+
+      if (LOG.isDebugEnabled())
+         LOG.debug("Request sent with non-blocking transport");
+
+      return new Response(req, exchange.getInputStream());
+   }
+
    /**
     * Gets a socket. Creates a socket to the proxy if set, or else to the actual
     * destination.
@@ -3459,6 +3750,29 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
    {
       Socket sock = null;
 
+      leasedRequestsLeft = -1;
+      String key = getSocketKey();
+      if (key != null)
+      {
+         ConnectionManager.PooledSocket pooled = ConnectionManager.lease(key);
+         if (pooled != null)
+         {
+            // server kept this socket alive for other connection
+            if (!ServProtVersKnown && pooled.protocolVersion != -1)
+            {
+               ServerProtocolVersion = pooled.protocolVersion;
+               ServProtVersKnown = true;
+            }
+            if (keepAliveUnknown)
+            {
+               doesKeepAlive = true;
+               keepAliveUnknown = false;
+            }
+            leasedRequestsLeft = pooled.requestsLeft;
+            return pooled.socket;
+         }
+      }
+
       String actual_host;
       int actual_port;
 
@@ -3527,6 +3841,26 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
       return sock;
    }
 
+   /**
+    * Returns the key of sockets of this connection in the ConnectionManager.
+    * Sockets are shared only for plain HTTP connections which don't use a
+    * SOCKS server.
+    * @return the key or null if sockets of this connection may not be shared
+    */
+   String getSocketKey()
+   {
+      if (Protocol != HTTP || noKeepAlives || Socks_client != null || !ConnectionManager.isEnabled())
+         return null;
+
+      StringBuilder key = new StringBuilder();
+      key.append("http://").append(Host).append(':').append(Port);
+      if (Proxy_Host != null)
+         key.append(" via ").append(Proxy_Host).append(':').append(Proxy_Port);
+      if (LocalAddr != null)
+         key.append(" from ").append(LocalAddr.getHostAddress()).append(':').append(LocalPort);
+      return key.toString();
+   }
+
    /**
     * Enable SSL Tunneling if we're talking to a proxy. See ietf draft
     * draft-luotonen-ssl-tunneling-03 for more info.
@@ -0,0 +1,1089 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.common.http.client;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking transport for requests sent with asynchronous methods of
+ * {@link HTTPConnection}, e.g. {@link HTTPConnection#GetAsync(String)}. One
+ * selector thread writes requests and reads responses of all exchanges, so
+ * number of requests in progress is not limited by number of threads.
+ * <p>
+ * Transport only frames messages: it writes request prepared by
+ * {@link HTTPConnection} and reads response up to the end of its entity, which
+ * is determined by <code>Content-Length</code>, chunked transfer coding or
+ * closing of connection. Raw response is then parsed by {@link Response} and
+ * handled by modules of connection in the same way as response read from
+ * blocking socket. Entire response is kept in memory, exchange fails if
+ * response is bigger then {@link #getMaxResponseSize()}.
+ * </p>
+ * <p>
+ * Connections are kept alive when both sides allow it, and idle connections
+ * are reused by next requests to the same host and port. Requests are never
+ * pipelined, each exchange takes whole connection. Transport is configured
+ * with system properties:
+ * <ul>
+ * <li><code>HTTPClient.nio.maxIdlePerRoute</code> - max number of idle
+ * connections per host and port, default 8</li>
+ * <li><code>HTTPClient.nio.idleTimeout</code> - time in milliseconds after
+ * which idle connection is closed, default 15000</li>
+ * <li><code>HTTPClient.nio.maxResponseSize</code> - max size in bytes of raw
+ * response including headers, default 67108864 (64 MB), not limited if
+ * value is not positive</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Futures of exchanges are completed by <code>executor</code>, never by
+ * selector thread. Dependent actions may block, e.g. read response which
+ * requires new request to be sent by some module, without stopping the
+ * transport.
+ * </p>
+ *
+ * @version $Id: $
+ */
+public final class NioTransport
+{
+
+   private static final Log LOG = ExoLogger.getLogger("exo.ws.commons.NioTransport");
+
+   private static final int MAX_IDLE_PER_ROUTE = Integer.getInteger("HTTPClient.nio.maxIdlePerRoute", 8);
+
+   private static final long IDLE_TIMEOUT = Long.getLong("HTTPClient.nio.idleTimeout", 15000);
+
+   private static final long MAX_RESPONSE_SIZE = Long.getLong("HTTPClient.nio.maxResponseSize", 64 * 1024 * 1024);
+
+   /**
+    * Max time of single select when there are timeouts to check. Timeouts are
+    * checked not more often then once per this interval.
+    */
+   private static final long SELECT_TIMEOUT = 250;
+
+   private static final int BUFFER_SIZE = 16384;
+
+   private static NioTransport defaultTransport;
+
+   /**
+    * Idle keep-alive connection. Used as attachment of selection key of
+    * channel when no exchange uses it.
+    */
+   private static final class Idle
+   {
+      final String route;
+
+      final SocketChannel channel;
+
+      final long since;
+
+      Idle(String route, SocketChannel channel, long since)
+      {
+         this.route = route;
+         this.channel = channel;
+         this.since = since;
+      }
+   }
+
+   // Response framing states
+   private static final int HEADERS = 0;
+
+   private static final int BODY = 1;
+
+   private static final int CHUNK_SIZE = 2;
+
+   private static final int CHUNK_DATA = 3;
+
+   private static final int CHUNK_END = 4;
+
+   private static final int TRAILERS = 5;
+
+   private static final int UNTIL_CLOSE = 6;
+
+   private static final int DONE = 7;
+
+   /**
+    * Single request and response. Fields used for framing are accessed by
+    * selector thread only.
+    */
+   final class Exchange
+   {
+      final InetSocketAddress address;
+
+      final String route;
+
+      final ByteBuffer request;
+
+      final boolean head;
+
+      final boolean idempotent;
+
+      final boolean keepAlive;
+
+      final int timeout;
+
+      private final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+      private SocketChannel channel;
+
+      private boolean reused;
+
+      /** Exchange is sent again after failure of reused connection. */
+      private boolean retried;
+
+      private long deadline;
+
+      private int state = HEADERS;
+
+      private byte[] buf = new byte[1024];
+
+      private int len;
+
+      private int pos;
+
+      private long remaining;
+
+      private boolean reusable;
+
+      private boolean finished;
+
+      /** Raw response, set when response is received completely. */
+      private byte[] response;
+
+      /** Length of raw response, it is shorter then its buffer. */
+      private int responseLength;
+
+      private IOException error;
+
+      Exchange(InetSocketAddress address, byte[] request, boolean head, boolean idempotent, boolean keepAlive,
+         int timeout)
+      {
+         this.address = address;
+         this.route = address.getHostName() + ":" + address.getPort();
+         this.request = ByteBuffer.wrap(request);
+         this.head = head;
+         this.idempotent = idempotent;
+         this.keepAlive = keepAlive;
+         this.timeout = timeout;
+      }
+
+      /**
+       * @return future which is completed when whole response is received
+       */
+      CompletableFuture<Void> getFuture()
+      {
+         return future;
+      }
+
+      /**
+       * @return stream of raw response, reading from it blocks until response
+       *         is received
+       */
+      InputStream getInputStream()
+      {
+         return new ExchangeInputStream(this);
+      }
+
+      private void touch(long now)
+      {
+         deadline = timeout > 0 ? now + timeout : Long.MAX_VALUE;
+      }
+
+      /**
+       * Prepare exchange to be sent again over new connection.
+       */
+      private void reset()
+      {
+         request.rewind();
+         channel = null;
+         reused = false;
+         state = HEADERS;
+         len = 0;
+         pos = 0;
+      }
+
+      private void append(ByteBuffer src)
+      {
+         int n = src.remaining();
+         if (len + n > buf.length)
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, len + n));
+         src.get(buf, len, n);
+         len += n;
+      }
+
+      /**
+       * Parse data received so far.
+       * @return <code>true</code> if response is received completely
+       * @throws ProtocolException if response is malformed
+       */
+      private boolean parse() throws ProtocolException
+      {
+         while (true)
+         {
+            switch (state)
+            {
+               case HEADERS : {
+                  int end = endOfHeaders();
+                  if (end == -1)
+                     return false;
+                  String headers = new String(buf, pos, end - pos, StandardCharsets.ISO_8859_1);
+                  pos = end;
+                  parseHeaders(headers);
+                  break;
+               }
+               case BODY :
+                  if (len - pos < remaining)
+                     return false;
+                  pos += remaining;
+                  state = DONE;
+                  break;
+               case CHUNK_SIZE : {
+                  int end = endOfLine();
+                  if (end == -1)
+                     return false;
+                  String line = new String(buf, pos, end - pos, StandardCharsets.ISO_8859_1).trim();
+                  pos = end;
+                  int ext = line.indexOf(';');
+                  if (ext != -1)
+                     line = line.substring(0, ext).trim();
+                  try
+                  {
+                     remaining = Long.parseLong(line, 16);
+                  }
+                  catch (NumberFormatException e)
+                  {
+                     throw new ProtocolException("Invalid chunk size received: " + line);
+                  }
+                  if (remaining < 0)
+                     throw new ProtocolException("Invalid chunk size received: " + line);
+                  state = remaining == 0 ? TRAILERS : CHUNK_DATA;
+                  break;
+               }
+               case CHUNK_DATA :
+                  if (len - pos < remaining)
+                     return false;
+                  pos += remaining;
+                  state = CHUNK_END;
+                  break;
+               case CHUNK_END : {
+                  int end = endOfLine();
+                  if (end == -1)
+                     return false;
+                  pos = end;
+                  state = CHUNK_SIZE;
+                  break;
+               }
+               case TRAILERS : {
+                  int end = endOfLine();
+                  if (end == -1)
+                     return false;
+                  boolean empty = buf[pos] == '\n' || (buf[pos] == '\r' && end - pos == 2);
+                  pos = end;
+                  if (empty)
+                     state = DONE;
+                  break;
+               }
+               case UNTIL_CLOSE :
+                  pos = len;
+                  return false;
+               default :
+                  // Server must not send anything after response, we do not
+                  // pipeline requests.
+                  if (len > pos)
+                     reusable = false;
+                  return true;
+            }
+         }
+      }
+
+      private void parseHeaders(String headers) throws ProtocolException
+      {
+         String[] lines = headers.split("\r?\n");
+         String[] status = lines[0].trim().split(" +", 3);
+         if (status.length < 2 || !status[0].startsWith("HTTP/"))
+            throw new ProtocolException("Invalid HTTP status line received: " + lines[0]);
+         int code;
+         try
+         {
+            code = Integer.parseInt(status[1]);
+         }
+         catch (NumberFormatException e)
+         {
+            throw new ProtocolException("Invalid HTTP status code received: " + lines[0]);
+         }
+
+         String contentLength = null;
+         String transferEncoding = null;
+         String connection = null;
+         for (int i = 1; i < lines.length; i++)
+         {
+            int sep = lines[i].indexOf(':');
+            if (sep == -1)
+               continue;
+            String name = lines[i].substring(0, sep).trim();
+            String value = lines[i].substring(sep + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length"))
+               contentLength = value;
+            else if (name.equalsIgnoreCase("Transfer-Encoding"))
+               transferEncoding = transferEncoding == null ? value : transferEncoding + ", " + value;
+            else if (name.equalsIgnoreCase("Connection"))
+               connection = connection == null ? value : connection + ", " + value;
+         }
+
+         if (code >= 100 && code < 200 && code != 101)
+         {
+            // interim response, Response skips it too
+            return;
+         }
+
+         try
+         {
+            if (status[0].equals("HTTP/1.0"))
+               reusable = connection != null && Util.hasToken(connection, "keep-alive");
+            else
+               reusable = connection == null || !Util.hasToken(connection, "close");
+         }
+         catch (ParseException e)
+         {
+            reusable = false;
+         }
+
+         if (code == 101)
+         {
+            // protocol is changed, connection can't be used for HTTP any more
+            reusable = false;
+            state = DONE;
+         }
+         else if (head || code == 204 || code == 304)
+         {
+            state = DONE;
+         }
+         else if (transferEncoding != null && transferEncoding.trim().toLowerCase().endsWith("chunked"))
+         {
+            state = CHUNK_SIZE;
+         }
+         else if (contentLength != null)
+         {
+            try
+            {
+               remaining = Long.parseLong(contentLength);
+            }
+            catch (NumberFormatException e)
+            {
+               throw new ProtocolException("Invalid Content-length header received: " + contentLength);
+            }
+            if (remaining < 0)
+               throw new ProtocolException("Invalid Content-length header received: " + contentLength);
+            state = BODY;
+         }
+         else
+         {
+            reusable = false;
+            state = UNTIL_CLOSE;
+         }
+      }
+
+      /**
+       * @return position after the empty line which ends headers or -1 if
+       *         headers are not received completely
+       */
+      private int endOfHeaders()
+      {
+         for (int i = pos; i < len; i++)
+         {
+            if (buf[i] != '\n')
+               continue;
+            if (i + 1 < len && buf[i + 1] == '\n')
+               return i + 2;
+            if (i + 2 < len && buf[i + 1] == '\r' && buf[i + 2] == '\n')
+               return i + 3;
+         }
+         return -1;
+      }
+
+      /**
+       * @return position after the end of current line or -1 if line is not
+       *         received completely
+       */
+      private int endOfLine()
+      {
+         for (int i = pos; i < len; i++)
+         {
+            if (buf[i] == '\n')
+               return i + 1;
+         }
+         return -1;
+      }
+
+      private void complete()
+      {
+         synchronized (this)
+         {
+            // Buffer is not used by selector thread any more.
+            response = buf;
+            responseLength = len;
+            buf = null;
+            notifyAll();
+         }
+         execute(new Runnable()
+         {
+            public void run()
+            {
+               future.complete(null);
+            }
+         });
+      }
+
+      private void fail(final IOException e)
+      {
+         synchronized (this)
+         {
+            if (response != null || error != null)
+               return;
+            error = e;
+            buf = null;
+            notifyAll();
+         }
+         execute(new Runnable()
+         {
+            public void run()
+            {
+               future.completeExceptionally(e);
+            }
+         });
+      }
+
+      /**
+       * Wait until response is received.
+       * @return stream of raw response
+       * @throws IOException if exchange failed
+       */
+      private synchronized InputStream await() throws IOException
+      {
+         while (response == null && error == null)
+         {
+            try
+            {
+               wait();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               throw new InterruptedIOException("Interrupted while waiting for response");
+            }
+         }
+         if (error != null)
+         {
+            error.fillInStackTrace();
+            throw error;
+         }
+         return new ByteArrayInputStream(response, 0, responseLength);
+      }
+
+      private synchronized boolean isDone()
+      {
+         return response != null || error != null;
+      }
+   }
+
+   /**
+    * Stream of raw response. It blocks until whole response is received.
+    */
+   private static final class ExchangeInputStream extends InputStream
+   {
+      private final Exchange exchange;
+
+      private InputStream in;
+
+      private boolean closed;
+
+      ExchangeInputStream(Exchange exchange)
+      {
+         this.exchange = exchange;
+      }
+
+      private InputStream stream() throws IOException
+      {
+         if (closed)
+            throw new IOException("Stream closed");
+         if (in == null)
+            in = exchange.await();
+         return in;
+      }
+
+      public synchronized int read() throws IOException
+      {
+         return stream().read();
+      }
+
+      public synchronized int read(byte[] b, int off, int len) throws IOException
+      {
+         return stream().read(b, off, len);
+      }
+
+      public synchronized int available() throws IOException
+      {
+         if (in == null && !exchange.isDone())
+            return 0;
+         return stream().available();
+      }
+
+      public synchronized void close()
+      {
+         closed = true;
+         in = null;
+      }
+   }
+
+   private final Executor executor;
+
+   private final Object lock = new Object();
+
+   private final ConcurrentLinkedQueue<Exchange> queue = new ConcurrentLinkedQueue<Exchange>();
+
+   /** Idle connections, most recently used last. Used by selector thread only. */
+   private final Map<String, ArrayDeque<Idle>> idle = new HashMap<String, ArrayDeque<Idle>>();
+
+   private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+   private Selector selector;
+
+   private Thread thread;
+
+   private volatile boolean closed;
+
+   private final AtomicInteger active = new AtomicInteger();
+
+   private volatile int idleCount;
+
+   private final AtomicLong exchangeCount = new AtomicLong();
+
+   private final AtomicLong openCount = new AtomicLong();
+
+   private final AtomicLong reuseCount = new AtomicLong();
+
+   private volatile long maxResponseSize = MAX_RESPONSE_SIZE;
+
+   /**
+    * Create transport which completes futures of exchanges with
+    * {@link ForkJoinPool#commonPool()}.
+    */
+   public NioTransport()
+   {
+      this(ForkJoinPool.commonPool());
+   }
+
+   /**
+    * @param executor executor which completes futures of exchanges
+    */
+   public NioTransport(Executor executor)
+   {
+      if (executor == null)
+         throw new IllegalArgumentException("Executor may not be null. ");
+      this.executor = executor;
+   }
+
+   /**
+    * @return transport used by connections which have no transport set
+    *         explicitly
+    */
+   public static synchronized NioTransport getDefault()
+   {
+      if (defaultTransport == null || defaultTransport.closed)
+         defaultTransport = new NioTransport();
+      return defaultTransport;
+   }
+
+   /**
+    * Start exchange.
+    * @param address address of server, must be resolved
+    * @param request raw request
+    * @param head <code>true</code> if response has no entity whatever its
+    *          headers say, i.e. request method is HEAD
+    * @param idempotent <code>true</code> if request may be sent again when
+    *          reused connection turns out to be closed by server
+    * @param keepAlive <code>false</code> if request asks server to close
+    *          connection
+    * @param timeout max time in milliseconds between two reads, 0 if not
+    *          limited
+    * @return new exchange
+    * @throws IOException if transport is closed or address is not resolved
+    */
+   Exchange send(InetSocketAddress address, byte[] request, boolean head, boolean idempotent, boolean keepAlive,
+      int timeout) throws IOException
+   {
+      if (address.isUnresolved())
+         throw new UnknownHostException(address.getHostName());
+      Exchange exchange = new Exchange(address, request, head, idempotent, keepAlive, timeout);
+      synchronized (lock)
+      {
+         if (closed)
+            throw new IOException("Transport is closed");
+         if (thread == null)
+            start();
+         queue.add(exchange);
+      }
+      exchangeCount.incrementAndGet();
+      active.incrementAndGet();
+      selector.wakeup();
+      return exchange;
+   }
+
+   /**
+    * Close all connections and stop selector thread. Exchanges in progress
+    * fail.
+    */
+   public void close()
+   {
+      synchronized (lock)
+      {
+         closed = true;
+         if (selector != null)
+            selector.wakeup();
+      }
+   }
+
+   /**
+    * @return <code>true</code> if transport is closed
+    */
+   public boolean isClosed()
+   {
+      return closed;
+   }
+
+   /**
+    * @return number of exchanges in progress
+    */
+   public int getActiveCount()
+   {
+      return active.get();
+   }
+
+   /**
+    * @return number of idle keep-alive connections
+    */
+   public int getIdleCount()
+   {
+      return idleCount;
+   }
+
+   /**
+    * @return total number of exchanges
+    */
+   public long getExchangeCount()
+   {
+      return exchangeCount.get();
+   }
+
+   /**
+    * @return number of opened connections
+    */
+   public long getOpenCount()
+   {
+      return openCount.get();
+   }
+
+   /**
+    * @return number of exchanges sent over idle keep-alive connection
+    */
+   public long getReuseCount()
+   {
+      return reuseCount.get();
+   }
+
+   /**
+    * @return max size in bytes of raw response, not limited if not positive
+    */
+   public long getMaxResponseSize()
+   {
+      return maxResponseSize;
+   }
+
+   /**
+    * Set max size of raw response. Exchange fails if response is bigger.
+    * @param maxResponseSize max size in bytes, not limited if not positive
+    */
+   public void setMaxResponseSize(long maxResponseSize)
+   {
+      this.maxResponseSize = maxResponseSize;
+   }
+
+   private void start() throws IOException
+   {
+      selector = Selector.open();
+      thread = new Thread("HTTPClient-NIO")
+      {
+         public void run()
+         {
+            NioTransport.this.run();
+         }
+      };
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   private void run()
+   {
+      long lastCheck = System.currentTimeMillis();
+      try
+      {
+         while (!closed)
+         {
+            Exchange exchange;
+            while ((exchange = queue.poll()) != null)
+               begin(exchange);
+
+            if (selector.keys().isEmpty())
+               selector.select();
+            else
+               selector.select(SELECT_TIMEOUT);
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext())
+            {
+               SelectionKey key = keys.next();
+               keys.remove();
+               process(key);
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastCheck >= SELECT_TIMEOUT)
+            {
+               checkTimeouts(now);
+               lastCheck = now;
+            }
+         }
+      }
+      catch (Throwable e)
+      {
+         LOG.error("Non-blocking transport failed", e);
+      }
+      finally
+      {
+         shutdown();
+      }
+   }
+
+   private void shutdown()
+   {
+      synchronized (lock)
+      {
+         closed = true;
+      }
+      IOException e = new IOException("Transport is closed");
+      for (SelectionKey key : new ArrayList<SelectionKey>(selector.keys()))
+      {
+         Object attachment = key.attachment();
+         if (attachment instanceof Exchange)
+            done((Exchange)attachment, e);
+         close(key.channel());
+      }
+      Exchange exchange;
+      while ((exchange = queue.poll()) != null)
+         done(exchange, e);
+      idle.clear();
+      idleCount = 0;
+      try
+      {
+         selector.close();
+      }
+      catch (IOException ioe)
+      {
+         LOG.debug(ioe.getMessage(), ioe);
+      }
+   }
+
+   private void begin(Exchange exchange)
+   {
+      long now = System.currentTimeMillis();
+      exchange.touch(now);
+      // Retry is sent over new connection, idle ones may be stale as well.
+      SocketChannel channel = exchange.retried ? null : lease(exchange.route, now);
+      try
+      {
+         if (channel != null)
+         {
+            reuseCount.incrementAndGet();
+            exchange.reused = true;
+            exchange.channel = channel;
+            channel.register(selector, SelectionKey.OP_WRITE, exchange);
+            return;
+         }
+         channel = SocketChannel.open();
+         exchange.channel = channel;
+         channel.configureBlocking(false);
+         channel.socket().setTcpNoDelay(true);
+         openCount.incrementAndGet();
+         if (channel.connect(exchange.address))
+            channel.register(selector, SelectionKey.OP_WRITE, exchange);
+         else
+            channel.register(selector, SelectionKey.OP_CONNECT, exchange);
+      }
+      catch (IOException e)
+      {
+         failOrRetry(exchange, e);
+      }
+   }
+
+   private void process(SelectionKey key)
+   {
+      SocketChannel channel = (SocketChannel)key.channel();
+      Object attachment = key.attachment();
+      if (attachment instanceof Idle)
+      {
+         // Idle connection is readable only when server closes it.
+         removeIdle((Idle)attachment);
+         close(channel);
+         return;
+      }
+
+      Exchange exchange = (Exchange)attachment;
+      try
+      {
+         if (key.isConnectable())
+         {
+            if (!channel.finishConnect())
+               return;
+            key.interestOps(SelectionKey.OP_WRITE);
+         }
+         if ((key.interestOps() & SelectionKey.OP_WRITE) != 0)
+         {
+            channel.write(exchange.request);
+            if (!exchange.request.hasRemaining())
+               key.interestOps(SelectionKey.OP_READ);
+            exchange.touch(System.currentTimeMillis());
+         }
+         else if (key.isReadable())
+         {
+            read(key, exchange);
+         }
+      }
+      catch (IOException e)
+      {
+         failOrRetry(exchange, e);
+      }
+   }
+
+   private void read(SelectionKey key, Exchange exchange) throws IOException
+   {
+      SocketChannel channel = (SocketChannel)key.channel();
+      readBuffer.clear();
+      int n = channel.read(readBuffer);
+      if (n == -1)
+      {
+         if (exchange.state == UNTIL_CLOSE)
+         {
+            close(channel);
+            done(exchange, null);
+            return;
+         }
+         throw new EOFException("Connection closed before end of response");
+      }
+      exchange.touch(System.currentTimeMillis());
+      readBuffer.flip();
+      long max = maxResponseSize;
+      if (max > 0 && (long)exchange.len + readBuffer.remaining() > max)
+         throw new IOException("Response from " + exchange.route + " exceeds max size " + max + " bytes");
+      exchange.append(readBuffer);
+      if (exchange.parse())
+      {
+         if (exchange.reusable && exchange.keepAlive)
+            release(exchange.route, channel);
+         else
+            close(channel);
+         done(exchange, null);
+      }
+   }
+
+   /**
+    * Fail exchange. If it was sent over reused connection and nothing was
+    * received yet the server probably closed idle connection, so idempotent
+    * request is sent again, once, over new connection. Other requests fail
+    * since server may have processed them already.
+    */
+   private void failOrRetry(Exchange exchange, IOException e)
+   {
+      close(exchange.channel);
+      if (exchange.reused && exchange.len == 0 && exchange.idempotent && !exchange.retried)
+      {
+         exchange.retried = true;
+         if (LOG.isDebugEnabled())
+            LOG.debug("Idle connection to " + exchange.route + " is broken, retry request. " + e.getMessage());
+         exchange.reset();
+         begin(exchange);
+         return;
+      }
+      done(exchange, e);
+   }
+
+   private void done(Exchange exchange, IOException e)
+   {
+      if (exchange.finished)
+         return;
+      exchange.finished = true;
+      active.decrementAndGet();
+      if (e == null)
+         exchange.complete();
+      else
+         exchange.fail(e);
+   }
+
+   private void checkTimeouts(long now)
+   {
+      for (SelectionKey key : new ArrayList<SelectionKey>(selector.keys()))
+      {
+         if (!key.isValid())
+            continue;
+         Object attachment = key.attachment();
+         if (attachment instanceof Exchange)
+         {
+            Exchange exchange = (Exchange)attachment;
+            if (now > exchange.deadline)
+            {
+               close(key.channel());
+               done(exchange, new SocketTimeoutException("Read timed out"));
+            }
+         }
+         else if (attachment instanceof Idle)
+         {
+            Idle conn = (Idle)attachment;
+            if (now - conn.since > IDLE_TIMEOUT)
+            {
+               removeIdle(conn);
+               close(conn.channel);
+            }
+         }
+      }
+   }
+
+   private SocketChannel lease(String route, long now)
+   {
+      ArrayDeque<Idle> list = idle.get(route);
+      if (list == null)
+         return null;
+      Idle conn;
+      while ((conn = list.pollLast()) != null)
+      {
+         idleCount--;
+         if (conn.channel.isOpen() && now - conn.since <= IDLE_TIMEOUT)
+            break;
+         close(conn.channel);
+      }
+      if (list.isEmpty())
+         idle.remove(route);
+      return conn == null ? null : conn.channel;
+   }
+
+   private void release(String route, SocketChannel channel)
+   {
+      if (MAX_IDLE_PER_ROUTE < 1 || closed)
+      {
+         close(channel);
+         return;
+      }
+      ArrayDeque<Idle> list = idle.get(route);
+      if (list == null)
+      {
+         list = new ArrayDeque<Idle>();
+         idle.put(route, list);
+      }
+      if (list.size() >= MAX_IDLE_PER_ROUTE)
+      {
+         close(list.pollFirst().channel);
+         idleCount--;
+      }
+      Idle conn = new Idle(route, channel, System.currentTimeMillis());
+      try
+      {
+         channel.register(selector, SelectionKey.OP_READ, conn);
+      }
+      catch (IOException e)
+      {
+         close(channel);
+         if (list.isEmpty())
+            idle.remove(route);
+         return;
+      }
+      list.addLast(conn);
+      idleCount++;
+   }
+
+   private void removeIdle(Idle conn)
+   {
+      ArrayDeque<Idle> list = idle.get(conn.route);
+      if (list != null && list.remove(conn))
+      {
+         idleCount--;
+         if (list.isEmpty())
+            idle.remove(conn.route);
+      }
+   }
+
+   private void execute(Runnable task)
+   {
+      try
+      {
+         executor.execute(task);
+      }
+      catch (RejectedExecutionException e)
+      {
+         task.run();
+      }
+   }
+
+   private static void close(Channel channel)
+   {
+      if (channel == null)
+         return;
+      try
+      {
+         channel.close();
+      }
+      catch (IOException e)
+      {
+         if (LOG.isTraceEnabled())
+            LOG.trace("An exception occurred: " + e.getMessage());
+      }
+   }
+}
@@ -32,6 +32,8 @@
 
 package org.exoplatform.common.http.client;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class represents an http request. It's used by classes which implement
  * the HTTPClientModule interface.
@@ -82,6 +84,12 @@ public final class Request implements RoRequest, Cloneable
    /** is this an internally generated subrequest? */
    boolean internal_subrequest = false;
 
+   /** the non-blocking transport to send this request with, or null */
+   NioTransport nio_transport = null;
+
+   /** completed when the response to the last sent request is received */
+   CompletableFuture<Void> nio_pending = null;
+
    // Constructors
 
    /**
@@ -789,6 +789,10 @@ public final class Response implements RoResponse, GlobalConstants, Cloneable
       {
          cd_type = CD_CHUNKED;
 
+         // the stream demux de-chunks its streams itself
+         if (stream_handler == null)
+            inp_stream = new ChunkedInputStream(inp_stream);
+
          te_hdr.removeElementAt(te_hdr.size() - 1);
          if (te_hdr.size() > 0)
             setHeader("Transfer-Encoding", Util.assembleHeader(te_hdr));
@@ -0,0 +1,298 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.common.http.client;
+
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed wheel timer used to reap idle connections. It is NOT used to timeout
+ * reads or writes on a socket.
+ * <p>
+ * Wheel has one bucket per tick. Timer entry is put in the bucket of tick when
+ * it expires. Restarting or suspending of timer only updates fields of entry,
+ * it does not move entry and does not take any lock, so it may be done on each
+ * read from socket. When the timer thread reaches a bucket it checks entries:
+ * expired ones are fired, others are moved to the bucket of their actual
+ * deadline. Killed entries are dropped.
+ * </p>
+ * <p>
+ * Timer thread is started when the first entry is added and stops itself when
+ * there are no entries any more, so nothing needs to be done to shut it down.
+ * </p>
+ *
+ * @version $Id: $
+ */
+class SocketTimeout
+{
+
+   private static final Log LOG = ExoLogger.getLogger("exo.ws.commons.SocketTimeout");
+
+   /**
+    * Timer entry. Once running, the timer may be suspended (hyber()),
+    * restarted (reset()), or aborted (kill()). When the timer expires it
+    * invokes its action.
+    */
+   class TimeoutEntry
+   {
+      private volatile Runnable action;
+
+      /** Tick when entry expires. */
+      private volatile long deadline;
+
+      private volatile boolean hyber;
+
+      private volatile boolean alive = true;
+
+      TimeoutEntry(Runnable action)
+      {
+         this.action = action;
+         this.deadline = ticks + timeoutTicks;
+      }
+
+      void reset()
+      {
+         deadline = ticks + timeoutTicks;
+         hyber = false;
+      }
+
+      void hyber()
+      {
+         hyber = true;
+      }
+
+      void kill()
+      {
+         alive = false;
+         // entry stays in wheel until timer thread reaches it
+         action = null;
+      }
+   }
+
+   private final long tickMillis;
+
+   private final int timeoutTicks;
+
+   private final ConcurrentLinkedQueue<TimeoutEntry>[] wheel;
+
+   private final int mask;
+
+   /** Number of entries in wheel, including killed ones. */
+   private final AtomicInteger size = new AtomicInteger();
+
+   private final Object lock = new Object();
+
+   /** Current tick, updated by timer thread only. */
+   private volatile long ticks;
+
+   private volatile boolean running;
+
+   private volatile boolean stopped;
+
+   /**
+    * @param tickMillis duration of tick in milliseconds
+    * @param timeoutTicks number of ticks after which entry expires
+    */
+   @SuppressWarnings("unchecked")
+   SocketTimeout(long tickMillis, int timeoutTicks)
+   {
+      if (tickMillis < 1 || timeoutTicks < 1)
+         throw new IllegalArgumentException("Tick and timeout must be positive. ");
+      this.tickMillis = tickMillis;
+      this.timeoutTicks = timeoutTicks;
+      // Wheel is bigger then timeout, so entry never is moved to the current
+      // bucket.
+      int buckets = Integer.highestOneBit(timeoutTicks) << 1;
+      wheel = new ConcurrentLinkedQueue[buckets];
+      for (int i = 0; i < buckets; i++)
+         wheel[i] = new ConcurrentLinkedQueue<TimeoutEntry>();
+      mask = buckets - 1;
+   }
+
+   /**
+    * Create timer which marks <var>demux</var> for close when it expires.
+    * @param demux the demultiplexor
+    * @return new timer entry
+    */
+   TimeoutEntry setTimeout(final StreamDemultiplexor demux)
+   {
+      return setTimeout(new Runnable()
+      {
+         public void run()
+         {
+            demux.markForClose(null);
+         }
+      });
+   }
+
+   /**
+    * Create timer which runs <var>action</var> when it expires.
+    * @param action the action
+    * @return new timer entry
+    */
+   TimeoutEntry setTimeout(Runnable action)
+   {
+      TimeoutEntry entry = new TimeoutEntry(action);
+      size.incrementAndGet();
+      wheel[(int)(entry.deadline & mask)].add(entry);
+      if (!running)
+         start();
+      return entry;
+   }
+
+   /**
+    * @return number of entries in wheel, including killed entries which are
+    *         not dropped yet
+    */
+   int size()
+   {
+      return size.get();
+   }
+
+   /**
+    * @return <code>true</code> if timer thread is running
+    */
+   boolean isRunning()
+   {
+      return running;
+   }
+
+   /**
+    * Stop the timer thread. Entries are never fired after that.
+    */
+   void kill()
+   {
+      stopped = true;
+   }
+
+   private void start()
+   {
+      synchronized (lock)
+      {
+         if (running || stopped)
+            return;
+         running = true;
+      }
+      Thread thread = new Thread("SocketTimeout")
+      {
+         public void run()
+         {
+            SocketTimeout.this.run();
+         }
+      };
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MAX_PRIORITY);
+      thread.start();
+   }
+
+   private void run()
+   {
+      List<Runnable> expired = new ArrayList<Runnable>();
+      int idle = 0;
+      while (!stopped)
+      {
+         try
+         {
+            Thread.sleep(tickMillis);
+         }
+         catch (InterruptedException ie)
+         {
+         }
+
+         long tick = ticks + 1;
+         ticks = tick;
+         ConcurrentLinkedQueue<TimeoutEntry> bucket = wheel[(int)(tick & mask)];
+         TimeoutEntry entry;
+         while ((entry = bucket.poll()) != null)
+         {
+            if (!entry.alive)
+            {
+               size.decrementAndGet();
+            }
+            else if (entry.hyber)
+            {
+               // suspended, check it again later
+               wheel[(int)((tick + timeoutTicks) & mask)].add(entry);
+            }
+            else if (entry.deadline > tick)
+            {
+               // restarted, move it to bucket of actual deadline
+               wheel[(int)(entry.deadline & mask)].add(entry);
+            }
+            else
+            {
+               Runnable action = entry.action;
+               entry.kill();
+               size.decrementAndGet();
+               if (action != null)
+                  expired.add(action);
+            }
+         }
+
+         // Note: actions must not be run in the loop above because
+         // markForClose() is synchronized and may cause deadlock.
+         for (Runnable action : expired)
+         {
+            try
+            {
+               action.run();
+            }
+            catch (RuntimeException e)
+            {
+               LOG.error(e.getMessage(), e);
+            }
+         }
+         expired.clear();
+
+         if (size.get() == 0)
+         {
+            if (++idle >= timeoutTicks && stop())
+               return;
+         }
+         else
+         {
+            idle = 0;
+         }
+      }
+      synchronized (lock)
+      {
+         running = false;
+      }
+   }
+
+   /**
+    * Stop the timer thread if there are no entries.
+    * @return <code>true</code> if timer thread must stop
+    */
+   private boolean stop()
+   {
+      synchronized (lock)
+      {
+         running = false;
+         if (size.get() == 0)
+            return true;
+         // entry was added concurrently, its creator may not start new thread
+         running = true;
+         return false;
+      }
+   }
+}
@@ -67,11 +67,11 @@ class StreamDemultiplexor implements GlobalConstants
    /** timer used to close the socket if unused for a given time */
    private SocketTimeout.TimeoutEntry Timer = null;
 
-   /** timer thread which implements the timers */
-   private static SocketTimeout TimerThread = null;
-
-   /** cleanup object to stop timer thread when we're gc'd */
-   private static Object cleanup;
+   /**
+    * timer which implements the timers, its thread is stopped when there are
+    * no timers
+    */
+   private static final SocketTimeout TimerThread = new SocketTimeout(1000L, 60);
 
    /** a Vector to hold the list of response handlers were serving */
    private LinkedList RespHandlerList;
@@ -82,33 +82,19 @@ class StreamDemultiplexor implements GlobalConstants
    /** the currently set timeout for the socket */
    private int cur_timeout = 0;
 
-   private static final Log LOG = ExoLogger.getLogger("exo.ws.commons.StreamDemultiplexor");
+   /**
+    * key of socket in {@link ConnectionManager} or null if socket may not be
+    * shared
+    */
+   private String SocketKey;
 
-   static
-   {
-      TimerThread = new SocketTimeout(60);
-      TimerThread.start();
-
-      /*
-       * This is here to clean up the timer thread should the StreamDemultiplexor
-       * class be gc'd. This will not usually happen, unless the stuff is being
-       * run in an Applet or similar environment where multiple classloaders are
-       * used to load the same class multiple times. However, even in those
-       * environments it's not clear that this here will do us any good, because
-       * classes aren't usually gc'd unless their classloader is, but the timer
-       * thread keeps a reference to the classloader, and hence ought to prevent
-       * the classloader from being gc'd.
-       */
-      cleanup = new Object()
-      {
-         private final SocketTimeout timer = StreamDemultiplexor.TimerThread;
+   /**
+    * number of requests which got socket with getSocket() but are not
+    * registered yet
+    */
+   private int pending = 0;
 
-         protected void finalize()
-         {
-            timer.kill();
-         }
-      };
-   }
+   private static final Log LOG = ExoLogger.getLogger("exo.ws.commons.StreamDemultiplexor");
 
    // Constructors
 
@@ -122,6 +108,7 @@ class StreamDemultiplexor implements GlobalConstants
    {
       this.Protocol = protocol;
       this.Connection = connection;
+      this.SocketKey = connection.getSocketKey();
       RespHandlerList = new LinkedList();
       init(sock);
    }
@@ -159,6 +146,8 @@ class StreamDemultiplexor implements GlobalConstants
             throw new RetryException();
 
          RespHandlerList.addToEnd(new ResponseHandler(resp_handler, req, this));
+         if (pending > 0)
+            pending--;
       }
    }
 
@@ -571,7 +560,65 @@ class StreamDemultiplexor implements GlobalConstants
       else
       {
          closeSocketIfAllStreamsClosed();
+         releaseSocketIfIdle(resph.resp);
+      }
+   }
+
+   /**
+    * Give the socket to the {@link ConnectionManager} if all responses have
+    * been read and no more requests are going to be sent over it. After that
+    * this demux is not usable any more and the connection opens (or gets from
+    * the manager) a new socket for the next request.
+    * @param last the last response read from the socket
+    */
+   private synchronized void releaseSocketIfIdle(Response last)
+   {
+      if (SocketKey == null || last.cd_type == CD_CLOSE)
+         return;
+
+      Socket sock;
+      synchronized (RespHandlerList)
+      {
+         if (Sock == null || MarkedForClose != null || pending > 0 || RespHandlerList.getFirst() != null)
+            return;
+
+         try
+         {
+            // unexpected data, socket is not in sync with responses
+            if (Stream.available() > 0)
+               return;
+            if (cur_timeout != 0)
+               Sock.setSoTimeout(0);
+         }
+         catch (IOException ioe)
+         {
+            return;
+         }
+
+         sock = Sock;
+         Sock = null;
+         if (Timer != null)
+         {
+            Timer.kill();
+            Timer = null;
+         }
       }
+      Connection.DemuxList.remove(this);
+
+      String keepAlive = null;
+      try
+      {
+         keepAlive = last.getHeader("Keep-Alive");
+      }
+      catch (IOException ioe)
+      {
+         if (LOG.isTraceEnabled())
+         {
+            LOG.trace("An exception occurred: " + ioe.getMessage());
+         }
+      }
+      ConnectionManager.release(SocketKey, sock, Connection.ServProtVersKnown ? Connection.ServerProtocolVersion : -1,
+         keepAlive);
    }
 
    /**
@@ -633,9 +680,37 @@ class StreamDemultiplexor implements GlobalConstants
 
       if (Timer != null)
          Timer.hyber();
+      if (Sock != null)
+      {
+         // keep socket until request is registered
+         synchronized (RespHandlerList)
+         {
+            pending++;
+         }
+      }
       return Sock;
    }
 
+   /**
+    * Check is socket is not closed and server did not send anything while
+    * there are no requests. Socket closed by server is not detected here.
+    * @return <code>false</code> if socket may not be used any more
+    */
+   boolean isAlive()
+   {
+      Socket sock = Sock;
+      if (sock == null || sock.isClosed() || sock.isInputShutdown() || sock.isOutputShutdown())
+         return false;
+      try
+      {
+         return sock.getInputStream().available() == 0;
+      }
+      catch (IOException e)
+      {
+         return false;
+      }
+   }
+
    /**
     * Mark this demux to not accept any more request and to close the stream
     * after this <var>resp</var>onse or all requests have been processed, or
@@ -809,192 +884,3 @@ class StreamDemultiplexor implements GlobalConstants
       return getClass().getName() + "[Protocol=" + prot + "]";
    }
 }
-
-/**
- * This thread is used to reap idle connections. It is NOT used to timeout reads
- * or writes on a socket. It keeps a list of timer entries and expires them
- * after a given time.
- */
-class SocketTimeout extends Thread
-{
-
-   private static final Log LOG = ExoLogger.getLogger("exo.ws.commons.SocketTimeout");
-
-   private boolean alive = true;
-
-   /**
-    * This class represents a timer entry. It is used to close an inactive socket
-    * after n seconds. Once running, the timer may be suspended (hyber()),
-    * restarted (reset()), or aborted (kill()). When the timer expires it invokes
-    * markForClose() on the associated stream demultipexer.
-    */
-   class TimeoutEntry
-   {
-
-      boolean restart = false, hyber = false, alive = true;
-
-      StreamDemultiplexor demux;
-
-      TimeoutEntry next = null, prev = null;
-
-      TimeoutEntry(StreamDemultiplexor demux)
-      {
-         this.demux = demux;
-      }
-
-      void reset()
-      {
-         hyber = false;
-         if (restart)
-            return;
-         restart = true;
-
-         synchronized (time_list)
-         {
-            if (!alive)
-               return;
-
-            // remove from current position
-            next.prev = prev;
-            prev.next = next;
-
-            // and add to end of timeout list
-            next = time_list[current];
-            prev = time_list[current].prev;
-            prev.next = this;
-            next.prev = this;
-         }
-      }
-
-      void hyber()
-      {
-         if (alive)
-            hyber = true;
-      }
-
-      void kill()
-      {
-         alive = false;
-         restart = false;
-         hyber = false;
-
-         synchronized (time_list)
-         {
-            if (prev == null)
-               return;
-            next.prev = prev;
-            prev.next = next;
-            prev = null;
-         }
-      }
-   }
-
-   TimeoutEntry[] time_list; // jdk 1.1.x javac bug: these must not
-
-   int current; // be private!
-
-   SocketTimeout(int secs)
-   {
-      super("SocketTimeout");
-
-      try
-      {
-         setDaemon(true);
-      }
-      catch (SecurityException se)
-      {
-         if (LOG.isTraceEnabled())
-         {
-            LOG.trace("An exception occurred: " + se.getMessage());
-         }
-      } // Oh well...
-      setPriority(MAX_PRIORITY);
-
-      time_list = new TimeoutEntry[secs];
-      for (int idx = 0; idx < secs; idx++)
-      {
-         time_list[idx] = new TimeoutEntry(null);
-         time_list[idx].next = time_list[idx].prev = time_list[idx];
-      }
-      current = 0;
-   }
-
-   public TimeoutEntry setTimeout(StreamDemultiplexor demux)
-   {
-      TimeoutEntry entry = new TimeoutEntry(demux);
-      synchronized (time_list)
-      {
-         entry.next = time_list[current];
-         entry.prev = time_list[current].prev;
-         entry.prev.next = entry;
-         entry.next.prev = entry;
-      }
-
-      return entry;
-   }
-
-   /**
-    * This timer is implemented by sleeping for 1 second and then checking the
-    * timer list.
-    */
-   public void run()
-   {
-      TimeoutEntry marked = null;
-
-      while (alive)
-      {
-         try
-         {
-            sleep(1000L);
-         }
-         catch (InterruptedException ie)
-         {
-         }
-
-         synchronized (time_list)
-         {
-            // reset all restart flags
-            for (TimeoutEntry entry = time_list[current].next; entry != time_list[current]; entry = entry.next)
-            {
-               entry.restart = false;
-            }
-
-            current++;
-            if (current >= time_list.length)
-               current = 0;
-
-            // remove all expired timers
-            for (TimeoutEntry entry = time_list[current].next; entry != time_list[current]; entry = entry.next)
-            {
-               if (entry.alive && !entry.hyber)
-               {
-                  TimeoutEntry prev = entry.prev;
-                  entry.kill();
-                  /*
-                   * put on death row. Note: we must not invoke markForClose() here
-                   * because it is synch'd and can therefore lead to a deadlock if
-                   * that thread is trying to do a reset() or kill()
-                   */
-                  entry.next = marked;
-                  marked = entry;
-                  entry = prev;
-               }
-            }
-         }
-
-         while (marked != null)
-         {
-            marked.demux.markForClose(null);
-            marked = marked.next;
-         }
-      }
-   }
-
-   /**
-    * Stop the timer thread.
-    */
-   public void kill()
-   {
-      alive = false;
-   }
-}
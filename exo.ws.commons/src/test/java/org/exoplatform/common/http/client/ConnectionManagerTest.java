@@ -0,0 +1,211 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.common.http.client;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * @version $Id: $
+ */
+public class ConnectionManagerTest extends TestCase
+{
+
+   /**
+    * HTTP/1.1 server which responds with short text to each request. If
+    * <code>maxRequests</code> is positive server accepts only such number of
+    * requests over each socket and tells it to client with Keep-Alive header.
+    * If <code>dropIdle</code> is <code>true</code> server closes socket after
+    * each response without notice, as it does when keep-alive timeout expires.
+    * If <code>keepAliveTimeout</code> is positive server tells it to client
+    * with Keep-Alive header.
+    */
+   private static class Server extends Thread
+   {
+      private final ServerSocket socket;
+
+      private final int maxRequests;
+
+      private final boolean dropIdle;
+
+      private final int keepAliveTimeout;
+
+      private volatile int connections;
+
+      Server(int maxRequests, boolean dropIdle) throws IOException
+      {
+         this(maxRequests, dropIdle, 10);
+      }
+
+      Server(int maxRequests, boolean dropIdle, int keepAliveTimeout) throws IOException
+      {
+         this.socket = new ServerSocket(0);
+         this.maxRequests = maxRequests;
+         this.dropIdle = dropIdle;
+         this.keepAliveTimeout = keepAliveTimeout;
+         setDaemon(true);
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (true)
+            {
+               final Socket s = socket.accept();
+               connections++;
+               Thread t = new Thread()
+               {
+                  public void run()
+                  {
+                     try
+                     {
+                        serve(s);
+                     }
+                     catch (IOException e)
+                     {
+                     }
+                  }
+               };
+               t.setDaemon(true);
+               t.start();
+            }
+         }
+         catch (IOException e)
+         {
+         }
+      }
+
+      private void serve(Socket s) throws IOException
+      {
+         InputStream in = s.getInputStream();
+         OutputStream out = s.getOutputStream();
+         int served = 0;
+         while (readRequest(in))
+         {
+            served++;
+            StringBuilder resp = new StringBuilder("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n");
+            boolean last = maxRequests > 0 && served >= maxRequests;
+            if (last)
+               resp.append("Connection: close\r\n");
+            else if (maxRequests > 0)
+               resp.append("Keep-Alive: timeout=").append(keepAliveTimeout).append(", max=")
+                  .append(maxRequests - served).append("\r\n");
+            else if (keepAliveTimeout != 10)
+               resp.append("Keep-Alive: timeout=").append(keepAliveTimeout).append("\r\n");
+            resp.append("\r\nhello");
+            out.write(resp.toString().getBytes("ISO-8859-1"));
+            out.flush();
+            if (last || dropIdle)
+            {
+               s.close();
+               return;
+            }
+         }
+         s.close();
+      }
+
+      private static boolean readRequest(InputStream in) throws IOException
+      {
+         int c;
+         int empty = 0;
+         while ((c = in.read()) != -1)
+         {
+            if (c == '\n')
+            {
+               if (++empty == 2)
+                  return true;
+            }
+            else if (c != '\r')
+            {
+               empty = 0;
+            }
+         }
+         return false;
+      }
+   }
+
+   private Server server;
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      if (server != null)
+         server.socket.close();
+      ConnectionManager.closeIdle();
+      super.tearDown();
+   }
+
+   public void testShareSocket() throws Exception
+   {
+      server = new Server(0, false);
+      server.start();
+      long hits = ConnectionManager.getHitCount();
+      for (int i = 0; i < 5; i++)
+         assertEquals("hello", get());
+      assertEquals(1, server.connections);
+      assertEquals(hits + 4, ConnectionManager.getHitCount());
+      assertEquals(1, ConnectionManager.getIdleCount());
+   }
+
+   public void testKeepAliveMax() throws Exception
+   {
+      // Server accepts two requests over each socket.
+      server = new Server(2, false);
+      server.start();
+      for (int i = 0; i < 6; i++)
+         assertEquals("hello", get());
+      assertEquals(3, server.connections);
+   }
+
+   public void testClosedByServer() throws Exception
+   {
+      server = new Server(0, true);
+      server.start();
+      assertEquals("hello", get());
+      // Pooled socket is closed by server, request is retried with new socket.
+      assertEquals("hello", get());
+      assertEquals(2, server.connections);
+   }
+
+   public void testExpiredClosed() throws Exception
+   {
+      // Server keeps idle socket one second.
+      server = new Server(0, false, 1);
+      server.start();
+      assertEquals("hello", get());
+      assertEquals(1, ConnectionManager.getIdleCount());
+      // Pool is not used any more but socket is closed anyway.
+      long deadline = System.currentTimeMillis() + 10000;
+      while (ConnectionManager.getIdleCount() > 0 && System.currentTimeMillis() < deadline)
+         Thread.sleep(50);
+      assertEquals(0, ConnectionManager.getIdleCount());
+   }
+
+   private String get() throws Exception
+   {
+      HTTPConnection conn = new HTTPConnection("localhost", server.socket.getLocalPort());
+      HTTPResponse resp = conn.Get("/");
+      assertEquals(200, resp.getStatusCode());
+      return new String(resp.getData(), "ISO-8859-1");
+   }
+}
@@ -0,0 +1,346 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.common.http.client;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @version $Id: $
+ */
+public class NioTransportTest extends TestCase
+{
+
+   private static final int CONCURRENT = 200;
+
+   /**
+    * HTTP/1.1 keep-alive server. Response depends on request path:
+    * <ul>
+    * <li>/chunked - chunked entity with trailer</li>
+    * <li>/echo - entity of request</li>
+    * <li>/close - entity delimited by closing of connection</li>
+    * <li>/wait - waits until {@link #CONCURRENT} such requests are received</li>
+    * <li>/stale - 'hello' with Content-Length, next request over the same
+    * connection is read and the connection is closed without response, as if
+    * server closed idle connection while request was sent</li>
+    * <li>any other - 'hello' with Content-Length</li>
+    * </ul>
+    */
+   private static class Server extends Thread
+   {
+      private final ServerSocket socket;
+
+      private final CountDownLatch waiting = new CountDownLatch(CONCURRENT);
+
+      private volatile int connections;
+
+      Server() throws IOException
+      {
+         this.socket = new ServerSocket(0, CONCURRENT * 2);
+         setDaemon(true);
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (true)
+            {
+               final Socket s = socket.accept();
+               connections++;
+               Thread t = new Thread()
+               {
+                  public void run()
+                  {
+                     try
+                     {
+                        serve(s);
+                     }
+                     catch (Exception e)
+                     {
+                     }
+                  }
+               };
+               t.setDaemon(true);
+               t.start();
+            }
+         }
+         catch (IOException e)
+         {
+         }
+      }
+
+      private void serve(Socket s) throws Exception
+      {
+         InputStream in = s.getInputStream();
+         OutputStream out = s.getOutputStream();
+         String head;
+         boolean stale = false;
+         while ((head = readHead(in)) != null)
+         {
+            String path = head.substring(head.indexOf(' ') + 1, head.indexOf(' ', head.indexOf(' ') + 1));
+            byte[] body = readBody(in, head);
+            if (stale)
+            {
+               s.close();
+               return;
+            }
+            if (path.equals("/chunked"))
+            {
+               write(out, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\nTrailer: X-Sum\r\n\r\n"
+                  + "5\r\nhello\r\n1;ext=1\r\n \r\n5\r\nworld\r\n0\r\nX-Sum: 11\r\n\r\n");
+            }
+            else if (path.equals("/echo"))
+            {
+               write(out, "HTTP/1.1 200 OK\r\nContent-Length: " + body.length + "\r\n\r\n");
+               out.write(body);
+               out.flush();
+            }
+            else if (path.equals("/close"))
+            {
+               write(out, "HTTP/1.1 200 OK\r\nConnection: close\r\n\r\nuntil close");
+               s.close();
+               return;
+            }
+            else
+            {
+               if (path.equals("/stale"))
+                  stale = true;
+               if (path.equals("/wait"))
+               {
+                  waiting.countDown();
+                  waiting.await(30, TimeUnit.SECONDS);
+               }
+               write(out, "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello");
+            }
+         }
+         s.close();
+      }
+
+      private static void write(OutputStream out, String data) throws IOException
+      {
+         out.write(data.getBytes("ISO-8859-1"));
+         out.flush();
+      }
+
+      private static String readHead(InputStream in) throws IOException
+      {
+         StringBuilder head = new StringBuilder();
+         int c;
+         int empty = 0;
+         while ((c = in.read()) != -1)
+         {
+            head.append((char)c);
+            if (c == '\n')
+            {
+               if (++empty == 2)
+                  return head.toString();
+            }
+            else if (c != '\r')
+            {
+               empty = 0;
+            }
+         }
+         return null;
+      }
+
+      private static byte[] readBody(InputStream in, String head) throws IOException
+      {
+         int length = 0;
+         for (String line : head.split("\r\n"))
+         {
+            if (line.toLowerCase().startsWith("content-length:"))
+               length = Integer.parseInt(line.substring(15).trim());
+         }
+         byte[] body = new byte[length];
+         int off = 0;
+         while (off < length)
+         {
+            int n = in.read(body, off, length - off);
+            if (n == -1)
+               throw new IOException("Unexpected end of stream");
+            off += n;
+         }
+         return body;
+      }
+   }
+
+   private Server server;
+
+   private NioTransport transport;
+
+   private HTTPConnection conn;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      server = new Server();
+      server.start();
+      transport = new NioTransport();
+      conn = new HTTPConnection("localhost", server.socket.getLocalPort());
+      conn.setNioTransport(transport);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      transport.close();
+      server.socket.close();
+      super.tearDown();
+   }
+
+   public void testKeepAlive() throws Exception
+   {
+      for (int i = 0; i < 5; i++)
+         assertEquals("hello", text(conn.GetAsync("/")));
+      assertEquals(1, server.connections);
+      assertEquals(5, transport.getExchangeCount());
+      assertEquals(4, transport.getReuseCount());
+      assertEquals(1, transport.getIdleCount());
+      assertEquals(0, transport.getActiveCount());
+   }
+
+   public void testChunked() throws Exception
+   {
+      assertEquals("hello world", text(conn.GetAsync("/chunked")));
+      // Connection is still usable after end of chunked entity.
+      assertEquals("hello", text(conn.GetAsync("/")));
+      assertEquals(1, server.connections);
+   }
+
+   public void testPostAndPut() throws Exception
+   {
+      byte[] data = new byte[100000];
+      for (int i = 0; i < data.length; i++)
+         data[i] = (byte)('a' + i % 26);
+      String expected = new String(data, "ISO-8859-1");
+      assertEquals(expected, text(conn.PostAsync("/echo", data, null)));
+      assertEquals("put", text(conn.PutAsync("/echo", "put".getBytes("ISO-8859-1"), null)));
+      assertEquals(1, server.connections);
+   }
+
+   public void testMaxResponseSize() throws Exception
+   {
+      transport.setMaxResponseSize(1000);
+      try
+      {
+         conn.PostAsync("/echo", new byte[100000], null).get(30, TimeUnit.SECONDS);
+         fail("ExecutionException expected");
+      }
+      catch (ExecutionException e)
+      {
+         assertTrue(e.getCause() instanceof IOException);
+      }
+      assertEquals("hello", text(conn.GetAsync("/")));
+      assertEquals(2, server.connections);
+      assertEquals(0, transport.getActiveCount());
+   }
+
+   public void testReadUntilClose() throws Exception
+   {
+      assertEquals("until close", text(conn.GetAsync("/close")));
+      assertEquals("hello", text(conn.GetAsync("/")));
+      assertEquals(2, server.connections);
+      assertEquals(0, transport.getReuseCount());
+   }
+
+   public void testRetryIdempotentOnly() throws Exception
+   {
+      assertEquals("hello", text(conn.GetAsync("/stale")));
+      // Server may have processed request, it is not sent again.
+      try
+      {
+         conn.PostAsync("/echo", "post".getBytes("ISO-8859-1"), null).get(30, TimeUnit.SECONDS);
+         fail("ExecutionException expected");
+      }
+      catch (ExecutionException e)
+      {
+         assertTrue(e.getCause() instanceof IOException);
+      }
+      assertEquals(1, server.connections);
+
+      assertEquals("hello", text(conn.GetAsync("/stale")));
+      assertEquals(2, server.connections);
+      // Idempotent request is sent again over new connection.
+      assertEquals("hello", text(conn.GetAsync("/")));
+      assertEquals(3, server.connections);
+      assertEquals(3, transport.getOpenCount());
+      assertEquals(4, transport.getExchangeCount());
+      assertEquals(0, transport.getActiveCount());
+   }
+
+   /**
+    * Server answers only when all requests are received, so they all must be
+    * in progress at the same time. All of them are sent by this thread and
+    * driven by single selector thread.
+    */
+   public void testConcurrentRequests() throws Exception
+   {
+      List<CompletableFuture<HTTPResponse>> futures = new ArrayList<CompletableFuture<HTTPResponse>>();
+      for (int i = 0; i < CONCURRENT; i++)
+         futures.add(conn.GetAsync("/wait"));
+      for (CompletableFuture<HTTPResponse> future : futures)
+         assertEquals("hello", text(future));
+      assertEquals(CONCURRENT, server.connections);
+      assertEquals(CONCURRENT, transport.getOpenCount());
+      assertEquals(0, transport.getActiveCount());
+   }
+
+   public void testConnectionRefused() throws Exception
+   {
+      ServerSocket closed = new ServerSocket(0);
+      int port = closed.getLocalPort();
+      closed.close();
+      HTTPConnection refused = new HTTPConnection("localhost", port);
+      refused.setNioTransport(transport);
+      try
+      {
+         refused.GetAsync("/").get(10, TimeUnit.SECONDS);
+         fail("ExecutionException expected");
+      }
+      catch (ExecutionException e)
+      {
+         assertTrue(e.getCause() instanceof IOException);
+      }
+   }
+
+   private static String text(CompletableFuture<HTTPResponse> future) throws Exception
+   {
+      HTTPResponse resp = future.get(30, TimeUnit.SECONDS);
+      assertEquals(200, resp.getStatusCode());
+      InputStream in = resp.getInputStream();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) != -1)
+         out.write(buf, 0, n);
+      return new String(out.toByteArray(), "ISO-8859-1");
+   }
+}
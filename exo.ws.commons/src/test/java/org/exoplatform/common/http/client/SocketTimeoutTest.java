@@ -0,0 +1,232 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.common.http.client;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @version $Id: $
+ */
+public class SocketTimeoutTest extends TestCase
+{
+
+   private static final long TICK = 5L;
+
+   private static final int TIMEOUT_TICKS = 20;
+
+   /**
+    * Tick of test with many busy threads. Thread which restarts its timers may
+    * be delayed by scheduler, so timeout must be much longer then such delays.
+    */
+   private static final long SLOW_TICK = TICK * 10;
+
+   private static final int THREADS = 16;
+
+   private static final int ENTRIES_PER_THREAD = 500;
+
+   private SocketTimeout timer;
+
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      timer = new SocketTimeout(TICK, TIMEOUT_TICKS);
+   }
+
+   public void tearDown() throws Exception
+   {
+      timer.kill();
+      super.tearDown();
+   }
+
+   public void testExpire() throws Exception
+   {
+      final CountDownLatch fired = new CountDownLatch(1);
+      long start = System.currentTimeMillis();
+      timer.setTimeout(new Runnable()
+      {
+         public void run()
+         {
+            fired.countDown();
+         }
+      });
+      assertTrue(fired.await(TICK * TIMEOUT_TICKS * 20, TimeUnit.MILLISECONDS));
+      assertTrue(System.currentTimeMillis() - start >= TICK * (TIMEOUT_TICKS - 1));
+   }
+
+   public void testHyberAndKill() throws Exception
+   {
+      final AtomicInteger fired = new AtomicInteger();
+      Runnable action = new Runnable()
+      {
+         public void run()
+         {
+            fired.incrementAndGet();
+         }
+      };
+      SocketTimeout.TimeoutEntry hyber = timer.setTimeout(action);
+      hyber.hyber();
+      SocketTimeout.TimeoutEntry killed = timer.setTimeout(action);
+      killed.kill();
+      Thread.sleep(TICK * TIMEOUT_TICKS * 4);
+      assertEquals(0, fired.get());
+      // Killed entry is dropped, suspended one still is in wheel.
+      assertEquals(1, timer.size());
+
+      hyber.reset();
+      waitFor(fired, 1);
+      assertEquals(0, timer.size());
+   }
+
+   /**
+    * Many threads act as demultiplexors: each one restarts its timers as if it
+    * reads responses from sockets, suspends some of them, kills others and
+    * leaves the rest idle. Only idle entries must expire.
+    */
+   public void testConcurrentDemultiplexors() throws Exception
+   {
+      timer.kill();
+      timer = new SocketTimeout(SLOW_TICK, TIMEOUT_TICKS);
+      final AtomicInteger idleFired = new AtomicInteger();
+      final AtomicInteger wrongFired = new AtomicInteger();
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      final CountDownLatch ready = new CountDownLatch(THREADS);
+      final CountDownLatch go = new CountDownLatch(1);
+      final CountDownLatch done = new CountDownLatch(THREADS);
+      // Entries which are not restarted would expire twice in this time.
+      final long busyMillis = SLOW_TICK * TIMEOUT_TICKS * 2;
+
+      for (int t = 0; t < THREADS; t++)
+      {
+         Thread thread = new Thread("demux-" + t)
+         {
+            public void run()
+            {
+               try
+               {
+                  SocketTimeout.TimeoutEntry[] active = new SocketTimeout.TimeoutEntry[ENTRIES_PER_THREAD];
+                  SocketTimeout.TimeoutEntry[] killed = new SocketTimeout.TimeoutEntry[ENTRIES_PER_THREAD];
+                  Runnable wrong = new Runnable()
+                  {
+                     public void run()
+                     {
+                        wrongFired.incrementAndGet();
+                     }
+                  };
+                  Runnable idle = new Runnable()
+                  {
+                     public void run()
+                     {
+                        idleFired.incrementAndGet();
+                     }
+                  };
+                  ready.countDown();
+                  go.await();
+                  for (int i = 0; i < ENTRIES_PER_THREAD; i++)
+                  {
+                     active[i] = timer.setTimeout(wrong);
+                     if (i % 2 == 0)
+                        active[i].hyber();
+                     killed[i] = timer.setTimeout(wrong);
+                     timer.setTimeout(idle);
+                  }
+                  for (int i = 0; i < ENTRIES_PER_THREAD; i++)
+                     killed[i].kill();
+                  long end = System.currentTimeMillis() + busyMillis;
+                  while (System.currentTimeMillis() < end)
+                  {
+                     for (int i = 0; i < ENTRIES_PER_THREAD; i++)
+                     {
+                        if (i % 2 != 0)
+                           active[i].reset();
+                     }
+                     Thread.sleep(SLOW_TICK);
+                  }
+                  for (int i = 0; i < ENTRIES_PER_THREAD; i++)
+                     active[i].kill();
+               }
+               catch (Throwable e)
+               {
+                  failure.set(e);
+               }
+               finally
+               {
+                  done.countDown();
+               }
+            }
+         };
+         thread.setDaemon(true);
+         thread.start();
+      }
+
+      ready.await();
+      go.countDown();
+      assertTrue(done.await(busyMillis * 20, TimeUnit.MILLISECONDS));
+      if (failure.get() != null)
+         throw new AssertionError(failure.get());
+
+      waitFor(idleFired, THREADS * ENTRIES_PER_THREAD, SLOW_TICK);
+      // Killed entries are dropped when timer reaches them.
+      long end = System.currentTimeMillis() + SLOW_TICK * TIMEOUT_TICKS * 40;
+      while (timer.size() > 0 && System.currentTimeMillis() < end)
+         Thread.sleep(SLOW_TICK);
+      assertEquals(0, wrongFired.get());
+      assertEquals(THREADS * ENTRIES_PER_THREAD, idleFired.get());
+      assertEquals(0, timer.size());
+   }
+
+   public void testStopWhenIdle() throws Exception
+   {
+      final AtomicInteger fired = new AtomicInteger();
+      Runnable action = new Runnable()
+      {
+         public void run()
+         {
+            fired.incrementAndGet();
+         }
+      };
+      timer.setTimeout(action);
+      assertTrue(timer.isRunning());
+      waitFor(fired, 1);
+      long end = System.currentTimeMillis() + TICK * TIMEOUT_TICKS * 20;
+      while (timer.isRunning() && System.currentTimeMillis() < end)
+         Thread.sleep(TICK);
+      assertFalse(timer.isRunning());
+
+      // Thread is started again for new entry.
+      timer.setTimeout(action);
+      assertTrue(timer.isRunning());
+      waitFor(fired, 2);
+   }
+
+   private void waitFor(AtomicInteger counter, int expected) throws InterruptedException
+   {
+      waitFor(counter, expected, TICK);
+   }
+
+   private void waitFor(AtomicInteger counter, int expected, long tick) throws InterruptedException
+   {
+      long end = System.currentTimeMillis() + tick * TIMEOUT_TICKS * 40;
+      while (counter.get() < expected && System.currentTimeMillis() < end)
+         Thread.sleep(tick);
+      assertEquals(expected, counter.get());
+   }
+}
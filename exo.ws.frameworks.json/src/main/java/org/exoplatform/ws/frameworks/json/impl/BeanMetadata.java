@@ -0,0 +1,322 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Getters and setters of Java bean class. Discovering of bean properties
+ * requires {@link Class#getMethods()} and checking of transient fields, so it
+ * is done once per class. Metadata is kept in {@link ClassValue} and does not
+ * prevent unloading of bean classes, e.g. reloaded Groovy classes.
+ * <p>
+ * Accessors are invoked through {@link MethodHandle}s when possible, otherwise
+ * through reflection.
+ * </p>
+ *
+ * @version $Id: $
+ */
+final class BeanMetadata
+{
+
+   private static final ClassValue<BeanMetadata> METADATA = new ClassValue<BeanMetadata>()
+   {
+      @Override
+      protected BeanMetadata computeValue(Class<?> type)
+      {
+         return new BeanMetadata(type);
+      }
+   };
+
+   private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+   private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+   /**
+    * Get metadata of bean class.
+    *
+    * @param clazz class of bean
+    * @return metadata
+    */
+   static BeanMetadata get(Class<?> clazz)
+   {
+      return METADATA.get(clazz);
+   }
+
+   /**
+    * Method which gives value of bean property.
+    */
+   static final class Getter
+   {
+      /** Name of property. */
+      final String name;
+
+      /** Name of property as JSON string, e.g. quoted and escaped. */
+      final String jsonName;
+
+      final Method method;
+
+      /** Handle of type (Object)Object or <code>null</code> if not accessible. */
+      private final MethodHandle handle;
+
+      private Getter(String name, Method method)
+      {
+         this.name = name;
+         this.jsonName = JsonUtils.getJsonString(name);
+         this.method = method;
+         this.handle = unreflect(method, GETTER_TYPE);
+      }
+
+      /**
+       * Get value of property.
+       *
+       * @param bean bean
+       * @return value of property
+       * @throws JsonException if method can't be invoked or throws exception
+       */
+      Object get(Object bean) throws JsonException
+      {
+         if (handle == null)
+         {
+            try
+            {
+               return method.invoke(bean, new Object[0]);
+            }
+            catch (InvocationTargetException e)
+            {
+               throw new JsonException(e.getMessage(), e);
+            }
+            catch (IllegalAccessException e)
+            {
+               throw new JsonException(e.getMessage(), e);
+            }
+         }
+         try
+         {
+            return (Object)handle.invokeExact(bean);
+         }
+         catch (Error e)
+         {
+            throw e;
+         }
+         catch (Throwable e)
+         {
+            throw new JsonException(e.getMessage(), e);
+         }
+      }
+   }
+
+   /**
+    * Method which sets value of bean property.
+    */
+   static final class Setter
+   {
+      /** Name of property. */
+      final String name;
+
+      final Method method;
+
+      /** Type of property. */
+      final Class<?> type;
+
+      /** Generic type of property. */
+      final Type genericType;
+
+      /** Handle of type (Object,Object)void or <code>null</code> if not accessible. */
+      private final MethodHandle handle;
+
+      private Setter(String name, Method method)
+      {
+         this.name = name;
+         this.method = method;
+         this.type = method.getParameterTypes()[0];
+         this.genericType = method.getGenericParameterTypes()[0];
+         this.handle = unreflect(method, SETTER_TYPE);
+      }
+
+      /**
+       * Set value of property.
+       *
+       * @param bean bean
+       * @param value value of property
+       * @throws Exception if method can't be invoked or throws exception
+       */
+      void set(Object bean, Object value) throws Exception
+      {
+         if (handle == null)
+         {
+            method.invoke(bean, new Object[]{value});
+            return;
+         }
+         try
+         {
+            handle.invokeExact(bean, value);
+         }
+         catch (Exception e)
+         {
+            throw e;
+         }
+         catch (Error e)
+         {
+            throw e;
+         }
+         catch (Throwable e)
+         {
+            throw new UndeclaredThrowableException(e);
+         }
+      }
+   }
+
+   private final List<Getter> getters;
+
+   private final List<Setter> setters;
+
+   private final Map<String, List<Setter>> settersByName;
+
+   private BeanMetadata(Class<?> clazz)
+   {
+      Method[] methods = clazz.getMethods();
+      Set<String> transientFields = JsonGeneratorImpl.getTransientFields(clazz);
+      // Map keeps position of first method if the same property is given by
+      // two methods, e.g. getX() and isX(), but the last method wins.
+      Map<String, Getter> g = new LinkedHashMap<String, Getter>();
+      List<Setter> s = new ArrayList<Setter>();
+      Map<String, List<Setter>> byName = new HashMap<String, List<Setter>>();
+      for (Method method : methods)
+      {
+         String key = getGetterPropertyName(method);
+         if (key != null && !transientFields.contains(key))
+         {
+            g.put(key, new Getter(key, method));
+         }
+         key = ObjectBuilder.getPropertyName(method);
+         if (key != null)
+         {
+            Setter setter = new Setter(key, method);
+            s.add(setter);
+            List<Setter> list = byName.get(key);
+            if (list == null)
+            {
+               list = new ArrayList<Setter>(1);
+               byName.put(key, list);
+            }
+            list.add(setter);
+         }
+      }
+      getters = Collections.unmodifiableList(new ArrayList<Getter>(g.values()));
+      setters = Collections.unmodifiableList(s);
+      settersByName = byName;
+   }
+
+   /**
+    * @return getters in order of {@link Class#getMethods()}, transient
+    *         properties are not included
+    */
+   List<Getter> getGetters()
+   {
+      return getters;
+   }
+
+   /**
+    * @return setters in order of {@link Class#getMethods()}
+    */
+   List<Setter> getSetters()
+   {
+      return setters;
+   }
+
+   /**
+    * @param name name of property
+    * @return setters of property or <code>null</code> if there is no setter
+    *         for property
+    */
+   List<Setter> getSetters(String name)
+   {
+      return settersByName.get(name);
+   }
+
+   /**
+    * Get name of property which value is given by method <code>method</code>.
+    * Method must be as follow:
+    * <ol>
+    * <li>Name starts from "get" plus at least one character or starts from
+    * "is" plus one more character and return boolean type;</li>
+    * <li>Must be without parameters;</li>
+    * <li>Not be in {@link JsonGeneratorImpl#SKIP_METHODS} set.</li>
+    * </ol>
+    *
+    * @param method method
+    * @return name of property or <code>null</code> if method is not getter
+    */
+   private static String getGetterPropertyName(Method method)
+   {
+      String methodName = method.getName();
+      String key = null;
+      if (!JsonGeneratorImpl.SKIP_METHODS.contains(methodName) && method.getParameterTypes().length == 0)
+      {
+         if (methodName.startsWith("get") && methodName.length() > 3)
+         {
+            key = methodName.substring(3);
+         }
+         else if (methodName.startsWith("is") && methodName.length() > 2
+            && (method.getReturnType() == Boolean.class || method.getReturnType() == boolean.class))
+         {
+            key = methodName.substring(2);
+         }
+      }
+      if (key != null)
+      {
+         // First letter of key to lower case.
+         key = (key.length() > 1) ? Character.toLowerCase(key.charAt(0)) + key.substring(1) : key.toLowerCase();
+      }
+      return key;
+   }
+
+   private static MethodHandle unreflect(Method method, MethodType type)
+   {
+      try
+      {
+         MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+         if (Modifier.isStatic(method.getModifiers()))
+         {
+            // Ignore bean instance.
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+         }
+         return handle.asType(type);
+      }
+      catch (IllegalAccessException e)
+      {
+         // Method of not public class, use reflection. It fails in the same
+         // way as before if method is not accessible.
+         return null;
+      }
+   }
+}
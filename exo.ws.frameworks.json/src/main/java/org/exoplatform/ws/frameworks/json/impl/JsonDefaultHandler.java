@@ -161,7 +161,7 @@ public class JsonDefaultHandler implements JsonHandler
     * @param characters the characters array.
     * @return JsonValue.
     */
-   private JsonValue parseCharacters(char[] characters)
+   static JsonValue parseCharacters(char[] characters)
    {
       String s = new String(characters);
       if (characters[0] == '"' && characters[characters.length - 1] == '"')
@@ -31,8 +31,6 @@ import org.exoplatform.ws.frameworks.json.value.impl.StringValue;
 import java.io.StringReader;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
@@ -139,62 +137,18 @@ public class JsonGeneratorImpl implements JsonGenerator
     */
    public JsonValue createJsonObject(Object object) throws JsonException
    {
-      Class<?> clazz = object.getClass();
-      Method[] methods = clazz.getMethods();
-      Set<String> transientFields = getTransientFields(clazz);
       JsonValue jsonRootValue = new ObjectValue();
-      for (Method method : methods)
+      for (BeanMetadata.Getter getter : BeanMetadata.get(object.getClass()).getGetters())
       {
-         String methodName = method.getName();
-         /*
-          * Method must be as follow:
-          * 1. Name starts from "get" plus at least one character or
-          * starts from "is" plus one more character and return boolean type;
-          * 2. Must be without parameters;
-          * 3. Not be in SKIP_METHODS set.
-          */
-         String key = null;
-         if (!SKIP_METHODS.contains(methodName) && method.getParameterTypes().length == 0)
+         // Get result of invoke method get...
+         Object invokeResult = getter.get(object);
+         if (JsonUtils.getType(invokeResult) != null)
          {
-            if (methodName.startsWith("get") && methodName.length() > 3)
-            {
-               key = methodName.substring(3);
-            }
-            else if (methodName.startsWith("is") && methodName.length() > 2
-               && (method.getReturnType() == Boolean.class || method.getReturnType() == boolean.class))
-            {
-               key = methodName.substring(2);
-            }
+            jsonRootValue.addElement(getter.name, createJsonValue(invokeResult));
          }
-         if (key != null)
+         else
          {
-            // First letter of key to lower case.
-            key = (key.length() > 1) ? Character.toLowerCase(key.charAt(0)) + key.substring(1) : key.toLowerCase();
-            // Check is this field in list of transient field.
-            if (!transientFields.contains(key))
-            {
-               try
-               {
-                  // Get result of invoke method get...
-                  Object invokeResult = method.invoke(object, new Object[0]);
-                  if (JsonUtils.getType(invokeResult) != null)
-                  {
-                     jsonRootValue.addElement(key, createJsonValue(invokeResult));
-                  }
-                  else
-                  {
-                     jsonRootValue.addElement(key, createJsonObject(invokeResult));
-                  }
-               }
-               catch (InvocationTargetException e)
-               {
-                  throw new JsonException(e.getMessage(), e);
-               }
-               catch (IllegalAccessException e)
-               {
-                  throw new JsonException(e.getMessage(), e);
-               }
-            }
+            jsonRootValue.addElement(getter.name, createJsonObject(invokeResult));
          }
       }
       return jsonRootValue;
@@ -382,7 +336,7 @@ public class JsonGeneratorImpl implements JsonGenerator
     * @param clazz the class.
     * @return set of fields which must be skiped.
     */
-   private static Set<String> getTransientFields(final Class<?> clazz)
+   static Set<String> getTransientFields(final Class<?> clazz)
    {
       Set<String> set = new HashSet<String>();
       
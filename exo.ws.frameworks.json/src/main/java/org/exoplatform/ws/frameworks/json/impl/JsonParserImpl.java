@@ -20,12 +20,11 @@ import org.exoplatform.ws.frameworks.json.JsonHandler;
 import org.exoplatform.ws.frameworks.json.JsonParser;
 import org.exoplatform.ws.frameworks.json.impl.JsonUtils.JsonToken;
 
-import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PushbackReader;
 import java.io.Reader;
+import java.util.Arrays;
 
 /**
  * @author <a href="mailto:andrew00x@gmail.com">Andrey Parfonov</a>
@@ -40,12 +39,45 @@ public class JsonParserImpl implements JsonParser
    /** Stack of JSON tokens. */
    private final JsonStack<JsonToken> stack;
 
-   /** @see {@link java.io.PushbackReader}. */
-   private PushbackReader pushbackReader;
+   /** Default size of buffer for characters of JSON source. */
+   static final int DEFAULT_BUFFER_SIZE = 4096;
+
+   /** Source of JSON document. */
+   private Reader reader;
+
+   /**
+    * Buffer for characters of JSON source. Reader fills it by big blocks, so
+    * there is no call of reader for each character. Refilling of buffer keeps
+    * last read character at position 0, so one character can always be pushed
+    * back.
+    */
+   private final char[] buffer;
+
+   /** Position of next character in {@link #buffer}. */
+   private int pos;
+
+   /** Number of valid characters in {@link #buffer}. */
+   private int limit;
+
+   /** Characters of value (or key) which is currently in process. */
+   private char[] value = new char[64];
+
+   /** Number of characters in {@link #value}. */
+   private int valueLength;
 
    public JsonParserImpl()
+   {
+      this(DEFAULT_BUFFER_SIZE);
+   }
+
+   /**
+    * @param bufferSize size of buffer for characters of JSON source
+    */
+   JsonParserImpl(int bufferSize)
    {
       stack = new JsonStack<JsonToken>();
+      // One more character to keep previous character after refill.
+      buffer = new char[bufferSize + 1];
    }
 
    /**
@@ -53,9 +85,11 @@ public class JsonParserImpl implements JsonParser
     */
    public void parse(Reader reader, JsonHandler eventHandler) throws JsonException
    {
-      this.pushbackReader = new PushbackReader(reader);
+      this.reader = reader;
       this.eventHandler = eventHandler;
       this.stack.clear();
+      this.pos = 0;
+      this.limit = 0;
 
       char c = 0;
       while ((c = next()) != 0)
@@ -231,13 +265,13 @@ public class JsonParserImpl implements JsonParser
          throw new JsonException("Syntax error. Key must start from quote, but found '" + c + "'.");
       }
       back(c);
-      String s = new String(nextString());
+      nextString();
       // if key as ""
-      if (s.length() == 2)
+      if (valueLength == 2)
       {
          throw new JsonException("Missing key.");
       }
-      eventHandler.key(s.substring(1, s.length() - 1));
+      eventHandler.key(new String(value, 1, valueLength - 2));
    }
 
    /**
@@ -253,24 +287,24 @@ public class JsonParserImpl implements JsonParser
       if (c == '"')
       {
          // value will be read as string
-         eventHandler.characters(nextString());
+         nextString();
       }
       else
       {
          // not string (numeric or boolean or null)
-         CharArrayWriter cw = new CharArrayWriter();
-         while ("{[,]}\"".indexOf(c = next()) < 0)
+         valueLength = 0;
+         while (!isValueEnd(c = next()))
          {
             // Bug : WS-66
             if (c == 0)
             {
                throw new JsonException("Unexpected end of stream.");
             }
-            cw.append(c);
+            append(c);
          }
          back(c);
-         eventHandler.characters(cw.toCharArray());
       }
+      eventHandler.characters(Arrays.copyOf(value, valueLength));
       c = next(",]}");
       back(c);
    }
@@ -286,58 +320,54 @@ public class JsonParserImpl implements JsonParser
     */
    private char next() throws JsonException
    {
-      try
+      int c = 0;
+      while ((c = read()) != -1)
       {
-         int c = 0;
-         while ((c = pushbackReader.read()) != -1)
+         if (c == '/')
          {
+            c = read();
             if (c == '/')
             {
-               c = pushbackReader.read();
-               if (c == '/')
+               do
                {
-                  do
-                  {
-                     c = pushbackReader.read();
-                  }
-                  while (c != -1 && c != '\n' && c != '\r');
+                  c = read();
                }
-               else if (c == '*')
+               while (c != -1 && c != '\n' && c != '\r');
+            }
+            else if (c == '*')
+            {
+               for (;;)
                {
-                  for (;;)
+                  c = read();
+                  if (c == '*')
                   {
-                     c = pushbackReader.read();
-                     if (c == '*')
-                     {
-                        c = pushbackReader.read();
-                        if (c == '/')
-                        {
-                           break;
-                        }
-                     }
-                     if (c == -1)
+                     c = read();
+                     if (c == '/')
                      {
-                        throw new JsonException("Syntax error. Missing end of comment.");
+                        break;
                      }
                   }
+                  if (c == -1)
+                  {
+                     throw new JsonException("Syntax error. Missing end of comment.");
+                  }
                }
-               else
+            }
+            else
+            {
+               if (c != -1)
                {
                   back((char)c);
-                  return '/';
                }
-            }
-            else if (c == -1 || c > ' ')
-            {
-               break;
+               return '/';
             }
          }
-         return (c == -1) ? 0 : (char)c;
-      }
-      catch (IOException e)
-      {
-         throw new JsonException(e.getMessage(), e);
+         else if (c == -1 || c > ' ')
+         {
+            break;
+         }
       }
+      return (c == -1) ? 0 : (char)c;
    }
 
    /**
@@ -349,15 +379,8 @@ public class JsonParserImpl implements JsonParser
     */
    private char nextAny() throws JsonException
    {
-      try
-      {
-         int c = pushbackReader.read();
-         return (c == -1) ? 0 : (char)c;
-      }
-      catch (IOException e)
-      {
-         throw new JsonException(e.getMessage(), e);
-      }
+      int c = pos < limit ? buffer[pos++] : read();
+      return (c == -1) ? 0 : (char)c;
    }
 
    /**
@@ -422,35 +445,48 @@ public class JsonParserImpl implements JsonParser
    private char[] next(int n) throws JsonException
    {
       char[] buff = new char[n];
-      try
+      for (int i = 0; i < n; i++)
       {
-         int i = pushbackReader.read(buff);
-         if (i == -1)
+         int c = read();
+         if (c == -1)
          {
-            throw new JsonException("Unexpected end of stream.");
+            if (i == 0)
+            {
+               throw new JsonException("Unexpected end of stream.");
+            }
+            break;
          }
-         return buff;
-      }
-      catch (IOException e)
-      {
-         throw new JsonException(e.getMessage(), e);
+         buff[i] = (char)c;
       }
+      return buff;
    }
 
    /**
-    * Get array chars up to given and include it.
+    * Read string, include quotes, to {@link #value}.
     *
-    * @return the char array.
     * @throws JsonException if JSON document has wrong format or i/o error
     *         occurs.
     */
-   private char[] nextString() throws JsonException
+   private void nextString() throws JsonException
    {
-      CharArrayWriter cw = new CharArrayWriter();
+      valueLength = 0;
       char c = nextAny(); // read '"'
-      cw.append(c);
+      append(c);
       for (;;)
       {
+         // Copy characters which do not need any processing straight from
+         // buffer.
+         int start = pos;
+         while (pos < limit)
+         {
+            c = buffer[pos];
+            if (c == '"' || c == '\\' || c == '\n' || c == '\r' || c == 0)
+            {
+               break;
+            }
+            pos++;
+         }
+         append(buffer, start, pos - start);
          switch (c = nextAny())
          {
             case 0 :
@@ -465,34 +501,34 @@ public class JsonParserImpl implements JsonParser
                   case '\r' :
                      throw new JsonException("Syntax error. Unterminated string");
                   case 'n' :
-                     cw.append('\n');
+                     append('\n');
                      break;
                   case 'r' :
-                     cw.append('\r');
+                     append('\r');
                      break;
                   case 'b' :
-                     cw.append('\b');
+                     append('\b');
                      break;
                   case 't' :
-                     cw.append('\t');
+                     append('\t');
                      break;
                   case 'f' :
-                     cw.append('\f');
+                     append('\f');
                      break;
                   case 'u' : // unicode
                      String s = new String(next(4));
-                     cw.append((char)Integer.parseInt(s, 16));
+                     append((char)Integer.parseInt(s, 16));
                      break;
                   default :
-                     cw.append(c);
+                     append(c);
                      break;
                }
                break;
             default :
-               cw.append(c);
+               append(c);
                if (c == '"')
                {
-                  return cw.toCharArray();
+                  return;
                }
                break;
          }
@@ -500,17 +536,89 @@ public class JsonParserImpl implements JsonParser
    }
 
    /**
-    * Push back given char to stream.
+    * Check is character ends numeric, boolean or null value.
+    */
+   private static boolean isValueEnd(char c)
+   {
+      switch (c)
+      {
+         case '{' :
+         case '[' :
+         case ',' :
+         case ']' :
+         case '}' :
+         case '"' :
+            return true;
+         default :
+            return false;
+      }
+   }
+
+   /**
+    * Append character to {@link #value}.
+    */
+   private void append(char c)
+   {
+      if (valueLength == value.length)
+      {
+         value = Arrays.copyOf(value, value.length << 1);
+      }
+      value[valueLength++] = c;
+   }
+
+   /**
+    * Append characters to {@link #value}.
+    */
+   private void append(char[] chars, int off, int len)
+   {
+      if (len == 0)
+      {
+         return;
+      }
+      if (valueLength + len > value.length)
+      {
+         value = Arrays.copyOf(value, Math.max(value.length << 1, valueLength + len));
+      }
+      System.arraycopy(chars, off, value, valueLength, len);
+      valueLength += len;
+   }
+
+   /**
+    * Read next character from buffer. Fill buffer from reader if all
+    * characters are read.
     *
-    * @param c the char for pushing back.
-    * @throws JsonException if JSON document has wrong format or i/o error
-    *         occurs.
+    * @return the next char or -1 if end of stream reached
+    * @throws JsonException if i/o error occurs
     */
-   private void back(char c) throws JsonException
+   private int read() throws JsonException
    {
+      if (pos < limit)
+      {
+         return buffer[pos++];
+      }
       try
       {
-         pushbackReader.unread(c);
+         int start = 0;
+         if (limit > 0)
+         {
+            // Keep last character to be able push it back.
+            buffer[0] = buffer[limit - 1];
+            start = 1;
+         }
+         int n;
+         do
+         {
+            n = reader.read(buffer, start, buffer.length - start);
+         }
+         while (n == 0);
+         if (n == -1)
+         {
+            pos = limit = start;
+            return -1;
+         }
+         pos = start;
+         limit = start + n;
+         return buffer[pos++];
       }
       catch (IOException e)
       {
@@ -518,4 +626,21 @@ public class JsonParserImpl implements JsonParser
       }
    }
 
+   /**
+    * Push back given char to stream.
+    *
+    * @param c the char for pushing back.
+    * @throws JsonException if JSON document has wrong format or i/o error
+    *         occurs.
+    */
+   private void back(char c) throws JsonException
+   {
+      // Nothing to push back at the end of stream.
+      if (c == 0 && pos == limit)
+      {
+         return;
+      }
+      pos--;
+   }
+
 }
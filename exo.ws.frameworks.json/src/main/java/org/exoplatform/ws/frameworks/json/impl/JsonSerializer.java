@@ -0,0 +1,215 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import org.exoplatform.ws.frameworks.json.JsonWriter;
+import org.exoplatform.ws.frameworks.json.impl.JsonUtils.Types;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes Java objects directly to {@link JsonWriter} without creating
+ * intermediate tree of {@link org.exoplatform.ws.frameworks.json.value.JsonValue}.
+ * Produces the same JSON as {@link JsonGeneratorImpl} followed by
+ * {@link org.exoplatform.ws.frameworks.json.value.JsonValue#writeTo(JsonWriter)}:
+ * the same rules are applied to discover properties of Java beans (see
+ * {@link JsonGeneratorImpl#createJsonObject(Object)}) and the same mapping of
+ * Java types to JSON types is used.
+ *
+ * @version $Id: $
+ */
+public class JsonSerializer
+{
+
+   /**
+    * Write Java bean as JSON object.
+    *
+    * @param object source object
+    * @param writer JSON writer
+    * @throws JsonException if object can't be written in JSON representation
+    */
+   public void writeObject(Object object, JsonWriter writer) throws JsonException
+   {
+      writer.writeStartObject();
+      // Names of properties are escaped once per bean class.
+      JsonWriterImpl writerImpl = writer instanceof JsonWriterImpl ? (JsonWriterImpl)writer : null;
+      for (BeanMetadata.Getter getter : BeanMetadata.get(object.getClass()).getGetters())
+      {
+         // Get result of invoke method get...
+         Object invokeResult = getter.get(object);
+         if (writerImpl != null)
+            writerImpl.writeJsonKey(getter.jsonName);
+         else
+            writer.writeKey(getter.name);
+         writeValue(invokeResult, writer);
+      }
+      writer.writeEndObject();
+   }
+
+   /**
+    * Write array as JSON array. Parameter <code>array</code> must be array.
+    *
+    * @param array source array
+    * @param writer JSON writer
+    * @throws JsonException if array can't be written in JSON representation
+    */
+   public void writeArray(Object array, JsonWriter writer) throws JsonException
+   {
+      if (array == null)
+      {
+         writer.writeNull();
+         return;
+      }
+      Types t = JsonUtils.getType(array);
+      if (t == Types.ARRAY_BOOLEAN || t == Types.ARRAY_BYTE || t == Types.ARRAY_SHORT || t == Types.ARRAY_INT
+         || t == Types.ARRAY_LONG || t == Types.ARRAY_FLOAT || t == Types.ARRAY_DOUBLE || t == Types.ARRAY_CHAR
+         || t == Types.ARRAY_STRING || t == Types.ARRAY_OBJECT)
+      {
+         writeValue(array, writer);
+      }
+      else
+      {
+         throw new JsonException("Invalid argument, must be array.");
+      }
+   }
+
+   /**
+    * Write any Java object. Objects of known types (see
+    * {@link JsonUtils#getType(Object)}) are written as corresponding JSON
+    * values, all other objects are written as Java beans.
+    *
+    * @param object source object
+    * @param writer JSON writer
+    * @throws JsonException if object can't be written in JSON representation
+    */
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   public void writeValue(Object object, JsonWriter writer) throws JsonException
+   {
+      Types type = JsonUtils.getType(object);
+      if (type == null)
+      {
+         writeObject(object, writer);
+         return;
+      }
+      switch (type)
+      {
+         case NULL :
+            writer.writeNull();
+            break;
+         case BOOLEAN :
+            writer.writeValue(((Boolean)object).booleanValue());
+            break;
+         case BYTE :
+         case SHORT :
+         case INT :
+         case LONG :
+            writer.writeValue(((Number)object).longValue());
+            break;
+         case FLOAT :
+         case DOUBLE :
+            writer.writeValue(((Number)object).doubleValue());
+            break;
+         case CHAR :
+            writer.writeString(Character.toString((Character)object));
+            break;
+         case STRING :
+            writer.writeString((String)object);
+            break;
+         case ENUM :
+            writer.writeString(((Enum)object).name());
+            break;
+         case CLASS :
+            writer.writeString(((Class)object).getName());
+            break;
+         case ARRAY_BOOLEAN : {
+            writer.writeStartArray();
+            int length = Array.getLength(object);
+            for (int i = 0; i < length; i++)
+               writer.writeValue(Array.getBoolean(object, i));
+            writer.writeEndArray();
+            break;
+         }
+         case ARRAY_BYTE :
+         case ARRAY_SHORT :
+         case ARRAY_INT :
+         case ARRAY_LONG : {
+            writer.writeStartArray();
+            int length = Array.getLength(object);
+            for (int i = 0; i < length; i++)
+               writer.writeValue(Array.getLong(object, i));
+            writer.writeEndArray();
+            break;
+         }
+         case ARRAY_FLOAT :
+         case ARRAY_DOUBLE : {
+            writer.writeStartArray();
+            int length = Array.getLength(object);
+            for (int i = 0; i < length; i++)
+               writer.writeValue(Array.getDouble(object, i));
+            writer.writeEndArray();
+            break;
+         }
+         case ARRAY_CHAR : {
+            writer.writeStartArray();
+            int length = Array.getLength(object);
+            for (int i = 0; i < length; i++)
+               writer.writeString(Character.toString(Array.getChar(object, i)));
+            writer.writeEndArray();
+            break;
+         }
+         case ARRAY_STRING : {
+            writer.writeStartArray();
+            int length = Array.getLength(object);
+            // Null elements are written as empty strings.
+            for (int i = 0; i < length; i++)
+               writer.writeString((String)Array.get(object, i));
+            writer.writeEndArray();
+            break;
+         }
+         case ARRAY_OBJECT : {
+            writer.writeStartArray();
+            int length = Array.getLength(object);
+            for (int i = 0; i < length; i++)
+               writeValue(Array.get(object, i), writer);
+            writer.writeEndArray();
+            break;
+         }
+         case COLLECTION : {
+            writer.writeStartArray();
+            // Copy to be consistent with JsonGeneratorImpl.
+            for (Object o : new ArrayList<Object>((Collection<?>)object))
+               writeValue(o, writer);
+            writer.writeEndArray();
+            break;
+         }
+         case MAP : {
+            writer.writeStartObject();
+            Map<String, Object> map = (Map<String, Object>)object;
+            for (Map.Entry<String, Object> e : map.entrySet())
+            {
+               writer.writeKey(e.getKey());
+               writeValue(e.getValue(), writer);
+            }
+            writer.writeEndObject();
+            break;
+         }
+      }
+   }
+}
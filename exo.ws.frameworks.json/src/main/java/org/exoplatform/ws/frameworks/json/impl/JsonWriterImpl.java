@@ -40,6 +40,23 @@ public class JsonWriterImpl implements JsonWriter
    /** Indicate is comma must be written before next object or value. */
    private boolean commaFirst;
 
+   /**
+    * Scratch buffer. Escaped strings and numbers are composed in it and then
+    * passed to writer by chunks, without creation of intermediate strings.
+    */
+   private final char[] scratch = new char[SCRATCH_SIZE];
+
+   /** Used for formatting of numbers, it does not allocate once grown. */
+   private final StringBuilder numberBuilder = new StringBuilder(32);
+
+   /** Size of {@link #scratch}, must be enough for any number. */
+   private static final int SCRATCH_SIZE = 512;
+
+   /** Max length of escape sequence for one character. */
+   private static final int MAX_ESCAPE_LENGTH = 6;
+
+   private static final char[] HEX = "0123456789abcdef".toCharArray();
+
    /**
     * Constructs JsonWriter.
     *
@@ -183,11 +200,35 @@ public class JsonWriterImpl implements JsonWriter
       {
          throw new JsonException("Key is null.");
       }
+      writeKey(key, null);
+   }
 
+   /**
+    * Write key which is already transformed to JSON string, see
+    * {@link JsonUtils#getJsonString(String)}. Lets to escape keys which are
+    * known in advance, e.g. names of bean properties, only once.
+    *
+    * @param jsonKey quoted and escaped key
+    * @throws JsonException if any errors occurs
+    */
+   void writeJsonKey(String jsonKey) throws JsonException
+   {
+      writeKey(null, jsonKey);
+   }
+
+   /**
+    * Write key. One of parameters must be not <code>null</code>.
+    *
+    * @param key key as is
+    * @param jsonKey quoted and escaped key
+    * @throws JsonException if any errors occurs
+    */
+   private void writeKey(String key, String jsonKey) throws JsonException
+   {
       JsonToken token = stack.peek();
       if (token != JsonToken.object)
       {
-         throw new JsonException("Sysntax error. Unexpected characters '" + key + "'.");
+         throw new JsonException("Sysntax error. Unexpected characters '" + (key != null ? key : jsonKey) + "'.");
       }
       try
       {
@@ -195,8 +236,15 @@ public class JsonWriterImpl implements JsonWriter
          {
             writer.write(',');
          }
-         // create JSON representation for given string.
-         writer.write(JsonUtils.getJsonString(key));
+         if (key != null)
+         {
+            // create JSON representation for given string.
+            writeJsonString(key);
+         }
+         else
+         {
+            writer.write(jsonKey);
+         }
          writer.write(':');
          commaFirst = false;
          stack.push(JsonToken.key);
@@ -212,7 +260,15 @@ public class JsonWriterImpl implements JsonWriter
     */
    public void writeString(String value) throws JsonException
    {
-      write(JsonUtils.getJsonString(value));
+      startValue(value, true);
+      try
+      {
+         writeJsonString(value);
+      }
+      catch (IOException e)
+      {
+         throw new JsonException(e.getMessage(), e);
+      }
    }
 
    /**
@@ -220,7 +276,9 @@ public class JsonWriterImpl implements JsonWriter
     */
    public void writeValue(long value) throws JsonException
    {
-      write(Long.toString(value));
+      numberBuilder.setLength(0);
+      numberBuilder.append(value);
+      writeNumber();
    }
 
    /**
@@ -228,7 +286,10 @@ public class JsonWriterImpl implements JsonWriter
     */
    public void writeValue(double value) throws JsonException
    {
-      write(Double.toString(value));
+      // Gives the same result as Double.toString(double).
+      numberBuilder.setLength(0);
+      numberBuilder.append(value);
+      writeNumber();
    }
 
    /**
@@ -236,7 +297,7 @@ public class JsonWriterImpl implements JsonWriter
     */
    public void writeValue(boolean value) throws JsonException
    {
-      write(Boolean.toString(value));
+      write(value ? "true" : "false");
    }
 
    /**
@@ -254,30 +315,182 @@ public class JsonWriterImpl implements JsonWriter
     * @throws JsonException if any errors occurs.
     */
    private void write(String value) throws JsonException
+   {
+      startValue(value, false);
+      try
+      {
+         writer.write(value);
+      }
+      catch (IOException e)
+      {
+         throw new JsonException(e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Write content of {@link #numberBuilder}.
+    *
+    * @throws JsonException if any errors occurs.
+    */
+   private void writeNumber() throws JsonException
+   {
+      startValue(numberBuilder, false);
+      int length = numberBuilder.length();
+      numberBuilder.getChars(0, length, scratch, 0);
+      try
+      {
+         writer.write(scratch, 0, length);
+      }
+      catch (IOException e)
+      {
+         throw new JsonException(e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Check is value may be written in current position and write comma before
+    * it if need. Pops key from stack if value is written after key.
+    *
+    * @param value value, used in error message only
+    * @param string <code>true</code> if value is Java string which must be
+    *        written as JSON string
+    * @throws JsonException if value is not expected in current position or
+    *         any i/o errors occurs
+    */
+   private void startValue(CharSequence value, boolean string) throws JsonException
    {
       JsonToken token = stack.peek();
+      if (token != JsonToken.key && token != JsonToken.array)
+      {
+         throw new JsonException("Sysntax error. Unexpected characters '"
+            + (string ? JsonUtils.getJsonString((String)value) : value) + "'.");
+      }
       try
       {
-         if (token != JsonToken.key && token != JsonToken.array)
-         {
-            throw new JsonException("Sysntax error. Unexpected characters '" + value + "'.");
-         }
          if (commaFirst)
          {
             writer.write(',');
          }
-         writer.write(value);
-         commaFirst = true;
-         if (token == JsonToken.key)
-         {
-            // if at the top of stack is 'key' then remove it.
-            stack.pop();
-         }
       }
       catch (IOException e)
       {
          throw new JsonException(e.getMessage(), e);
       }
+      commaFirst = true;
+      if (token == JsonToken.key)
+      {
+         // if at the top of stack is 'key' then remove it.
+         stack.pop();
+      }
+   }
+
+   /**
+    * Write string as JSON string. Result is the same as
+    * {@link JsonUtils#getJsonString(String)} gives but characters are copied
+    * to writer directly. Runs of characters which do not need escaping are
+    * copied in bulk.
+    *
+    * @param value string
+    * @throws IOException if any i/o errors occurs
+    */
+   private void writeJsonString(String value) throws IOException
+   {
+      char[] buf = scratch;
+      int n = 0;
+      buf[n++] = '"';
+      int length = value == null ? 0 : value.length();
+      int i = 0;
+      while (i < length)
+      {
+         int start = i;
+         while (i < length && !isEscaped(value.charAt(i)))
+         {
+            i++;
+         }
+         while (start < i)
+         {
+            int l = Math.min(i - start, buf.length - n);
+            value.getChars(start, start + l, buf, n);
+            n += l;
+            start += l;
+            if (n == buf.length)
+            {
+               writer.write(buf, 0, n);
+               n = 0;
+            }
+         }
+         if (i < length)
+         {
+            if (n > buf.length - MAX_ESCAPE_LENGTH)
+            {
+               writer.write(buf, 0, n);
+               n = 0;
+            }
+            n = escape(value.charAt(i++), buf, n);
+         }
+      }
+      if (n == buf.length)
+      {
+         writer.write(buf, 0, n);
+         n = 0;
+      }
+      buf[n++] = '"';
+      writer.write(buf, 0, n);
+   }
+
+   /**
+    * @param c character
+    * @return <code>true</code> if character must be escaped in JSON string
+    * @see JsonUtils#getJsonString(String)
+    */
+   static boolean isEscaped(char c)
+   {
+      return c < '\u0020' || c == '"' || c == '\\' || (c >= '\u0080' && c < '\u00a0')
+         || (c >= '\u2000' && c < '\u2100');
+   }
+
+   /**
+    * Put escape sequence for character in buffer.
+    *
+    * @param c character, {@link #isEscaped(char)} must be <code>true</code>
+    *        for it
+    * @param buf buffer
+    * @param n position in buffer
+    * @return new position in buffer
+    */
+   private static int escape(char c, char[] buf, int n)
+   {
+      buf[n++] = '\\';
+      switch (c)
+      {
+         case '\n' :
+            buf[n++] = 'n';
+            break;
+         case '\r' :
+            buf[n++] = 'r';
+            break;
+         case '\t' :
+            buf[n++] = 't';
+            break;
+         case '\b' :
+            buf[n++] = 'b';
+            break;
+         case '\f' :
+            buf[n++] = 'f';
+            break;
+         case '\\' :
+         case '"' :
+            buf[n++] = c;
+            break;
+         default :
+            buf[n++] = 'u';
+            buf[n++] = HEX[(c >> 12) & 0xF];
+            buf[n++] = HEX[(c >> 8) & 0xF];
+            buf[n++] = HEX[(c >> 4) & 0xF];
+            buf[n++] = HEX[c & 0xF];
+            break;
+      }
+      return n;
    }
 
    /**
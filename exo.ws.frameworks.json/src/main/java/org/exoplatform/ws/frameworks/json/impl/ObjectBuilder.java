@@ -74,44 +74,10 @@ public class ObjectBuilder
          array = Array.newInstance(componentType, jsonArray.size());
          Iterator<JsonValue> values = jsonArray.getElements();
          int i = 0;
-
-         if (componentType.isArray())
-         {
-            if (JsonUtils.isKnownType(componentType))
-            {
-               while (values.hasNext())
-               {
-                  JsonValue v = values.next();
-                  Array.set(array, i++, createObjectKnownTypes(componentType, v));
-               }
-            }
-            else
-            {
-               while (values.hasNext())
-               {
-                  JsonValue v = values.next();
-                  Array.set(array, i++, createArray(componentType, v));
-               }
-            }
-         }
-         else
+         while (values.hasNext())
          {
-            if (JsonUtils.isKnownType(componentType))
-            {
-               while (values.hasNext())
-               {
-                  JsonValue v = values.next();
-                  Array.set(array, i++, createObjectKnownTypes(componentType, v));
-               }
-            }
-            else
-            {
-               while (values.hasNext())
-               {
-                  JsonValue v = values.next();
-                  Array.set(array, i++, createObject(componentType, v));
-               }
-            }
+            JsonValue v = values.next();
+            Array.set(array, i++, createArrayElement(componentType, v));
          }
       }
       return array;
@@ -134,287 +100,457 @@ public class ObjectBuilder
       T collection = null;
       if (jsonArray != null && !jsonArray.isNull())
       {
-         Class<?> actualType = null;
-         if (genericType instanceof ParameterizedType)
+         Class<?> actualType = getCollectionItemType(genericType);
+         Constructor<? extends T> constructor = getCollectionConstructor(collectionClass);
+
+         ArrayList<Object> sourceCollection = new ArrayList<Object>(jsonArray.size());
+         Iterator<JsonValue> values = jsonArray.getElements();
+         while (values.hasNext())
          {
-            // Collection can't be parameterized by other Collection, Array, etc.
-            ParameterizedType parameterizedType = (ParameterizedType)genericType;
-            try
-            {
-               actualType = (Class<?>)parameterizedType.getActualTypeArguments()[0];
-            }
-            catch (ClassCastException e)
-            {
-               throw new JsonException("This type of Collection can't be restored from JSON source. "
-                  + "\nCollection is parameterized by wrong Type: " + parameterizedType + ".", e);
-            }
+            JsonValue v = values.next();
+            sourceCollection.add(createElement(actualType, v));
          }
-         else
+         collection = newInstance(constructor, sourceCollection);
+      }
+      return collection;
+   }
+
+   /**
+    * Create instance of <code>mapClass</code> from JSON representation. If
+    * <code>mapClass</code> is interface then appropriate implementation of
+    * interface will be returned.
+    *
+    * @param mapClass map type
+    * @param genericType actual type of map
+    * @param jsonObject source JSON object
+    * @return map
+    * @throws JsonException if any errors occurs
+    */
+   public static <T extends Map<String, ?>> T createObject(Class<T> mapClass, Type genericType, JsonValue jsonObject)
+      throws JsonException
+   {
+      T map = null;
+      if (jsonObject != null && !jsonObject.isNull())
+      {
+         Class<?> valueActualType = getMapValueType(genericType);
+         Constructor<? extends T> constructor = getMapConstructor(mapClass);
+
+         HashMap<String, Object> sourceMap = new HashMap<String, Object>(jsonObject.size());
+         Iterator<String> keys = jsonObject.getKeys();
+         while (keys.hasNext())
          {
-            throw new JsonException("Collection is not parameterized. Collection<?> is not supported. "
-               + "\nCollection must be parameterized by any types, or by JavaBean with 'get' and 'set' methods.");
+            String k = keys.next();
+            JsonValue v = jsonObject.getElement(k);
+            sourceMap.put(k, createElement(valueActualType, v));
          }
+         map = newInstance(constructor, sourceMap);
+      }
+      return map;
+   }
+
+   /**
+    * Create Java Bean from Json Source.
+    *
+    * @param clazz the Class of target Object.
+    * @param jsonValue the Json representation.
+    * @return Object.
+    * @throws JsonException if any errors occurs.
+    */
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   public static <T> T createObject(Class<T> clazz, JsonValue jsonValue) throws JsonException
+   {
+      if (jsonValue == null || jsonValue.isNull())
+      {
+         return null;
+      }
+
+      Types type = JsonUtils.getType(clazz);
+      if (type == Types.ENUM)
+      {
+         // Enum is not instantiable via CLass.getInstance().
+         // This is used when enum is member of array or collection.
+         Class c = clazz;
+         return (T)Enum.valueOf(c, jsonValue.getStringValue());
+      }
 
-         Constructor<? extends T> constructor = null;
-         if (collectionClass.isInterface() || Modifier.isAbstract(collectionClass.getModifiers()))
+      if (!jsonValue.isObject())
+      {
+         throw new JsonException("Unsupported type of jsonValue. ");
+      }
+
+      T object = newInstance(clazz);
+
+      for (BeanMetadata.Setter setter : BeanMetadata.get(clazz).getSetters())
+      {
+         JsonValue childJsonValue = jsonValue.getElement(setter.name);
+         if (childJsonValue == null)
+         {
+            continue;
+         }
+         setProperty(object, setter, childJsonValue);
+      }
+      return object;
+   }
+
+   /**
+    * Get name of property which is set by method <code>method</code>.
+    *
+    * @param method method
+    * @return name of property or <code>null</code> if method is not setter or
+    *         must be skipped
+    */
+   static String getPropertyName(Method method)
+   {
+      String methodName = method.getName();
+      // 3 is length of prefix 'set'
+      if (!SKIP_METHODS.contains(methodName) && methodName.startsWith("set") && method.getParameterTypes().length == 1
+         && methodName.length() > 3)
+      {
+         // 3 is length of prefix 'set'
+         String key = methodName.substring(3);
+         // first letter to lower case
+         return (key.length() > 1) ? Character.toLowerCase(key.charAt(0)) + key.substring(1) : key.toLowerCase();
+      }
+      return null;
+   }
+
+   /**
+    * Restore value of setter parameter from JSON representation and invoke
+    * setter.
+    *
+    * @param object bean
+    * @param setter setter
+    * @param jsonValue JSON representation of setter parameter
+    * @throws JsonException if any errors occurs
+    */
+   static void setProperty(Object object, BeanMetadata.Setter setter, JsonValue jsonValue) throws JsonException
+   {
+      try
+      {
+         setter.set(object, createValue(setter.type, setter.genericType, jsonValue));
+      }
+      catch (Exception e)
+      {
+         throw new JsonException("Unable restore parameter via method " + object.getClass().getName() + "#"
+            + setter.method.getName() + ". " + e.getMessage(), e);
+      }
+   }
+
+   /**
+    * Create value of bean property from JSON representation.
+    *
+    * @param clazz type of property
+    * @param genericType generic type of property
+    * @param jsonValue JSON representation of property
+    * @return property value
+    * @throws JsonException if any errors occurs
+    */
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   static Object createValue(Class<?> clazz, Type genericType, JsonValue jsonValue) throws JsonException
+   {
+      // if one of known primitive type or array of primitive type
+      if (JsonUtils.isKnownType(clazz))
+      {
+         return createObjectKnownTypes(clazz, jsonValue);
+      }
+      Types parameterType = JsonUtils.getType(clazz);
+      // other type Collection, Map or Object[].
+      if (parameterType == null)
+      {
+         return createObject(clazz, jsonValue);
+      }
+      Class c = clazz;
+      switch (parameterType)
+      {
+         case ENUM :
+            return Enum.valueOf(c, jsonValue.getStringValue());
+         case ARRAY_OBJECT :
+            return createArray(clazz, jsonValue);
+         case COLLECTION :
+            return createCollection(c, genericType, jsonValue);
+         case MAP :
+            return createObject(c, genericType, jsonValue);
+         default :
+            // it must never happen!
+            throw new JsonException("Can't restore object of type " + clazz.getName() + " from JSON source.");
+      }
+   }
+
+   /**
+    * Create element of collection or value of map from JSON representation.
+    *
+    * @param clazz type of element
+    * @param jsonValue JSON representation of element
+    * @return element
+    * @throws JsonException if any errors occurs
+    */
+   static Object createElement(Class<?> clazz, JsonValue jsonValue) throws JsonException
+   {
+      if (JsonUtils.isKnownType(clazz))
+      {
+         return createObjectKnownTypes(clazz, jsonValue);
+      }
+      return createObject(clazz, jsonValue);
+   }
+
+   /**
+    * Create element of array from JSON representation.
+    *
+    * @param componentType component type of array
+    * @param jsonValue JSON representation of element
+    * @return element
+    * @throws JsonException if any errors occurs
+    */
+   static Object createArrayElement(Class<?> componentType, JsonValue jsonValue) throws JsonException
+   {
+      if (JsonUtils.isKnownType(componentType))
+      {
+         return createObjectKnownTypes(componentType, jsonValue);
+      }
+      if (componentType.isArray())
+      {
+         return createArray(componentType, jsonValue);
+      }
+      return createObject(componentType, jsonValue);
+   }
+
+   /**
+    * Get type of elements of collection.
+    *
+    * @param genericType generic type of collection
+    * @return type of elements
+    * @throws JsonException if collection is not parameterized or parameterized
+    *         by type which is not supported
+    */
+   static Class<?> getCollectionItemType(Type genericType) throws JsonException
+   {
+      if (genericType instanceof ParameterizedType)
+      {
+         // Collection can't be parameterized by other Collection, Array, etc.
+         ParameterizedType parameterizedType = (ParameterizedType)genericType;
+         try
+         {
+            return (Class<?>)parameterizedType.getActualTypeArguments()[0];
+         }
+         catch (ClassCastException e)
+         {
+            throw new JsonException("This type of Collection can't be restored from JSON source. "
+               + "\nCollection is parameterized by wrong Type: " + parameterizedType + ".", e);
+         }
+      }
+      throw new JsonException("Collection is not parameterized. Collection<?> is not supported. "
+         + "\nCollection must be parameterized by any types, or by JavaBean with 'get' and 'set' methods.");
+   }
+
+   /**
+    * Get constructor which accepts source collection. If
+    * <code>collectionClass</code> is interface then constructor of appropriate
+    * implementation of interface will be returned.
+    *
+    * @param collectionClass collection type
+    * @return constructor
+    * @throws JsonException if constructor can't be found
+    */
+   static <T extends Collection<?>> Constructor<? extends T> getCollectionConstructor(Class<T> collectionClass)
+      throws JsonException
+   {
+      Constructor<? extends T> constructor = null;
+      if (collectionClass.isInterface() || Modifier.isAbstract(collectionClass.getModifiers()))
+      {
+         try
+         {
+            constructor = ArrayList.class.asSubclass(collectionClass).getConstructor(new Class[]{Collection.class});
+         }
+         catch (Exception e)
          {
             try
             {
-               constructor = ArrayList.class.asSubclass(collectionClass).getConstructor(new Class[]{Collection.class});
+               constructor = HashSet.class.asSubclass(collectionClass).getConstructor(new Class[]{Collection.class});
             }
-            catch (Exception e)
+            catch (Exception e1)
             {
                try
                {
-                  constructor = HashSet.class.asSubclass(collectionClass).getConstructor(new Class[]{Collection.class});
+                  constructor =
+                     LinkedList.class.asSubclass(collectionClass).getConstructor(new Class[]{Collection.class});
                }
-               catch (Exception e1)
+               catch (Exception e2)
                {
-                  try
-                  {
-                     constructor =
-                        LinkedList.class.asSubclass(collectionClass).getConstructor(new Class[]{Collection.class});
-                  }
-                  catch (Exception e2)
+                  if (LOG.isTraceEnabled())
                   {
-                     if (LOG.isTraceEnabled())
-                     {
-                        LOG.trace("An exception occurred: " + e2.getMessage());
-                     }
+                     LOG.trace("An exception occurred: " + e2.getMessage());
                   }
                }
             }
          }
-         else
-         {
-            try
-            {
-               constructor = collectionClass.getConstructor(new Class[]{Collection.class});
-            }
-            catch (SecurityException e)
-            {
-               throw new JsonException(e.getMessage(), e);
-            }
-            catch (NoSuchMethodException e)
-            {
-               throw new JsonException(e.getMessage(), e);
-            }
-         }
-
-         if (constructor == null)
-         {
-            throw new JsonException("Can't find satisfied constructor for : " + collectionClass);
-         }
-
-         ArrayList<Object> sourceCollection = new ArrayList<Object>(jsonArray.size());
-         Iterator<JsonValue> values = jsonArray.getElements();
-         while (values.hasNext())
-         {
-            JsonValue v = values.next();
-            if (!JsonUtils.isKnownType(actualType))
-            {
-               sourceCollection.add(createObject(actualType, v));
-            }
-            else
-            {
-               sourceCollection.add(createObjectKnownTypes(actualType, v));
-            }
-         }
+      }
+      else
+      {
          try
          {
-            collection = constructor.newInstance(sourceCollection);
+            constructor = collectionClass.getConstructor(new Class[]{Collection.class});
          }
-         catch (IllegalAccessException e)
+         catch (SecurityException e)
          {
             throw new JsonException(e.getMessage(), e);
          }
-         catch (IllegalArgumentException e)
+         catch (NoSuchMethodException e)
          {
             throw new JsonException(e.getMessage(), e);
          }
-         catch (InstantiationException e)
+      }
+
+      if (constructor == null)
+      {
+         throw new JsonException("Can't find satisfied constructor for : " + collectionClass);
+      }
+      return constructor;
+   }
+
+   /**
+    * Get type of values of map.
+    *
+    * @param genericType generic type of map
+    * @return type of values
+    * @throws JsonException if map is not parameterized or parameterized by
+    *         types which are not supported
+    */
+   static Class<?> getMapValueType(Type genericType) throws JsonException
+   {
+      if (genericType instanceof ParameterizedType)
+      {
+         ParameterizedType parameterizedType = (ParameterizedType)genericType;
+         if (!String.class.isAssignableFrom((Class<?>)parameterizedType.getActualTypeArguments()[0]))
          {
-            throw new JsonException(e.getMessage(), e);
+            throw new JsonException("Key of Map must be String. ");
          }
-         catch (InvocationTargetException e)
+         try
          {
-            throw new JsonException(e.getMessage(), e);
+            return (Class<?>)parameterizedType.getActualTypeArguments()[1];
          }
-         catch (ExceptionInInitializerError e)
+         catch (ClassCastException e)
          {
-            throw new JsonException(e.getMessage(), e);
+            throw new JsonException("This type of Map can't be restored from JSON source."
+               + "\nMap is parameterized by wrong Type: " + parameterizedType + ".", e);
          }
       }
-      return collection;
+      throw new JsonException("Map is not parameterized. Map<Sting, ?> is not supported."
+         + "\nMap must be parameterized by String and any types or JavaBean with 'get' and 'set' methods.");
    }
 
    /**
-    * Create instance of <code>mapClass</code> from JSON representation. If
-    * <code>mapClass</code> is interface then appropriate implementation of
-    * interface will be returned.
+    * Get constructor which accepts source map. If <code>mapClass</code> is
+    * interface then constructor of appropriate implementation of interface
+    * will be returned.
     *
     * @param mapClass map type
-    * @param genericType actual type of map
-    * @param jsonObject source JSON object
-    * @return map
-    * @throws JsonException if any errors occurs
+    * @return constructor
+    * @throws JsonException if constructor can't be found
     */
-   public static <T extends Map<String, ?>> T createObject(Class<T> mapClass, Type genericType, JsonValue jsonObject)
+   static <T extends Map<String, ?>> Constructor<? extends T> getMapConstructor(Class<T> mapClass)
       throws JsonException
    {
-      T map = null;
-      if (jsonObject != null && !jsonObject.isNull())
+      Constructor<? extends T> constructor = null;
+      if (mapClass.isInterface() || Modifier.isAbstract(mapClass.getModifiers()))
       {
-         Class<?> valueActualType = null;
-         if (genericType instanceof ParameterizedType)
-         {
-            ParameterizedType parameterizedType = (ParameterizedType)genericType;
-            if (!String.class.isAssignableFrom((Class<?>)parameterizedType.getActualTypeArguments()[0]))
-            {
-               throw new JsonException("Key of Map must be String. ");
-            }
-            try
-            {
-               valueActualType = (Class<?>)parameterizedType.getActualTypeArguments()[1];
-            }
-            catch (ClassCastException e)
-            {
-               throw new JsonException("This type of Map can't be restored from JSON source."
-                  + "\nMap is parameterized by wrong Type: " + parameterizedType + ".", e);
-            }
-         }
-         else
+         try
          {
-            throw new JsonException("Map is not parameterized. Map<Sting, ?> is not supported."
-               + "\nMap must be parameterized by String and any types or JavaBean with 'get' and 'set' methods.");
+            constructor = HashMap.class.asSubclass(mapClass).getConstructor(new Class[]{Map.class});
          }
-         Constructor<? extends T> constructor = null;
-         if (mapClass.isInterface() || Modifier.isAbstract(mapClass.getModifiers()))
+         catch (Exception e)
          {
             try
             {
-               constructor = HashMap.class.asSubclass(mapClass).getConstructor(new Class[]{Map.class});
+               constructor = Hashtable.class.asSubclass(mapClass).getConstructor(new Class[]{Map.class});
             }
-            catch (Exception e)
+            catch (Exception e1)
             {
                try
                {
-                  constructor = Hashtable.class.asSubclass(mapClass).getConstructor(new Class[]{Map.class});
+                  constructor = LinkedHashMap.class.asSubclass(mapClass).getConstructor(new Class[]{Map.class});
                }
-               catch (Exception e1)
+               catch (Exception e2)
                {
-                  try
-                  {
-                     constructor = LinkedHashMap.class.asSubclass(mapClass).getConstructor(new Class[]{Map.class});
-                  }                  
-                  catch (Exception e2)
+                  if (LOG.isTraceEnabled())
                   {
-                     if (LOG.isTraceEnabled())
-                     {
-                        LOG.trace("An exception occurred: " + e2.getMessage());
-                     }
+                     LOG.trace("An exception occurred: " + e2.getMessage());
                   }
                }
             }
          }
-         else
-         {
-            try
-            {
-               constructor = mapClass.getConstructor(new Class[]{Map.class});
-            }
-            catch (SecurityException e)
-            {
-               throw new JsonException(e.getMessage(), e);
-            }
-            catch (NoSuchMethodException e)
-            {
-               throw new JsonException(e.getMessage(), e);
-            }
-         }
-
-         if (constructor == null)
-         {
-            throw new JsonException("Can't find satisfied constructor for : " + mapClass);
-         }
-
-         HashMap<String, Object> sourceMap = new HashMap<String, Object>(jsonObject.size());
-         Iterator<String> keys = jsonObject.getKeys();
-         while (keys.hasNext())
-         {
-            String k = keys.next();
-            JsonValue v = jsonObject.getElement(k);
-            if (!JsonUtils.isKnownType(valueActualType))
-            {
-               sourceMap.put(k, createObject(valueActualType, v));
-            }
-            else
-            {
-               sourceMap.put(k, createObjectKnownTypes(valueActualType, v));
-            }
-         }
+      }
+      else
+      {
          try
          {
-            map = constructor.newInstance(sourceMap);
-         }
-         catch (ExceptionInInitializerError e)
-         {
-            throw new JsonException(e.getMessage(), e);
-         }
-         catch (IllegalAccessException e)
-         {
-            throw new JsonException(e.getMessage(), e);
-         }
-         catch (IllegalArgumentException e)
-         {
-            throw new JsonException(e.getMessage(), e);
+            constructor = mapClass.getConstructor(new Class[]{Map.class});
          }
-         catch (InstantiationException e)
+         catch (SecurityException e)
          {
             throw new JsonException(e.getMessage(), e);
          }
-         catch (InvocationTargetException e)
+         catch (NoSuchMethodException e)
          {
             throw new JsonException(e.getMessage(), e);
          }
       }
-      return map;
+
+      if (constructor == null)
+      {
+         throw new JsonException("Can't find satisfied constructor for : " + mapClass);
+      }
+      return constructor;
    }
 
    /**
-    * Create Java Bean from Json Source.
+    * Create collection or map with constructor which accepts source
+    * collection or map.
     *
-    * @param clazz the Class of target Object.
-    * @param jsonValue the Json representation.
-    * @return Object.
-    * @throws JsonException if any errors occurs.
+    * @param constructor constructor
+    * @param source source collection or map
+    * @return new instance
+    * @throws JsonException if instance can't be created
     */
-   @SuppressWarnings({"unchecked", "rawtypes"})
-   public static <T> T createObject(Class<T> clazz, JsonValue jsonValue) throws JsonException
+   static <T> T newInstance(Constructor<T> constructor, Object source) throws JsonException
    {
-      if (jsonValue == null || jsonValue.isNull())
+      try
       {
-         return null;
+         return constructor.newInstance(source);
       }
-
-      Types type = JsonUtils.getType(clazz);
-      if (type == Types.ENUM)
+      catch (ExceptionInInitializerError e)
       {
-         // Enum is not instantiable via CLass.getInstance().
-         // This is used when enum is member of array or collection.
-         Class c = clazz;
-         return (T)Enum.valueOf(c, jsonValue.getStringValue());
+         throw new JsonException(e.getMessage(), e);
       }
-
-      if (!jsonValue.isObject())
+      catch (IllegalAccessException e)
       {
-         throw new JsonException("Unsupported type of jsonValue. ");
+         throw new JsonException(e.getMessage(), e);
       }
+      catch (IllegalArgumentException e)
+      {
+         throw new JsonException(e.getMessage(), e);
+      }
+      catch (InstantiationException e)
+      {
+         throw new JsonException(e.getMessage(), e);
+      }
+      catch (InvocationTargetException e)
+      {
+         throw new JsonException(e.getMessage(), e);
+      }
+   }
 
-      T object = null;
+   /**
+    * Create new instance of Java Bean.
+    *
+    * @param clazz the Class of bean
+    * @return new instance
+    * @throws JsonException if instance can't be created
+    */
+   static <T> T newInstance(Class<T> clazz) throws JsonException
+   {
       try
       {
-         object = clazz.newInstance();
+         return clazz.newInstance();
       }
       catch (ExceptionInInitializerError e)
       {
@@ -432,85 +568,6 @@ public class ObjectBuilder
       {
          throw new JsonException("Unable instantiate object. " + e.getMessage(), e);
       }
-
-      Method[] methods = clazz.getMethods();
-
-      for (Method method : methods)
-      {
-         String methodName = method.getName();
-         Class<?>[] parameterTypes = method.getParameterTypes();
-         // 3 is length of prefix 'set'
-         if (!SKIP_METHODS.contains(methodName) && methodName.startsWith("set") && parameterTypes.length == 1
-            && methodName.length() > 3)
-         {
-            Class<?> methodParameterClass = parameterTypes[0];
-            // 3 is length of prefix 'set'
-            String key = methodName.substring(3);
-            // first letter to lower case
-            key = (key.length() > 1) ? Character.toLowerCase(key.charAt(0)) + key.substring(1) : key.toLowerCase();
-
-            JsonValue childJsonValue = jsonValue.getElement(key);
-            if (childJsonValue == null)
-            {
-               continue;
-            }
-            // if one of known primitive type or array of primitive type
-            try
-            {
-
-               if (JsonUtils.isKnownType(methodParameterClass))
-               {
-                  method.invoke(object, new Object[]{createObjectKnownTypes(methodParameterClass, childJsonValue)});
-               }
-               else
-               {
-                  Types parameterType = JsonUtils.getType(methodParameterClass);
-                  // other type Collection, Map or Object[].
-                  if (parameterType != null)
-                  {
-                     if (parameterType == Types.ENUM)
-                     {
-                        Class c = methodParameterClass;
-                        Enum<?> en = Enum.valueOf(c, childJsonValue.getStringValue());
-                        method.invoke(object, new Object[]{en});
-                     }
-                     else if (parameterType == Types.ARRAY_OBJECT)
-                     {
-                        Object array = createArray(methodParameterClass, childJsonValue);
-                        method.invoke(object, new Object[]{array});
-                     }
-                     else if (parameterType == Types.COLLECTION)
-                     {
-                        Class c = methodParameterClass;
-                        method
-                           .invoke(object, createCollection(c, method.getGenericParameterTypes()[0], childJsonValue));
-                     }
-                     else if (parameterType == Types.MAP)
-                     {
-                        Class c = methodParameterClass;
-                        method.invoke(object, createObject(c, method.getGenericParameterTypes()[0], childJsonValue));
-                     }
-                     else
-                     {
-                        // it must never happen!
-                        throw new JsonException("Can't restore parameter of method : " + clazz.getName() + "#"
-                           + method.getName() + " from JSON source.");
-                     }
-                  }
-                  else
-                  {
-                     method.invoke(object, createObject(methodParameterClass, childJsonValue));
-                  }
-               }
-            }
-            catch (Exception e)
-            {
-               throw new JsonException("Unable restore parameter via method " + clazz.getName() + "#"
-                  + method.getName() + ". " + e.getMessage(), e);
-            }
-         }
-      }
-      return object;
    }
 
    /**
@@ -521,7 +578,7 @@ public class ObjectBuilder
     * @return Object.
     * @throws JsonException if type is unknown.
     */
-   private static Object createObjectKnownTypes(Class<?> clazz, JsonValue jsonValue) throws JsonException
+   static Object createObjectKnownTypes(Class<?> clazz, JsonValue jsonValue) throws JsonException
    {
       Types t = JsonUtils.getType(clazz);
       switch (t)
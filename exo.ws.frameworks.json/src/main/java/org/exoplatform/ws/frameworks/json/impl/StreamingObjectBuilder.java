@@ -0,0 +1,646 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import org.exoplatform.ws.frameworks.json.JsonHandler;
+import org.exoplatform.ws.frameworks.json.impl.JsonUtils.Types;
+import org.exoplatform.ws.frameworks.json.value.JsonValue;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates Java objects directly from events of {@link JsonParserImpl} without
+ * building of whole {@link JsonValue} tree first. Beans, collections, maps and
+ * arrays of objects are populated as tokens arrive. The same rules as in
+ * {@link ObjectBuilder} are applied to restore values of each type, e.g.
+ * values of known types are restored with
+ * {@link ObjectBuilder#createObjectKnownTypes(Class, JsonValue)}. Small parts
+ * of document which can't be restored in streaming way, e.g. arrays of
+ * primitives or value of property which has few setters, are collected in
+ * {@link JsonValue} and then passed to {@link ObjectBuilder}. Parts of
+ * document which are not mapped to any property of bean are skipped.
+ *
+ * @version $Id: $
+ */
+public class StreamingObjectBuilder implements JsonHandler
+{
+
+   /**
+    * Create object of type <code>clazz</code> from JSON source.
+    *
+    * @param clazz the Class of target object
+    * @param genericType generic type of target object, required for
+    *        collections and maps
+    * @param source JSON source
+    * @return result object
+    * @throws JsonException if any errors occurs
+    */
+   public static <T> T createObject(Class<T> clazz, Type genericType, Reader source) throws JsonException
+   {
+      StreamingObjectBuilder builder = new StreamingObjectBuilder(clazz, genericType);
+      try
+      {
+         new JsonParserImpl().parse(source, builder);
+      }
+      catch (BuildException e)
+      {
+         throw e.jsonException;
+      }
+      return clazz.cast(builder.result);
+   }
+
+   /**
+    * Create object of type <code>clazz</code> from JSON source.
+    *
+    * @param clazz the Class of target object
+    * @param genericType generic type of target object, required for
+    *        collections and maps
+    * @param source JSON source
+    * @return result object
+    * @throws JsonException if any errors occurs
+    */
+   public static <T> T createObject(Class<T> clazz, Type genericType, InputStream source) throws JsonException
+   {
+      StreamingObjectBuilder builder = new StreamingObjectBuilder(clazz, genericType);
+      try
+      {
+         new JsonParserImpl().parse(source, builder);
+      }
+      catch (BuildException e)
+      {
+         throw e.jsonException;
+      }
+      return clazz.cast(builder.result);
+   }
+
+   /**
+    * Carries {@link JsonException} through {@link JsonHandler} methods which
+    * may not throw checked exceptions.
+    */
+   @SuppressWarnings("serial")
+   private static final class BuildException extends RuntimeException
+   {
+      private final JsonException jsonException;
+
+      private BuildException(JsonException jsonException)
+      {
+         super(jsonException);
+         this.jsonException = jsonException;
+      }
+   }
+
+   /** Restore value with {@link ObjectBuilder#createValue(Class, Type, JsonValue)}. */
+   private static final int PROPERTY = 0;
+
+   /** Restore value with {@link ObjectBuilder#createElement(Class, JsonValue)}. */
+   private static final int ELEMENT = 1;
+
+   /** Restore value with {@link ObjectBuilder#createArrayElement(Class, JsonValue)}. */
+   private static final int ARRAY_ELEMENT = 2;
+
+   /** Do not restore value, use JSON value as is. */
+   private static final int RAW = 3;
+
+   /**
+    * Expected type of value at some position in JSON document.
+    */
+   private static final class Target
+   {
+      private final Class<?> clazz;
+
+      private final Type genericType;
+
+      private final int rule;
+
+      private Target(Class<?> clazz, Type genericType, int rule)
+      {
+         this.clazz = clazz;
+         this.genericType = genericType;
+         this.rule = rule;
+      }
+
+      /**
+       * @return frame for JSON object or <code>null</code> if object must be
+       *         collected in {@link JsonValue} first
+       */
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      private Frame objectFrame() throws JsonException
+      {
+         if (rule == RAW)
+            return null;
+         Types type = JsonUtils.getType(clazz);
+         if (type == null && !(rule == ARRAY_ELEMENT && clazz.isArray()))
+            return new BeanFrame(clazz);
+         if (type == Types.MAP && rule == PROPERTY)
+         {
+            Class c = clazz;
+            return new MapFrame(c, genericType);
+         }
+         return null;
+      }
+
+      /**
+       * @return frame for JSON array or <code>null</code> if array must be
+       *         collected in {@link JsonValue} first
+       */
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      private Frame arrayFrame() throws JsonException
+      {
+         if (rule == RAW || JsonUtils.isKnownType(clazz))
+            return null;
+         Types type = JsonUtils.getType(clazz);
+         if (type == Types.COLLECTION && rule == PROPERTY)
+         {
+            Class c = clazz;
+            return new CollectionFrame(c, genericType);
+         }
+         if (clazz.isArray() && (rule == PROPERTY || rule == ARRAY_ELEMENT))
+            return new ArrayFrame(clazz.getComponentType());
+         return null;
+      }
+
+      /**
+       * Restore value from its JSON representation.
+       */
+      private Object create(JsonValue jsonValue) throws JsonException
+      {
+         switch (rule)
+         {
+            case PROPERTY :
+               return ObjectBuilder.createValue(clazz, genericType, jsonValue);
+            case ELEMENT :
+               return ObjectBuilder.createElement(clazz, jsonValue);
+            case ARRAY_ELEMENT :
+               return ObjectBuilder.createArrayElement(clazz, jsonValue);
+            default :
+               return jsonValue;
+         }
+      }
+   }
+
+   /**
+    * Object, collection, map or array which is currently in process.
+    */
+   private abstract static class Frame
+   {
+      /**
+       * Key of next value, for JSON objects only.
+       */
+      void key(String key)
+      {
+      }
+
+      /**
+       * @return expected type of next value or <code>null</code> if next value
+       *         must be skipped
+       */
+      abstract Target next();
+
+      /**
+       * Add next value.
+       */
+      abstract void add(Object value) throws JsonException;
+
+      /**
+       * @return result object
+       */
+      abstract Object end() throws JsonException;
+   }
+
+   private static final class BeanFrame extends Frame
+   {
+      private final Object bean;
+
+      private final BeanMetadata metadata;
+
+      private String key;
+
+      private List<BeanMetadata.Setter> current;
+
+      /**
+       * Values of properties. They are set in {@link #end()}, so if the same key
+       * occurs few times the property is set once with the last value, as
+       * {@link ObjectBuilder} does.
+       */
+      private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+      BeanFrame(Class<?> clazz) throws JsonException
+      {
+         bean = ObjectBuilder.newInstance(clazz);
+         metadata = BeanMetadata.get(clazz);
+      }
+
+      @Override
+      void key(String key)
+      {
+         this.key = key;
+         current = metadata.getSetters(key);
+      }
+
+      @Override
+      Target next()
+      {
+         if (current == null)
+            return null;
+         if (current.size() > 1)
+            return new Target(null, null, RAW);
+         BeanMetadata.Setter setter = current.get(0);
+         return new Target(setter.type, setter.genericType, PROPERTY);
+      }
+
+      @Override
+      void add(Object value)
+      {
+         values.put(key, value);
+      }
+
+      @Override
+      Object end() throws JsonException
+      {
+         for (Map.Entry<String, Object> e : values.entrySet())
+         {
+            List<BeanMetadata.Setter> setters = metadata.getSetters(e.getKey());
+            if (setters.size() > 1)
+            {
+               // Few setters for the same property, restore parameter for each.
+               for (BeanMetadata.Setter setter : setters)
+                  ObjectBuilder.setProperty(bean, setter, (JsonValue)e.getValue());
+               continue;
+            }
+            BeanMetadata.Setter setter = setters.get(0);
+            try
+            {
+               setter.set(bean, e.getValue());
+            }
+            catch (Exception ex)
+            {
+               throw new JsonException("Unable restore parameter via method " + bean.getClass().getName() + "#"
+                  + setter.method.getName() + ". " + ex.getMessage(), ex);
+            }
+         }
+         return bean;
+      }
+   }
+
+   private static final class CollectionFrame<T extends Collection<?>> extends Frame
+   {
+      private final Constructor<? extends T> constructor;
+
+      private final Target item;
+
+      private final List<Object> items = new ArrayList<Object>();
+
+      CollectionFrame(Class<T> collectionClass, Type genericType) throws JsonException
+      {
+         Class<?> itemType = ObjectBuilder.getCollectionItemType(genericType);
+         constructor = ObjectBuilder.getCollectionConstructor(collectionClass);
+         item = new Target(itemType, null, ELEMENT);
+      }
+
+      @Override
+      Target next()
+      {
+         return item;
+      }
+
+      @Override
+      void add(Object value)
+      {
+         items.add(value);
+      }
+
+      @Override
+      Object end() throws JsonException
+      {
+         return ObjectBuilder.newInstance(constructor, items);
+      }
+   }
+
+   private static final class MapFrame<T extends Map<String, ?>> extends Frame
+   {
+      private final Constructor<? extends T> constructor;
+
+      private final Target value;
+
+      private final Map<String, Object> values = new HashMap<String, Object>();
+
+      private String key;
+
+      MapFrame(Class<T> mapClass, Type genericType) throws JsonException
+      {
+         Class<?> valueType = ObjectBuilder.getMapValueType(genericType);
+         constructor = ObjectBuilder.getMapConstructor(mapClass);
+         value = new Target(valueType, null, ELEMENT);
+      }
+
+      @Override
+      void key(String key)
+      {
+         this.key = key;
+      }
+
+      @Override
+      Target next()
+      {
+         return value;
+      }
+
+      @Override
+      void add(Object value)
+      {
+         values.put(key, value);
+      }
+
+      @Override
+      Object end() throws JsonException
+      {
+         return ObjectBuilder.newInstance(constructor, values);
+      }
+   }
+
+   private static final class ArrayFrame extends Frame
+   {
+      private final Class<?> componentType;
+
+      private final Target item;
+
+      private final List<Object> items = new ArrayList<Object>();
+
+      ArrayFrame(Class<?> componentType)
+      {
+         this.componentType = componentType;
+         item = new Target(componentType, null, ARRAY_ELEMENT);
+      }
+
+      @Override
+      Target next()
+      {
+         return item;
+      }
+
+      @Override
+      void add(Object value)
+      {
+         items.add(value);
+      }
+
+      @Override
+      Object end()
+      {
+         Object array = Array.newInstance(componentType, items.size());
+         for (int i = 0; i < items.size(); i++)
+            Array.set(array, i, items.get(i));
+         return array;
+      }
+   }
+
+   /** Expected type of root object. */
+   private final Target root;
+
+   /** Objects which are currently in process. */
+   private final JsonStack<Frame> frames = new JsonStack<Frame>();
+
+   /**
+    * Depth of part of document which is collected in {@link #tree} or skipped.
+    * Zero if document is processed in streaming way now.
+    */
+   private int treeDepth;
+
+   /** Collects current part of document, <code>null</code> if part is skipped. */
+   private JsonDefaultHandler tree;
+
+   /** Expected type of value which is collected in {@link #tree}. */
+   private Target treeTarget;
+
+   private Object result;
+
+   private StreamingObjectBuilder(Class<?> clazz, Type genericType)
+   {
+      root = new Target(clazz, genericType, PROPERTY);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void startObject()
+   {
+      if (treeDepth > 0)
+      {
+         treeDepth++;
+         if (tree != null)
+            tree.startObject();
+         return;
+      }
+      Target target = nextTarget();
+      Frame frame = null;
+      if (target != null)
+      {
+         try
+         {
+            frame = target.objectFrame();
+         }
+         catch (JsonException e)
+         {
+            throw new BuildException(e);
+         }
+      }
+      if (frame == null)
+      {
+         startTree(target);
+         if (tree != null)
+            tree.startObject();
+         return;
+      }
+      frames.push(frame);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void endObject()
+   {
+      if (treeDepth > 0)
+      {
+         if (tree != null)
+            tree.endObject();
+         if (--treeDepth == 0)
+            endTree();
+         return;
+      }
+      endFrame();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void startArray()
+   {
+      if (treeDepth > 0)
+      {
+         treeDepth++;
+         if (tree != null)
+            tree.startArray();
+         return;
+      }
+      Target target = nextTarget();
+      Frame frame = null;
+      if (target != null)
+      {
+         try
+         {
+            frame = target.arrayFrame();
+         }
+         catch (JsonException e)
+         {
+            throw new BuildException(e);
+         }
+      }
+      if (frame == null)
+      {
+         startTree(target);
+         if (tree != null)
+            tree.startArray();
+         return;
+      }
+      frames.push(frame);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void endArray()
+   {
+      if (treeDepth > 0)
+      {
+         if (tree != null)
+            tree.endArray();
+         if (--treeDepth == 0)
+            endTree();
+         return;
+      }
+      endFrame();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void key(String key)
+   {
+      if (treeDepth > 0)
+      {
+         if (tree != null)
+            tree.key(key);
+         return;
+      }
+      frames.peek().key(key);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void characters(char[] characters)
+   {
+      if (treeDepth > 0)
+      {
+         if (tree != null)
+            tree.characters(characters);
+         return;
+      }
+      Target target = frames.peek().next();
+      if (target != null)
+      {
+         try
+         {
+            frames.peek().add(target.create(JsonDefaultHandler.parseCharacters(characters)));
+         }
+         catch (JsonException e)
+         {
+            throw new BuildException(e);
+         }
+      }
+   }
+
+   /**
+    * Always returns <code>null</code> since {@link JsonValue} is not created.
+    *
+    * @return <code>null</code>
+    */
+   public JsonValue getJsonObject()
+   {
+      return null;
+   }
+
+   private Target nextTarget()
+   {
+      return frames.isEmpty() ? root : frames.peek().next();
+   }
+
+   private void startTree(Target target)
+   {
+      treeDepth = 1;
+      treeTarget = target;
+      tree = target != null ? new JsonDefaultHandler() : null;
+   }
+
+   private void endTree()
+   {
+      JsonDefaultHandler completed = tree;
+      tree = null;
+      if (completed != null)
+      {
+         try
+         {
+            add(treeTarget.create(completed.getJsonObject()));
+         }
+         catch (JsonException e)
+         {
+            throw new BuildException(e);
+         }
+      }
+      treeTarget = null;
+   }
+
+   private void endFrame()
+   {
+      try
+      {
+         add(frames.pop().end());
+      }
+      catch (JsonException e)
+      {
+         throw new BuildException(e);
+      }
+   }
+
+   private void add(Object value) throws JsonException
+   {
+      if (frames.isEmpty())
+         result = value;
+      else
+         frames.peek().add(value);
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import org.exoplatform.ws.frameworks.json.BeanWithTransientField;
+import org.exoplatform.ws.frameworks.json.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @version $Id: $
+ */
+public class BeanMetadataTest extends JsonTest
+{
+
+   public void testCached() throws Exception
+   {
+      assertSame(BeanMetadata.get(Book.class), BeanMetadata.get(Book.class));
+   }
+
+   public void testGetters() throws Exception
+   {
+      List<String> names = new ArrayList<String>();
+      for (BeanMetadata.Getter getter : BeanMetadata.get(BeanWithTransientField.class).getGetters())
+         names.add(getter.name);
+      // getClass is skipped, transient field is skipped
+      assertEquals(1, names.size());
+      assertEquals("field", names.get(0));
+      assertEquals("visible", BeanMetadata.get(BeanWithTransientField.class).getGetters().get(0).get(
+         new BeanWithTransientField()));
+   }
+
+   public void testSetters() throws Exception
+   {
+      BeanMetadata metadata = BeanMetadata.get(Book.class);
+      assertNull(metadata.getSetters("unknown"));
+      List<BeanMetadata.Setter> setters = metadata.getSetters("pages");
+      assertEquals(1, setters.size());
+      assertEquals(int.class, setters.get(0).type);
+      Book book = new Book();
+      setters.get(0).set(book, 386);
+      assertEquals(386, book.getPages());
+   }
+
+   public void testNotPublicClass() throws Exception
+   {
+      NotPublicBean bean = new NotPublicBean();
+      bean.setName("test");
+      BeanMetadata metadata = BeanMetadata.get(NotPublicBean.class);
+      assertEquals("test", metadata.getGetters().get(0).get(bean));
+      metadata.getSetters("name").get(0).set(bean, "other");
+      assertEquals("other", bean.getName());
+   }
+
+   static class NotPublicBean
+   {
+      private String name;
+
+      public String getName()
+      {
+         return name;
+      }
+
+      public void setName(String name)
+      {
+         this.name = name;
+      }
+   }
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import org.exoplatform.ws.frameworks.json.JsonHandler;
+import org.exoplatform.ws.frameworks.json.value.JsonValue;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Check that {@link JsonParserImpl} gives the same events and errors whatever
+ * size of buffer is used, and that default buffer saves calls of reader
+ * comparing to buffer of one character.
+ *
+ * @version $Id: $
+ */
+public class JsonParserBufferTest extends JsonTest
+{
+
+   private static final String[] FIXTURES = new String[]{"BookStorage.txt", "CollectionTest.txt", "MapTest.txt"};
+
+   private static final String[] DOCUMENTS =
+      new String[]{
+         "{\"a\" : \"b\\n\\t\\\"c\\u0041\" /* comment */, \"b\":[1, -2.5, 0x1F, true, null] // comment\n}",
+         "[{\"k\":{}}, [], [[\"x\"]], \"\"]", "{\"key\":\"" + repeat("long value ", 1000) + "\"}"};
+
+   private static final String[] MALFORMED =
+      new String[]{"{\"a\":\"b}", "{\"a\" \"b\"}", "{\"\":1}", "{a:1}", "[1,2", "{\"a\":tr", "{\"a\":1}}", "x",
+         "{\"a\":1 /* comment", "{\"a\":\"b\nc\"}"};
+
+   public void testSameEvents() throws Exception
+   {
+      for (String fixture : FIXTURES)
+      {
+         String source = read(fixture);
+         String expected = parse(new JsonParserImpl(), source);
+         for (int size = 1; size < 8; size++)
+            assertEquals(fixture, expected, parse(new JsonParserImpl(size), source));
+      }
+      for (String source : DOCUMENTS)
+      {
+         String expected = parse(new JsonParserImpl(), source);
+         for (int size = 1; size < 8; size++)
+            assertEquals(source, expected, parse(new JsonParserImpl(size), source));
+      }
+   }
+
+   public void testSameErrors() throws Exception
+   {
+      for (String source : MALFORMED)
+      {
+         String expected = parse(new JsonParserImpl(), source);
+         assertTrue(source, expected.startsWith("error:"));
+         for (int size = 1; size < 8; size++)
+            assertEquals(source, expected, parse(new JsonParserImpl(size), source));
+      }
+   }
+
+   public void testParserReuse() throws Exception
+   {
+      JsonParserImpl parser = new JsonParserImpl(16);
+      String source = read("BookStorage.txt");
+      String expected = parse(parser, source);
+      parse(parser, "{\"a\":\"b}");
+      assertEquals(expected, parse(parser, source));
+   }
+
+   public void testReaderCalls() throws Exception
+   {
+      // document with long string value
+      String source = DOCUMENTS[2];
+      CountingReader unbuffered = new CountingReader(new StringReader(source));
+      new JsonParserImpl(1).parse(unbuffered, new JsonDefaultHandler());
+      CountingReader buffered = new CountingReader(new StringReader(source));
+      new JsonParserImpl().parse(buffered, new JsonDefaultHandler());
+      // Reader is called for each character if buffer has one character only.
+      assertTrue(unbuffered.calls >= source.length());
+      // With default buffer source is read by blocks.
+      assertTrue("Too many calls of reader: " + buffered.calls,
+         buffered.calls <= source.length() / JsonParserImpl.DEFAULT_BUFFER_SIZE + 3);
+      assertTrue(buffered.calls * 100 < unbuffered.calls);
+   }
+
+   private String parse(JsonParserImpl parser, String source)
+   {
+      RecordingHandler handler = new RecordingHandler();
+      try
+      {
+         parser.parse(new StringReader(source), handler);
+      }
+      catch (JsonException e)
+      {
+         return "error:" + e.getMessage() + " after " + handler.events;
+      }
+      return handler.events.toString();
+   }
+
+   private static String read(String name) throws Exception
+   {
+      InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(name);
+      Reader reader = new InputStreamReader(in, JsonUtils.DEFAULT_CHARSET);
+      StringBuilder sb = new StringBuilder();
+      char[] buf = new char[1024];
+      int r;
+      while ((r = reader.read(buf)) != -1)
+         sb.append(buf, 0, r);
+      reader.close();
+      return sb.toString();
+   }
+
+   private static String repeat(String s, int times)
+   {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < times; i++)
+         sb.append(s);
+      return sb.toString();
+   }
+
+   private static class CountingReader extends FilterReader
+   {
+      private int calls;
+
+      CountingReader(Reader in)
+      {
+         super(in);
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+         calls++;
+         return super.read();
+      }
+
+      @Override
+      public int read(char[] cbuf, int off, int len) throws IOException
+      {
+         calls++;
+         return super.read(cbuf, off, len);
+      }
+   }
+
+   private static class RecordingHandler implements JsonHandler
+   {
+      private final StringBuilder events = new StringBuilder();
+
+      public void startObject()
+      {
+         events.append('{');
+      }
+
+      public void endObject()
+      {
+         events.append('}');
+      }
+
+      public void startArray()
+      {
+         events.append('[');
+      }
+
+      public void endArray()
+      {
+         events.append(']');
+      }
+
+      public void key(String key)
+      {
+         events.append("key(").append(key).append(')');
+      }
+
+      public void characters(char[] characters)
+      {
+         events.append("chars(").append(characters).append(')');
+      }
+
+      public JsonValue getJsonObject()
+      {
+         return null;
+      }
+   }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import org.exoplatform.ws.frameworks.json.BeanWithBookEnum;
+import org.exoplatform.ws.frameworks.json.BeanWithTransientField;
+import org.exoplatform.ws.frameworks.json.Book;
+import org.exoplatform.ws.frameworks.json.BookEnum;
+import org.exoplatform.ws.frameworks.json.BookStorage;
+import org.exoplatform.ws.frameworks.json.JavaMapBean;
+import org.exoplatform.ws.frameworks.json.value.JsonValue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Check that {@link JsonSerializer} gives the same result as
+ * {@link JsonGeneratorImpl}.
+ *
+ * @version $Id: $
+ */
+public class JsonSerializerTest extends JsonTest
+{
+
+   public void testBean() throws Exception
+   {
+      JsonValue expected = new JsonGeneratorImpl().createJsonObject(junitBook);
+      StringWriter out = new StringWriter();
+      JsonWriterImpl writer = new JsonWriterImpl(out);
+      new JsonSerializer().writeObject(junitBook, writer);
+      writer.flush();
+      assertEquals(toString(expected), out.toString());
+   }
+
+   public void testTransientField() throws Exception
+   {
+      String json = write(new BeanWithTransientField());
+      assertEquals("{\"field\":\"visible\"}", json);
+   }
+
+   public void testEnum() throws Exception
+   {
+      BeanWithBookEnum bean = new BeanWithBookEnum();
+      bean.setBook(BookEnum.JUNIT_IN_ACTION);
+      assertEquals(toString(new JsonGeneratorImpl().createJsonObject(bean)), write(bean));
+   }
+
+   public void testCollection() throws Exception
+   {
+      BookStorage storage = new BookStorage();
+      storage.setBooks(Arrays.asList(junitBook, csharpBook, javaScriptBook));
+      assertEquals(toString(new JsonGeneratorImpl().createJsonObject(storage)), write(storage));
+   }
+
+   public void testMaps() throws Exception
+   {
+      JavaMapBean bean = new JavaMapBean();
+      Map<String, Book> m = new LinkedHashMap<String, Book>();
+      m.put("junit", junitBook);
+      m.put("csharp", csharpBook);
+      bean.setMap(m);
+      bean.setHashMap(new HashMap<String, Book>(m));
+      Map<String, List<Book>> ml = new HashMap<String, List<Book>>();
+      ml.put("books", new ArrayList<Book>(m.values()));
+      ml.put("empty", null);
+      bean.setMapList(ml);
+      Map<String, Integer> mi = new HashMap<String, Integer>();
+      mi.put("one", 1);
+      bean.setIntegers(mi);
+      assertEquals(toString(new JsonGeneratorImpl().createJsonObject(bean)), write(bean));
+   }
+
+   public void testArrays() throws Exception
+   {
+      Object[] arrays = new Object[]{new int[]{1, 2, 3}, new float[]{1.5F, 2.1F}, new char[]{'a', 'b'},
+         new String[]{"a", null, "c"}, new boolean[]{true, false}, new Book[]{junitBook, null}};
+      for (Object array : arrays)
+      {
+         StringWriter out = new StringWriter();
+         JsonWriterImpl writer = new JsonWriterImpl(out);
+         writer.writeStartArray();
+         new JsonSerializer().writeArray(array, writer);
+         writer.writeEndArray();
+         writer.flush();
+         JsonValue expected = new JsonGeneratorImpl().createJsonArray(array);
+         assertEquals("[" + toString(expected) + "]", out.toString());
+      }
+   }
+
+   private String write(Object bean) throws Exception
+   {
+      StringWriter out = new StringWriter();
+      JsonWriterImpl writer = new JsonWriterImpl(out);
+      new JsonSerializer().writeObject(bean, writer);
+      writer.flush();
+      return out.toString();
+   }
+
+   private String toString(JsonValue value) throws Exception
+   {
+      StringWriter out = new StringWriter();
+      JsonWriterImpl writer = new JsonWriterImpl(out);
+      if (value.isObject())
+      {
+         value.writeTo(writer);
+      }
+      else
+      {
+         // Writer does not accept array at top level.
+         writer.writeStartArray();
+         value.writeTo(writer);
+         writer.writeEndArray();
+         writer.flush();
+         String s = out.toString();
+         return s.substring(1, s.length() - 1);
+      }
+      writer.flush();
+      return out.toString();
+   }
+}
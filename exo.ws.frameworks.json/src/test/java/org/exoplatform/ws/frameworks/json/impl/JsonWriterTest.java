@@ -17,6 +17,7 @@
 package org.exoplatform.ws.frameworks.json.impl;
 
 import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
 
 /**
  * @author <a href="mailto:andrew00x@gmail.com">Andrey Parfonov</a>
@@ -75,4 +76,82 @@ public class JsonWriterTest extends JsonTest
       System.out.println(new String(out.toByteArray()));
    }
 
+   public void testEscapeAllCharacters() throws Exception
+   {
+      StringBuilder all = new StringBuilder();
+      for (char c = 0; c < 0xFFFF; c++)
+      {
+         String single = String.valueOf(c);
+         assertEquals(JsonUtils.getJsonString(single), writeString(single));
+         all.append(c).append('a');
+      }
+      // Runs of characters longer then internal buffer.
+      assertEquals(JsonUtils.getJsonString(all.toString()), writeString(all.toString()));
+      StringBuilder plain = new StringBuilder();
+      for (int i = 0; i < 5000; i++)
+         plain.append((char)('a' + i % 26));
+      assertEquals(JsonUtils.getJsonString(plain.toString()), writeString(plain.toString()));
+      assertEquals("\"\"", writeString(""));
+      assertEquals("\"\"", writeString(null));
+   }
+
+   public void testNumbers() throws Exception
+   {
+      long[] longs = {0, -1, 1, 121, Long.MAX_VALUE, Long.MIN_VALUE};
+      double[] doubles = {0D, -0D, 121.121, 1.0E-10, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN};
+      StringWriter sw = new StringWriter();
+      JsonWriterImpl jsw = new JsonWriterImpl(sw);
+      StringBuilder expected = new StringBuilder("[");
+      jsw.writeStartArray();
+      for (long l : longs)
+      {
+         jsw.writeValue(l);
+         expected.append(Long.toString(l)).append(',');
+      }
+      for (double d : doubles)
+      {
+         jsw.writeValue(d);
+         expected.append(Double.toString(d)).append(',');
+      }
+      jsw.writeValue(false);
+      expected.append("false]");
+      jsw.writeEndArray();
+      jsw.flush();
+      assertEquals(expected.toString(), sw.toString());
+   }
+
+   public void testEscapedKey() throws Exception
+   {
+      StringWriter sw = new StringWriter();
+      JsonWriterImpl jsw = new JsonWriterImpl(sw);
+      jsw.writeStartObject();
+      jsw.writeKey("a\"b");
+      jsw.writeValue(1);
+      jsw.writeJsonKey(JsonUtils.getJsonString("c\nd"));
+      jsw.writeValue(2);
+      jsw.writeEndObject();
+      jsw.flush();
+      assertEquals("{\"a\\\"b\":1,\"c\\nd\":2}", sw.toString());
+      try
+      {
+         jsw.writeString("x");
+         fail("JsonException should be thrown. ");
+      }
+      catch (JsonException e)
+      {
+      }
+   }
+
+   private String writeString(String value) throws Exception
+   {
+      StringWriter sw = new StringWriter();
+      JsonWriterImpl jsw = new JsonWriterImpl(sw);
+      jsw.writeStartArray();
+      jsw.writeString(value);
+      jsw.writeEndArray();
+      jsw.flush();
+      String result = sw.toString();
+      return result.substring(1, result.length() - 1);
+   }
+
 }
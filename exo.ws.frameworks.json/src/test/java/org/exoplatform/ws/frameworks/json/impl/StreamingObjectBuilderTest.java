@@ -0,0 +1,189 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.ws.frameworks.json.impl;
+
+import org.exoplatform.ws.frameworks.json.BeanWithBookEnum;
+import org.exoplatform.ws.frameworks.json.BeanWithSimpleEnum;
+import org.exoplatform.ws.frameworks.json.Book;
+import org.exoplatform.ws.frameworks.json.BookEnum;
+import org.exoplatform.ws.frameworks.json.BookStorage;
+import org.exoplatform.ws.frameworks.json.JavaCollectionBean;
+import org.exoplatform.ws.frameworks.json.JavaMapBean;
+import org.exoplatform.ws.frameworks.json.StringEnum;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @version $Id: $
+ */
+public class StreamingObjectBuilderTest extends JsonTest
+{
+
+   public static class CountingBean
+   {
+      private String title;
+
+      private int calls;
+
+      public String getTitle()
+      {
+         return title;
+      }
+
+      public void setTitle(String title)
+      {
+         this.title = title;
+         calls++;
+      }
+
+      public int getCalls()
+      {
+         return calls;
+      }
+   }
+
+   public List<Book> books;
+
+   public Map<String, Book> bookMap;
+
+   public void testCollections() throws Exception
+   {
+      JavaCollectionBean o =
+         StreamingObjectBuilder.createObject(JavaCollectionBean.class, null, new InputStreamReader(Thread
+            .currentThread().getContextClassLoader().getResourceAsStream("CollectionTest.txt")));
+      List<Book> expected = Arrays.asList(junitBook, csharpBook, javaScriptBook);
+      assertEquals(expected, o.getArrayList());
+      assertEquals(expected, o.getList());
+      assertEquals(expected, o.getLinkedList());
+      assertEquals(expected, o.getVector());
+      assertEquals(3, o.getHashSet().size());
+      assertEquals(3, o.getQueue().size());
+      assertEquals(expected, Arrays.asList(o.getArray()));
+   }
+
+   public void testMaps() throws Exception
+   {
+      JavaMapBean o =
+         StreamingObjectBuilder.createObject(JavaMapBean.class, null, new InputStreamReader(Thread.currentThread()
+            .getContextClassLoader().getResourceAsStream("MapTest.txt")));
+      assertEquals(junitBook, o.getMap().get("JUnit"));
+      assertEquals(csharpBook, o.getHashMap().get("C#"));
+      assertEquals(javaScriptBook, o.getHashtable().get("JavaScript"));
+      assertEquals(javaScriptBook, o.getLinkedHashMap().get("JavaScript"));
+   }
+
+   public void testBean() throws Exception
+   {
+      BookStorage o =
+         StreamingObjectBuilder.createObject(BookStorage.class, null, new InputStreamReader(Thread.currentThread()
+            .getContextClassLoader().getResourceAsStream("BookStorage.txt")));
+      assertEquals(3, o.getBooks().size());
+      assertEquals(junitBook, o.getBooks().get(0));
+   }
+
+   public void testSkipUnknownProperties() throws Exception
+   {
+      String source =
+         "{\"unknown\":{\"a\":[1,{\"b\":2}]},\"author\":\"Vincent Masson\",\"other\":[[1],{}],"
+            + "\"title\":\"JUnit in Action\",\"pages\":386,\"price\":19.37,\"x\":null}";
+      Book book = StreamingObjectBuilder.createObject(Book.class, null, new StringReader(source));
+      assertEquals(junitBook.getAuthor(), book.getAuthor());
+      assertEquals(junitBook.getTitle(), book.getTitle());
+      assertEquals(386, book.getPages());
+      assertEquals(19.37D, book.getPrice(), 0.0D);
+   }
+
+   public void testEnums() throws Exception
+   {
+      String source =
+         "{\"countList\":[\"ONE\",\"TWO\",\"TREE\"], \"name\":\"andrew\",\"count\":\"TREE\",\"counts\":[\"TWO\",\"TREE\"]}";
+      BeanWithSimpleEnum o = StreamingObjectBuilder.createObject(BeanWithSimpleEnum.class, null, new StringReader(source));
+      assertEquals("andrew", o.getName());
+      assertEquals(StringEnum.TREE, o.getCount());
+      assertEquals(Arrays.asList(StringEnum.TWO, StringEnum.TREE), Arrays.asList(o.getCounts()));
+      assertEquals(Arrays.asList(StringEnum.ONE, StringEnum.TWO, StringEnum.TREE), o.getCountList());
+
+      BeanWithBookEnum b =
+         StreamingObjectBuilder.createObject(BeanWithBookEnum.class, null, new StringReader("{\"book\":\"BEGINNING_C\"}"));
+      assertEquals(BookEnum.BEGINNING_C, b.getBook());
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testRootCollectionAndMap() throws Exception
+   {
+      String book =
+         "{\"author\":\"Vincent Masson\",\"title\":\"JUnit in Action\",\"pages\":386,\"price\":19.37,"
+            + "\"isdn\":93011099534534}";
+      List<Book> l =
+         StreamingObjectBuilder.createObject(List.class, getClass().getField("books").getGenericType(),
+            new StringReader("[" + book + "," + book + "]"));
+      assertEquals(Arrays.asList(junitBook, junitBook), l);
+
+      Map<String, Book> m =
+         StreamingObjectBuilder.createObject(Map.class, getClass().getField("bookMap").getGenericType(),
+            new StringReader("{\"junit\":" + book + "}"));
+      assertEquals(junitBook, m.get("junit"));
+
+      Book[] a = StreamingObjectBuilder.createObject(Book[].class, null, new StringReader("[" + book + ",null]"));
+      assertEquals(2, a.length);
+      assertEquals(junitBook, a[0]);
+      assertNull(a[1]);
+
+      int[] i = StreamingObjectBuilder.createObject(int[].class, null, new StringReader("[1,2,3]"));
+      assertEquals(3, i.length);
+      assertEquals(3, i[2]);
+   }
+
+   public void testError() throws Exception
+   {
+      try
+      {
+         StreamingObjectBuilder.createObject(List.class, null, new StringReader("[1,2,3]"));
+         fail("JsonException expected, collection is not parameterized. ");
+      }
+      catch (JsonException e)
+      {
+      }
+      try
+      {
+         StreamingObjectBuilder.createObject(BookStorage.class, null, new StringReader("{\"books\":[\"text\"]}"));
+         fail("JsonException expected. ");
+      }
+      catch (JsonException e)
+      {
+      }
+   }
+
+   public void testDuplicateKey() throws Exception
+   {
+      String source = "{\"title\":\"first\",\"title\":\"second\"}";
+      CountingBean o = StreamingObjectBuilder.createObject(CountingBean.class, null, new StringReader(source));
+      assertEquals("second", o.getTitle());
+      assertEquals(1, o.getCalls());
+
+      // The same as non-streaming builder does.
+      JsonDefaultHandler handler = new JsonDefaultHandler();
+      new JsonParserImpl().parse(new StringReader(source), handler);
+      CountingBean expected = ObjectBuilder.createObject(CountingBean.class, handler.getJsonObject());
+      assertEquals(expected.getTitle(), o.getTitle());
+      assertEquals(expected.getCalls(), o.getCalls());
+   }
+}
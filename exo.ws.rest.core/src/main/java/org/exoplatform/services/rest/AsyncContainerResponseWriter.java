@@ -0,0 +1,53 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest;
+
+/**
+ * Extension of {@link ContainerResponseWriter} for connectors which are able
+ * to complete request after {@link RequestHandler#handleRequest} returns, e.g.
+ * servlet with asynchronous processing enabled. Used when resource method
+ * returns {@link java.util.concurrent.CompletionStage} which is not completed
+ * yet.
+ *
+ * @version $Id: $
+ */
+public interface AsyncContainerResponseWriter extends ContainerResponseWriter
+{
+
+   /**
+    * Suspend request. Called from thread which processes request before
+    * {@link RequestHandler#handleRequest} returns. Connector must not complete
+    * the request until {@link #resume(Runnable)} is called.
+    *
+    * @return <code>true</code> if request is suspended and <code>false</code>
+    *         if asynchronous processing is not available for request, in this
+    *         case result is awaited by thread which processes request
+    */
+   boolean suspend();
+
+   /**
+    * Resume suspended request. Called when result of resource method is
+    * available. Connector must restore its environment, e.g.
+    * {@link org.exoplatform.services.rest.impl.EnvironmentContext}, run
+    * <code>task</code> which writes response and then complete the request.
+    * Task may be run in any thread.
+    *
+    * @param task writes response
+    */
+   void resume(Runnable task);
+
+}
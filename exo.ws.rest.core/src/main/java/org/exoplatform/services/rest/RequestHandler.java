@@ -43,6 +43,33 @@ public interface RequestHandler
     */
    public static final int WS_RS_BUFFER_SIZE_VALUE = 204800;
 
+   /**
+    * Virtual threads attribute name. If value of attribute is 'true' then all
+    * resource methods, except excluded with
+    * <code>&#64;RunOnVirtualThread(false)</code>, are executed on virtual
+    * threads, see {@link RunOnVirtualThread}.
+    */
+   public static final String WS_RS_VIRTUAL_THREADS = "ws.rs.virtualthreads";
+
+   /**
+    * Compression attribute name. If value of attribute is 'true' then
+    * responses are compressed with gzip or deflate content coding if client
+    * accepts it.
+    */
+   public static final String WS_RS_COMPRESSION = "ws.rs.compression";
+
+   /**
+    * Compression threshold attribute name. Entities which size is known and
+    * less then specified are not compressed.
+    */
+   public static final String WS_RS_COMPRESSION_THRESHOLD = "ws.rs.compression.threshold";
+
+   /**
+    * Compression threshold attribute value. See
+    * {@link #WS_RS_COMPRESSION_THRESHOLD}.
+    */
+   public static final int WS_RS_COMPRESSION_THRESHOLD_VALUE = 1024;
+
    /**
     * Handle the HTTP request by dispatching request to appropriate resource. If
     * no one appropriate resource found then error response will be produced.
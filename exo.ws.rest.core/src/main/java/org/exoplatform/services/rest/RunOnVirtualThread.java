@@ -0,0 +1,54 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Resource methods annotated with this annotation, or all resource methods of
+ * annotated class, are executed on virtual threads. Thread which processes
+ * request is released while method is running if connector is able to
+ * suspend request, see {@link AsyncContainerResponseWriter}. All resource
+ * methods may be executed on virtual threads if attribute
+ * {@link RequestHandler#WS_RS_VIRTUAL_THREADS} is set.
+ * <p>
+ * Annotation is ignored if virtual threads are not supported by Java runtime.
+ * Methods declared as <code>synchronized</code> are never executed on virtual
+ * threads since they pin carrier thread while blocked. Methods which block
+ * inside <code>synchronized</code> blocks pin carrier thread too, use
+ * <code>&#64;RunOnVirtualThread(false)</code> to execute them in thread which
+ * processes request when {@link RequestHandler#WS_RS_VIRTUAL_THREADS} is set.
+ * Annotation of method overrides annotation of class.
+ * </p>
+ *
+ * @version $Id: $
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RunOnVirtualThread {
+
+   /**
+    * @return <code>false</code> if methods must not be executed on virtual
+    *         threads
+    */
+   boolean value() default true;
+}
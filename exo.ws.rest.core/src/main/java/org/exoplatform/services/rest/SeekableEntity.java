@@ -0,0 +1,55 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Entity which content may be read from any position, e.g. content of file
+ * or blob stored in database. Resource method may return such entity to let
+ * runtime serve <code>Range</code> requests with <code>206 Partial
+ * Content</code> responses without reading the whole content.
+ *
+ * @version $Id: $
+ */
+public interface SeekableEntity
+{
+
+   /**
+    * @return length of entity in bytes
+    */
+   long getLength();
+
+   /**
+    * @return time of last modification of entity in milliseconds, or
+    *         <code>-1</code> if it is unknown. Used to validate
+    *         <code>If-Range</code> header if response has not
+    *         <code>ETag</code> and <code>Last-Modified</code> headers.
+    */
+   long getLastModified();
+
+   /**
+    * Open new channel to read content of entity. Caller is responsible for
+    * closing of channel.
+    *
+    * @return channel positioned at the start of the entity
+    * @throws IOException if channel can't be opened
+    */
+   SeekableByteChannel openChannel() throws IOException;
+
+}
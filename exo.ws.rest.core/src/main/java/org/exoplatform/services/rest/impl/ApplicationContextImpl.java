@@ -27,8 +27,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.PathSegment;
 import javax.ws.rs.core.Request;
@@ -158,6 +160,22 @@ public class ApplicationContextImpl implements ApplicationContext
 
    private DependencySupplier dependencySupplier;
 
+   /**
+    * Not completed result of resource method, <code>null</code> if request is
+    * processed synchronously.
+    */
+   private CompletionStage<?> asyncResult;
+
+   /**
+    * Most acceptable media type of response for {@link #asyncResult}.
+    */
+   private MediaType asyncContentType;
+
+   /**
+    * Tasks which are run when processing of request is finished.
+    */
+   private List<Runnable> completionCallbacks;
+
    /**
     * Constructs new instance of ApplicationContext.
     * 
@@ -525,4 +543,59 @@ public class ApplicationContextImpl implements ApplicationContext
       this.providers = providers;
    }
 
+   /**
+    * @return not completed result of resource method or <code>null</code>
+    */
+   CompletionStage<?> getAsyncResult()
+   {
+      return asyncResult;
+   }
+
+   /**
+    * @return most acceptable media type of response for asynchronous result
+    */
+   MediaType getAsyncContentType()
+   {
+      return asyncContentType;
+   }
+
+   /**
+    * Set not completed result of resource method. Response is set when result
+    * is completed.
+    *
+    * @param asyncResult result of resource method, <code>null</code> to reset
+    * @param contentType most acceptable media type of response
+    */
+   void setAsyncResult(CompletionStage<?> asyncResult, MediaType contentType)
+   {
+      this.asyncResult = asyncResult;
+      this.asyncContentType = contentType;
+   }
+
+   /**
+    * Add task which is run when processing of request is finished, after
+    * response is written or when request failed. May be used to release
+    * resources held by entity of response since entity is not written if it
+    * is replaced by filter or request method is HEAD.
+    *
+    * @param callback task
+    */
+   public synchronized void addCompletionCallback(Runnable callback)
+   {
+      if (completionCallbacks == null)
+         completionCallbacks = new ArrayList<Runnable>(2);
+      completionCallbacks.add(callback);
+   }
+
+   /**
+    * @return tasks added with {@link #addCompletionCallback(Runnable)}, never
+    *         <code>null</code>. Tasks are removed from this context
+    */
+   synchronized List<Runnable> removeCompletionCallbacks()
+   {
+      List<Runnable> callbacks = completionCallbacks;
+      completionCallbacks = null;
+      return callbacks == null ? new ArrayList<Runnable>(0) : callbacks;
+   }
+
 }
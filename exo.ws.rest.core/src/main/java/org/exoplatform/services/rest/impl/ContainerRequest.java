@@ -307,7 +307,7 @@ public class ContainerRequest implements GenericContainerRequest
     */
    public ResponseBuilder evaluatePreconditions(Date lastModified)
    {
-      long lastModifiedTime = lastModified.getTime();
+      long lastModifiedTime = truncateToSeconds(lastModified);
       ResponseBuilder rb = evaluateIfModified(lastModifiedTime);
       if (rb != null)
          return rb;
@@ -325,7 +325,7 @@ public class ContainerRequest implements GenericContainerRequest
       if (rb != null)
          return rb;
 
-      long lastModifiedTime = lastModified.getTime();
+      long lastModifiedTime = truncateToSeconds(lastModified);
       rb = evaluateIfModified(lastModifiedTime);
       if (rb != null)
          return rb;
@@ -389,15 +389,17 @@ public class ContainerRequest implements GenericContainerRequest
     * element will be returned. That one element is default media type, see
     * {@link AcceptMediaType#DEFAULT} . {@inheritDoc}
     */
+   @SuppressWarnings("unchecked")
    public List<MediaType> getAcceptableMediaTypes()
    {
       if (acceptMediaType == null)
       {
-         // 'extract' MediaType from AcceptMediaType
-         List<MediaType> t =
-            new ArrayList<MediaType>(HeaderHelper.createAcceptedMediaTypeList(HeaderHelper
-               .convertToString(getRequestHeader(ACCEPT))));
-         acceptMediaType = Collections.unmodifiableList(t);
+         // List of AcceptMediaType is immutable and shared between requests
+         // with the same header. Do not wrap it, the same instance is used as
+         // key for caching results of content negotiation.
+         List<? extends MediaType> l =
+            HeaderHelper.createAcceptedMediaTypeList(HeaderHelper.convertToString(getRequestHeader(ACCEPT)));
+         acceptMediaType = (List<MediaType>)l;
       }
 
       return acceptMediaType;
@@ -445,7 +447,7 @@ public class ContainerRequest implements GenericContainerRequest
    {
       if (contentType == null && httpHeaders.getFirst(CONTENT_TYPE) != null)
       {
-         contentType = MediaType.valueOf(httpHeaders.getFirst(CONTENT_TYPE));
+         contentType = HeaderHelper.createMediaType(httpHeaders.getFirst(CONTENT_TYPE));
       }
 
       return contentType;
@@ -467,6 +469,22 @@ public class ContainerRequest implements GenericContainerRequest
       return httpHeaders;
    }
 
+   /**
+    * HTTP dates have precision in seconds, so milliseconds of last
+    * modification time must be ignored when it is compared with dates from
+    * headers. Otherwise resource, e.g. file, which is modified in the middle
+    * of second never matches the value of its own <code>Last-Modified</code>
+    * header.
+    *
+    * @param lastModified the last modified time
+    * @return time in milliseconds rounded down to whole seconds
+    */
+   private static long truncateToSeconds(Date lastModified)
+   {
+      long time = lastModified.getTime();
+      return time - time % 1000;
+   }
+
    /**
     * Comparison for If-Match header and ETag.
     * 
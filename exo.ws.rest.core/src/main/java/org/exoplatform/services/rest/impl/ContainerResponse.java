@@ -20,7 +20,15 @@ import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
 import org.exoplatform.services.rest.ApplicationContext;
 import org.exoplatform.services.rest.ContainerResponseWriter;
+import org.exoplatform.services.rest.ExtHttpHeaders;
+import org.exoplatform.services.rest.GenericContainerRequest;
 import org.exoplatform.services.rest.GenericContainerResponse;
+import org.exoplatform.services.rest.RequestHandler;
+import org.exoplatform.services.rest.SeekableEntity;
+import org.exoplatform.services.rest.impl.header.HeaderHelper;
+import org.exoplatform.services.rest.impl.provider.ByteRange;
+import org.exoplatform.services.rest.impl.provider.CompressingEntityWriter;
+import org.exoplatform.services.rest.impl.provider.PartialContent;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
@@ -29,6 +37,7 @@ import java.util.List;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -48,6 +57,16 @@ public class ContainerResponse implements GenericContainerResponse
     */
    private static final Log LOG = ExoLogger.getLogger("exo.ws.rest.core.ContainerResponse");
 
+   /**
+    * HTTP status 206, not defined in {@link Response.Status}.
+    */
+   private static final int PARTIAL_CONTENT = 206;
+
+   /**
+    * HTTP status 416, not defined in {@link Response.Status}.
+    */
+   private static final int REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
    /**
     * See {@link ContainerResponseWriter}.
     */
@@ -61,6 +80,14 @@ public class ContainerResponse implements GenericContainerResponse
       this.responseWriter = responseWriter;
    }
 
+   /**
+    * @return See {@link ContainerResponseWriter}
+    */
+   ContainerResponseWriter getContainerResponseWriter()
+   {
+      return responseWriter;
+   }
+
    // GenericContainerResponse
 
    /**
@@ -125,7 +152,7 @@ public class ContainerResponse implements GenericContainerResponse
       if (contentTypeHeader instanceof MediaType)
          contentType = (MediaType)contentTypeHeader;
       else if (contentTypeHeader != null)
-         contentType = MediaType.valueOf(contentTypeHeader.toString());
+         contentType = HeaderHelper.createMediaType(contentTypeHeader.toString());
       else
          contentType = null;
    }
@@ -176,6 +203,18 @@ public class ContainerResponse implements GenericContainerResponse
          this.contentType = contentType;
          getHttpHeaders().putSingle(HttpHeaders.CONTENT_TYPE, contentType);
       }
+
+      if (status == Response.Status.OK.getStatusCode())
+      {
+         processRanges(context);
+         if (entity == null)
+         {
+            responseWriter.writeHeaders(this);
+            return;
+         }
+         contentType = this.contentType;
+      }
+
       MessageBodyWriter entityWriter =
          context.getProviders().getMessageBodyWriter(entity.getClass(), entityType, null, contentType);
       if (entityWriter == null)
@@ -201,6 +240,7 @@ public class ContainerResponse implements GenericContainerResponse
             if (contentLength >= 0)
                getHttpHeaders().putSingle(HttpHeaders.CONTENT_LENGTH, Long.toString(contentLength));
          }
+         entityWriter = processContentEncoding(context, entityWriter);
       }
       if (context.getContainerRequest().getMethod().equals(HttpMethod.HEAD))
          entity = null;
@@ -209,6 +249,171 @@ public class ContainerResponse implements GenericContainerResponse
       responseWriter.writeBody(this, entityWriter);
    }
 
+   /**
+    * If entity supports ranges, see {@link PartialContent#getSeekableEntity},
+    * then add <code>Accept-Ranges</code> header and process
+    * <code>Range</code> header of GET request. Entity of response is replaced
+    * by {@link PartialContent} if requested ranges are satisfiable and by
+    * <code>null</code> with status <code>416</code> if they are not.
+    * <code>If-Range</code> header is checked after evaluation of other
+    * preconditions by resource, with <code>ETag</code> and
+    * <code>Last-Modified</code> headers set by resource.
+    *
+    * @param context current application context
+    */
+   private void processRanges(ApplicationContext context)
+   {
+      SeekableEntity seekable = PartialContent.getSeekableEntity(entity);
+      if (seekable == null)
+         return;
+
+      MultivaluedMap<String, Object> httpHeaders = getHttpHeaders();
+      if (httpHeaders.getFirst(ExtHttpHeaders.ACCEPT_RANGES) == null)
+         httpHeaders.putSingle(ExtHttpHeaders.ACCEPT_RANGES, ByteRange.BYTES_UNIT);
+
+      GenericContainerRequest request = context.getContainerRequest();
+      String range = request.getRequestHeaders().getFirst(ExtHttpHeaders.RANGE);
+      if (range == null || !HttpMethod.GET.equals(request.getMethod())
+         || httpHeaders.getFirst(ExtHttpHeaders.CONTENTRANGE) != null)
+         return;
+      if (!PartialContent.evaluateIfRange(request.getRequestHeaders().getFirst(ExtHttpHeaders.IF_RANGE),
+         httpHeaders.getFirst(HttpHeaders.ETAG), httpHeaders.getFirst(HttpHeaders.LAST_MODIFIED), seekable))
+         return;
+
+      long length = seekable.getLength();
+      List<ByteRange> ranges = ByteRange.parse(range, length);
+      if (ranges == null)
+         return;
+
+      // Length of the whole entity is not valid any more.
+      httpHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+      if (ranges.isEmpty())
+      {
+         status = REQUESTED_RANGE_NOT_SATISFIABLE;
+         entity = null;
+         entityType = null;
+         contentType = null;
+         httpHeaders.remove(HttpHeaders.CONTENT_TYPE);
+         httpHeaders.putSingle(ExtHttpHeaders.CONTENTRANGE, ByteRange.BYTES_UNIT + " */" + length);
+         return;
+      }
+
+      PartialContent partialContent = new PartialContent(seekable, ranges, contentType);
+      status = PARTIAL_CONTENT;
+      entity = partialContent;
+      entityType = PartialContent.class;
+      contentType = partialContent.getContentType();
+      httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE, contentType);
+      String contentRange = partialContent.getContentRange();
+      if (contentRange != null)
+         httpHeaders.putSingle(ExtHttpHeaders.CONTENTRANGE, contentRange);
+   }
+
+   /**
+    * If compression is enabled, see {@link RequestHandler#WS_RS_COMPRESSION},
+    * then select content coding accepted by client and wrap writer to
+    * compress entity. Entities which media type is compressed already or
+    * which size is less then {@link RequestHandler#WS_RS_COMPRESSION_THRESHOLD}
+    * are not compressed. Size of entity is taken from
+    * {@link MessageBodyWriter#getSize}, entities of unknown size are
+    * compressed. Strong <code>ETag</code> of compressed entity is weakened
+    * since compressed bytes differ from bytes of entity and
+    * <code>Accept-Ranges</code> is removed since ranges of compressed entity
+    * are not supported.
+    *
+    * @param context current application context
+    * @param entityWriter writer of entity
+    * @return writer which should be used to write entity
+    */
+   private MessageBodyWriter processContentEncoding(ApplicationContext context, MessageBodyWriter entityWriter)
+   {
+      if (!"true".equalsIgnoreCase(context.getProperties().get(RequestHandler.WS_RS_COMPRESSION)))
+         return entityWriter;
+
+      MultivaluedMap<String, Object> httpHeaders = getHttpHeaders();
+      if (status == PARTIAL_CONTENT || httpHeaders.getFirst(HttpHeaders.CONTENT_ENCODING) != null
+         || !CompressingEntityWriter.isCompressible(contentType))
+         return entityWriter;
+
+      // Response depends on Accept-Encoding even if it is not compressed.
+      boolean vary = false;
+      List<Object> varyHeaders = httpHeaders.get(HttpHeaders.VARY);
+      if (varyHeaders != null)
+      {
+         for (Object v : varyHeaders)
+         {
+            String value = v.toString().toLowerCase();
+            if (value.contains("*") || value.contains("accept-encoding"))
+               vary = true;
+         }
+      }
+      if (!vary)
+         httpHeaders.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+      long size = -1;
+      Object contentLength = httpHeaders.getFirst(HttpHeaders.CONTENT_LENGTH);
+      if (contentLength != null)
+      {
+         try
+         {
+            size = Long.parseLong(contentLength.toString().trim());
+         }
+         catch (NumberFormatException e)
+         {
+            // Invalid header set by resource, size of entity is unknown.
+         }
+      }
+      else if (entity instanceof CharSequence)
+         // Writer of strings does not count bytes, number of characters is good estimation.
+         size = ((CharSequence)entity).length();
+      if (size >= 0)
+      {
+         String thresholdProperty = context.getProperties().get(RequestHandler.WS_RS_COMPRESSION_THRESHOLD);
+         long threshold = RequestHandler.WS_RS_COMPRESSION_THRESHOLD_VALUE;
+         if (thresholdProperty != null)
+         {
+            try
+            {
+               threshold = Long.parseLong(thresholdProperty.trim());
+            }
+            catch (NumberFormatException e)
+            {
+               LOG.warn("Invalid value of property " + RequestHandler.WS_RS_COMPRESSION_THRESHOLD + ": "
+                  + thresholdProperty);
+            }
+         }
+         if (size < threshold)
+            return entityWriter;
+      }
+
+      String encoding =
+         CompressingEntityWriter.negotiate(context.getContainerRequest().getRequestHeaders()
+            .getFirst(HttpHeaders.ACCEPT_ENCODING));
+      if (encoding == null)
+         return entityWriter;
+
+      httpHeaders.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+      // Length of compressed entity is unknown.
+      httpHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+      httpHeaders.remove(ExtHttpHeaders.ACCEPT_RANGES);
+      Object etag = httpHeaders.getFirst(HttpHeaders.ETAG);
+      if (etag instanceof EntityTag)
+      {
+         if (!((EntityTag)etag).isWeak())
+            httpHeaders.putSingle(HttpHeaders.ETAG, new EntityTag(((EntityTag)etag).getValue(), true));
+      }
+      else if (etag != null)
+      {
+         String tag = etag.toString().trim();
+         if (tag.startsWith("\""))
+            httpHeaders.putSingle(HttpHeaders.ETAG, "W/" + tag);
+         else if (!tag.startsWith("W/"))
+            // Value without quotes, see ResponseBuilder#tag(String).
+            httpHeaders.putSingle(HttpHeaders.ETAG, new EntityTag(tag, true));
+      }
+      return new CompressingEntityWriter(entityWriter, encoding);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -0,0 +1,163 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.FilterDescriptor;
+import org.exoplatform.services.rest.ObjectFactory;
+import org.exoplatform.services.rest.uri.UriPattern;
+import org.exoplatform.services.rest.util.UriPatternMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filters of one kind (request, response or method invoker filters) prepared
+ * for lookup by request path. Filters without {@link UriPattern} match to any
+ * path and are collected once. Filters with {@link UriPattern} are checked by
+ * regular expression only if path is not found in the cache of
+ * <code>maxSize</code> recently used paths. Chains are returned in the same
+ * order as {@link ProviderBinder#getMatchedFilters(String, UriPatternMap)}
+ * gives.
+ * <p>
+ * Instance is never modified after creation, except of cache of chains.
+ * {@link ProviderBinder} creates new one each time when set of filters is
+ * changed.
+ * </p>
+ *
+ * @version $Id: $
+ */
+final class FilterChainIndex
+{
+
+   /** Default max number of cached chains. */
+   static final int DEFAULT_MAX_SIZE = 256;
+
+   /** Patterns of filters in iteration order of source map. */
+   private final UriPattern[] patterns;
+
+   /** Filters for each of {@link #patterns}. */
+   private final List<ObjectFactory<FilterDescriptor>>[] filters;
+
+   /** Chain for path which does not match to any pattern. */
+   private final List<ObjectFactory<FilterDescriptor>> matchAll;
+
+   /** <code>true</code> if there is at least one filter with pattern. */
+   private final boolean hasPatterns;
+
+   /** Recently resolved chains. */
+   private final Map<String, List<ObjectFactory<FilterDescriptor>>> chains;
+
+   /**
+    * @param m filters
+    * @param maxSize max number of cached chains
+    */
+   @SuppressWarnings("unchecked")
+   FilterChainIndex(UriPatternMap<ObjectFactory<FilterDescriptor>> m, final int maxSize)
+   {
+      int size = m.size();
+      patterns = new UriPattern[size];
+      filters = new List[size];
+      List<ObjectFactory<FilterDescriptor>> all = new ArrayList<ObjectFactory<FilterDescriptor>>();
+      boolean withPatterns = false;
+      int i = 0;
+      for (Map.Entry<UriPattern, List<ObjectFactory<FilterDescriptor>>> e : m.entrySet())
+      {
+         patterns[i] = e.getKey();
+         filters[i] = new ArrayList<ObjectFactory<FilterDescriptor>>(e.getValue());
+         if (patterns[i] == null)
+            all.addAll(filters[i]);
+         else if (filters[i].size() > 0)
+            withPatterns = true;
+         i++;
+      }
+      matchAll = Collections.unmodifiableList(all);
+      hasPatterns = withPatterns;
+      chains = new LinkedHashMap<String, List<ObjectFactory<FilterDescriptor>>>(16, 0.75F, true)
+      {
+         private static final long serialVersionUID = 3262516312094386553L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, List<ObjectFactory<FilterDescriptor>>> eldest)
+         {
+            return size() > maxSize;
+         }
+      };
+   }
+
+   /**
+    * Get filters which should be applied to request with specified path.
+    *
+    * @param path request path
+    * @return unmodifiable list of filters
+    */
+   List<ObjectFactory<FilterDescriptor>> getFilters(String path)
+   {
+      if (!hasPatterns)
+         return matchAll;
+      if (path == null)
+         return resolve(null);
+      List<ObjectFactory<FilterDescriptor>> chain;
+      synchronized (chains)
+      {
+         chain = chains.get(path);
+      }
+      if (chain == null)
+      {
+         chain = resolve(path);
+         synchronized (chains)
+         {
+            chains.put(path, chain);
+         }
+      }
+      return chain;
+   }
+
+   /**
+    * @return number of cached chains
+    */
+   int size()
+   {
+      synchronized (chains)
+      {
+         return chains.size();
+      }
+   }
+
+   private List<ObjectFactory<FilterDescriptor>> resolve(String path)
+   {
+      List<ObjectFactory<FilterDescriptor>> chain = new ArrayList<ObjectFactory<FilterDescriptor>>();
+      List<String> capturingValues = new ArrayList<String>();
+      for (int i = 0; i < patterns.length; i++)
+      {
+         UriPattern pattern = patterns[i];
+         if (pattern != null)
+         {
+            if (!pattern.match(path, capturingValues))
+               continue; // not matched
+            int len = capturingValues.size();
+            if (capturingValues.get(len - 1) != null && !"/".equals(capturingValues.get(len - 1)))
+               continue; // not matched
+         }
+         // if matched or UriPattern is null
+         chain.addAll(filters[i]);
+      }
+      return Collections.unmodifiableList(chain);
+   }
+}
@@ -0,0 +1,402 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.ComponentLifecycleScope;
+import org.exoplatform.services.rest.FilterDescriptor;
+import org.exoplatform.services.rest.ObjectFactory;
+import org.exoplatform.services.rest.RequestFilter;
+import org.exoplatform.services.rest.ResponseFilter;
+import org.exoplatform.services.rest.method.MethodInvokerFilter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Set of providers which respects providers specified by JAX-RS
+ * Applications. Default (embedded) providers will be used only if
+ * application does not provide own providers with the same purposes.
+ * <p>
+ * Instance is created once per application when its providers are published
+ * in {@link ProvidersRegistry} and shared by all requests to resources of
+ * this application. It keeps no per-request state. Default providers are
+ * obtained with {@link ProviderBinder#getInstance()} on each call, so
+ * replacement of default providers is visible immediately.
+ * </p>
+ *
+ * @version $Id: $
+ */
+final class MergedProviders extends ProviderBinder
+{
+   private final ProviderBinder applicationProviders;
+
+   /**
+    * @param applicationProviders providers of application, may be
+    *        <code>null</code> if request is processed by resource which does
+    *        not belong to any application
+    */
+   MergedProviders(ProviderBinder applicationProviders)
+   {
+      this.applicationProviders = applicationProviders;
+   }
+
+   /**
+    * @return providers of application or <code>null</code>
+    */
+   ProviderBinder getApplicationProviders()
+   {
+      return applicationProviders;
+   }
+
+   @Override
+   protected void init()
+   {
+      // Do not add default providers here.
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addContextResolver(Class<? extends ContextResolver> clazz, ContextResolver instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addContextResolver(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addContextResolver");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addContextResolver(Class<? extends ContextResolver> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addContextResolver(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addContextResolver");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addContextResolver(ContextResolver instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addContextResolver(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addContextResolver");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addExceptionMapper(Class<? extends ExceptionMapper> clazz, ExceptionMapper instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addExceptionMapper(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addExceptionMapper");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addExceptionMapper(Class<? extends ExceptionMapper> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addExceptionMapper(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addExceptionMapper");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addExceptionMapper(ExceptionMapper instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addExceptionMapper(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addExceptionMapper");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addMessageBodyReader(Class<? extends MessageBodyReader> clazz, MessageBodyReader instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMessageBodyReader(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMessageBodyReader");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addMessageBodyReader(Class<? extends MessageBodyReader> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMessageBodyReader(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMessageBodyReader");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addMessageBodyReader(MessageBodyReader instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMessageBodyReader(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMessageBodyReader");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addMessageBodyWriter(Class<? extends MessageBodyWriter> clazz, MessageBodyWriter instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMessageBodyWriter(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMessageBodyWriter");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addMessageBodyWriter(Class<? extends MessageBodyWriter> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMessageBodyWriter(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMessageBodyWriter");
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public void addMessageBodyWriter(MessageBodyWriter instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMessageBodyWriter(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMessageBodyWriter");
+   }
+
+   @Override
+   public void addMethodInvokerFilter(Class<? extends MethodInvokerFilter> clazz, MethodInvokerFilter instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMethodInvokerFilter(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMethodInvokerFilter");
+   }
+
+   @Override
+   public void addMethodInvokerFilter(Class<? extends MethodInvokerFilter> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMethodInvokerFilter(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMethodInvokerFilter");
+   }
+
+   @Override
+   public void addMethodInvokerFilter(MethodInvokerFilter instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addMethodInvokerFilter(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addMethodInvokerFilter");
+   }
+
+   @Override
+   public void addRequestFilter(Class<? extends RequestFilter> clazz, RequestFilter instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addRequestFilter(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addRequestFilter");
+   }
+
+   @Override
+   public void addRequestFilter(Class<? extends RequestFilter> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addRequestFilter(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addRequestFilter");
+   }
+
+   @Override
+   public void addRequestFilter(RequestFilter instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addRequestFilter(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addRequestFilter");
+   }
+
+   @Override
+   public void addResponseFilter(Class<? extends ResponseFilter> clazz, ResponseFilter instance,
+      ComponentLifecycleScope scope)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addResponseFilter(clazz, instance, scope);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addResponseFilter");
+   }
+
+   @Override
+   public void addResponseFilter(Class<? extends ResponseFilter> clazz)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addResponseFilter(clazz);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addResponseFilter");
+   }
+
+   @Override
+   public void addResponseFilter(ResponseFilter instance)
+   {
+      if (applicationProviders != null)
+         applicationProviders.addResponseFilter(instance);
+      else
+         // Keep default set of providers untouched.
+         throw new UnsupportedOperationException("addResponseFilter");
+   }
+
+   @Override
+   public List<MediaType> getAcceptableWriterMediaTypes(Class<?> type, Type genericType, Annotation[] annotations)
+   {
+      List<MediaType> mediaTypes = null;
+      if (applicationProviders != null)
+         mediaTypes = applicationProviders.getAcceptableWriterMediaTypes(type, genericType, annotations);
+      if (mediaTypes != null)
+      {
+         mediaTypes.addAll(ProviderBinder.getInstance().getAcceptableWriterMediaTypes(type, genericType, annotations));
+         return mediaTypes;
+      }
+      return ProviderBinder.getInstance().getAcceptableWriterMediaTypes(type, genericType, annotations);
+   }
+
+   @Override
+   public <T> ContextResolver<T> getContextResolver(Class<T> contextType, MediaType mediaType)
+   {
+      ContextResolver<T> resolver = null;
+      if (applicationProviders != null)
+         resolver = applicationProviders.getContextResolver(contextType, mediaType);
+      if (resolver == null)
+         resolver = ProviderBinder.getInstance().getContextResolver(contextType, mediaType);
+      return resolver;
+   }
+
+   @Override
+   public <T extends Throwable> ExceptionMapper<T> getExceptionMapper(Class<T> type)
+   {
+      ExceptionMapper<T> mapper = null;
+      if (applicationProviders != null)
+         mapper = applicationProviders.getExceptionMapper(type);
+      if (mapper == null)
+         mapper = ProviderBinder.getInstance().getExceptionMapper(type);
+      return mapper;
+   }
+
+   @Override
+   public <T> MessageBodyReader<T> getMessageBodyReader(Class<T> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType)
+   {
+      MessageBodyReader<T> reader = null;
+      if (applicationProviders != null)
+         reader = applicationProviders.getMessageBodyReader(type, genericType, annotations, mediaType);
+      if (reader == null)
+         reader = ProviderBinder.getInstance().getMessageBodyReader(type, genericType, annotations, mediaType);
+      return reader;
+   }
+
+   @Override
+   public <T> MessageBodyWriter<T> getMessageBodyWriter(Class<T> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType)
+   {
+      MessageBodyWriter<T> writer = null;
+      if (applicationProviders != null)
+         writer = applicationProviders.getMessageBodyWriter(type, genericType, annotations, mediaType);
+      if (writer == null)
+         writer = ProviderBinder.getInstance().getMessageBodyWriter(type, genericType, annotations, mediaType);
+      return writer;
+   }
+
+   @Override
+   public List<ObjectFactory<FilterDescriptor>> getMethodInvokerFilters(String path)
+   {
+      List<ObjectFactory<FilterDescriptor>> filters = ProviderBinder.getInstance().getMethodInvokerFilters(path);
+      if (applicationProviders != null)
+      {
+         // Lists of filters are shared, do not modify them.
+         filters = new ArrayList<ObjectFactory<FilterDescriptor>>(filters);
+         filters.addAll(applicationProviders.getMethodInvokerFilters(path));
+      }
+      return filters;
+   }
+
+   @Override
+   public List<ObjectFactory<FilterDescriptor>> getRequestFilters(String path)
+   {
+      // NOTE!!! Return only application specific filters. Default filters
+      // should be already applied to request.
+      if (applicationProviders == null)
+         return Collections.emptyList();
+      return applicationProviders.getRequestFilters(path);
+   }
+
+   @Override
+   public List<ObjectFactory<FilterDescriptor>> getResponseFilters(String path)
+   {
+      // NOTE!!! Return only application specific filters. Default filters
+      // should be applied to response later.
+      if (applicationProviders == null)
+         return Collections.emptyList();
+      return applicationProviders.getResponseFilters(path);
+   }
+
+}
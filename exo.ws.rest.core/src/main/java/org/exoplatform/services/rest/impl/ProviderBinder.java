@@ -39,9 +39,11 @@ import org.exoplatform.services.rest.impl.provider.JsonEntityProvider;
 import org.exoplatform.services.rest.impl.provider.JsonpEntityProvider;
 import org.exoplatform.services.rest.impl.provider.MultipartFormDataEntityProvider;
 import org.exoplatform.services.rest.impl.provider.MultivaluedMapEntityProvider;
+import org.exoplatform.services.rest.impl.provider.PartialContentEntityProvider;
 import org.exoplatform.services.rest.impl.provider.ProviderDescriptorImpl;
 import org.exoplatform.services.rest.impl.provider.ReaderEntityProvider;
 import org.exoplatform.services.rest.impl.provider.SAXSourceEntityProvider;
+import org.exoplatform.services.rest.impl.provider.SeekableEntityProvider;
 import org.exoplatform.services.rest.impl.provider.StreamOutputEntityProvider;
 import org.exoplatform.services.rest.impl.provider.StreamSourceEntityProvider;
 import org.exoplatform.services.rest.impl.provider.StringEntityProvider;
@@ -49,6 +51,7 @@ import org.exoplatform.services.rest.impl.resource.ResourceDescriptorValidator;
 import org.exoplatform.services.rest.method.MethodInvokerFilter;
 import org.exoplatform.services.rest.provider.ExtendedProviders;
 import org.exoplatform.services.rest.provider.ProviderDescriptor;
+import org.exoplatform.services.rest.provider.RequestIndependentProvider;
 import org.exoplatform.services.rest.resource.ResourceDescriptorVisitor;
 import org.exoplatform.services.rest.uri.UriPattern;
 import org.exoplatform.services.rest.util.MediaTypeMap;
@@ -60,9 +63,14 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.ws.rs.core.MediaType;
@@ -146,6 +154,9 @@ public class ProviderBinder implements ExtendedProviders
       addMessageBodyReader(fep);
       addMessageBodyWriter(fep);
 
+      addMessageBodyWriter(new SeekableEntityProvider());
+      addMessageBodyWriter(new PartialContentEntityProvider());
+
       MultivaluedMapEntityProvider mvep = new MultivaluedMapEntityProvider();
       addMessageBodyReader(mvep);
       addMessageBodyWriter(mvep);
@@ -255,6 +266,57 @@ public class ProviderBinder implements ExtendedProviders
    /** Validator. */
    protected final ResourceDescriptorVisitor rdv = ResourceDescriptorValidator.getInstance();
 
+   /** Prepared request filters, <code>null</code> if filters were changed. */
+   private volatile FilterChainIndex requestFilterIndex;
+
+   /** Prepared response filters, <code>null</code> if filters were changed. */
+   private volatile FilterChainIndex responseFilterIndex;
+
+   /** Prepared method invoker filters, <code>null</code> if filters were changed. */
+   private volatile FilterChainIndex invokerFilterIndex;
+
+   /**
+    * Max number of entries in each cache of resolved providers. Cache is
+    * dropped when it reaches this size. Key of cache contains media type with
+    * parameters, e.g. boundary of multipart content, so number of keys is not
+    * limited.
+    */
+   private static final int MAX_RESOLUTIONS = 1024;
+
+   /**
+    * Embedded singleton providers which decisions about supported types do not
+    * depend on request. Compared by exact class, subclasses are not included.
+    * Other providers should implement {@link RequestIndependentProvider} to be
+    * resolved once.
+    */
+   private static final Set<Class<?>> REQUEST_INDEPENDENT_PROVIDERS = new HashSet<Class<?>>(Arrays.<Class<?>> asList(
+      ByteEntityProvider.class, DataSourceEntityProvider.class, DOMSourceEntityProvider.class,
+      FileEntityProvider.class, SeekableEntityProvider.class, PartialContentEntityProvider.class,
+      MultivaluedMapEntityProvider.class, InputStreamEntityProvider.class, ReaderEntityProvider.class,
+      SAXSourceEntityProvider.class, StreamSourceEntityProvider.class, StringEntityProvider.class,
+      StreamOutputEntityProvider.class, JsonEntityProvider.class));
+
+   /**
+    * Resolved message body readers. Replaced by new map when set of readers is
+    * changed.
+    */
+   private volatile ConcurrentMap<ResolutionKey, Resolution> readerResolutions =
+      new ConcurrentHashMap<ResolutionKey, Resolution>();
+
+   /**
+    * Resolved message body writers. Replaced by new map when set of writers is
+    * changed.
+    */
+   private volatile ConcurrentMap<ResolutionKey, Resolution> writerResolutions =
+      new ConcurrentHashMap<ResolutionKey, Resolution>();
+
+   /**
+    * Media types of writers which support Java type. Replaced by new map when
+    * set of writers is changed.
+    */
+   private volatile ConcurrentMap<ResolutionKey, AcceptableMediaTypes> writerMediaTypes =
+      new ConcurrentHashMap<ResolutionKey, AcceptableMediaTypes>();
+
    //
 
    /**
@@ -417,20 +479,73 @@ public class ProviderBinder implements ExtendedProviders
    @SuppressWarnings("unchecked")
    public List<MediaType> getAcceptableWriterMediaTypes(Class<?> type, Type genericType, Annotation[] annotations)
    {
-      List<MediaType> l = new ArrayList<MediaType>();
-      for (Map.Entry<MediaType, List<ObjectFactory<ProviderDescriptor>>> e : writeProviders.entrySet())
+      if (annotations != null && annotations.length > 0)
       {
-         MediaType mime = e.getKey();
-         for (ObjectFactory pf : e.getValue())
+         // Writers may check annotations, result is not cached.
+         List<MediaType> l = new ArrayList<MediaType>();
+         for (Map.Entry<MediaType, List<ObjectFactory<ProviderDescriptor>>> e : writeProviders.entrySet())
          {
-            MessageBodyWriter writer = (MessageBodyWriter)pf.getInstance(ApplicationContextImpl.getCurrent());
+            MediaType mime = e.getKey();
+            for (ObjectFactory pf : e.getValue())
+            {
+               MessageBodyWriter writer = (MessageBodyWriter)pf.getInstance(ApplicationContextImpl.getCurrent());
+               if (writer.isWriteable(type, genericType, annotations, MediaTypeHelper.DEFAULT_TYPE))
+               {
+                  l.add(mime);
+               }
+            }
+         }
+         Collections.sort(l, MediaTypeHelper.MEDIA_TYPE_COMPARATOR);
+         return l;
+      }
+
+      ConcurrentMap<ResolutionKey, AcceptableMediaTypes> cache = writerMediaTypes;
+      ResolutionKey key = new ResolutionKey(type, genericType, null);
+      AcceptableMediaTypes acceptable = cache.get(key);
+      if (acceptable == null)
+      {
+         List<MediaType> singletonTypes = new ArrayList<MediaType>();
+         List<ObjectFactory<ProviderDescriptor>> factories = new ArrayList<ObjectFactory<ProviderDescriptor>>();
+         List<MediaType> factoryTypes = new ArrayList<MediaType>();
+         for (Map.Entry<MediaType, List<ObjectFactory<ProviderDescriptor>>> e : writeProviders.entrySet())
+         {
+            MediaType mime = e.getKey();
+            for (ObjectFactory<ProviderDescriptor> pf : e.getValue())
+            {
+               if (isResolvedOnce(pf))
+               {
+                  MessageBodyWriter writer = (MessageBodyWriter)pf.getInstance(ApplicationContextImpl.getCurrent());
+                  if (writer.isWriteable(type, genericType, annotations, MediaTypeHelper.DEFAULT_TYPE))
+                  {
+                     singletonTypes.add(mime);
+                  }
+               }
+               else
+               {
+                  factories.add(pf);
+                  factoryTypes.add(mime);
+               }
+            }
+         }
+         Collections.sort(singletonTypes, MediaTypeHelper.MEDIA_TYPE_COMPARATOR);
+         acceptable = new AcceptableMediaTypes(singletonTypes, factories, factoryTypes);
+         putResolution(cache, key, acceptable);
+      }
+
+      List<MediaType> l = new ArrayList<MediaType>(acceptable.singletonTypes);
+      if (acceptable.factories.length > 0)
+      {
+         for (int i = 0; i < acceptable.factories.length; i++)
+         {
+            MessageBodyWriter writer =
+               (MessageBodyWriter)acceptable.factories[i].getInstance(ApplicationContextImpl.getCurrent());
             if (writer.isWriteable(type, genericType, annotations, MediaTypeHelper.DEFAULT_TYPE))
             {
-               l.add(mime);
+               l.add(acceptable.factoryTypes[i]);
             }
          }
+         Collections.sort(l, MediaTypeHelper.MEDIA_TYPE_COMPARATOR);
       }
-      Collections.sort(l, MediaTypeHelper.MEDIA_TYPE_COMPARATOR);
       return l;
    }
 
@@ -478,9 +593,22 @@ public class ProviderBinder implements ExtendedProviders
    /**
     * {@inheritDoc}
     */
+   @SuppressWarnings("unchecked")
    public <T> MessageBodyReader<T> getMessageBodyReader(Class<T> type, Type genericType, Annotation[] annotations,
       MediaType mediaType)
    {
+      if (annotations == null || annotations.length == 0)
+      {
+         ConcurrentMap<ResolutionKey, Resolution> cache = readerResolutions;
+         ResolutionKey key = new ResolutionKey(type, genericType, mediaType);
+         Resolution resolution = cache.get(key);
+         if (resolution == null)
+         {
+            resolution = resolve(readProviders, type, genericType, annotations, mediaType, true);
+            putResolution(cache, key, resolution);
+         }
+         return (MessageBodyReader<T>)resolution.getProvider(type, genericType, annotations, true);
+      }
       if (mediaType == null)
       {
          return doGetMessageBodyReader(type, genericType, annotations, MediaTypeHelper.DEFAULT_TYPE);
@@ -502,9 +630,22 @@ public class ProviderBinder implements ExtendedProviders
    /**
     * {@inheritDoc}
     */
+   @SuppressWarnings("unchecked")
    public <T> MessageBodyWriter<T> getMessageBodyWriter(Class<T> type, Type genericType, Annotation[] annotations,
       MediaType mediaType)
    {
+      if (annotations == null || annotations.length == 0)
+      {
+         ConcurrentMap<ResolutionKey, Resolution> cache = writerResolutions;
+         ResolutionKey key = new ResolutionKey(type, genericType, mediaType);
+         Resolution resolution = cache.get(key);
+         if (resolution == null)
+         {
+            resolution = resolve(writeProviders, type, genericType, annotations, mediaType, false);
+            putResolution(cache, key, resolution);
+         }
+         return (MessageBodyWriter<T>)resolution.getProvider(type, genericType, annotations, false);
+      }
       if (mediaType == null)
       {
          return doGetMessageBodyWriter(type, genericType, annotations, MediaTypeHelper.DEFAULT_TYPE);
@@ -523,6 +664,215 @@ public class ProviderBinder implements ExtendedProviders
       return writer;
    }
 
+   /**
+    * Resolve message body reader or writer for Java type and media type. Media
+    * types are checked in the same order as in
+    * {@link #getMessageBodyReader(Class, Type, Annotation[], MediaType)}, i.e.
+    * media type itself, then 'type/*' and then '*&#47;*'. Request independent
+    * singleton providers are checked once and first one which supports type is
+    * remembered. Other providers which precede it are remembered too and
+    * checked for each request, their instances or decisions may be different
+    * for each request, see {@link RequestIndependentProvider}.
+    *
+    * @param providers readers or writers
+    * @param type entity type
+    * @param genericType entity generic type
+    * @param annotations annotations, <code>null</code> or empty array
+    * @param mediaType entity media type, may be <code>null</code>
+    * @param read <code>true</code> if readers resolved and <code>false</code>
+    *        if writers
+    * @return resolution
+    */
+   private Resolution resolve(MediaTypeMultivaluedMap<ObjectFactory<ProviderDescriptor>> providers, Class<?> type,
+      Type genericType, Annotation[] annotations, MediaType mediaType, boolean read)
+   {
+      List<MediaType> stages = new ArrayList<MediaType>(3);
+      if (mediaType == null)
+      {
+         stages.add(MediaTypeHelper.DEFAULT_TYPE);
+      }
+      else
+      {
+         stages.add(mediaType);
+         if (!mediaType.isWildcardSubtype())
+            stages.add(new MediaType(mediaType.getType(), MediaType.MEDIA_TYPE_WILDCARD));
+         if (!mediaType.isWildcardType())
+            stages.add(MediaTypeHelper.DEFAULT_TYPE);
+      }
+      List<ObjectFactory<ProviderDescriptor>> factories = new ArrayList<ObjectFactory<ProviderDescriptor>>();
+      List<MediaType> factoryTypes = new ArrayList<MediaType>();
+      for (MediaType stage : stages)
+      {
+         List<ObjectFactory<ProviderDescriptor>> list = providers.get(stage);
+         if (list == null)
+            continue;
+         for (ObjectFactory<ProviderDescriptor> pf : list)
+         {
+            if (isResolvedOnce(pf))
+            {
+               Object provider = pf.getInstance(ApplicationContextImpl.getCurrent());
+               if (Resolution.isSupported(provider, type, genericType, annotations, stage, read))
+                  return new Resolution(factories, factoryTypes, provider);
+            }
+            else
+            {
+               factories.add(pf);
+               factoryTypes.add(stage);
+            }
+         }
+      }
+      return new Resolution(factories, factoryTypes, null);
+   }
+
+   /**
+    * @param pf provider factory
+    * @return <code>true</code> if provider is singleton and its decision
+    *         about supported types may be reused for all requests, i.e. it is
+    *         one of embedded providers or implements
+    *         {@link RequestIndependentProvider}
+    */
+   private static boolean isResolvedOnce(ObjectFactory<ProviderDescriptor> pf)
+   {
+      if (!(pf instanceof SingletonObjectFactory))
+         return false;
+      Class<?> clazz = pf.getObjectModel().getObjectClass();
+      return REQUEST_INDEPENDENT_PROVIDERS.contains(clazz) || RequestIndependentProvider.class.isAssignableFrom(clazz);
+   }
+
+   private static <V> void putResolution(ConcurrentMap<ResolutionKey, V> cache, ResolutionKey key, V value)
+   {
+      if (cache.size() >= MAX_RESOLUTIONS)
+         cache.clear();
+      cache.put(key, value);
+   }
+
+   /**
+    * Drop all resolved readers, e.g. when set of readers is changed.
+    */
+   protected void clearReaderResolutions()
+   {
+      readerResolutions = new ConcurrentHashMap<ResolutionKey, Resolution>();
+   }
+
+   /**
+    * Drop all resolved writers, e.g. when set of writers is changed.
+    */
+   protected void clearWriterResolutions()
+   {
+      writerResolutions = new ConcurrentHashMap<ResolutionKey, Resolution>();
+      writerMediaTypes = new ConcurrentHashMap<ResolutionKey, AcceptableMediaTypes>();
+   }
+
+   /**
+    * Key of resolved provider.
+    */
+   private static final class ResolutionKey
+   {
+      private final Class<?> type;
+
+      private final Type genericType;
+
+      private final MediaType mediaType;
+
+      private final int hash;
+
+      ResolutionKey(Class<?> type, Type genericType, MediaType mediaType)
+      {
+         this.type = type;
+         this.genericType = genericType;
+         this.mediaType = mediaType;
+         int h = type.hashCode();
+         h = 31 * h + (genericType == null ? 0 : genericType.hashCode());
+         h = 31 * h + (mediaType == null ? 0 : mediaType.hashCode());
+         this.hash = h;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof ResolutionKey))
+            return false;
+         ResolutionKey other = (ResolutionKey)obj;
+         return hash == other.hash && type == other.type
+            && (genericType == null ? other.genericType == null : genericType.equals(other.genericType))
+            && (mediaType == null ? other.mediaType == null : mediaType.equals(other.mediaType));
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hash;
+      }
+   }
+
+   /**
+    * Result of resolving message body reader or writer. Contains singleton
+    * provider which was selected (or <code>null</code> if there is no such
+    * provider) and not singleton providers which must be checked before it.
+    */
+   private static final class Resolution
+   {
+      private final ObjectFactory<ProviderDescriptor>[] factories;
+
+      /** Media types in which each of {@link #factories} was found. */
+      private final MediaType[] factoryTypes;
+
+      private final Object provider;
+
+      @SuppressWarnings("unchecked")
+      Resolution(List<ObjectFactory<ProviderDescriptor>> factories, List<MediaType> factoryTypes, Object provider)
+      {
+         this.factories = factories.toArray(new ObjectFactory[factories.size()]);
+         this.factoryTypes = factoryTypes.toArray(new MediaType[factoryTypes.size()]);
+         this.provider = provider;
+      }
+
+      Object getProvider(Class<?> type, Type genericType, Annotation[] annotations, boolean read)
+      {
+         for (int i = 0; i < factories.length; i++)
+         {
+            Object instance = factories[i].getInstance(ApplicationContextImpl.getCurrent());
+            if (isSupported(instance, type, genericType, annotations, factoryTypes[i], read))
+               return instance;
+         }
+         return provider;
+      }
+
+      @SuppressWarnings("unchecked")
+      static boolean isSupported(Object provider, Class<?> type, Type genericType, Annotation[] annotations,
+         MediaType mediaType, boolean read)
+      {
+         if (read)
+            return ((MessageBodyReader)provider).isReadable(type, genericType, annotations, mediaType);
+         return ((MessageBodyWriter)provider).isWriteable(type, genericType, annotations, mediaType);
+      }
+   }
+
+   /**
+    * Media types of writers which support some Java type.
+    */
+   private static final class AcceptableMediaTypes
+   {
+      /** Sorted media types of singleton writers. */
+      private final List<MediaType> singletonTypes;
+
+      /** Writers which must be checked for each request. */
+      private final ObjectFactory<ProviderDescriptor>[] factories;
+
+      private final MediaType[] factoryTypes;
+
+      @SuppressWarnings("unchecked")
+      AcceptableMediaTypes(List<MediaType> singletonTypes, List<ObjectFactory<ProviderDescriptor>> factories,
+         List<MediaType> factoryTypes)
+      {
+         this.singletonTypes = singletonTypes;
+         this.factories = factories.toArray(new ObjectFactory[factories.size()]);
+         this.factoryTypes = factoryTypes.toArray(new MediaType[factoryTypes.size()]);
+      }
+   }
+
    /**
     * Add per-request MethodInvokerFilter.
     *
@@ -633,7 +983,17 @@ public class ProviderBinder implements ExtendedProviders
     */
    public List<ObjectFactory<FilterDescriptor>> getMethodInvokerFilters(String path)
    {
-      return getMatchedFilters(path, invokerFilters);
+      FilterChainIndex index = invokerFilterIndex;
+      if (index == null)
+      {
+         synchronized (invokerFilters)
+         {
+            index = invokerFilterIndex;
+            if (index == null)
+               index = invokerFilterIndex = new FilterChainIndex(invokerFilters, FilterChainIndex.DEFAULT_MAX_SIZE);
+         }
+      }
+      return index.getFilters(path);
    }
 
    /**
@@ -641,7 +1001,17 @@ public class ProviderBinder implements ExtendedProviders
     */
    public List<ObjectFactory<FilterDescriptor>> getRequestFilters(String path)
    {
-      return getMatchedFilters(path, requestFilters);
+      FilterChainIndex index = requestFilterIndex;
+      if (index == null)
+      {
+         synchronized (requestFilters)
+         {
+            index = requestFilterIndex;
+            if (index == null)
+               index = requestFilterIndex = new FilterChainIndex(requestFilters, FilterChainIndex.DEFAULT_MAX_SIZE);
+         }
+      }
+      return index.getFilters(path);
    }
 
    /**
@@ -649,7 +1019,17 @@ public class ProviderBinder implements ExtendedProviders
     */
    public List<ObjectFactory<FilterDescriptor>> getResponseFilters(String path)
    {
-      return getMatchedFilters(path, responseFilters);
+      FilterChainIndex index = responseFilterIndex;
+      if (index == null)
+      {
+         synchronized (responseFilters)
+         {
+            index = responseFilterIndex;
+            if (index == null)
+               index = responseFilterIndex = new FilterChainIndex(responseFilters, FilterChainIndex.DEFAULT_MAX_SIZE);
+         }
+      }
+      return index.getFilters(path);
    }
 
    /**
@@ -877,6 +1257,7 @@ public class ProviderBinder implements ExtendedProviders
       {
          readProviders.getList(mime).add(factory);
       }
+      clearReaderResolutions();
    }
 
    /**
@@ -918,6 +1299,7 @@ public class ProviderBinder implements ExtendedProviders
       {
          writeProviders.getList(mime).add(factory);
       }
+      clearWriterResolutions();
    }
 
    /**
@@ -1004,7 +1386,11 @@ public class ProviderBinder implements ExtendedProviders
             factory = new ContainerObjectFactory<FilterDescriptor>(descriptor);
             break;
       }
-      requestFilters.getList(descriptor.getUriPattern()).add(factory);
+      synchronized (requestFilters)
+      {
+         requestFilters.getList(descriptor.getUriPattern()).add(factory);
+         requestFilterIndex = null;
+      }
    }
 
    /**
@@ -1036,7 +1422,11 @@ public class ProviderBinder implements ExtendedProviders
             factory = new ContainerObjectFactory<FilterDescriptor>(descriptor);
             break;
       }
-      responseFilters.getList(descriptor.getUriPattern()).add(factory);
+      synchronized (responseFilters)
+      {
+         responseFilters.getList(descriptor.getUriPattern()).add(factory);
+         responseFilterIndex = null;
+      }
    }
 
    /**
@@ -1068,7 +1458,11 @@ public class ProviderBinder implements ExtendedProviders
             factory = new ContainerObjectFactory<FilterDescriptor>(descriptor);
             break;
       }
-      invokerFilters.getList(descriptor.getUriPattern()).add(factory);
+      synchronized (invokerFilters)
+      {
+         invokerFilters.getList(descriptor.getUriPattern()).add(factory);
+         invokerFilterIndex = null;
+      }
    }
 
 }
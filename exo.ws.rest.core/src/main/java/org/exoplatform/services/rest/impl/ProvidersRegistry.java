@@ -18,10 +18,22 @@ package org.exoplatform.services.rest.impl;
 
 import org.exoplatform.container.spi.DefinitionByType;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Registry of providers of JAX-RS applications.
+ * <p>
+ * For each application registry keeps {@link ProviderBinder} which combines
+ * providers of application with default providers, see
+ * {@link #getApplicationProviders(String)}. Such binders are created when
+ * application providers are published and shared by all requests. Table of
+ * them is never modified, it is copied and replaced on each registration, so
+ * requests read it without locking.
+ * </p>
+ *
  * @author <a href="andrew00x@gmail.com">Andrey Parfonov</a>
  * @version $Id$
  */
@@ -29,16 +41,48 @@ import java.util.Map;
 public class ProvidersRegistry
 {
 
-   protected Map<String, ApplicationProviders> all = new HashMap<String, ApplicationProviders>();
+   protected Map<String, ApplicationProviders> all = new ConcurrentHashMap<String, ApplicationProviders>();
+
+   /** Providers for resources which do not belong to any application. */
+   private final ProviderBinder noApplication = new MergedProviders(null);
+
+   /** Combined providers of applications. Replaced on each registration. */
+   private volatile Map<String, ProviderBinder> merged = Collections.emptyMap();
 
    public void addProviders(ApplicationProviders ap)
    {
-      all.put(ap.getApplication(), ap);
+      synchronized (this)
+      {
+         all.put(ap.getApplication(), ap);
+         Map<String, ProviderBinder> copy = new HashMap<String, ProviderBinder>(merged);
+         copy.put(ap.getApplication(), new MergedProviders(ap));
+         merged = Collections.unmodifiableMap(copy);
+      }
    }
 
    public ApplicationProviders getProviders(String applicationId)
    {
+      if (applicationId == null)
+         return null;
       return all.get(applicationId);
    }
 
+   /**
+    * Get providers which should be used for processing requests to resources
+    * of application with specified identifier. Providers of application
+    * take precedence over default providers.
+    *
+    * @param applicationId identifier of application, may be <code>null</code>
+    * @return set of providers, never <code>null</code>. If there is no
+    *         providers registered for application then default providers
+    *         returned
+    */
+   public ProviderBinder getApplicationProviders(String applicationId)
+   {
+      if (applicationId == null)
+         return noApplication;
+      ProviderBinder providers = merged.get(applicationId);
+      return providers != null ? providers : noApplication;
+   }
+
 }
@@ -20,39 +20,37 @@ import org.exoplatform.container.spi.DefinitionByType;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
 import org.exoplatform.services.rest.ApplicationContext;
-import org.exoplatform.services.rest.ComponentLifecycleScope;
 import org.exoplatform.services.rest.FilterDescriptor;
 import org.exoplatform.services.rest.GenericContainerRequest;
 import org.exoplatform.services.rest.GenericContainerResponse;
 import org.exoplatform.services.rest.ObjectFactory;
 import org.exoplatform.services.rest.RequestFilter;
 import org.exoplatform.services.rest.ResponseFilter;
-import org.exoplatform.services.rest.SingletonObjectFactory;
 import org.exoplatform.services.rest.impl.header.HeaderHelper;
 import org.exoplatform.services.rest.impl.header.MediaTypeHelper;
 import org.exoplatform.services.rest.impl.method.MethodInvokerFactory;
-import org.exoplatform.services.rest.impl.resource.AbstractResourceDescriptorImpl;
 import org.exoplatform.services.rest.impl.resource.ApplicationResource;
+import org.exoplatform.services.rest.impl.resource.ResourceDescriptorCache;
 import org.exoplatform.services.rest.method.MethodInvoker;
-import org.exoplatform.services.rest.method.MethodInvokerFilter;
 import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
 import org.exoplatform.services.rest.resource.ResourceMethodDescriptor;
 import org.exoplatform.services.rest.resource.ResourceMethodMap;
+import org.exoplatform.services.rest.resource.ResourceMethodMap.Negotiation;
 import org.exoplatform.services.rest.resource.SubResourceLocatorDescriptor;
 import org.exoplatform.services.rest.resource.SubResourceLocatorMap;
 import org.exoplatform.services.rest.resource.SubResourceMethodDescriptor;
 import org.exoplatform.services.rest.resource.SubResourceMethodMap;
 import org.exoplatform.services.rest.uri.UriPattern;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.GenericEntity;
@@ -60,10 +58,6 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
-import javax.ws.rs.ext.ContextResolver;
-import javax.ws.rs.ext.ExceptionMapper;
-import javax.ws.rs.ext.MessageBodyReader;
-import javax.ws.rs.ext.MessageBodyWriter;
 
 /**
  * Lookup resource which can serve request.
@@ -75,349 +69,6 @@ import javax.ws.rs.ext.MessageBodyWriter;
 public class RequestDispatcher
 {
 
-   /**
-    * Set of providers which respects providers specified by JAX-RS
-    * Applications. Default (embedded) providers will be used only if
-    * application does not provide own providers with the same purposes.
-    */
-   private class ProvidersAdapter extends ProviderBinder
-   {
-      private ProviderBinder applicationProviders;
-
-      private ProviderBinder defaultProviders;
-
-      private ProvidersAdapter(ProviderBinder applicationProviders, ProviderBinder defaultProviders)
-      {
-         this.applicationProviders = applicationProviders;
-         this.defaultProviders = defaultProviders;
-      }
-
-      @Override
-      protected void init()
-      {
-         // Do not add default providers here.
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addContextResolver(Class<? extends ContextResolver> clazz, ContextResolver instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addContextResolver(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addContextResolver");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addContextResolver(Class<? extends ContextResolver> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addContextResolver(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addContextResolver");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addContextResolver(ContextResolver instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addContextResolver(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addContextResolver");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addExceptionMapper(Class<? extends ExceptionMapper> clazz, ExceptionMapper instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addExceptionMapper(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addExceptionMapper");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addExceptionMapper(Class<? extends ExceptionMapper> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addExceptionMapper(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addExceptionMapper");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addExceptionMapper(ExceptionMapper instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addExceptionMapper(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addExceptionMapper");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addMessageBodyReader(Class<? extends MessageBodyReader> clazz, MessageBodyReader instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMessageBodyReader(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMessageBodyReader");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addMessageBodyReader(Class<? extends MessageBodyReader> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMessageBodyReader(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMessageBodyReader");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addMessageBodyReader(MessageBodyReader instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMessageBodyReader(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMessageBodyReader");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addMessageBodyWriter(Class<? extends MessageBodyWriter> clazz, MessageBodyWriter instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMessageBodyWriter(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMessageBodyWriter");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addMessageBodyWriter(Class<? extends MessageBodyWriter> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMessageBodyWriter(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMessageBodyWriter");
-      }
-
-      @SuppressWarnings("unchecked")
-      @Override
-      public void addMessageBodyWriter(MessageBodyWriter instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMessageBodyWriter(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMessageBodyWriter");
-      }
-
-      @Override
-      public void addMethodInvokerFilter(Class<? extends MethodInvokerFilter> clazz, MethodInvokerFilter instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMethodInvokerFilter(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMethodInvokerFilter");
-      }
-
-      @Override
-      public void addMethodInvokerFilter(Class<? extends MethodInvokerFilter> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMethodInvokerFilter(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMethodInvokerFilter");
-      }
-
-      @Override
-      public void addMethodInvokerFilter(MethodInvokerFilter instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addMethodInvokerFilter(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addMethodInvokerFilter");
-      }
-
-      @Override
-      public void addRequestFilter(Class<? extends RequestFilter> clazz, RequestFilter instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addRequestFilter(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addRequestFilter");
-      }
-
-      @Override
-      public void addRequestFilter(Class<? extends RequestFilter> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addRequestFilter(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addRequestFilter");
-      }
-
-      @Override
-      public void addRequestFilter(RequestFilter instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addRequestFilter(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addRequestFilter");
-      }
-
-      @Override
-      public void addResponseFilter(Class<? extends ResponseFilter> clazz, ResponseFilter instance,
-         ComponentLifecycleScope scope)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addResponseFilter(clazz, instance, scope);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addResponseFilter");
-      }
-
-      @Override
-      public void addResponseFilter(Class<? extends ResponseFilter> clazz)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addResponseFilter(clazz);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addResponseFilter");
-      }
-
-      @Override
-      public void addResponseFilter(ResponseFilter instance)
-      {
-         if (applicationProviders != null)
-            applicationProviders.addResponseFilter(instance);
-         else
-            // Keep default set of providers untouched.
-            throw new UnsupportedOperationException("addResponseFilter");
-      }
-
-      @Override
-      public List<MediaType> getAcceptableWriterMediaTypes(Class<?> type, Type genericType, Annotation[] annotations)
-      {
-         List<MediaType> mediaTypes = null;
-         if (applicationProviders != null)
-            mediaTypes = applicationProviders.getAcceptableWriterMediaTypes(type, genericType, annotations);
-         if (mediaTypes != null)
-         {
-            mediaTypes.addAll(defaultProviders.getAcceptableWriterMediaTypes(type, genericType, annotations));
-            return mediaTypes;
-         }
-         return defaultProviders.getAcceptableWriterMediaTypes(type, genericType, annotations);
-      }
-
-      @Override
-      public <T> ContextResolver<T> getContextResolver(Class<T> contextType, MediaType mediaType)
-      {
-         ContextResolver<T> resolver = null;
-         if (applicationProviders != null)
-            resolver = applicationProviders.getContextResolver(contextType, mediaType);
-         if (resolver == null)
-            resolver = defaultProviders.getContextResolver(contextType, mediaType);
-         return resolver;
-      }
-
-      @Override
-      public <T extends Throwable> ExceptionMapper<T> getExceptionMapper(Class<T> type)
-      {
-         ExceptionMapper<T> mapper = null;
-         if (applicationProviders != null)
-            mapper = applicationProviders.getExceptionMapper(type);
-         if (mapper == null)
-            mapper = defaultProviders.getExceptionMapper(type);
-         return mapper;
-      }
-
-      @Override
-      public <T> MessageBodyReader<T> getMessageBodyReader(Class<T> type, Type genericType, Annotation[] annotations,
-         MediaType mediaType)
-      {
-         MessageBodyReader<T> reader = null;
-         if (applicationProviders != null)
-            reader = applicationProviders.getMessageBodyReader(type, genericType, annotations, mediaType);
-         if (reader == null)
-            reader = defaultProviders.getMessageBodyReader(type, genericType, annotations, mediaType);
-         return reader;
-      }
-
-      @Override
-      public <T> MessageBodyWriter<T> getMessageBodyWriter(Class<T> type, Type genericType, Annotation[] annotations,
-         MediaType mediaType)
-      {
-         MessageBodyWriter<T> writer = null;
-         if (applicationProviders != null)
-            writer = applicationProviders.getMessageBodyWriter(type, genericType, annotations, mediaType);
-         if (writer == null)
-            writer = defaultProviders.getMessageBodyWriter(type, genericType, annotations, mediaType);
-         return writer;
-      }
-
-      @Override
-      public List<ObjectFactory<FilterDescriptor>> getMethodInvokerFilters(String path)
-      {
-         List<ObjectFactory<FilterDescriptor>> filters = defaultProviders.getMethodInvokerFilters(path);
-         if (applicationProviders != null)
-            filters.addAll(applicationProviders.getMethodInvokerFilters(path));
-         return filters;
-      }
-
-      @Override
-      public List<ObjectFactory<FilterDescriptor>> getRequestFilters(String path)
-      {
-         // NOTE!!! Return only application specific filters. Default filters
-         // should be already applied to request.
-         if (applicationProviders == null)
-            return Collections.emptyList();
-         return applicationProviders.getRequestFilters(path);
-      }
-
-      @Override
-      public List<ObjectFactory<FilterDescriptor>> getResponseFilters(String path)
-      {
-         // NOTE!!! Return only application specific filters. Default filters
-         // should be applied to response later.
-         if (applicationProviders == null)
-            return Collections.emptyList();
-         return applicationProviders.getResponseFilters(path);
-      }
-
-   }
-
    /** Logger. */
    private static final Log LOG = ExoLogger.getLogger("exo.ws.rest.core.RequestDispatcher");
 
@@ -428,12 +79,16 @@ public class RequestDispatcher
 
    protected final ProvidersRegistry providersRegistry;
 
+   /** Descriptors of resources returned by sub-resource locators. */
+   protected final ResourceDescriptorCache locatorDescriptors;
+
    public RequestDispatcher(ResourceBinder resourceBinder, ProvidersRegistry providersRegistry,
       MethodInvokerFactory invokerFactory)
    {
       this.resourceBinder = resourceBinder;
       this.providersRegistry = providersRegistry;
       this.invokerFactory = invokerFactory;
+      this.locatorDescriptors = new ResourceDescriptorCache(invokerFactory);
    }
 
    public RequestDispatcher(ResourceBinder resourceBinder, ProvidersRegistry providers)
@@ -479,9 +134,7 @@ public class RequestDispatcher
             // it must be instance of ApplicationResource which provide application's identifier.
             applicationId = ((ApplicationResource)resourceDescriptor).getApplication();
          }
-         ProviderBinder applicationProviders = providersRegistry.getProviders(applicationId);
-         ((ApplicationContextImpl)context).setProviders(new ProvidersAdapter(applicationProviders, ProviderBinder
-            .getInstance()));
+         ((ApplicationContextImpl)context).setProviders(providersRegistry.getApplicationProviders(applicationId));
       }
       else
       {
@@ -504,9 +157,38 @@ public class RequestDispatcher
 
       // may thrown WebApplicationException
       Object resource = resourceFactory.getInstance(context);
-      dispatch(request, response, context, resourceFactory, resource, newRequestPath);
+      dispatch(request, response, context, resourceDescriptor, resource, newRequestPath);
+
+      // Response is not available yet if resource method returns not completed
+      // CompletionStage. Filters are applied when it is completed.
+      if (((ApplicationContextImpl)context).getAsyncResult() == null)
+         applyResponseFilters(context, response);
+   }
+
+   /**
+    * Set response when result of resource method which returns
+    * {@link CompletionStage} is completed.
+    *
+    * @param result result of completion stage
+    * @param response See {@link GenericContainerResponse}
+    */
+   void complete(Object result, GenericContainerResponse response)
+   {
+      ApplicationContextImpl context = (ApplicationContextImpl)ApplicationContextImpl.getCurrent();
+      MediaType contentType = context.getAsyncContentType();
+      context.setAsyncResult(null, null);
+      processResponse(result, result == null ? void.class : result.getClass(), response, contentType);
+      applyResponseFilters(context, response);
+   }
 
-      // Apply application specific response filters if any
+   /**
+    * Apply application specific response filters if any.
+    *
+    * @param context See {@link ApplicationContext}
+    * @param response See {@link GenericContainerResponse}
+    */
+   private static void applyResponseFilters(ApplicationContext context, GenericContainerResponse response)
+   {
       for (ObjectFactory<FilterDescriptor> factory : context.getProviders().getResponseFilters(context.getPath()))
       {
          ResponseFilter f = (ResponseFilter)factory.getInstance(context);
@@ -536,41 +218,41 @@ public class RequestDispatcher
     * @param request See {@link GenericContainerRequest}
     * @param response See {@link GenericContainerResponse}
     * @param context See {@link ApplicationContextImpl}
-    * @param resourceFactory the root resource factory or resource factory which
-    *           was created by previous sub-resource locator
+    * @param resourceDescriptor the root resource descriptor or descriptor of
+    *           resource which was returned by previous sub-resource locator
     * @param resource instance of resource class
     * @param requestPath request path, it is relative path to the base URI or
     *           other resource which was called before (one of sub-resource
     *           locators)
     */
    private void dispatch(GenericContainerRequest request, GenericContainerResponse response,
-      ApplicationContext context, ObjectFactory<AbstractResourceDescriptor> resourceFactory, Object resource,
-      String requestPath)
+      ApplicationContext context, AbstractResourceDescriptor resourceDescriptor, Object resource, String requestPath)
    {
       List<String> parameterValues = context.getParameterValues();
       int len = parameterValues.size();
       // resource method or sub-resource method or sub-resource locator
-      ResourceMethodMap<ResourceMethodDescriptor> rmm = resourceFactory.getObjectModel().getResourceMethods();
-      SubResourceMethodMap srmm = resourceFactory.getObjectModel().getSubResourceMethods();
-      SubResourceLocatorMap srlm = resourceFactory.getObjectModel().getSubResourceLocators();
+      ResourceMethodMap<ResourceMethodDescriptor> rmm = resourceDescriptor.getResourceMethods();
+      SubResourceMethodMap srmm = resourceDescriptor.getSubResourceMethods();
+      SubResourceLocatorMap srlm = resourceDescriptor.getSubResourceLocators();
       if ((parameterValues.get(len - 1) == null || "/".equals(parameterValues.get(len - 1))) && rmm.size() > 0)
       {
          // resource method, then process HTTP method and consume/produce media types
-         List<ResourceMethodDescriptor> methods = new ArrayList<ResourceMethodDescriptor>();
-         boolean match = processResourceMethod(rmm, request, response, methods);
-         if (!match)
+         Negotiation<ResourceMethodDescriptor> negotiation = processResourceMethod(rmm, request, response);
+         if (negotiation == null)
          {
             if (LOG.isDebugEnabled())
                LOG.debug("Not found resource method for method " + request.getMethod());
             return; // Error Response is preset
          }
-         invokeResourceMethod(methods.get(0), resource, context, request, response);
+         invokeResourceMethod(negotiation.getMethod(), negotiation.getMediaType(), resource, context, request,
+            response);
       }
       else
       { // sub-resource method/locator
-         List<SubResourceMethodDescriptor> methods = new ArrayList<SubResourceMethodDescriptor>();
          // check sub-resource methods
-         boolean match = processSubResourceMethod(srmm, requestPath, request, response, parameterValues, methods);
+         Negotiation<SubResourceMethodDescriptor> negotiation =
+            processSubResourceMethod(srmm, requestPath, request, response, parameterValues);
+         boolean match = negotiation != null;
          // check sub-resource locators
          List<SubResourceLocatorDescriptor> locators = new ArrayList<SubResourceLocatorDescriptor>();
          boolean hasAcceptableLocator = processSubResourceLocator(srlm, requestPath, parameterValues, locators);
@@ -596,13 +278,14 @@ public class RequestDispatcher
          // the same then sub-resource method has higher priority, otherwise
          // sub-resource with 'higher' URI pattern selected.
          if ((!hasAcceptableLocator && match)
-            || (hasAcceptableLocator && match && compareSubResources(methods.get(0), locators.get(0)) < 0))
+            || (hasAcceptableLocator && match && compareSubResources(negotiation.getMethod(), locators.get(0)) < 0))
          {
             // sub-resource method
-            invokeSubResourceMethod(requestPath, methods.get(0), resource, context, request, response);
+            invokeSubResourceMethod(requestPath, negotiation.getMethod(), negotiation.getMediaType(), resource,
+               context, request, response);
          }
          else if ((hasAcceptableLocator && !match)
-            || (hasAcceptableLocator && match && compareSubResources(methods.get(0), locators.get(0)) > 0))
+            || (hasAcceptableLocator && match && compareSubResources(negotiation.getMethod(), locators.get(0)) > 0))
          {
             // sub-resource locator
             invokeSuResourceLocator(requestPath, locators.get(0), resource, context, request, response);
@@ -614,21 +297,24 @@ public class RequestDispatcher
     * Invoke resource methods.
     * 
     * @param rmd See {@link ResourceMethodDescriptor}
+    * @param contentType most acceptable media type of response
     * @param resource instance of resource class
     * @param context See {@link ApplicationContextImpl}
     * @param request See {@link GenericContainerRequest}
     * @param response See {@link GenericContainerResponse}
     * @see ResourceMethodDescriptor
     */
-   private void invokeResourceMethod(ResourceMethodDescriptor rmd, Object resource, ApplicationContext context,
-      GenericContainerRequest request, GenericContainerResponse response)
+   private void invokeResourceMethod(ResourceMethodDescriptor rmd, MediaType contentType, Object resource,
+      ApplicationContext context, GenericContainerRequest request, GenericContainerResponse response)
    {
       // save resource in hierarchy
       context.addMatchedResource(resource);
       Class<?> returnType = rmd.getResponseType();
       MethodInvoker invoker = rmd.getMethodInvoker();
-      Object o = invoker.invokeMethod(resource, rmd, context);
-      processResponse(o, returnType, request, response, rmd.produces());
+      Object o =
+         VirtualThreadExecutor.isEnabled(rmd, context) ? VirtualThreadExecutor.invoke(invoker, resource, rmd, context)
+            : invoker.invokeMethod(resource, rmd, context);
+      processResponse(o, returnType, response, contentType);
    }
 
    /**
@@ -636,14 +322,15 @@ public class RequestDispatcher
     * 
     * @param requestPath request path
     * @param srmd See {@link SubResourceMethodDescriptor}
+    * @param contentType most acceptable media type of response
     * @param resource instance of resource class
     * @param context See {@link ApplicationContextImpl}
     * @param request See {@link GenericContainerRequest}
     * @param response See {@link GenericContainerResponse}
     * @see SubResourceMethodDescriptor
     */
-   private void invokeSubResourceMethod(String requestPath, SubResourceMethodDescriptor srmd, Object resource,
-      ApplicationContext context, GenericContainerRequest request, GenericContainerResponse response)
+   private void invokeSubResourceMethod(String requestPath, SubResourceMethodDescriptor srmd, MediaType contentType,
+      Object resource, ApplicationContext context, GenericContainerRequest request, GenericContainerResponse response)
    {
       // save resource in hierarchy
       context.addMatchedResource(resource);
@@ -654,8 +341,10 @@ public class RequestDispatcher
 
       Class<?> returnType = srmd.getResponseType();
       MethodInvoker invoker = srmd.getMethodInvoker();
-      Object o = invoker.invokeMethod(resource, srmd, context);
-      processResponse(o, returnType, request, response, srmd.produces());
+      Object o =
+         VirtualThreadExecutor.isEnabled(srmd, context) ? VirtualThreadExecutor.invoke(invoker, resource, srmd,
+            context) : invoker.invokeMethod(resource, srmd, context);
+      processResponse(o, returnType, response, contentType);
    }
 
    /**
@@ -684,12 +373,10 @@ public class RequestDispatcher
       MethodInvoker invoker = srld.getMethodInvoker();
       resource = invoker.invokeMethod(resource, srld, context);
 
-      AbstractResourceDescriptor descriptor = new AbstractResourceDescriptorImpl(resource, invokerFactory);
-      SingletonObjectFactory<AbstractResourceDescriptor> locResource =
-         new SingletonObjectFactory<AbstractResourceDescriptor>(descriptor, resource);
+      AbstractResourceDescriptor descriptor = locatorDescriptors.getDescriptor(resource);
 
       // dispatch again newly created resource
-      dispatch(request, response, context, locResource, resource, newRequestPath);
+      dispatch(request, response, context, descriptor, resource, newRequestPath);
    }
 
    /**
@@ -721,22 +408,39 @@ public class RequestDispatcher
 
    /**
     * Process result of invoked method, and set {@link Response} parameters
-    * dependent of returned object.
+    * dependent of returned object. If method returns not completed
+    * {@link CompletionStage} then response is not set, see
+    * {@link #complete(Object, GenericContainerResponse)}. Result of
+    * {@link Future} which is not {@link CompletionStage} is awaited.
     * 
     * @param o result of invoked method
     * @param returnType type of returned object
-    * @param request See {@link GenericContainerRequest}
     * @param response See {@link GenericContainerResponse}
-    * @param produces list of method produces media types
+    * @param contentType most acceptable media type of response
     * @see ResourceMethodDescriptor
     * @see SubResourceMethodDescriptor
     * @see SubResourceLocatorDescriptor
     */
-   private static void processResponse(Object o, Class<?> returnType, GenericContainerRequest request,
-      GenericContainerResponse response, List<MediaType> produces)
+   private static void processResponse(Object o, Class<?> returnType, GenericContainerResponse response,
+      MediaType contentType)
    {
-      // get most acceptable media type for response
-      MediaType contentType = request.getAcceptableMediaType(produces);
+      if (o instanceof CompletionStage)
+      {
+         CompletableFuture<?> future = toCompletableFuture((CompletionStage<?>)o);
+         if (future == null || !future.isDone())
+         {
+            ((ApplicationContextImpl)ApplicationContextImpl.getCurrent()).setAsyncResult((CompletionStage<?>)o,
+               contentType);
+            return;
+         }
+         o = getResult(future);
+         returnType = o == null ? void.class : o.getClass();
+      }
+      else if (o instanceof Future)
+      {
+         o = getResult((Future<?>)o);
+         returnType = o == null ? void.class : o.getClass();
+      }
 
       if (returnType == void.class || o == null)
       {
@@ -763,91 +467,89 @@ public class RequestDispatcher
    }
 
    /**
-    * Process resource methods.
-    * 
-    * @param <T> ResourceMethodDescriptor extension
-    * @param rmm See {@link ResourceMethodMap}
-    * @param request See {@link GenericContainerRequest}
-    * @param response See {@link GenericContainerResponse}
-    * @param methods list for method resources
-    * @return true if at least one resource method found false otherwise
+    * @param stage completion stage
+    * @return CompletableFuture or <code>null</code> if stage does not support
+    *         {@link CompletionStage#toCompletableFuture()}
     */
-   private static <T extends ResourceMethodDescriptor> boolean processResourceMethod(ResourceMethodMap<T> rmm,
-      GenericContainerRequest request, GenericContainerResponse response, List<T> methods)
+   private static CompletableFuture<?> toCompletableFuture(CompletionStage<?> stage)
    {
-      String method = request.getMethod();
-      List<T> rmds = rmm.getList(method);
-      if (rmds == null || rmds.size() == 0)
+      try
       {
-         response.setResponse(Response.status(405).header("Allow", HeaderHelper.convertToString(rmm.getAllow()))
-            .entity(method + " method is not allowed for resource " + ApplicationContextImpl.getCurrent().getPath())
-            .type(MediaType.TEXT_PLAIN).build());
-         return false;
+         return stage.toCompletableFuture();
       }
-      MediaType contentType = request.getMediaType();
-      if (contentType == null)
+      catch (UnsupportedOperationException e)
       {
-         methods.addAll(rmds);
+         return null;
       }
-      else
+   }
+
+   /**
+    * Wait for result of future.
+    *
+    * @param future future
+    * @return result of future
+    * @throws WebApplicationException if future fails with
+    *         WebApplicationException
+    * @throws InternalException if future fails with any other exception
+    */
+   private static Object getResult(Future<?> future)
+   {
+      try
       {
-         for (T rmd : rmds)
-         {
-            if (MediaTypeHelper.isConsume(rmd.consumes(), contentType))
-            {
-               methods.add(rmd);
-            }
-         }
+         return future.get();
       }
-
-      if (methods.isEmpty())
+      catch (InterruptedException e)
       {
-         response.setResponse(Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE)
-            .entity("Media type " + contentType + " is not supported.").type(MediaType.TEXT_PLAIN).build());
-         return false;
+         Thread.currentThread().interrupt();
+         throw new InternalException(e);
       }
-
-      List<MediaType> acceptable = request.getAcceptableMediaTypes();
-      float previousQValue = 0.0F;
-      int n = 0, p = 0;
-      for (ListIterator<T> i = methods.listIterator(); i.hasNext();)
+      catch (CancellationException e)
       {
-         n = i.nextIndex();
-         ResourceMethodDescriptor rmd = i.next();
-         float qValue = MediaTypeHelper.processQuality(acceptable, rmd.produces());
-         if (qValue > previousQValue)
-         {
-            previousQValue = qValue;
-            p = n; // position of the best resource at the moment
-         }
-         else
-         {
-            i.remove(); // qValue is less then previous one
-         }
+         throw new InternalException(e);
       }
-
-      if (!methods.isEmpty())
+      catch (ExecutionException e)
       {
-         // remove all with lower q value
-         if (methods.size() > 1)
-         {
-            n = 0;
-            for (Iterator<T> i = methods.listIterator(); i.hasNext(); i.remove(), n++)
-            {
-               i.next();
-               if (n == p)
-               {
-                  break; // get index p in list then stop removing
-               }
-            }
-         }
-         return true;
+         Throwable cause = e.getCause();
+         if (cause instanceof WebApplicationException)
+            throw (WebApplicationException)cause;
+         throw new InternalException(cause);
       }
+   }
 
-      response.setResponse(Response.status(Response.Status.NOT_ACCEPTABLE).entity("Not Acceptable")
-         .type(MediaType.TEXT_PLAIN).build());
-
-      return false;
+   /**
+    * Process resource methods.
+    * 
+    * @param <T> ResourceMethodDescriptor extension
+    * @param rmm See {@link ResourceMethodMap}
+    * @param request See {@link GenericContainerRequest}
+    * @param response See {@link GenericContainerResponse}
+    * @return result of content negotiation or <code>null</code> if resource
+    *         method not found, in this case error response is preset
+    */
+   private static <T extends ResourceMethodDescriptor> Negotiation<T> processResourceMethod(ResourceMethodMap<T> rmm,
+      GenericContainerRequest request, GenericContainerResponse response)
+   {
+      Negotiation<T> negotiation = rmm.negotiate(request);
+      switch (negotiation.getStatus())
+      {
+         case 405 :
+            response.setResponse(Response.status(405).header("Allow", HeaderHelper.convertToString(rmm.getAllow()))
+               .entity(
+                  request.getMethod() + " method is not allowed for resource "
+                     + ApplicationContextImpl.getCurrent().getPath()).type(MediaType.TEXT_PLAIN).build());
+            return null;
+         case 415 :
+            response.setResponse(Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE)
+               .entity("Media type " + request.getMediaType() + " is not supported.").type(MediaType.TEXT_PLAIN)
+               .build());
+            return null;
+         case 406 :
+            response.setResponse(Response.status(Response.Status.NOT_ACCEPTABLE).entity("Not Acceptable")
+               .type(MediaType.TEXT_PLAIN).build());
+            return null;
+         default :
+            return negotiation;
+      }
    }
 
    /**
@@ -859,13 +561,13 @@ public class RequestDispatcher
     * @param response See {@link GenericContainerResponse}
     * @param capturingValues the list for keeping template values. See
     *           {@link javax.ws.rs.core.UriInfo#getPathParameters()}
-    * @param methods list for method resources
-    * @return true if at least one sub-resource method found false otherwise
+    * @return result of content negotiation or <code>null</code> if
+    *         sub-resource method not found, in this case error response is
+    *         preset
     */
-   @SuppressWarnings("unchecked")
-   private static boolean processSubResourceMethod(SubResourceMethodMap srmm, String requestedPath,
-      GenericContainerRequest request, GenericContainerResponse response, List<String> capturingValues,
-      List<SubResourceMethodDescriptor> methods)
+   private static Negotiation<SubResourceMethodDescriptor> processSubResourceMethod(SubResourceMethodMap srmm,
+      String requestedPath, GenericContainerRequest request, GenericContainerResponse response,
+      List<String> capturingValues)
    {
       ResourceMethodMap<SubResourceMethodDescriptor> rmm = null;
       for (Entry<UriPattern, ResourceMethodMap<SubResourceMethodDescriptor>> e : srmm.entrySet())
@@ -888,23 +590,10 @@ public class RequestDispatcher
          response.setResponse(Response.status(Status.NOT_FOUND)
             .entity("There is no any resources matched to request path " + requestedPath).type(MediaType.TEXT_PLAIN)
             .build());
-         return false;
+         return null;
       }
 
-      List<SubResourceMethodDescriptor> l = new ArrayList<SubResourceMethodDescriptor>();
-      boolean match = processResourceMethod(rmm, request, response, l);
-
-      if (match)
-      {
-         // for cast, Iterator contains SubResourceMethodDescriptor
-         Iterator i = l.iterator();
-         while (i.hasNext())
-         {
-            methods.add((SubResourceMethodDescriptor)i.next());
-         }
-      }
-
-      return match;
+      return processResourceMethod(rmm, request, response);
    }
 
    /**
@@ -930,6 +619,15 @@ public class RequestDispatcher
       return !locators.isEmpty();
    }
 
+   /**
+    * @return cache of descriptors of resources returned by sub-resource
+    *         locators
+    */
+   public ResourceDescriptorCache getLocatorDescriptorCache()
+   {
+      return locatorDescriptors;
+   }
+
    /**
     * Get root resource.
     * 
@@ -23,6 +23,8 @@ import org.exoplatform.container.xml.InitParams;
 import org.exoplatform.container.xml.ValueParam;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
+import org.exoplatform.services.rest.AsyncContainerResponseWriter;
+import org.exoplatform.services.rest.ContainerResponseWriter;
 import org.exoplatform.services.rest.FilterDescriptor;
 import org.exoplatform.services.rest.GenericContainerRequest;
 import org.exoplatform.services.rest.GenericContainerResponse;
@@ -37,12 +39,17 @@ import org.exoplatform.services.rest.provider.EntityProvider;
 import org.picocontainer.Startable;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiConsumer;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
@@ -120,14 +127,14 @@ public final class RequestHandlerImpl implements RequestHandler, Startable
    /**
     * {@inheritDoc}
     */
-   @SuppressWarnings({"unchecked", "rawtypes"})
    public void handleRequest(GenericContainerRequest request, GenericContainerResponse response) throws Exception
    {
+      ApplicationContextImpl context = null;
+      boolean suspended = false;
       try
       {
          ProviderBinder defaultProviders = ProviderBinder.getInstance();
-         ApplicationContextImpl context =
-            new ApplicationContextImpl(request, response, defaultProviders, dependencySupplier);
+         context = new ApplicationContextImpl(request, response, defaultProviders, dependencySupplier);
          context.getProperties().putAll(properties);
          ApplicationContextImpl.setCurrent(context);
 
@@ -144,78 +151,266 @@ public final class RequestHandlerImpl implements RequestHandler, Startable
          }
          catch (WebApplicationException e)
          {
-            Response errorResponse = ((WebApplicationException)e).getResponse();
-            ExceptionMapper excmap = context.getProviders().getExceptionMapper(WebApplicationException.class);
-            int errorStatus = errorResponse.getStatus();
-            // should be some of 4xx status
-            if (errorStatus < 500)
+            handleWebApplicationException(e, context, response);
+         }
+         catch (InternalException e)
+         {
+            handleInternalException(e, context, response);
+         }
+
+         CompletionStage<?> asyncResult = context.getAsyncResult();
+         if (asyncResult != null)
+         {
+            ContainerResponseWriter writer =
+               response instanceof ContainerResponse ? ((ContainerResponse)response).getContainerResponseWriter()
+                  : null;
+            if (writer instanceof AsyncContainerResponseWriter && ((AsyncContainerResponseWriter)writer).suspend())
             {
-               // Warn about error in debug mode only.
-               if (LOG.isDebugEnabled() && e.getCause() != null)
-               {
-                  LOG.warn("WebApplication exception occurs.", e.getCause());
-               }
+               suspended = true;
+               resumeOnCompletion(asyncResult, context, response, (AsyncContainerResponseWriter)writer);
+               return;
             }
-            else
+            // Connector is not able to process request asynchronously. Wait
+            // through callback since CompletionStage may not support
+            // conversion to CompletableFuture.
+            final Object[] outcome = new Object[2];
+            final CountDownLatch done = new CountDownLatch(1);
+            asyncResult.whenComplete(new BiConsumer<Object, Throwable>()
             {
-               if (e.getCause() != null)
+               public void accept(Object result, Throwable failure)
                {
-                  LOG.warn("WebApplication exception occurs.", e.getCause());
+                  outcome[0] = result;
+                  outcome[1] = failure;
+                  done.countDown();
                }
+            });
+            Object result = null;
+            Throwable failure = null;
+            try
+            {
+               done.await();
+               result = outcome[0];
+               failure = (Throwable)outcome[1];
             }
-            if (errorResponse.getEntity() == null)
+            catch (InterruptedException e)
             {
-               if (excmap != null)
-               {
-                  errorResponse = excmap.toResponse(e);
-               }
-               else
-               {
-                  if (e.getMessage() != null)
-                  {
-                     errorResponse = createErrorResponse(errorStatus, e.getMessage());
-                  }
-               }
+               Thread.currentThread().interrupt();
+               failure = e;
             }
-            response.setResponse(errorResponse);
+            complete(result, failure, context, response);
          }
-         catch (InternalException e)
+
+         writeResponse(context, response);
+      }
+      finally
+      {
+         if (context != null && !suspended)
+            runCompletionCallbacks(context);
+         // reset application context
+         ApplicationContextImpl.setCurrent(null);
+      }
+   }
+
+   /**
+    * Write response when result of resource method is completed. Writing is
+    * performed by connector in its environment.
+    *
+    * @param asyncResult result of resource method
+    * @param context See {@link ApplicationContextImpl}
+    * @param response See {@link GenericContainerResponse}
+    * @param writer suspended connector
+    */
+   private void resumeOnCompletion(CompletionStage<?> asyncResult, final ApplicationContextImpl context,
+      final GenericContainerResponse response, final AsyncContainerResponseWriter writer)
+   {
+      asyncResult.whenComplete(new BiConsumer<Object, Throwable>()
+      {
+         public void accept(final Object result, final Throwable failure)
          {
-            Throwable cause = e.getCause();
-            Class causeClazz = cause.getClass();
-            ExceptionMapper excmap = context.getProviders().getExceptionMapper(causeClazz);
-            while (causeClazz != null && excmap == null)
+            writer.resume(new Runnable()
             {
-               excmap = context.getProviders().getExceptionMapper(causeClazz);
-               if (excmap == null)
+               public void run()
                {
-                  causeClazz = causeClazz.getSuperclass();
+                  ApplicationContextImpl.setCurrent(context);
+                  try
+                  {
+                     complete(result, failure, context, response);
+                     writeResponse(context, response);
+                  }
+                  catch (Exception e)
+                  {
+                     LOG.error("Failed complete request " + context.getRequestUri(), e);
+                     writeServerError(response);
+                  }
+                  finally
+                  {
+                     runCompletionCallbacks(context);
+                     ApplicationContextImpl.setCurrent(null);
+                  }
                }
-            }
-            if (excmap != null)
-            {
-               response.setResponse(excmap.toResponse(e.getCause()));
-            }
-            else
-            {
-               LOG.error("Internal error occurs.", cause);
-               throw new UnhandledException(e.getCause());
-            }
+            });
          }
+      });
+   }
 
-         // Apply default filters only.
-         for (ObjectFactory<FilterDescriptor> factory : defaultProviders.getResponseFilters(context.getPath()))
+   /**
+    * Set response when result of resource method is completed.
+    *
+    * @param result result of resource method
+    * @param failure exception if resource method failed, <code>null</code>
+    *        otherwise
+    * @param context See {@link ApplicationContextImpl}
+    * @param response See {@link GenericContainerResponse}
+    */
+   private void complete(Object result, Throwable failure, ApplicationContextImpl context,
+      GenericContainerResponse response)
+   {
+      if (failure instanceof CompletionException && failure.getCause() != null)
+         failure = failure.getCause();
+      try
+      {
+         if (failure instanceof WebApplicationException)
+            throw (WebApplicationException)failure;
+         if (failure instanceof InternalException)
+            throw (InternalException)failure;
+         if (failure != null)
+            throw new InternalException(failure);
+         dispatcher.complete(result, response);
+      }
+      catch (WebApplicationException e)
+      {
+         handleWebApplicationException(e, context, response);
+      }
+      catch (InternalException e)
+      {
+         handleInternalException(e, context, response);
+      }
+   }
+
+   /**
+    * Apply default response filters and write response.
+    *
+    * @param context See {@link ApplicationContextImpl}
+    * @param response See {@link GenericContainerResponse}
+    * @throws IOException if any i/o error occurs
+    */
+   private static void writeResponse(ApplicationContextImpl context, GenericContainerResponse response)
+      throws IOException
+   {
+      // Apply default filters only.
+      for (ObjectFactory<FilterDescriptor> factory : ProviderBinder.getInstance().getResponseFilters(
+         context.getPath()))
+      {
+         ResponseFilter f = (ResponseFilter)factory.getInstance(context);
+         f.doFilter(response);
+      }
+
+      response.writeResponse();
+   }
+
+   /**
+    * Run tasks added with {@link ApplicationContextImpl#addCompletionCallback(Runnable)}.
+    *
+    * @param context See {@link ApplicationContextImpl}
+    */
+   private static void runCompletionCallbacks(ApplicationContextImpl context)
+   {
+      for (Runnable callback : context.removeCompletionCallbacks())
+      {
+         try
          {
-            ResponseFilter f = (ResponseFilter)factory.getInstance(context);
-            f.doFilter(response);
+            callback.run();
          }
+         catch (RuntimeException e)
+         {
+            LOG.error("Failed run completion callback of request " + context.getRequestUri(), e);
+         }
+      }
+   }
 
+   /**
+    * Send status 500 if request is failed after it was suspended and there is
+    * no one to propagate exception to. Connector ignores status if response is
+    * already committed.
+    *
+    * @param response See {@link GenericContainerResponse}
+    */
+   private static void writeServerError(GenericContainerResponse response)
+   {
+      try
+      {
+         response.setResponse(Response.serverError().build());
          response.writeResponse();
       }
-      finally
+      catch (Exception e)
       {
-         // reset application context
-         ApplicationContextImpl.setCurrent(null);
+         LOG.debug("Unable send error status", e);
+      }
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private void handleWebApplicationException(WebApplicationException e, ApplicationContextImpl context,
+      GenericContainerResponse response)
+   {
+      Response errorResponse = ((WebApplicationException)e).getResponse();
+      ExceptionMapper excmap = context.getProviders().getExceptionMapper(WebApplicationException.class);
+      int errorStatus = errorResponse.getStatus();
+      // should be some of 4xx status
+      if (errorStatus < 500)
+      {
+         // Warn about error in debug mode only.
+         if (LOG.isDebugEnabled() && e.getCause() != null)
+         {
+            LOG.warn("WebApplication exception occurs.", e.getCause());
+         }
+      }
+      else
+      {
+         if (e.getCause() != null)
+         {
+            LOG.warn("WebApplication exception occurs.", e.getCause());
+         }
+      }
+      if (errorResponse.getEntity() == null)
+      {
+         if (excmap != null)
+         {
+            errorResponse = excmap.toResponse(e);
+         }
+         else
+         {
+            if (e.getMessage() != null)
+            {
+               errorResponse = createErrorResponse(errorStatus, e.getMessage());
+            }
+         }
+      }
+      response.setResponse(errorResponse);
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private void handleInternalException(InternalException e, ApplicationContextImpl context,
+      GenericContainerResponse response)
+   {
+      Throwable cause = e.getCause();
+      Class causeClazz = cause.getClass();
+      ExceptionMapper excmap = context.getProviders().getExceptionMapper(causeClazz);
+      while (causeClazz != null && excmap == null)
+      {
+         excmap = context.getProviders().getExceptionMapper(causeClazz);
+         if (excmap == null)
+         {
+            causeClazz = causeClazz.getSuperclass();
+         }
+      }
+      if (excmap != null)
+      {
+         response.setResponse(excmap.toResponse(e.getCause()));
+      }
+      else
+      {
+         LOG.error("Internal error occurs.", cause);
+         throw new UnhandledException(e.getCause());
       }
    }
 
@@ -128,6 +128,9 @@ public class ResourceBinder implements Startable
          if (LOG.isDebugEnabled())
             LOG.debug("Start resource cleaner");
 
+         synchronized (rootResources)
+         {
+          boolean removed = false;
           for (Iterator<ObjectFactory<AbstractResourceDescriptor>> iter = rootResources.iterator(); iter.hasNext();)
           {
              ObjectFactory<AbstractResourceDescriptor> next = iter.next();
@@ -147,6 +150,7 @@ public class ResourceBinder implements Startable
              if (expirationDate > 0 && expirationDate < System.currentTimeMillis())
              {
                 iter.remove();
+                removed = true;
                 for (ResourceListener listener : resourceListeners)
                 {
                    listener.resourceRemoved(next.getObjectModel());
@@ -154,6 +158,9 @@ public class ResourceBinder implements Startable
                 if (LOG.isDebugEnabled())
                    LOG.debug("Remove expired resource: " + next.getObjectModel());
              }
+          }
+          if (removed)
+             rebuildIndex();
          }
       }
    }
@@ -175,6 +182,12 @@ public class ResourceBinder implements Startable
    protected final List<ObjectFactory<AbstractResourceDescriptor>> rootResources =
       Collections.synchronizedList(new ArrayList<ObjectFactory<AbstractResourceDescriptor>>());
 
+   /**
+    * Index of root resources used for matching requests. It is rebuilt each
+    * time when {@link #rootResources} is changed.
+    */
+   private volatile RootResourceIndex index = RootResourceIndex.EMPTY;
+
    /** Resource listeners. */
    protected final List<ResourceListener> resourceListeners = new ArrayList<ResourceListener>();
 
@@ -339,6 +352,8 @@ public class ResourceBinder implements Startable
    public void addResource(final ObjectFactory<AbstractResourceDescriptor> resourceFactory)
    {
       UriPattern pattern = resourceFactory.getObjectModel().getUriPattern();
+      synchronized (rootResources)
+      {
        for (ObjectFactory<AbstractResourceDescriptor> resource : rootResources)
        {
           if (resource.getObjectModel().getUriPattern().equals(resourceFactory.getObjectModel().getUriPattern()))
@@ -351,6 +366,8 @@ public class ResourceBinder implements Startable
        }
        rootResources.add(resourceFactory);
        Collections.sort(rootResources, RESOURCE_COMPARATOR);
+       rebuildIndex();
+      }
        for (ResourceListener listener : resourceListeners)
        {
           listener.resourceAdded(resourceFactory.getObjectModel());
@@ -423,7 +440,11 @@ public class ResourceBinder implements Startable
     */
    public void clear()
    {
-     rootResources.clear();
+      synchronized (rootResources)
+      {
+         rootResources.clear();
+         rebuildIndex();
+      }
    }
 
    /**
@@ -436,7 +457,7 @@ public class ResourceBinder implements Startable
     */
    public ObjectFactory<AbstractResourceDescriptor> getMatchedResource(String requestPath, List<String> parameterValues) {
     ObjectFactory<AbstractResourceDescriptor> resourceFactory = null;
-    for (ObjectFactory<AbstractResourceDescriptor> resource : rootResources) {
+    for (ObjectFactory<AbstractResourceDescriptor> resource : index.getCandidates(requestPath)) {
       if (resource.getObjectModel().getUriPattern().match(requestPath, parameterValues)) {
         // all times will at least 1
         int len = parameterValues.size();
@@ -459,7 +480,9 @@ public class ResourceBinder implements Startable
   }
 
    /**
-    * @return all registered root resources
+    * @return all registered root resources. Returned list must not be updated
+    *         directly, use {@link #addResource(ObjectFactory)} and
+    *         {@link #removeResource(Class)} instead
     */
    public List<ObjectFactory<AbstractResourceDescriptor>> getResources()
    {
@@ -499,6 +522,8 @@ public class ResourceBinder implements Startable
    public ObjectFactory<AbstractResourceDescriptor> removeResource(Class clazz)
    {
       ObjectFactory<AbstractResourceDescriptor> resource = null;
+      synchronized (rootResources)
+      {
        for (Iterator<ObjectFactory<AbstractResourceDescriptor>> iter = rootResources.iterator(); iter.hasNext()
           && resource == null;)
        {
@@ -510,6 +535,9 @@ public class ResourceBinder implements Startable
              resource = next;
           }
        }
+       if (resource != null)
+          rebuildIndex();
+      }
        if (resource != null)
        {
           for (ResourceListener listener : resourceListeners)
@@ -534,6 +562,8 @@ public class ResourceBinder implements Startable
    {
       ObjectFactory<AbstractResourceDescriptor> resource = null;
       UriPattern pattern = new UriPattern(path);
+      synchronized (rootResources)
+      {
        for (Iterator<ObjectFactory<AbstractResourceDescriptor>> iter = rootResources.iterator(); iter.hasNext()
           && resource == null;)
        {
@@ -545,6 +575,9 @@ public class ResourceBinder implements Startable
              resource = next;
           }
        }
+       if (resource != null)
+          rebuildIndex();
+      }
        if (resource != null)
        {
           for (ResourceListener listener : resourceListeners)
@@ -583,6 +616,16 @@ public class ResourceBinder implements Startable
       return null != removeResource(path);
    }
 
+   /**
+    * Rebuild index of root resources. Must be called after each change of
+    * {@link #rootResources} while holding its lock. Requests which are in
+    * progress continue to use previous index.
+    */
+   protected void rebuildIndex()
+   {
+      index = new RootResourceIndex(rootResources);
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -0,0 +1,215 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.ObjectFactory;
+import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
+import org.exoplatform.services.rest.uri.UriPattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable segment trie over root resources. Each resource is placed in the
+ * node reached by the literal path segments of its {@link UriPattern} (all
+ * segments before the first template variable). Lookup walks the request path
+ * through the trie and collects resources from each visited node, so regular
+ * expression matching is performed only for resources which literal prefix
+ * matches the request path. Candidates are always returned in the order of
+ * the source list, i.e. in order defined by
+ * {@link UriPattern#URIPATTERN_COMPARATOR}.
+ * <p>
+ * Instance is never modified after creation. {@link ResourceBinder} creates
+ * new one each time when set of root resources is changed.
+ * </p>
+ *
+ * @version $Id: $
+ */
+final class RootResourceIndex
+{
+
+   /** Empty index. */
+   static final RootResourceIndex EMPTY =
+      new RootResourceIndex(Collections.<ObjectFactory<AbstractResourceDescriptor>> emptyList());
+
+   /**
+    * Characters which may have special meaning in regular expression built by
+    * {@link org.exoplatform.services.rest.uri.UriTemplateParser} even if they
+    * are part of literal characters of template. Segments which contain any of
+    * them are never used as keys of trie.
+    */
+   private static final String REGEX_CHARACTERS = "\\[]*+^$|{}";
+
+   private static final class Node
+   {
+      private final Map<String, Node> children = new HashMap<String, Node>();
+
+      /** Positions of resources in sorted list of resources. */
+      private int[] positions = new int[0];
+
+      private Node child(String segment)
+      {
+         Node node = children.get(segment);
+         if (node == null)
+         {
+            node = new Node();
+            children.put(segment, node);
+         }
+         return node;
+      }
+
+      private void add(int position)
+      {
+         int[] tmp = new int[positions.length + 1];
+         System.arraycopy(positions, 0, tmp, 0, positions.length);
+         tmp[positions.length] = position;
+         positions = tmp;
+      }
+   }
+
+   /** Root resources sorted by {@link UriPattern#URIPATTERN_COMPARATOR}. */
+   private final ObjectFactory<AbstractResourceDescriptor>[] resources;
+
+   private final Node root = new Node();
+
+   /**
+    * @param sorted root resources sorted by
+    *        {@link UriPattern#URIPATTERN_COMPARATOR}
+    */
+   @SuppressWarnings("unchecked")
+   RootResourceIndex(List<ObjectFactory<AbstractResourceDescriptor>> sorted)
+   {
+      resources = sorted.toArray(new ObjectFactory[sorted.size()]);
+      for (int i = 0; i < resources.length; i++)
+      {
+         UriPattern pattern = resources[i].getObjectModel().getUriPattern();
+         Node node = root;
+         for (String segment : getLiteralSegments(pattern))
+         {
+            node = node.child(segment);
+         }
+         node.add(i);
+      }
+   }
+
+   /**
+    * Get root resources which may be matched to <code>requestPath</code>.
+    * Resources which are not returned by this method never match to the
+    * <code>requestPath</code>. Caller still should check each resource with
+    * {@link UriPattern#match(String, List)}.
+    *
+    * @param requestPath request path
+    * @return candidates in order of {@link UriPattern#URIPATTERN_COMPARATOR}
+    */
+   List<ObjectFactory<AbstractResourceDescriptor>> getCandidates(String requestPath)
+   {
+      if (resources.length == 0)
+         return Collections.emptyList();
+
+      List<int[]> found = new ArrayList<int[]>();
+      int total = 0;
+      Node node = root;
+      int p = 1;
+      int length = requestPath == null ? 0 : requestPath.length();
+      boolean walk = length > 0 && requestPath.charAt(0) == '/';
+      while (node != null)
+      {
+         if (node.positions.length > 0)
+         {
+            found.add(node.positions);
+            total += node.positions.length;
+         }
+         if (!walk || p > length || node.children.isEmpty())
+            break;
+         int end = requestPath.indexOf('/', p);
+         if (end < 0)
+            end = length;
+         node = node.children.get(requestPath.substring(p, end));
+         p = end + 1;
+      }
+
+      List<ObjectFactory<AbstractResourceDescriptor>> candidates =
+         new ArrayList<ObjectFactory<AbstractResourceDescriptor>>(total);
+      if (found.size() == 1)
+      {
+         for (int i : found.get(0))
+            candidates.add(resources[i]);
+         return candidates;
+      }
+      // Merge sorted positions from all visited nodes.
+      int[] cursors = new int[found.size()];
+      for (int n = 0; n < total; n++)
+      {
+         int min = -1;
+         for (int k = 0; k < cursors.length; k++)
+         {
+            int[] positions = found.get(k);
+            if (cursors[k] < positions.length && (min == -1 || positions[cursors[k]] < found.get(min)[cursors[min]]))
+               min = k;
+         }
+         candidates.add(resources[found.get(min)[cursors[min]++]]);
+      }
+      return candidates;
+   }
+
+   /**
+    * Get complete literal segments of pattern. Partial segment, e.g. 'b' for
+    * template '/a/b{c}', is not included.
+    *
+    * @param pattern URI pattern
+    * @return literal segments
+    */
+   private static List<String> getLiteralSegments(UriPattern pattern)
+   {
+      String prefix = pattern.getLiteralPrefix();
+      List<String> segments = new ArrayList<String>();
+      if (prefix == null || prefix.length() == 0 || prefix.charAt(0) != '/')
+         return segments;
+      // If template has not variables then end of template is end of segment.
+      boolean whole = pattern.getParameterNames().isEmpty();
+      int p = 1;
+      while (p < prefix.length())
+      {
+         int end = prefix.indexOf('/', p);
+         if (end < 0)
+         {
+            if (!whole)
+               break;
+            end = prefix.length();
+         }
+         String segment = prefix.substring(p, end);
+         if (segment.length() == 0 || hasRegexCharacters(segment))
+            break;
+         segments.add(segment);
+         p = end + 1;
+      }
+      return segments;
+   }
+
+   private static boolean hasRegexCharacters(String segment)
+   {
+      for (int i = 0; i < segment.length(); i++)
+      {
+         if (REGEX_CHARACTERS.indexOf(segment.charAt(i)) != -1)
+            return true;
+      }
+      return false;
+   }
+}
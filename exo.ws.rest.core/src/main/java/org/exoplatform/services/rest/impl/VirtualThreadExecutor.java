@@ -0,0 +1,288 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.container.ExoContainer;
+import org.exoplatform.container.ExoContainerContext;
+import org.exoplatform.container.component.RequestLifeCycle;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.exoplatform.services.rest.ApplicationContext;
+import org.exoplatform.services.rest.AsyncContainerResponseWriter;
+import org.exoplatform.services.rest.GenericContainerResponse;
+import org.exoplatform.services.rest.RequestHandler;
+import org.exoplatform.services.rest.RunOnVirtualThread;
+import org.exoplatform.services.rest.method.MethodInvoker;
+import org.exoplatform.services.rest.resource.GenericMethodResource;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Executes resource methods on virtual threads, see
+ * {@link RunOnVirtualThread}. Virtual threads are created through reflection
+ * since they are not available in all supported versions of Java. If they are
+ * not available then resource methods are executed in thread which processes
+ * request.
+ * <p>
+ * Resource methods are executed on virtual threads only if connector is able
+ * to suspend request, see {@link AsyncContainerResponseWriter}. Otherwise
+ * thread which processes request waits for result anyway and method is
+ * executed in this thread.
+ * </p>
+ * <p>
+ * Context of request is propagated to virtual thread:
+ * {@link ApplicationContextImpl#getCurrent()},
+ * {@link EnvironmentContext#getCurrent()} and current container. Request life
+ * cycle of container components is started in virtual thread and ended when
+ * resource method returns. It is not started again if method is executed in
+ * thread which processes request, e.g. when executor is shut down.
+ * </p>
+ * <p>
+ * Locks on the request path (caches of providers, filters and content
+ * negotiation) are never held while thread is blocked so they do not pin
+ * carrier threads. Resource methods declared as <code>synchronized</code>
+ * hold the monitor while blocked and are executed in thread which processes
+ * request. Blocking inside <code>synchronized</code> block of method or of
+ * code called by method pins carrier thread too, such methods should be
+ * excluded with <code>&#64;RunOnVirtualThread(false)</code>.
+ * </p>
+ *
+ * @version $Id: $
+ */
+final class VirtualThreadExecutor
+{
+
+   private static final Log LOG = ExoLogger.getLogger("exo.ws.rest.core.VirtualThreadExecutor");
+
+   /** Executor which starts new virtual thread for each task or <code>null</code>. */
+   private static volatile Executor executor = createExecutor();
+
+   private VirtualThreadExecutor()
+   {
+   }
+
+   private static Executor createExecutor()
+   {
+      try
+      {
+         Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         return (Executor)factory.invoke(null);
+      }
+      catch (NoSuchMethodException e)
+      {
+         LOG.info("Virtual threads are not supported by Java runtime, resource methods are executed in request threads.");
+      }
+      catch (Exception e)
+      {
+         LOG.warn("Unable create executor of virtual threads. ", e);
+      }
+      return null;
+   }
+
+   /**
+    * @return <code>true</code> if virtual threads are supported by Java
+    *         runtime and <code>false</code> otherwise
+    */
+   static boolean isSupported()
+   {
+      return executor != null;
+   }
+
+   /**
+    * Replace executor of resource methods, e.g. in tests when virtual threads
+    * are not supported by Java runtime.
+    *
+    * @param newExecutor executor or <code>null</code> to execute resource
+    *        methods in thread which processes request
+    * @return previous executor
+    */
+   static Executor setExecutor(Executor newExecutor)
+   {
+      Executor previous = executor;
+      executor = newExecutor;
+      return previous;
+   }
+
+   /**
+    * Check is resource method should be executed on virtual thread.
+    *
+    * @param method resource method
+    * @param context See {@link ApplicationContext}
+    * @return <code>true</code> if method should be executed on virtual thread
+    */
+   static boolean isEnabled(GenericMethodResource method, ApplicationContext context)
+   {
+      if (executor == null || !isSuspendable(context))
+         return false;
+      Method m = method.getMethod();
+      RunOnVirtualThread annotation = m.getAnnotation(RunOnVirtualThread.class);
+      if (annotation == null)
+         annotation = m.getDeclaringClass().getAnnotation(RunOnVirtualThread.class);
+      if (annotation == null)
+         annotation = method.getParentResource().getObjectClass().getAnnotation(RunOnVirtualThread.class);
+      if (annotation != null ? !annotation.value()
+         : !"true".equalsIgnoreCase(context.getProperties().get(RequestHandler.WS_RS_VIRTUAL_THREADS)))
+         return false;
+      if (Modifier.isSynchronized(m.getModifiers()))
+      {
+         if (LOG.isDebugEnabled())
+            LOG.debug("Synchronized method " + m + " is not executed on virtual thread. ");
+         return false;
+      }
+      return true;
+   }
+
+   /**
+    * @param context See {@link ApplicationContext}
+    * @return <code>true</code> if connector of request is able to suspend it
+    */
+   private static boolean isSuspendable(ApplicationContext context)
+   {
+      GenericContainerResponse response = context.getContainerResponse();
+      return response instanceof ContainerResponse
+         && ((ContainerResponse)response).getContainerResponseWriter() instanceof AsyncContainerResponseWriter;
+   }
+
+   /**
+    * Invoke resource method on virtual thread.
+    *
+    * @param invoker method invoker
+    * @param resource instance of resource class
+    * @param method resource method
+    * @param context See {@link ApplicationContext}
+    * @return result of method. If method returns {@link CompletionStage} or
+    *         {@link Future} then result is completed with result of them
+    */
+   static CompletableFuture<Object> invoke(MethodInvoker invoker, Object resource, GenericMethodResource method,
+      ApplicationContext context)
+   {
+      return invoke(executor, invoker, resource, method, context);
+   }
+
+   /**
+    * Invoke resource method with specified executor.
+    *
+    * @param executor executor
+    * @param invoker method invoker
+    * @param resource instance of resource class
+    * @param method resource method
+    * @param context See {@link ApplicationContext}
+    * @return result of method
+    * @see #invoke(MethodInvoker, Object, GenericMethodResource, ApplicationContext)
+    */
+   static CompletableFuture<Object> invoke(Executor executor, final MethodInvoker invoker, final Object resource,
+      final GenericMethodResource method, final ApplicationContext context)
+   {
+      final CompletableFuture<Object> result = new CompletableFuture<Object>();
+      final EnvironmentContext env = EnvironmentContext.getCurrent();
+      final ExoContainer container = ExoContainerContext.getCurrentContainerIfPresent();
+      final Thread requestThread = Thread.currentThread();
+      Runnable task = new Runnable()
+      {
+         public void run()
+         {
+            // Normally task is run in new virtual thread, but previous
+            // context is restored anyway, see below. Request life cycle is
+            // already started in thread which processes request.
+            boolean beginRequest = container != null && Thread.currentThread() != requestThread;
+            ApplicationContext previousContext = ApplicationContextImpl.getCurrent();
+            EnvironmentContext previousEnv = EnvironmentContext.getCurrent();
+            ExoContainer previousContainer = ExoContainerContext.getCurrentContainerIfPresent();
+            ApplicationContextImpl.setCurrent(context);
+            EnvironmentContext.setCurrent(env);
+            if (beginRequest)
+            {
+               ExoContainerContext.setCurrentContainer(container);
+               RequestLifeCycle.begin(container);
+            }
+            try
+            {
+               Object o = invoker.invokeMethod(resource, method, context);
+               if (o instanceof CompletionStage)
+               {
+                  ((CompletionStage<?>)o).whenComplete(new BiConsumer<Object, Throwable>()
+                  {
+                     public void accept(Object value, Throwable failure)
+                     {
+                        if (failure != null)
+                           result.completeExceptionally(failure);
+                        else
+                           result.complete(value);
+                     }
+                  });
+               }
+               else if (o instanceof Future)
+               {
+                  try
+                  {
+                     result.complete(((Future<?>)o).get());
+                  }
+                  catch (ExecutionException e)
+                  {
+                     result.completeExceptionally(e.getCause());
+                  }
+               }
+               else
+               {
+                  result.complete(o);
+               }
+            }
+            catch (Throwable e)
+            {
+               result.completeExceptionally(e);
+            }
+            finally
+            {
+               if (beginRequest)
+               {
+                  Map<Object, Throwable> results = RequestLifeCycle.end();
+                  for (Entry<Object, Throwable> entry : results.entrySet())
+                  {
+                     if (entry.getValue() != null)
+                        LOG.error("An error occurred while calling the method endRequest on " + entry.getKey(),
+                           entry.getValue());
+                  }
+                  ExoContainerContext.setCurrentContainer(previousContainer);
+               }
+               EnvironmentContext.setCurrent(previousEnv);
+               ApplicationContextImpl.setCurrent(previousContext);
+            }
+         }
+      };
+      try
+      {
+         executor.execute(task);
+      }
+      catch (RejectedExecutionException e)
+      {
+         // Executor is shut down, e.g. on JVM exit. Execute method in
+         // current thread.
+         task.run();
+      }
+      return result;
+   }
+}
@@ -37,6 +37,7 @@ import java.util.regex.Pattern;
 
 import javax.ws.rs.core.Cookie;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.ext.RuntimeDelegate;
@@ -154,7 +155,7 @@ public final class HeaderHelper
       if (header == null || header.length() == 0)
          return ACCEPT_ALL_MEDIA_TYPE;
 
-      return LIST_MEDIA_TYPE_PRODUCER.createQualitySortedList(header);
+      return ACCEPT_MEDIA_TYPE_CACHE.get(header);
    }
 
    /**
@@ -188,7 +189,7 @@ public final class HeaderHelper
       if (header == null || header.length() == 0)
          return ACCEPT_ALL_LANGUAGE;
 
-      return LIST_LANGUAGE_PRODUCER.createQualitySortedList(header);
+      return ACCEPT_LANGUAGE_CACHE.get(header);
    }
 
    /**
@@ -242,7 +243,7 @@ public final class HeaderHelper
       if (header == null || header.length() == 0)
          return ACCEPT_ALL_TOKENS;
 
-      return LIST_TOKEN_PRODUCER.createQualitySortedList(header);
+      return ACCEPT_TOKEN_CACHE.get(header);
    }
 
    /**
@@ -256,7 +257,117 @@ public final class HeaderHelper
       if (header == null || header.length() == 0)
          return ACCEPT_ALL_TOKENS;
 
-      return LIST_TOKEN_PRODUCER.createQualitySortedList(header);
+      return ACCEPT_TOKEN_CACHE.get(header);
+   }
+
+   // cache of parsed headers
+
+   /**
+    * Parsed 'accept' headers.
+    */
+   private static final HeaderValueCache<List<AcceptMediaType>> ACCEPT_MEDIA_TYPE_CACHE =
+      new HeaderValueCache<List<AcceptMediaType>>()
+      {
+         @Override
+         protected List<AcceptMediaType> parse(String header)
+         {
+            return Collections.unmodifiableList(LIST_MEDIA_TYPE_PRODUCER.createQualitySortedList(header));
+         }
+      };
+
+   /**
+    * Parsed 'accept-language' headers.
+    */
+   private static final HeaderValueCache<List<AcceptLanguage>> ACCEPT_LANGUAGE_CACHE =
+      new HeaderValueCache<List<AcceptLanguage>>()
+      {
+         @Override
+         protected List<AcceptLanguage> parse(String header)
+         {
+            return Collections.unmodifiableList(LIST_LANGUAGE_PRODUCER.createQualitySortedList(header));
+         }
+      };
+
+   /**
+    * Parsed 'accept-charset' and 'accept-encoding' headers. Both are parsed in
+    * the same way.
+    */
+   private static final HeaderValueCache<List<AcceptToken>> ACCEPT_TOKEN_CACHE =
+      new HeaderValueCache<List<AcceptToken>>()
+      {
+         @Override
+         protected List<AcceptToken> parse(String header)
+         {
+            return Collections.unmodifiableList(LIST_TOKEN_PRODUCER.createQualitySortedList(header));
+         }
+      };
+
+   /**
+    * Parsed 'content-type' headers.
+    */
+   private static final HeaderValueCache<MediaType> MEDIA_TYPE_CACHE = new HeaderValueCache<MediaType>()
+   {
+      @Override
+      protected MediaType parse(String header)
+      {
+         return MediaType.valueOf(header);
+      }
+
+      /**
+       * Boundary of multipart content is unique for each request, such
+       * headers are not cached.
+       */
+      @Override
+      protected boolean isCacheable(String header)
+      {
+         return super.isCacheable(header) && !header.contains("boundary=");
+      }
+   };
+
+   /**
+    * Create media type from 'content-type' header.
+    *
+    * @param header source header string
+    * @return MediaType or <code>null</code> if header is <code>null</code>
+    */
+   public static MediaType createMediaType(String header)
+   {
+      if (header == null)
+         return null;
+
+      return MEDIA_TYPE_CACHE.get(header);
+   }
+
+   /**
+    * @return cache of parsed 'accept' headers
+    */
+   public static HeaderValueCache<List<AcceptMediaType>> getAcceptMediaTypeCache()
+   {
+      return ACCEPT_MEDIA_TYPE_CACHE;
+   }
+
+   /**
+    * @return cache of parsed 'accept-language' headers
+    */
+   public static HeaderValueCache<List<AcceptLanguage>> getAcceptLanguageCache()
+   {
+      return ACCEPT_LANGUAGE_CACHE;
+   }
+
+   /**
+    * @return cache of parsed 'accept-charset' and 'accept-encoding' headers
+    */
+   public static HeaderValueCache<List<AcceptToken>> getAcceptTokenCache()
+   {
+      return ACCEPT_TOKEN_CACHE;
+   }
+
+   /**
+    * @return cache of parsed 'content-type' headers
+    */
+   public static HeaderValueCache<MediaType> getMediaTypeCache()
+   {
+      return MEDIA_TYPE_CACHE;
    }
 
    // cookie
@@ -0,0 +1,158 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.header;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of parsed header values. Number of distinct values of headers such as
+ * 'accept' or 'content-type' is small in real traffic, so there is no need to
+ * parse the same string for each request. Parsed values MUST be immutable
+ * since they are shared between requests.
+ * <p>
+ * Cache is dropped when it reaches <code>maxSize</code>. Strings longer then
+ * <code>maxLength</code> are parsed but never cached, see
+ * {@link #isCacheable(String)}. Header values are controlled by clients and
+ * cache must not grow because of them.
+ * </p>
+ *
+ * @param <T> type of parsed value
+ * @version $Id: $
+ */
+public abstract class HeaderValueCache<T>
+{
+
+   /** Default max number of cached values. */
+   public static final int DEFAULT_MAX_SIZE = 256;
+
+   /** Default max length of header which may be cached. */
+   public static final int DEFAULT_MAX_LENGTH = 1024;
+
+   private final int maxSize;
+
+   private final int maxLength;
+
+   private final ConcurrentMap<String, T> values = new ConcurrentHashMap<String, T>();
+
+   private final AtomicLong hits = new AtomicLong();
+
+   private final AtomicLong misses = new AtomicLong();
+
+   /**
+    * @param maxSize max number of cached values
+    * @param maxLength max length of header which may be cached
+    */
+   public HeaderValueCache(int maxSize, int maxLength)
+   {
+      if (maxSize < 1)
+         throw new IllegalArgumentException("Cache size may not be less then 1. ");
+      this.maxSize = maxSize;
+      this.maxLength = maxLength;
+   }
+
+   public HeaderValueCache()
+   {
+      this(DEFAULT_MAX_SIZE, DEFAULT_MAX_LENGTH);
+   }
+
+   /**
+    * Parse header.
+    *
+    * @param header source header string, never <code>null</code>
+    * @return parsed value, it must be immutable
+    */
+   protected abstract T parse(String header);
+
+   /**
+    * Check is parsed value of header may be cached.
+    *
+    * @param header source header string
+    * @return <code>true</code> if value may be cached and <code>false</code>
+    *         otherwise
+    */
+   protected boolean isCacheable(String header)
+   {
+      return header.length() <= maxLength;
+   }
+
+   /**
+    * Get parsed value of header. Header is parsed if it is not cached yet.
+    *
+    * @param header source header string
+    * @return parsed value
+    */
+   public T get(String header)
+   {
+      T value = values.get(header);
+      if (value != null)
+      {
+         hits.incrementAndGet();
+         return value;
+      }
+      misses.incrementAndGet();
+      value = parse(header);
+      if (isCacheable(header))
+      {
+         if (values.size() >= maxSize)
+            values.clear();
+         values.put(header, value);
+      }
+      return value;
+   }
+
+   /**
+    * Remove all cached values. Hit and miss counters are not reset.
+    */
+   public void clear()
+   {
+      values.clear();
+   }
+
+   /**
+    * @return number of values found in cache
+    */
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+
+   /**
+    * @return number of parsed values
+    */
+   public long getMissCount()
+   {
+      return misses.get();
+   }
+
+   /**
+    * @return number of cached values
+    */
+   public int size()
+   {
+      return values.size();
+   }
+
+   /**
+    * @return max number of cached values
+    */
+   public int getMaxSize()
+   {
+      return maxSize;
+   }
+}
@@ -78,7 +78,12 @@ public class DefaultMethodInvoker implements MethodInvoker
          Annotation a = mp.getAnnotation();
          if (a != null)
          {
-            ParameterResolver<?> pr = ParameterResolverFactory.createParameterResolver(a);
+            // Resolver is prepared when resource descriptor is created.
+            ParameterResolver<?> pr = null;
+            if (mp instanceof MethodParameterImpl)
+               pr = ((MethodParameterImpl)mp).getParameterResolver();
+            if (pr == null)
+               pr = ParameterResolverFactory.createParameterResolver(a);
             try
             {
                p[i++] = pr.resolve(mp, context);
@@ -50,12 +50,29 @@ public class FormParameterResolver extends ParameterResolver<FormParam>
     */
    private final FormParam formParam;
 
+   /**
+    * Producer of parameter value. May be <code>null</code>, in this case it
+    * is created for each call of {@link #resolve}.
+    */
+   private final TypeProducer typeProducer;
+
    /**
     * @param formParam FormParam
     */
    FormParameterResolver(FormParam formParam)
+   {
+      this(formParam, null);
+   }
+
+   /**
+    * @param formParam FormParam
+    * @param typeProducer producer of parameter value created for parameter
+    *        once
+    */
+   FormParameterResolver(FormParam formParam, TypeProducer typeProducer)
    {
       this.formParam = formParam;
+      this.typeProducer = typeProducer;
    }
 
    /**
@@ -67,8 +84,9 @@ public class FormParameterResolver extends ParameterResolver<FormParam>
       throws Exception
    {
       String param = this.formParam.value();
-      TypeProducer typeProducer =
-         ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
+      TypeProducer typeProducer = this.typeProducer;
+      if (typeProducer == null)
+         typeProducer = ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
 
       MediaType conetentType = context.getHttpHeaders().getMediaType();
       MessageBodyReader reader =
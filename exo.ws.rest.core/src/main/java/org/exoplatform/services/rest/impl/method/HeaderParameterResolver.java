@@ -33,12 +33,29 @@ public class HeaderParameterResolver extends ParameterResolver<HeaderParam>
     */
    private final HeaderParam headerParam;
 
+   /**
+    * Producer of parameter value. May be <code>null</code>, in this case it
+    * is created for each call of {@link #resolve}.
+    */
+   private final TypeProducer typeProducer;
+
    /**
     * @param headerParam HeaderParam
     */
    HeaderParameterResolver(HeaderParam headerParam)
+   {
+      this(headerParam, null);
+   }
+
+   /**
+    * @param headerParam HeaderParam
+    * @param typeProducer producer of parameter value created for parameter
+    *        once
+    */
+   HeaderParameterResolver(HeaderParam headerParam, TypeProducer typeProducer)
    {
       this.headerParam = headerParam;
+      this.typeProducer = typeProducer;
    }
 
    /**
@@ -49,8 +66,9 @@ public class HeaderParameterResolver extends ParameterResolver<HeaderParam>
       throws Exception
    {
       String param = this.headerParam.value();
-      TypeProducer typeProducer =
-         ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
+      TypeProducer typeProducer = this.typeProducer;
+      if (typeProducer == null)
+         typeProducer = ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
       return typeProducer.createValue(param, context.getHttpHeaders().getRequestHeaders(), parameter.getDefaultValue());
    }
 
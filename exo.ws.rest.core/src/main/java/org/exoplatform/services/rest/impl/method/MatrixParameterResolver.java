@@ -36,12 +36,29 @@ public class MatrixParameterResolver extends ParameterResolver<MatrixParam>
     */
    private final MatrixParam matrixParam;
 
+   /**
+    * Producer of parameter value. May be <code>null</code>, in this case it
+    * is created for each call of {@link #resolve}.
+    */
+   private final TypeProducer typeProducer;
+
    /**
     * @param matrixParam MatrixParam
     */
    MatrixParameterResolver(MatrixParam matrixParam)
+   {
+      this(matrixParam, null);
+   }
+
+   /**
+    * @param matrixParam MatrixParam
+    * @param typeProducer producer of parameter value created for parameter
+    *        once
+    */
+   MatrixParameterResolver(MatrixParam matrixParam, TypeProducer typeProducer)
    {
       this.matrixParam = matrixParam;
+      this.typeProducer = typeProducer;
    }
 
    /**
@@ -52,8 +69,9 @@ public class MatrixParameterResolver extends ParameterResolver<MatrixParam>
       throws Exception
    {
       String param = matrixParam.value();
-      TypeProducer typeProducer =
-         ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
+      TypeProducer typeProducer = this.typeProducer;
+      if (typeProducer == null)
+         typeProducer = ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
       List<PathSegment> pathSegments = context.getUriInfo().getPathSegments(!parameter.isEncoded());
 
       PathSegment pathSegment = pathSegments.get(pathSegments.size() - 1);
@@ -0,0 +1,179 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.method;
+
+import org.exoplatform.commons.utils.SecurityHelper;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.exoplatform.services.rest.impl.InternalException;
+import org.exoplatform.services.rest.resource.GenericMethodResource;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.PrivilegedAction;
+
+import javax.ws.rs.WebApplicationException;
+
+/**
+ * Invoker for Resource Method, Sub-Resource Method and SubResource Locator
+ * which uses {@link MethodHandle} instead of reflection. Handle is created
+ * once when invoker is bound to method, see {@link #bind(Method)}. Parameters
+ * of method are resolved in the same way as it does
+ * {@link DefaultMethodInvoker}. Exceptions thrown by method are processed in
+ * the same way as {@link DefaultMethodInvoker} processes
+ * {@link java.lang.reflect.InvocationTargetException}:
+ * {@link WebApplicationException} is rethrown as is, any other is wrapped in
+ * {@link InternalException}.
+ * <p>
+ * If handle can't be created for method, e.g. because to access restrictions,
+ * then invoker falls back to {@link DefaultMethodInvoker} behavior.
+ * </p>
+ *
+ * @see MethodHandleMethodInvokerFactory
+ * @version $Id: $
+ */
+public class MethodHandleMethodInvoker extends DefaultMethodInvoker
+{
+
+   /** Logger. */
+   private static final Log LOG = ExoLogger.getLogger("exo.ws.rest.core.MethodHandleMethodInvoker");
+
+   /** Method and handle created for it. */
+   private static final class Binding
+   {
+      private final Method method;
+
+      /** Handle of type (Object, Object[])Object or <code>null</code>. */
+      private final MethodHandle handle;
+
+      private Binding(Method method, MethodHandle handle)
+      {
+         this.method = method;
+         this.handle = handle;
+      }
+   }
+
+   private volatile Binding binding;
+
+   /**
+    * Bind invoker to supplied method. Typically it is done once when resource
+    * is published. If invoker is used for other method it is bound again.
+    *
+    * @param method resource method, sub-resource method or sub-resource locator
+    */
+   public void bind(Method method)
+   {
+      binding = new Binding(method, createHandle(method));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   protected Object invokeMethod(Object resource, GenericMethodResource methodResource, Object[] p)
+   {
+      Method method = methodResource.getMethod();
+      Binding b = binding;
+      if (b == null || b.method != method)
+      {
+         bind(method);
+         b = binding;
+      }
+      if (b.handle == null)
+      {
+         return super.invokeMethod(resource, methodResource, p);
+      }
+      try
+      {
+         return (Object)b.handle.invokeExact(resource, p);
+      }
+      catch (WebApplicationException e)
+      {
+         if (LOG.isDebugEnabled())
+         {
+            LOG.debug(e.getLocalizedMessage(), e);
+         }
+         // if WebApplicationException than it may contain response
+         if (WebApplicationException.class == e.getClass())
+         {
+            throw e;
+         }
+         throw new InternalException(e);
+      }
+      catch (Throwable e)
+      {
+         if (LOG.isDebugEnabled())
+         {
+            LOG.debug(e.getLocalizedMessage(), e);
+         }
+         throw new InternalException(e);
+      }
+   }
+
+   /**
+    * Create handle of type (Object, Object[])Object for supplied method.
+    *
+    * @param method method
+    * @return handle or <code>null</code> if it can't be created
+    */
+   private static MethodHandle createHandle(final Method method)
+   {
+      MethodHandle handle;
+      try
+      {
+         handle = unreflect(method);
+      }
+      catch (IllegalAccessException e)
+      {
+         try
+         {
+            SecurityHelper.doPrivilegedAction(new PrivilegedAction<Void>()
+            {
+               public Void run()
+               {
+                  method.setAccessible(true);
+                  return null;
+               }
+            });
+            handle = unreflect(method);
+         }
+         catch (Exception e1)
+         {
+            if (LOG.isDebugEnabled())
+            {
+               LOG.debug("Unable create method handle for " + method + ". Reflection will be used. ", e1);
+            }
+            return null;
+         }
+      }
+      if (Modifier.isStatic(method.getModifiers()))
+      {
+         handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      int parameters = method.getParameterTypes().length;
+      return handle.asType(MethodType.genericMethodType(parameters + 1)).asSpreader(Object[].class, parameters);
+   }
+
+   private static MethodHandle unreflect(Method method) throws IllegalAccessException
+   {
+      return MethodHandles.lookup().unreflect(method);
+   }
+
+}
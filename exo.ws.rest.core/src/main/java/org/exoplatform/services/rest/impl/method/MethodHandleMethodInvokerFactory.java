@@ -0,0 +1,41 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.method;
+
+import org.exoplatform.services.rest.method.MethodInvoker;
+
+/**
+ * Produces {@link MethodHandleMethodInvoker}. New invoker is created for each
+ * method of resource so each invoker keeps handle for one method only. To use
+ * it register this class as component of container, it will be injected in
+ * {@link org.exoplatform.services.rest.impl.ResourceBinder} and
+ * {@link org.exoplatform.services.rest.impl.RequestDispatcher}.
+ *
+ * @version $Id$
+ */
+public class MethodHandleMethodInvokerFactory implements MethodInvokerFactory
+{
+
+   /**
+    * {@inheritDoc}
+    */
+   public MethodInvoker getMethodInvoker()
+   {
+      return new MethodHandleMethodInvoker();
+   }
+
+}
@@ -61,6 +61,12 @@ public class MethodParameterImpl implements org.exoplatform.services.rest.method
     */
    private final boolean encoded;
 
+   /**
+    * Resolver for parameter with annotation. It is created once when resource
+    * descriptor is built. It is <code>null</code> for entity parameter.
+    */
+   private final ParameterResolver<?> resolver;
+
    /**
     * Constructs new instance of MethodParameter.
     * 
@@ -81,6 +87,7 @@ public class MethodParameterImpl implements org.exoplatform.services.rest.method
       this.type = type;
       this.defaultValue = defaultValue;
       this.encoded = encoded;
+      this.resolver = annotation != null ? ParameterResolverFactory.createParameterResolver(this) : null;
    }
 
    /**
@@ -131,6 +138,15 @@ public class MethodParameterImpl implements org.exoplatform.services.rest.method
       return clazz;
    }
 
+   /**
+    * @return resolver for parameter or <code>null</code> if parameter has not
+    *         JAX-RS annotation, e.g. it is entity parameter
+    */
+   public ParameterResolver<?> getParameterResolver()
+   {
+      return resolver;
+   }
+
    /**
     * {@inheritDoc}
     */
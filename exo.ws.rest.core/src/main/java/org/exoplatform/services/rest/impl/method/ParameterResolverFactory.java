@@ -26,7 +26,9 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 
+import org.exoplatform.services.rest.Parameter;
 import org.exoplatform.services.rest.Property;
+import org.exoplatform.services.rest.method.TypeProducer;
 
 /**
  * @author <a href="mailto:andrew00x@gmail.com">Andrey Parfonov</a>
@@ -71,4 +73,49 @@ public final class ParameterResolverFactory
       return null;
    }
 
+   /**
+    * Create parameter resolver for supplied parameter. Unlike
+    * {@link #createParameterResolver(Annotation)} the {@link TypeProducer}
+    * required for parameter is created once here and reused by resolver.
+    * 
+    * @param parameter parameter. Parameter must have one of JAX-RS annotation
+    * @return ParameterResolver
+    */
+   @SuppressWarnings("unchecked")
+   public static ParameterResolver createParameterResolver(Parameter parameter)
+   {
+      Annotation annotation = parameter.getAnnotation();
+      Class clazz = annotation.annotationType();
+      if (clazz == FormParam.class)
+         return new FormParameterResolver((FormParam)annotation, createTypeProducer(parameter));
+      if (clazz == HeaderParam.class)
+         return new HeaderParameterResolver((HeaderParam)annotation, createTypeProducer(parameter));
+      if (clazz == MatrixParam.class)
+         return new MatrixParameterResolver((MatrixParam)annotation, createTypeProducer(parameter));
+      if (clazz == PathParam.class)
+         return new PathParameterResolver((PathParam)annotation, createTypeProducer(parameter));
+      if (clazz == QueryParam.class)
+         return new QueryParameterResolver((QueryParam)annotation, createTypeProducer(parameter));
+      return createParameterResolver(annotation);
+   }
+
+   /**
+    * @param parameter parameter
+    * @return TypeProducer for parameter or <code>null</code> if it can't be
+    *         created. In last case resolver will try to create it again when
+    *         parameter is resolved and report about error in the same way as
+    *         it does for each request
+    */
+   private static TypeProducer createTypeProducer(Parameter parameter)
+   {
+      try
+      {
+         return ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
+      }
+      catch (RuntimeException e)
+      {
+         return null;
+      }
+   }
+
 }
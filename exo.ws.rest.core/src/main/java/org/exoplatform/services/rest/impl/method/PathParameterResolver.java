@@ -33,12 +33,29 @@ public class PathParameterResolver extends ParameterResolver<PathParam>
     */
    private final PathParam pathParam;
 
+   /**
+    * Producer of parameter value. May be <code>null</code>, in this case it
+    * is created for each call of {@link #resolve}.
+    */
+   private final TypeProducer typeProducer;
+
    /**
     * @param pathParam PathParam
     */
    PathParameterResolver(PathParam pathParam)
+   {
+      this(pathParam, null);
+   }
+
+   /**
+    * @param pathParam PathParam
+    * @param typeProducer producer of parameter value created for parameter
+    *        once
+    */
+   PathParameterResolver(PathParam pathParam, TypeProducer typeProducer)
    {
       this.pathParam = pathParam;
+      this.typeProducer = typeProducer;
    }
 
    /**
@@ -49,8 +66,9 @@ public class PathParameterResolver extends ParameterResolver<PathParam>
       throws Exception
    {
       String param = this.pathParam.value();
-      TypeProducer typeProducer =
-         ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
+      TypeProducer typeProducer = this.typeProducer;
+      if (typeProducer == null)
+         typeProducer = ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
       return typeProducer.createValue(param, context.getPathParameters(!parameter.isEncoded()), parameter
          .getDefaultValue());
    }
@@ -33,12 +33,29 @@ public class QueryParameterResolver extends ParameterResolver<QueryParam>
     */
    private final QueryParam queryParam;
 
+   /**
+    * Producer of parameter value. May be <code>null</code>, in this case it
+    * is created for each call of {@link #resolve}.
+    */
+   private final TypeProducer typeProducer;
+
    /**
     * @param queryParam QueryParam
     */
    QueryParameterResolver(QueryParam queryParam)
+   {
+      this(queryParam, null);
+   }
+
+   /**
+    * @param queryParam QueryParam
+    * @param typeProducer producer of parameter value created for parameter
+    *        once
+    */
+   QueryParameterResolver(QueryParam queryParam, TypeProducer typeProducer)
    {
       this.queryParam = queryParam;
+      this.typeProducer = typeProducer;
    }
 
    /**
@@ -49,8 +66,9 @@ public class QueryParameterResolver extends ParameterResolver<QueryParam>
       throws Exception
    {
       String param = this.queryParam.value();
-      TypeProducer typeProducer =
-         ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
+      TypeProducer typeProducer = this.typeProducer;
+      if (typeProducer == null)
+         typeProducer = ParameterHelper.createTypeProducer(parameter.getParameterClass(), parameter.getGenericType());
       return typeProducer.createValue(param, context.getQueryParameters(!parameter.isEncoded()), parameter
          .getDefaultValue());
    }
@@ -0,0 +1,209 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool of byte buffers. Buffers are grouped in size classes, size of each
+ * class is twice bigger then size of previous one, from <code>minSize</code>
+ * to <code>maxSize</code>. Each size class has fixed number of slots and
+ * threads start looking for free buffer from slot determined by thread
+ * identifier, so threads do not contend for the same slot in most cases.
+ * Total size of pooled buffers never exceeds <code>maxPooledBytes</code>,
+ * buffers which can't be pooled are left for garbage collector.
+ *
+ * @version $Id: $
+ */
+public class BufferPool
+{
+
+   private final int minSize;
+
+   private final int maxSize;
+
+   private final long maxPooledBytes;
+
+   /** Slots for buffers for each size class. */
+   private final AtomicReferenceArray<byte[]>[] slots;
+
+   private final AtomicLong pooledBytes = new AtomicLong();
+
+   private final AtomicLong acquired = new AtomicLong();
+
+   private final AtomicLong hits = new AtomicLong();
+
+   /**
+    * @param minSize size of the smallest buffer
+    * @param maxSize size of the biggest buffer
+    * @param maxPooledBytes max total size of all pooled buffers
+    */
+   @SuppressWarnings("unchecked")
+   public BufferPool(int minSize, int maxSize, long maxPooledBytes)
+   {
+      if (minSize < 1 || maxSize < minSize)
+         throw new IllegalArgumentException("Invalid buffer sizes, min: " + minSize + ", max: " + maxSize);
+      this.minSize = minSize;
+      this.maxSize = maxSize;
+      this.maxPooledBytes = maxPooledBytes;
+      int classes = 1;
+      for (long size = minSize; size < maxSize; size <<= 1)
+         classes++;
+      int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+      slots = new AtomicReferenceArray[classes];
+      for (int i = 0; i < classes; i++)
+      {
+         slots[i] = new AtomicReferenceArray<byte[]>(stripes);
+      }
+   }
+
+   /**
+    * Get buffer which size is at least <code>size</code> but not bigger then
+    * max size of buffer of this pool.
+    *
+    * @param size required size of buffer
+    * @return buffer
+    */
+   public byte[] acquire(int size)
+   {
+      acquired.incrementAndGet();
+      int sizeClass = getSizeClass(size);
+      AtomicReferenceArray<byte[]> s = slots[sizeClass];
+      int start = stripe(s.length());
+      for (int i = 0; i < s.length(); i++)
+      {
+         byte[] buffer = s.getAndSet((start + i) & (s.length() - 1), null);
+         if (buffer != null)
+         {
+            pooledBytes.addAndGet(-buffer.length);
+            hits.incrementAndGet();
+            return buffer;
+         }
+      }
+      return new byte[getSize(sizeClass)];
+   }
+
+   /**
+    * Return buffer to the pool. Buffer must be obtained with
+    * {@link #acquire(int)} of this pool.
+    *
+    * @param buffer buffer
+    */
+   public void release(byte[] buffer)
+   {
+      int sizeClass = getSizeClass(buffer.length);
+      if (getSize(sizeClass) != buffer.length)
+         return; // not from this pool
+      if (pooledBytes.addAndGet(buffer.length) > maxPooledBytes)
+      {
+         pooledBytes.addAndGet(-buffer.length);
+         return;
+      }
+      AtomicReferenceArray<byte[]> s = slots[sizeClass];
+      int start = stripe(s.length());
+      for (int i = 0; i < s.length(); i++)
+      {
+         if (s.compareAndSet((start + i) & (s.length() - 1), null, buffer))
+            return;
+      }
+      // All slots are busy.
+      pooledBytes.addAndGet(-buffer.length);
+   }
+
+   /**
+    * @return size of the smallest buffer
+    */
+   public int getMinBufferSize()
+   {
+      return minSize;
+   }
+
+   /**
+    * @return size of the biggest buffer
+    */
+   public int getMaxBufferSize()
+   {
+      return maxSize;
+   }
+
+   /**
+    * @return total size of buffers which are currently in pool
+    */
+   public long getPooledBytes()
+   {
+      return pooledBytes.get();
+   }
+
+   /**
+    * @return max total size of buffers in pool
+    */
+   public long getMaxPooledBytes()
+   {
+      return maxPooledBytes;
+   }
+
+   /**
+    * @return number of calls of {@link #acquire(int)}
+    */
+   public long getAcquireCount()
+   {
+      return acquired.get();
+   }
+
+   /**
+    * @return number of calls of {@link #acquire(int)} which got buffer from
+    *         pool
+    */
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+
+   /**
+    * @return part of calls of {@link #acquire(int)} which got buffer from
+    *         pool, or 0 if buffers were not requested yet
+    */
+   public double getHitRatio()
+   {
+      long a = acquired.get();
+      return a == 0 ? 0.0D : (double)hits.get() / a;
+   }
+
+   private int getSizeClass(int size)
+   {
+      int sizeClass = 0;
+      long s = minSize;
+      while (s < size && sizeClass < slots.length - 1)
+      {
+         s <<= 1;
+         sizeClass++;
+      }
+      return sizeClass;
+   }
+
+   private int getSize(int sizeClass)
+   {
+      return (int)Math.min((long)minSize << sizeClass, maxSize);
+   }
+
+   private static int stripe(int length)
+   {
+      long id = Thread.currentThread().getId();
+      return (int)(id ^ (id >>> 16)) & (length - 1);
+   }
+}
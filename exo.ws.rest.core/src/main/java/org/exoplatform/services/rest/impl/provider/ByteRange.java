@@ -0,0 +1,231 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Range of bytes of entity, see RFC 7233. Both positions are inclusive.
+ *
+ * @version $Id: $
+ */
+public final class ByteRange
+{
+
+   /**
+    * The only range unit supported by this implementation.
+    */
+   public static final String BYTES_UNIT = "bytes";
+
+   /**
+    * Max number of ranges in one request. Requests with more ranges are
+    * processed as requests for the whole entity.
+    */
+   static final int MAX_RANGES = 32;
+
+   private static final Comparator<ByteRange> FIRST_POSITION_COMPARATOR = new Comparator<ByteRange>()
+   {
+      public int compare(ByteRange o1, ByteRange o2)
+      {
+         return o1.first < o2.first ? -1 : o1.first == o2.first ? 0 : 1;
+      }
+   };
+
+   private final long first;
+
+   private final long last;
+
+   /**
+    * @param first position of the first byte
+    * @param last position of the last byte
+    */
+   public ByteRange(long first, long last)
+   {
+      if (first < 0 || last < first)
+         throw new IllegalArgumentException("Invalid range " + first + "-" + last);
+      this.first = first;
+      this.last = last;
+   }
+
+   /**
+    * @return position of the first byte
+    */
+   public long getFirst()
+   {
+      return first;
+   }
+
+   /**
+    * @return position of the last byte
+    */
+   public long getLast()
+   {
+      return last;
+   }
+
+   /**
+    * @return number of bytes in range
+    */
+   public long getLength()
+   {
+      return last - first + 1;
+   }
+
+   /**
+    * @param length length of entity
+    * @return value of <code>Content-Range</code> header for this range
+    */
+   public String toContentRange(long length)
+   {
+      return BYTES_UNIT + ' ' + first + '-' + last + '/' + length;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean equals(Object obj)
+   {
+      if (this == obj)
+         return true;
+      if (!(obj instanceof ByteRange))
+         return false;
+      ByteRange other = (ByteRange)obj;
+      return first == other.first && last == other.last;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int hashCode()
+   {
+      return (int)(first ^ (first >>> 32)) * 31 + (int)(last ^ (last >>> 32));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String toString()
+   {
+      return first + "-" + last;
+   }
+
+   /**
+    * Parse value of <code>Range</code> header. Ranges which overlap or
+    * adjacent to each other are coalesced, result is sorted by position of
+    * the first byte.
+    *
+    * @param header value of <code>Range</code> header
+    * @param length length of entity
+    * @return ranges which must be sent to client, empty list if none of
+    *         ranges is satisfiable or <code>null</code> if header is not
+    *         valid, uses unsupported unit or contains too many ranges, in this
+    *         case header must be ignored
+    */
+   public static List<ByteRange> parse(String header, long length)
+   {
+      if (header == null)
+         return null;
+      int eq = header.indexOf('=');
+      if (eq < 0 || !BYTES_UNIT.equalsIgnoreCase(header.substring(0, eq).trim()))
+         return null;
+
+      List<ByteRange> ranges = new ArrayList<ByteRange>();
+      int count = 0;
+      int p = eq + 1;
+      while (p <= header.length())
+      {
+         int end = header.indexOf(',', p);
+         if (end < 0)
+            end = header.length();
+         String spec = header.substring(p, end).trim();
+         p = end + 1;
+         if (spec.length() == 0)
+            continue; // empty list elements are allowed
+         if (++count > MAX_RANGES)
+            return null;
+
+         int dash = spec.indexOf('-');
+         if (dash < 0)
+            return null;
+         long first;
+         long last;
+         try
+         {
+            if (dash == 0)
+            {
+               // suffix range, e.g. '-500' is the last 500 bytes
+               long suffix = Long.parseLong(spec.substring(1));
+               if (suffix < 0)
+                  return null;
+               if (suffix == 0 || length == 0)
+                  continue;
+               first = Math.max(0, length - suffix);
+               last = length - 1;
+            }
+            else
+            {
+               first = Long.parseLong(spec.substring(0, dash));
+               last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+               if (first < 0 || last < first && dash != spec.length() - 1)
+                  return null;
+               if (first >= length)
+                  continue;
+               last = Math.min(last, length - 1);
+            }
+         }
+         catch (NumberFormatException e)
+         {
+            return null;
+         }
+         ranges.add(new ByteRange(first, last));
+      }
+      if (count == 0)
+         return null;
+      return coalesce(ranges);
+   }
+
+   private static List<ByteRange> coalesce(List<ByteRange> ranges)
+   {
+      if (ranges.size() < 2)
+         return ranges;
+      Collections.sort(ranges, FIRST_POSITION_COMPARATOR);
+      List<ByteRange> result = new ArrayList<ByteRange>(ranges.size());
+      ByteRange current = ranges.get(0);
+      for (int i = 1; i < ranges.size(); i++)
+      {
+         ByteRange next = ranges.get(i);
+         if (next.first <= current.last + 1)
+         {
+            if (next.last > current.last)
+               current = new ByteRange(current.first, next.last);
+         }
+         else
+         {
+            result.add(current);
+            current = next;
+         }
+      }
+      result.add(current);
+      return result;
+   }
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import org.exoplatform.services.rest.impl.header.AcceptToken;
+import org.exoplatform.services.rest.impl.header.HeaderHelper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Decorator of {@link MessageBodyWriter} which compresses entity with
+ * <code>gzip</code> or <code>deflate</code> content coding. Entity stream
+ * given to decorated writer is wrapped, so compression is streaming and
+ * works with any writer.
+ *
+ * @version $Id: $
+ */
+@SuppressWarnings("rawtypes")
+public final class CompressingEntityWriter implements MessageBodyWriter
+{
+
+   /**
+    * The gzip content coding.
+    */
+   public static final String GZIP = "gzip";
+
+   /**
+    * The deflate (zlib) content coding.
+    */
+   public static final String DEFLATE = "deflate";
+
+   /**
+    * Media types which content is compressed already. Compression of them is
+    * waste of CPU.
+    */
+   private static final Set<String> COMPRESSED_TYPES = new HashSet<String>(Arrays.asList("application/zip",
+      "application/gzip", "application/x-gzip", "application/x-compress", "application/x-compressed",
+      "application/x-bzip2", "application/x-xz", "application/x-7z-compressed", "application/x-rar-compressed",
+      "application/java-archive", "application/pdf", "application/octet-stream", "multipart/byteranges"));
+
+   /**
+    * Pool of deflaters shared by all responses.
+    */
+   private static final DeflaterPool DEFLATERS = new DeflaterPool(Integer.parseInt(System.getProperty(
+      "exo.ws.rest.compression.level", Integer.toString(Deflater.DEFAULT_COMPRESSION))), Integer.parseInt(System
+      .getProperty("exo.ws.rest.compression.pool.maxSize",
+         Integer.toString(Runtime.getRuntime().availableProcessors() * 2))));
+
+   private final MessageBodyWriter writer;
+
+   private final boolean gzip;
+
+   /**
+    * @param writer decorated writer
+    * @param encoding content coding, {@link #GZIP} or {@link #DEFLATE}
+    */
+   public CompressingEntityWriter(MessageBodyWriter writer, String encoding)
+   {
+      if (!GZIP.equals(encoding) && !DEFLATE.equals(encoding))
+         throw new IllegalArgumentException("Unsupported content coding " + encoding);
+      this.writer = writer;
+      this.gzip = GZIP.equals(encoding);
+   }
+
+   /**
+    * Size of compressed entity is unknown before it is written.
+    *
+    * @return -1 always
+    */
+   public long getSize(Object t, Class type, Type genericType, Annotation[] annotations, MediaType mediaType)
+   {
+      return -1;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @SuppressWarnings("unchecked")
+   public boolean isWriteable(Class type, Type genericType, Annotation[] annotations, MediaType mediaType)
+   {
+      return writer.isWriteable(type, genericType, annotations, mediaType);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @SuppressWarnings("unchecked")
+   public void writeTo(Object t, Class type, Type genericType, Annotation[] annotations, MediaType mediaType,
+      MultivaluedMap httpHeaders, OutputStream entityStream) throws IOException
+   {
+      CompressingOutputStream out = new CompressingOutputStream(entityStream, gzip, DEFLATERS);
+      try
+      {
+         writer.writeTo(t, type, genericType, annotations, mediaType, httpHeaders, out);
+         out.finish();
+      }
+      finally
+      {
+         out.release();
+      }
+   }
+
+   /**
+    * Select content coding for response.
+    *
+    * @param acceptEncoding value of <code>Accept-Encoding</code> header, may
+    *        be <code>null</code>
+    * @return {@link #GZIP}, {@link #DEFLATE} or <code>null</code> if client
+    *         does not accept any of them or does not send header at all
+    */
+   public static String negotiate(String acceptEncoding)
+   {
+      if (acceptEncoding == null || acceptEncoding.length() == 0)
+         return null;
+      List<AcceptToken> tokens = HeaderHelper.createAcceptedEncodingList(acceptEncoding);
+      float gzipQuality = getQuality(tokens, GZIP, "x-gzip");
+      float deflateQuality = getQuality(tokens, DEFLATE, null);
+      if (gzipQuality > 0 && gzipQuality >= deflateQuality)
+         return GZIP;
+      if (deflateQuality > 0)
+         return DEFLATE;
+      return null;
+   }
+
+   /**
+    * @param mediaType media type of entity
+    * @return <code>false</code> if content of given media type is compressed
+    *         already, e.g. images or archives, and <code>true</code> otherwise
+    */
+   public static boolean isCompressible(MediaType mediaType)
+   {
+      if (mediaType == null)
+         return false;
+      String type = mediaType.getType().toLowerCase();
+      String subtype = mediaType.getSubtype().toLowerCase();
+      if ("image".equals(type))
+         return subtype.endsWith("+xml") || "bmp".equals(subtype) || "x-icon".equals(subtype);
+      if ("video".equals(type) || "audio".equals(type))
+         return false;
+      return !COMPRESSED_TYPES.contains(type + '/' + subtype);
+   }
+
+   /**
+    * @return pool of deflaters, e.g. to check its statistic
+    */
+   public static DeflaterPool getDeflaterPool()
+   {
+      return DEFLATERS;
+   }
+
+   /**
+    * Get quality of content coding. Explicitly listed coding has priority over
+    * wildcard.
+    */
+   private static float getQuality(List<AcceptToken> tokens, String coding, String alias)
+   {
+      float wildcard = 0.0F;
+      for (AcceptToken token : tokens)
+      {
+         String t = token.getToken();
+         if (t.equals(coding) || t.equals(alias))
+            return token.getQvalue();
+         if ("*".equals(t))
+            wildcard = token.getQvalue();
+      }
+      return wildcard;
+   }
+}
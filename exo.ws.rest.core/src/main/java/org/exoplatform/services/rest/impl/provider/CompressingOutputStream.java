@@ -0,0 +1,146 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Output stream which compresses data in <code>gzip</code> or
+ * <code>deflate</code> (zlib) format with {@link Deflater} taken from
+ * {@link DeflaterPool}. Deflater is returned to pool when stream is finished
+ * or closed. Unlike {@link java.util.zip.GZIPOutputStream} this stream does
+ * not create own deflater.
+ *
+ * @version $Id: $
+ */
+final class CompressingOutputStream extends DeflaterOutputStream
+{
+
+   private static final byte[] GZIP_HEADER = new byte[]{0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0,
+      (byte)0xff};
+
+   private final DeflaterPool pool;
+
+   private final boolean gzip;
+
+   /** Checksum of uncompressed data, used for gzip only. */
+   private final CRC32 crc;
+
+   private boolean finished;
+
+   /**
+    * @param out underlying stream
+    * @param gzip if <code>true</code> then use gzip format otherwise zlib
+    * @param pool pool of deflaters
+    * @throws IOException if gzip header can't be written
+    */
+   CompressingOutputStream(OutputStream out, boolean gzip, DeflaterPool pool) throws IOException
+   {
+      super(out, pool.acquire(gzip), 8192);
+      this.pool = pool;
+      this.gzip = gzip;
+      if (gzip)
+      {
+         crc = new CRC32();
+         out.write(GZIP_HEADER);
+      }
+      else
+      {
+         crc = null;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException
+   {
+      if (finished)
+         throw new IOException("Stream is finished. ");
+      super.write(b, off, len);
+      if (crc != null)
+         crc.update(b, off, len);
+   }
+
+   /**
+    * Finish compression and return deflater to the pool. Underlying stream is
+    * not closed.
+    *
+    * @throws IOException if i/o error occurs
+    */
+   @Override
+   public void finish() throws IOException
+   {
+      if (finished)
+         return;
+      try
+      {
+         super.finish();
+         if (gzip)
+         {
+            writeInt((int)crc.getValue());
+            writeInt((int)def.getBytesRead());
+         }
+      }
+      finally
+      {
+         finished = true;
+         pool.release(def, gzip);
+      }
+   }
+
+   /**
+    * Return deflater to the pool if stream is not finished yet, e.g. because
+    * writing of entity failed. Nothing is written to underlying stream.
+    */
+   void release()
+   {
+      if (finished)
+         return;
+      finished = true;
+      pool.release(def, gzip);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void close() throws IOException
+   {
+      try
+      {
+         finish();
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   private void writeInt(int i) throws IOException
+   {
+      out.write(i & 0xff);
+      out.write((i >> 8) & 0xff);
+      out.write((i >> 16) & 0xff);
+      out.write((i >> 24) & 0xff);
+   }
+}
@@ -16,6 +16,7 @@
  */
 package org.exoplatform.services.rest.impl.provider;
 
+import org.exoplatform.commons.utils.PrivilegedFileHelper;
 import org.exoplatform.services.rest.ApplicationContext;
 import org.exoplatform.services.rest.RequestHandler;
 import org.exoplatform.services.rest.impl.ApplicationContextImpl;
@@ -29,6 +30,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
 
 import javax.activation.DataSource;
 import javax.activation.FileDataSource;
@@ -69,6 +71,8 @@ public class DataSourceEntityProvider implements EntityProvider<DataSource>
     */
    public long getSize(DataSource t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
    {
+      if (t instanceof FileDataSource)
+         return ((FileDataSource)t).getFile().length();
       return -1;
    }
 
@@ -86,6 +90,19 @@ public class DataSourceEntityProvider implements EntityProvider<DataSource>
    public void writeTo(DataSource t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
       MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException
    {
+      if (t instanceof FileDataSource)
+      {
+         FileChannel channel = PrivilegedFileHelper.fileInputStream(((FileDataSource)t).getFile()).getChannel();
+         try
+         {
+            IOHelper.transfer(channel, 0, channel.size(), entityStream);
+         }
+         finally
+         {
+            channel.close();
+         }
+         return;
+      }
       InputStream in = t.getInputStream();
       try
       {
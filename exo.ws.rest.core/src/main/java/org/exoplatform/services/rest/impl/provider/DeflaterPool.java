@@ -0,0 +1,117 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of {@link Deflater}s. Creation of deflater allocates about 256 KB of
+ * native memory which is released only by {@link Deflater#end()} or by
+ * finalization, so deflaters are reused instead of creating new one for each
+ * compressed response. Pool keeps separate deflaters for raw (used for gzip)
+ * and zlib (used for deflate) formats.
+ *
+ * @version $Id: $
+ */
+public final class DeflaterPool
+{
+
+   private final int level;
+
+   /** Deflaters which produce raw deflate data, without zlib header. */
+   private final BlockingQueue<Deflater> raw;
+
+   /** Deflaters which produce data in zlib format. */
+   private final BlockingQueue<Deflater> zlib;
+
+   private final AtomicLong acquired = new AtomicLong();
+
+   private final AtomicLong created = new AtomicLong();
+
+   /**
+    * @param level compression level, see {@link Deflater#setLevel(int)}
+    * @param maxSize max number of pooled deflaters of each format
+    */
+   public DeflaterPool(int level, int maxSize)
+   {
+      if (maxSize < 1)
+         throw new IllegalArgumentException("Pool size may not be less then 1. ");
+      this.level = level;
+      this.raw = new ArrayBlockingQueue<Deflater>(maxSize);
+      this.zlib = new ArrayBlockingQueue<Deflater>(maxSize);
+   }
+
+   /**
+    * Get deflater from pool or create new one if pool is empty.
+    *
+    * @param nowrap if <code>true</code> then deflater produces raw deflate
+    *        data, see {@link Deflater#Deflater(int, boolean)}
+    * @return deflater
+    */
+   public Deflater acquire(boolean nowrap)
+   {
+      acquired.incrementAndGet();
+      Deflater deflater = (nowrap ? raw : zlib).poll();
+      if (deflater == null)
+      {
+         created.incrementAndGet();
+         deflater = new Deflater(level, nowrap);
+      }
+      return deflater;
+   }
+
+   /**
+    * Return deflater to the pool. Deflater is reset, if pool is full then
+    * deflater is released.
+    *
+    * @param deflater deflater obtained with {@link #acquire(boolean)}
+    * @param nowrap must be the same as was used to get deflater
+    */
+   public void release(Deflater deflater, boolean nowrap)
+   {
+      deflater.reset();
+      if (!(nowrap ? raw : zlib).offer(deflater))
+         deflater.end();
+   }
+
+   /**
+    * @return number of calls of {@link #acquire(boolean)}
+    */
+   public long getAcquireCount()
+   {
+      return acquired.get();
+   }
+
+   /**
+    * @return number of deflaters created because pool was empty
+    */
+   public long getCreateCount()
+   {
+      return created.get();
+   }
+
+   /**
+    * @return number of deflaters currently in pool
+    */
+   public int size()
+   {
+      return raw.size() + zlib.size();
+   }
+}
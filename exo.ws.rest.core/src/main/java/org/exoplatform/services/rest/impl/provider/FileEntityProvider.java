@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -87,14 +88,14 @@ public class FileEntityProvider implements EntityProvider<File>
    public void writeTo(File t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
       MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException
    {
-      InputStream in = PrivilegedFileHelper.fileInputStream(t);
+      FileChannel channel = PrivilegedFileHelper.fileInputStream(t).getChannel();
       try
       {
-         IOHelper.write(in, entityStream);
+         IOHelper.transfer(channel, 0, channel.size(), entityStream);
       }
       finally
       {
-         in.close();
+         channel.close();
       }
    }
 
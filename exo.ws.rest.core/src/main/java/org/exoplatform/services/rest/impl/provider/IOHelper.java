@@ -17,12 +17,17 @@
 package org.exoplatform.services.rest.impl.provider;
 
 import java.io.IOException;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
@@ -44,6 +49,18 @@ public final class IOHelper
     */
    static final Charset DEFAULT_CHARSET = Charset.forName(DEFAULT_CHARSET_NAME);
 
+   /**
+    * Size of buffers used to copy streams and channels.
+    */
+   static final int TRANSFER_BUFFER_SIZE =
+      Integer.parseInt(System.getProperty("exo.ws.rest.transfer.bufferSize", "65536"));
+
+   /**
+    * Pool of buffers used to copy streams and channels.
+    */
+   private static final BufferPool TRANSFER_BUFFERS = new BufferPool(TRANSFER_BUFFER_SIZE, TRANSFER_BUFFER_SIZE,
+      Long.parseLong(System.getProperty("exo.ws.rest.transfer.pool.maxSize", "4194304")));
+
    /**
     * Constructor.
     */
@@ -60,10 +77,91 @@ public final class IOHelper
     */
    static void write(InputStream in, OutputStream out) throws IOException
    {
-      byte[] buf = new byte[1024];
-      int rd = -1;
-      while ((rd = in.read(buf)) != -1)
-         out.write(buf, 0, rd);
+      byte[] buf = TRANSFER_BUFFERS.acquire(TRANSFER_BUFFER_SIZE);
+      try
+      {
+         int rd = -1;
+         while ((rd = in.read(buf)) != -1)
+            out.write(buf, 0, rd);
+      }
+      finally
+      {
+         TRANSFER_BUFFERS.release(buf);
+      }
+   }
+
+   /**
+    * Write <code>count</code> bytes of channel starting from
+    * <code>position</code> to {@link OutputStream}. If <code>in</code> is
+    * {@link FileChannel} and <code>out</code> is {@link WritableByteChannel}
+    * (some servlet containers provide such output streams) or
+    * {@link FileOutputStream} then data is transferred with
+    * {@link FileChannel#transferTo(long, long, WritableByteChannel)} and may
+    * be not copied to user space at all. Otherwise data is copied through
+    * pooled buffer.
+    *
+    * @param in source channel
+    * @param position position of first byte in channel
+    * @param count number of bytes to write
+    * @param out See {@link OutputStream}
+    * @throws IOException if i/o errors occurs or channel contains less bytes
+    *         then requested
+    */
+   static void transfer(SeekableByteChannel in, long position, long count, OutputStream out) throws IOException
+   {
+      if (in instanceof FileChannel)
+      {
+         WritableByteChannel target = null;
+         if (out instanceof WritableByteChannel)
+            target = (WritableByteChannel)out;
+         else if (out instanceof FileOutputStream)
+            target = ((FileOutputStream)out).getChannel();
+         if (target != null)
+         {
+            out.flush();
+            FileChannel fc = (FileChannel)in;
+            long n;
+            while (count > 0 && (n = fc.transferTo(position, count, target)) > 0)
+            {
+               position += n;
+               count -= n;
+            }
+            // Copy rest if target does not accept more data with transferTo.
+         }
+      }
+      if (count == 0)
+         return;
+
+      byte[] buf = TRANSFER_BUFFERS.acquire(TRANSFER_BUFFER_SIZE);
+      try
+      {
+         ByteBuffer bb = ByteBuffer.wrap(buf);
+         in.position(position);
+         while (count > 0)
+         {
+            bb.clear();
+            if (count < buf.length)
+               bb.limit((int)count);
+            int rd = in.read(bb);
+            if (rd == -1)
+               throw new IOException("Unexpected end of channel, " + count + " bytes are not available. ");
+            out.write(buf, 0, rd);
+            count -= rd;
+         }
+      }
+      finally
+      {
+         TRANSFER_BUFFERS.release(buf);
+      }
+   }
+
+   /**
+    * @return pool of buffers used to copy streams and channels, e.g. to check
+    *         its statistic
+    */
+   public static BufferPool getTransferBufferPool()
+   {
+      return TRANSFER_BUFFERS;
    }
 
    /**
@@ -16,15 +16,18 @@
  */
 package org.exoplatform.services.rest.impl.provider;
 
+import org.exoplatform.services.rest.SeekableEntity;
 import org.exoplatform.services.rest.provider.EntityProvider;
 import org.exoplatform.ws.frameworks.json.impl.JsonDefaultHandler;
 import org.exoplatform.ws.frameworks.json.impl.JsonException;
 import org.exoplatform.ws.frameworks.json.impl.JsonGeneratorImpl;
 import org.exoplatform.ws.frameworks.json.impl.JsonParserImpl;
+import org.exoplatform.ws.frameworks.json.impl.JsonSerializer;
 import org.exoplatform.ws.frameworks.json.impl.JsonUtils;
 import org.exoplatform.ws.frameworks.json.impl.JsonUtils.Types;
 import org.exoplatform.ws.frameworks.json.impl.JsonWriterImpl;
 import org.exoplatform.ws.frameworks.json.impl.ObjectBuilder;
+import org.exoplatform.ws.frameworks.json.impl.StreamingObjectBuilder;
 import org.exoplatform.ws.frameworks.json.value.JsonValue;
 
 import java.io.*;
@@ -65,12 +68,49 @@ public class JsonEntityProvider implements EntityProvider<Object>
    /** Do not process via JSON "known" JAX-RS types and some more. */
    private static final Class<?>[] IGNORED = new Class<?>[]{byte[].class, char[].class, DataSource.class,
       DOMSource.class, File.class, InputStream.class, OutputStream.class, JAXBElement.class, MultivaluedMap.class,
-      Reader.class, Writer.class, SAXSource.class, StreamingOutput.class, StreamSource.class, String.class};
+      Reader.class, Writer.class, SAXSource.class, StreamingOutput.class, StreamSource.class, String.class,
+      SeekableEntity.class, PartialContent.class};
 
    private static final int       BUFFER_SIZE;
+
+   /**
+    * Size of buffer used when writing of response starts. Buffer grows up to
+    * {@link #BUFFER_SIZE} only for big responses. Set it equals to
+    * {@link #BUFFER_SIZE} to always use buffer of max size.
+    */
+   private static final int       INITIAL_BUFFER_SIZE;
+
+   /**
+    * If <code>true</code> (default) then objects are written directly to the
+    * output stream, otherwise {@link JsonValue} is created first.
+    */
+   private static final boolean   STREAMING;
+
+   /**
+    * If <code>true</code> (default) then objects are created directly from
+    * parser events, otherwise {@link JsonValue} is created first.
+    */
+   private static final boolean   STREAMING_READ;
+
+   /** Pool of output buffers shared by all instances of provider. */
+   private static final BufferPool BUFFERS;
    static {
      String bufferSize = System.getProperty("exo.ws.json.writer.bufferSize", "1048576");
      BUFFER_SIZE = Integer.parseInt(bufferSize);
+     String initialBufferSize = System.getProperty("exo.ws.json.writer.initialBufferSize", "8192");
+     INITIAL_BUFFER_SIZE = Math.min(Integer.parseInt(initialBufferSize), BUFFER_SIZE);
+     String poolSize = System.getProperty("exo.ws.json.writer.pool.maxSize", "16777216");
+     STREAMING = Boolean.parseBoolean(System.getProperty("exo.ws.json.writer.streaming", "true"));
+     STREAMING_READ = Boolean.parseBoolean(System.getProperty("exo.ws.json.reader.streaming", "true"));
+     BUFFERS = new BufferPool(INITIAL_BUFFER_SIZE, BUFFER_SIZE, Long.parseLong(poolSize));
+   }
+
+   /**
+    * @return pool of output buffers, e.g. to check its statistic
+    */
+   public static BufferPool getBufferPool()
+   {
+      return BUFFERS;
    }
 
    private static boolean isIgnored(Class<?> type)
@@ -103,6 +143,12 @@ public class JsonEntityProvider implements EntityProvider<Object>
    {
       try
       {
+         if (STREAMING_READ && !JsonValue.class.isAssignableFrom(type))
+         {
+            // Create object directly from parser events.
+            return StreamingObjectBuilder.createObject(type, genericType, entityStream);
+         }
+
          JsonParserImpl parser = new JsonParserImpl();
          JsonDefaultHandler handler = new JsonDefaultHandler();
 
@@ -162,56 +208,91 @@ public class JsonEntityProvider implements EntityProvider<Object>
    /**
     * {@inheritDoc}
     */
-   @SuppressWarnings("unchecked")
    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
       MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException
    {
+      // Use a buffered writer to not trigger write on HTTP connector for
+      // each written character. On a high usage of REST endpoint with
+      // multiple connected users, the NioEndpoint will be blocked (buffer
+      // size = 1MB). Buffers are taken from pool and grow up to max size
+      // only for big responses.
+      PooledOutputStream bufferedOutputStream = new PooledOutputStream(entityStream, BUFFERS, INITIAL_BUFFER_SIZE);
       try
       {
-         JsonValue jsonValue = null;
+         JsonWriterImpl jsonWriter = new JsonWriterImpl(bufferedOutputStream);
          if (t instanceof JsonValue)
          {
             // Don't do any transformation if object is prepared JsonValue.
-            jsonValue = (JsonValue)t;
+            ((JsonValue)t).writeTo(jsonWriter);
+         }
+         else if (STREAMING)
+         {
+            writeStreaming(t, type, jsonWriter);
          }
          else
          {
-            JsonGeneratorImpl generator = new JsonGeneratorImpl();
-            Types jtype = JsonUtils.getType(type);
-            if (jtype == Types.ARRAY_BOOLEAN || jtype == Types.ARRAY_BYTE || jtype == Types.ARRAY_SHORT
-               || jtype == Types.ARRAY_INT || jtype == Types.ARRAY_LONG || jtype == Types.ARRAY_FLOAT
-               || jtype == Types.ARRAY_DOUBLE || jtype == Types.ARRAY_CHAR || jtype == Types.ARRAY_STRING
-               || jtype == Types.ARRAY_OBJECT)
-            {
-               jsonValue = generator.createJsonArray(t);
-            }
-            else if (jtype == Types.COLLECTION)
-            {
-               jsonValue = generator.createJsonArray((Collection<?>)t);
-            }
-            else if (jtype == Types.MAP)
-            {
-               jsonValue = generator.createJsonObjectFromMap((Map<String, ?>)t);
-            }
-            else
-            {
-               jsonValue = generator.createJsonObject(t);
-            }
+            createJsonValue(t, type).writeTo(jsonWriter);
          }
-         // Use a buffered writer to not trigger write on HTTP connector for
-         // each written character. On a high usage of REST endpoint with
-         // multiple connected users, the NioEndpoint will be blocked (buffer
-         // size = 1MB)
-         BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(entityStream, BUFFER_SIZE);
-         JsonWriterImpl jsonWriter = new JsonWriterImpl(bufferedOutputStream);
-         jsonValue.writeTo(jsonWriter);
          jsonWriter.flush();
-       }
+      }
       catch (JsonException e)
       {
          throw new IOException("Can't write to output stream " + e, e);
       }
+      finally
+      {
+         bufferedOutputStream.release();
+      }
+   }
+
+   /**
+    * Write object directly to JSON writer without creating {@link JsonValue}.
+    */
+   private void writeStreaming(Object t, Class<?> type, JsonWriterImpl jsonWriter) throws JsonException
+   {
+      JsonSerializer serializer = new JsonSerializer();
+      Types jtype = JsonUtils.getType(type);
+      if (jtype == Types.ARRAY_BOOLEAN || jtype == Types.ARRAY_BYTE || jtype == Types.ARRAY_SHORT
+         || jtype == Types.ARRAY_INT || jtype == Types.ARRAY_LONG || jtype == Types.ARRAY_FLOAT
+         || jtype == Types.ARRAY_DOUBLE || jtype == Types.ARRAY_CHAR || jtype == Types.ARRAY_STRING
+         || jtype == Types.ARRAY_OBJECT)
+      {
+         serializer.writeArray(t, jsonWriter);
+      }
+      else if (jtype == Types.COLLECTION || jtype == Types.MAP)
+      {
+         serializer.writeValue(t, jsonWriter);
+      }
+      else
+      {
+         serializer.writeObject(t, jsonWriter);
+      }
+   }
 
+   /**
+    * Create {@link JsonValue} for object.
+    */
+   @SuppressWarnings("unchecked")
+   private JsonValue createJsonValue(Object t, Class<?> type) throws JsonException
+   {
+      JsonGeneratorImpl generator = new JsonGeneratorImpl();
+      Types jtype = JsonUtils.getType(type);
+      if (jtype == Types.ARRAY_BOOLEAN || jtype == Types.ARRAY_BYTE || jtype == Types.ARRAY_SHORT
+         || jtype == Types.ARRAY_INT || jtype == Types.ARRAY_LONG || jtype == Types.ARRAY_FLOAT
+         || jtype == Types.ARRAY_DOUBLE || jtype == Types.ARRAY_CHAR || jtype == Types.ARRAY_STRING
+         || jtype == Types.ARRAY_OBJECT)
+      {
+         return generator.createJsonArray(t);
+      }
+      if (jtype == Types.COLLECTION)
+      {
+         return generator.createJsonArray((Collection<?>)t);
+      }
+      if (jtype == Types.MAP)
+      {
+         return generator.createJsonObjectFromMap((Map<String, ?>)t);
+      }
+      return generator.createJsonObject(t);
    }
 
 }
@@ -31,7 +31,8 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
 
 /**
- * This provider adds the support of JSONP defined by http://www.json-p.org/
+ * This provider adds the support of JSONP defined by http://www.json-p.org/.
+ * It is writeable only if request contains callback parameter.
  * 
  * @author <a href="mailto:nfilotto@exoplatform.com">Nicolas Filotto</a>
  * @version $Id$
@@ -0,0 +1,274 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import org.exoplatform.commons.utils.PrivilegedFileHelper;
+import org.exoplatform.services.rest.ExtHttpHeaders;
+import org.exoplatform.services.rest.SeekableEntity;
+import org.exoplatform.services.rest.impl.header.HeaderHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import javax.activation.FileDataSource;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Entity of <code>206 Partial Content</code> response. Contains one or more
+ * ranges of {@link SeekableEntity}. Single range is sent as is, few ranges are
+ * sent as <code>multipart/byteranges</code> message. Written by
+ * {@link PartialContentEntityProvider}.
+ *
+ * @version $Id: $
+ */
+public final class PartialContent
+{
+
+   private static final String CRLF = "\r\n";
+
+   private final SeekableEntity entity;
+
+   private final List<ByteRange> ranges;
+
+   /**
+    * Media type of the whole entity.
+    */
+   private final MediaType mediaType;
+
+   /**
+    * Boundary of multipart message, <code>null</code> if there is single
+    * range.
+    */
+   private final String boundary;
+
+   /**
+    * @param entity source entity
+    * @param ranges ranges of entity, must not be empty
+    * @param mediaType media type of the whole entity, may be
+    *        <code>null</code>
+    */
+   public PartialContent(SeekableEntity entity, List<ByteRange> ranges, MediaType mediaType)
+   {
+      if (ranges.isEmpty())
+         throw new IllegalArgumentException("At least one range required. ");
+      this.entity = entity;
+      this.ranges = ranges;
+      this.mediaType = mediaType;
+      this.boundary = ranges.size() > 1 ? UUID.randomUUID().toString().replace("-", "") : null;
+   }
+
+   /**
+    * @return ranges of entity
+    */
+   public List<ByteRange> getRanges()
+   {
+      return ranges;
+   }
+
+   /**
+    * @return media type of response, it is media type of source entity for
+    *         single range or <code>multipart/byteranges</code> with boundary
+    *         parameter for few ranges
+    */
+   public MediaType getContentType()
+   {
+      if (boundary == null)
+         return mediaType;
+      return MediaType.valueOf(ExtHttpHeaders.MULTIPART_BYTERANGES + boundary);
+   }
+
+   /**
+    * @return value of <code>Content-Range</code> header or <code>null</code>
+    *         if response contains few ranges, in this case each part has own
+    *         header
+    */
+   public String getContentRange()
+   {
+      return boundary == null ? ranges.get(0).toContentRange(entity.getLength()) : null;
+   }
+
+   /**
+    * @return number of bytes written by {@link #writeTo(OutputStream)}
+    */
+   public long getLength()
+   {
+      if (boundary == null)
+         return ranges.get(0).getLength();
+      long length = 0;
+      for (ByteRange range : ranges)
+         length += getPartHeader(range).length() + range.getLength();
+      return length + getEnd().length();
+   }
+
+   /**
+    * Write ranges of entity to the stream.
+    *
+    * @param out output stream
+    * @throws IOException if i/o error occurs
+    */
+   public void writeTo(OutputStream out) throws IOException
+   {
+      SeekableByteChannel channel = entity.openChannel();
+      try
+      {
+         if (boundary == null)
+         {
+            ByteRange range = ranges.get(0);
+            IOHelper.transfer(channel, range.getFirst(), range.getLength(), out);
+            return;
+         }
+         for (ByteRange range : ranges)
+         {
+            out.write(getPartHeader(range).getBytes("ISO-8859-1"));
+            IOHelper.transfer(channel, range.getFirst(), range.getLength(), out);
+         }
+         out.write(getEnd().getBytes("ISO-8859-1"));
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   private String getPartHeader(ByteRange range)
+   {
+      StringBuilder header = new StringBuilder();
+      header.append(CRLF).append("--").append(boundary).append(CRLF);
+      if (mediaType != null)
+         header.append("Content-Type: ").append(mediaType).append(CRLF);
+      header.append("Content-Range: ").append(range.toContentRange(entity.getLength())).append(CRLF);
+      header.append(CRLF);
+      return header.toString();
+   }
+
+   private String getEnd()
+   {
+      return CRLF + "--" + boundary + "--" + CRLF;
+   }
+
+   /**
+    * Get {@link SeekableEntity} for response entity if ranges of entity may
+    * be served.
+    *
+    * @param entity response entity
+    * @return {@link SeekableEntity} or <code>null</code> if entity type does
+    *         not support ranges
+    */
+   public static SeekableEntity getSeekableEntity(Object entity)
+   {
+      if (entity instanceof SeekableEntity)
+         return (SeekableEntity)entity;
+      if (entity instanceof File)
+         return new FileEntity((File)entity);
+      if (entity instanceof FileDataSource)
+         return new FileEntity(((FileDataSource)entity).getFile());
+      return null;
+   }
+
+   /**
+    * Check value of <code>If-Range</code> header. Entity tag is compared
+    * with <code>ETag</code> header of response using strong comparison. Date
+    * is compared with <code>Last-Modified</code> header of response or with
+    * time of last modification of entity if response has no such header.
+    *
+    * @param ifRange value of <code>If-Range</code> header, may be
+    *        <code>null</code>
+    * @param etag <code>ETag</code> header of response, may be
+    *        <code>null</code>
+    * @param lastModified <code>Last-Modified</code> header of response, may
+    *        be <code>null</code>
+    * @param entity entity
+    * @return <code>true</code> if <code>Range</code> header should be
+    *         processed and <code>false</code> if the whole entity must be
+    *         sent
+    */
+   public static boolean evaluateIfRange(String ifRange, Object etag, Object lastModified, SeekableEntity entity)
+   {
+      if (ifRange == null)
+         return true;
+      ifRange = ifRange.trim();
+      try
+      {
+         if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+         {
+            if (etag == null)
+               return false;
+            EntityTag tag = etag instanceof EntityTag ? (EntityTag)etag : EntityTag.valueOf(etag.toString());
+            EntityTag other = EntityTag.valueOf(ifRange);
+            return !tag.isWeak() && !other.isWeak() && tag.getValue().equals(other.getValue());
+         }
+         long time;
+         if (lastModified instanceof Date)
+            time = ((Date)lastModified).getTime();
+         else if (lastModified != null)
+            time = HeaderHelper.parseDateHeader(lastModified.toString()).getTime();
+         else
+            time = entity.getLastModified();
+         // HTTP dates have precision in seconds.
+         return time >= 0 && time / 1000 == HeaderHelper.parseDateHeader(ifRange).getTime() / 1000;
+      }
+      catch (IllegalArgumentException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * {@link SeekableEntity} backed by file.
+    */
+   static final class FileEntity implements SeekableEntity
+   {
+
+      private final File file;
+
+      FileEntity(File file)
+      {
+         this.file = file;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public long getLength()
+      {
+         return file.length();
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public long getLastModified()
+      {
+         long lastModified = file.lastModified();
+         return lastModified == 0 ? -1 : lastModified;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public SeekableByteChannel openChannel() throws IOException
+      {
+         return PrivilegedFileHelper.fileInputStream(file).getChannel();
+      }
+   }
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Buffered output stream which takes its buffer from {@link BufferPool}.
+ * Writing starts with the buffer of <code>initialSize</code>, buffer is
+ * replaced with bigger one when it is full. Content is written to underlying
+ * stream only when buffer of max size of pool is full or on
+ * {@link #flush()}. So small responses do not hold big buffers but big
+ * responses are still written to underlying stream by big chunks. Method
+ * {@link #release()} must be called after writing to return buffer to the
+ * pool.
+ *
+ * @version $Id: $
+ */
+final class PooledOutputStream extends OutputStream
+{
+
+   private final OutputStream out;
+
+   private final BufferPool pool;
+
+   private byte[] buffer;
+
+   private int count;
+
+   /**
+    * @param out underlying stream
+    * @param pool buffer pool
+    * @param initialSize size of the first buffer
+    */
+   PooledOutputStream(OutputStream out, BufferPool pool, int initialSize)
+   {
+      this.out = out;
+      this.pool = pool;
+      this.buffer = pool.acquire(initialSize);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void write(int b) throws IOException
+   {
+      ensureOpen();
+      if (count == buffer.length)
+         ensureCapacity(1);
+      buffer[count++] = (byte)b;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException
+   {
+      ensureOpen();
+      if (len > buffer.length - count)
+      {
+         ensureCapacity(len);
+         if (len > buffer.length)
+         {
+            // Buffer is empty here and still too small, write directly.
+            out.write(b, off, len);
+            return;
+         }
+      }
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void flush() throws IOException
+   {
+      ensureOpen();
+      flushBuffer();
+      out.flush();
+   }
+
+   /**
+    * Flush content of buffer and return buffer to the pool. Underlying stream
+    * is not closed.
+    *
+    * @throws IOException if any i/o error occurs
+    */
+   @Override
+   public void close() throws IOException
+   {
+      if (buffer == null)
+         return;
+      try
+      {
+         flush();
+      }
+      finally
+      {
+         release();
+      }
+   }
+
+   /**
+    * Return buffer to the pool. Content of buffer which is not flushed yet is
+    * discarded. Stream may not be used after this method is called, any
+    * attempt to write to it throws {@link IOException}.
+    */
+   void release()
+   {
+      if (buffer != null)
+      {
+         pool.release(buffer);
+         buffer = null;
+         count = 0;
+      }
+   }
+
+   /**
+    * Make sure buffer has space for at least <code>len</code> bytes. Grow the
+    * buffer if possible, otherwise flush it to the underlying stream.
+    */
+   private void ensureCapacity(int len) throws IOException
+   {
+      if (buffer.length < pool.getMaxBufferSize())
+      {
+         byte[] bigger = pool.acquire((int)Math.min((long)count + len, pool.getMaxBufferSize()));
+         if (bigger.length > buffer.length)
+         {
+            System.arraycopy(buffer, 0, bigger, 0, count);
+            pool.release(buffer);
+            buffer = bigger;
+            if (len <= buffer.length - count)
+               return;
+         }
+         else
+         {
+            pool.release(bigger);
+         }
+      }
+      flushBuffer();
+   }
+
+   private void ensureOpen() throws IOException
+   {
+      if (buffer == null)
+         throw new IOException("Stream closed");
+   }
+
+   private void flushBuffer() throws IOException
+   {
+      if (count > 0)
+      {
+         out.write(buffer, 0, count);
+         count = 0;
+      }
+   }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import org.exoplatform.services.rest.SeekableEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.channels.SeekableByteChannel;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Writer for {@link SeekableEntity}. Ranges of such entities are written by
+ * {@link PartialContentEntityProvider}.
+ *
+ * @version $Id: $
+ */
+@Provider
+public class SeekableEntityProvider implements MessageBodyWriter<SeekableEntity>
+{
+
+   /**
+    * {@inheritDoc}
+    */
+   public long getSize(SeekableEntity t, Class<?> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType)
+   {
+      return t.getLength();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+   {
+      return SeekableEntity.class.isAssignableFrom(type);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void writeTo(SeekableEntity t, Class<?> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException
+   {
+      SeekableByteChannel channel = t.openChannel();
+      try
+      {
+         IOHelper.transfer(channel, 0, t.getLength(), entityStream);
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+}
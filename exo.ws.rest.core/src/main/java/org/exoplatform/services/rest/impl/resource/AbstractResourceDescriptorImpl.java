@@ -23,6 +23,7 @@ import org.exoplatform.services.rest.BaseObjectModel;
 import org.exoplatform.services.rest.ComponentLifecycleScope;
 import org.exoplatform.services.rest.impl.header.MediaTypeHelper;
 import org.exoplatform.services.rest.impl.method.DefaultMethodInvoker;
+import org.exoplatform.services.rest.impl.method.MethodHandleMethodInvoker;
 import org.exoplatform.services.rest.impl.method.MethodInvokerFactory;
 import org.exoplatform.services.rest.impl.method.MethodParameterImpl;
 import org.exoplatform.services.rest.impl.method.OptionsRequestMethodInvoker;
@@ -298,7 +299,7 @@ public class AbstractResourceDescriptorImpl extends BaseObjectModel implements A
                   // resource method
                   ResourceMethodDescriptor res =
                      new ResourceMethodDescriptorImpl(method, httpMethod.value(), params, this, consumes, produces,
-                        getMethodInvoker());
+                        getMethodInvoker(method));
                   ResourceMethodDescriptor exist =
                      findMethodResourceMediaType(resourceMethods.getList(httpMethod.value()), res.consumes(),
                         res.produces());
@@ -319,7 +320,7 @@ public class AbstractResourceDescriptorImpl extends BaseObjectModel implements A
                   // sub-resource method
                   SubResourceMethodDescriptor subRes =
                      new SubResourceMethodDescriptorImpl(new PathValue(subPath.value()), method, httpMethod.value(),
-                        params, this, consumes, produces, getMethodInvoker());
+                        params, this, consumes, produces, getMethodInvoker(method));
                   SubResourceMethodDescriptor exist = null;
                   ResourceMethodMap<SubResourceMethodDescriptor> rmm =
                      subResourceMethods.getMethodMap(subRes.getUriPattern());
@@ -348,7 +349,7 @@ public class AbstractResourceDescriptorImpl extends BaseObjectModel implements A
                   // sub-resource locator
                   SubResourceLocatorDescriptor loc =
                      new SubResourceLocatorDescriptorImpl(new PathValue(subPath.value()), method, params, this,
-                        getMethodInvoker());
+                        getMethodInvoker(method));
                   if (!subResourceLocators.containsKey(loc.getUriPattern()))
                   {
                      subResourceLocators.put(loc.getUriPattern(), loc);
@@ -502,7 +503,7 @@ public class AbstractResourceDescriptorImpl extends BaseObjectModel implements A
             {
                headSubres.add(new SubResourceMethodDescriptorImpl(srmd.getPathValue(), srmd.getMethod(),
                   HttpMethod.HEAD, srmd.getMethodParameters(), this, srmd.consumes(), srmd.produces(),
-                  getMethodInvoker()));
+                  getMethodInvoker(srmd.getMethod())));
             }
          }
       }
@@ -716,6 +717,24 @@ public class AbstractResourceDescriptorImpl extends BaseObjectModel implements A
       return new DefaultMethodInvoker();
    }
 
+   /**
+    * Get invoker for supplied method. If invoker can be bound to method, e.g.
+    * {@link MethodHandleMethodInvoker}, it is done here, when resource is
+    * published, instead of doing it when method is invoked first time.
+    *
+    * @param method resource method, sub-resource method or sub-resource locator
+    * @return invoker
+    */
+   protected MethodInvoker getMethodInvoker(Method method)
+   {
+      MethodInvoker invoker = getMethodInvoker();
+      if (invoker instanceof MethodHandleMethodInvoker)
+      {
+         ((MethodHandleMethodInvoker)invoker).bind(method);
+      }
+      return invoker;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -0,0 +1,133 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.resource;
+
+import org.exoplatform.services.rest.impl.method.MethodInvokerFactory;
+import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of {@link AbstractResourceDescriptor} for classes of objects returned
+ * by sub-resource locators. Creation of descriptor requires full reflective
+ * scan of class so it should not be done for each request.
+ * <p>
+ * Cache is weakly keyed by class. Descriptor refers to its class, so it is
+ * held through {@link SoftReference}, otherwise the class would never be
+ * weakly reachable. Cache never prevents classes and their class loaders
+ * from being collected, e.g. after reloading of Groovy resources, it only
+ * delays it until memory is needed.
+ * </p>
+ *
+ * @version $Id: $
+ */
+public class ResourceDescriptorCache
+{
+
+   private final MethodInvokerFactory invokerFactory;
+
+   /** Weakly keyed map of all known descriptors. */
+   private final Map<Class<?>, SoftReference<AbstractResourceDescriptor>> descriptors =
+      new WeakHashMap<Class<?>, SoftReference<AbstractResourceDescriptor>>();
+
+   private final AtomicLong hits = new AtomicLong();
+
+   private final AtomicLong misses = new AtomicLong();
+
+   /**
+    * @param invokerFactory method invoker producer, may be <code>null</code>
+    */
+   public ResourceDescriptorCache(MethodInvokerFactory invokerFactory)
+   {
+      this.invokerFactory = invokerFactory;
+   }
+
+   /**
+    * Get descriptor for class of supplied sub-resource. Descriptor is created
+    * if it is not cached yet.
+    *
+    * @param resource sub-resource instance
+    * @return descriptor of sub-resource class
+    */
+   public AbstractResourceDescriptor getDescriptor(Object resource)
+   {
+      Class<?> clazz = resource.getClass();
+      AbstractResourceDescriptor descriptor = null;
+      synchronized (this)
+      {
+         SoftReference<AbstractResourceDescriptor> ref = descriptors.get(clazz);
+         if (ref != null)
+            descriptor = ref.get();
+      }
+      if (descriptor != null)
+      {
+         hits.incrementAndGet();
+         return descriptor;
+      }
+      misses.incrementAndGet();
+      // Create descriptor out of lock. In worst case few threads create
+      // descriptor for the same class at the same time, result is the same.
+      descriptor = new AbstractResourceDescriptorImpl(resource, invokerFactory);
+      synchronized (this)
+      {
+         descriptors.put(clazz, new SoftReference<AbstractResourceDescriptor>(descriptor));
+      }
+      return descriptor;
+   }
+
+   /**
+    * Remove all cached descriptors. Hit and miss counters are not reset.
+    */
+   public synchronized void clear()
+   {
+      descriptors.clear();
+   }
+
+   /**
+    * @return number of descriptors found in cache
+    */
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+
+   /**
+    * @return number of descriptors created because they were not found in
+    *         cache
+    */
+   public long getMissCount()
+   {
+      return misses.get();
+   }
+
+   /**
+    * @return number of cached descriptors which are not collected yet
+    */
+   public synchronized int size()
+   {
+      int size = 0;
+      for (SoftReference<AbstractResourceDescriptor> ref : descriptors.values())
+      {
+         if (ref.get() != null)
+            size++;
+      }
+      return size;
+   }
+}
@@ -47,19 +47,22 @@ public interface ExtendedProviders extends Providers
 
    /**
     * @param path request path
-    * @return acceptable method invocation filters
+    * @return acceptable method invocation filters, list may be shared and must not be
+    *         modified
     */
    List<ObjectFactory<FilterDescriptor>> getMethodInvokerFilters(String path);
 
    /**
     * @param path request path
-    * @return acceptable request filters
+    * @return acceptable request filters, list may be shared and must not be
+    *         modified
     */
    List<ObjectFactory<FilterDescriptor>> getRequestFilters(String path);
 
    /**
     * @param path request path
-    * @return acceptable response filters
+    * @return acceptable response filters, list may be shared and must not be
+    *         modified
     */
    List<ObjectFactory<FilterDescriptor>> getResponseFilters(String path);
 
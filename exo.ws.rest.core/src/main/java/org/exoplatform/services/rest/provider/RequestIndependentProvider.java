@@ -0,0 +1,34 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.provider;
+
+/**
+ * Marker for singleton message body readers and writers which methods
+ * <code>isReadable</code> and <code>isWriteable</code> depend only on their
+ * arguments, i.e. Java type, generic type and media type, but not on current
+ * request. Result of these methods is resolved once for each Java type and
+ * media type and then reused for all requests, see
+ * {@link org.exoplatform.services.rest.impl.ProviderBinder}. Other providers,
+ * except embedded ones, are checked for each request. Marker is inherited, so
+ * subclass which checks current request, e.g. query parameters, must not
+ * extend class which implements this interface.
+ *
+ * @version $Id: $
+ */
+public interface RequestIndependentProvider
+{
+}
@@ -17,6 +17,7 @@
 package org.exoplatform.services.rest.resource;
 
 import org.exoplatform.services.rest.ExtMultivaluedMap;
+import org.exoplatform.services.rest.GenericContainerRequest;
 import org.exoplatform.services.rest.impl.header.MediaTypeHelper;
 
 import java.util.ArrayList;
@@ -24,7 +25,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.MediaType;
 
@@ -72,6 +75,268 @@ public class ResourceMethodMap<T extends ResourceMethodDescriptor> extends HashM
 
       };
 
+   /**
+    * Max number of cached results of content negotiation.
+    */
+   public static final int MAX_NEGOTIATIONS = 64;
+
+   /**
+    * Result of content negotiation for request.
+    *
+    * @param <T> ResourceMethodDescriptor extension
+    * @see ResourceMethodMap#negotiate(GenericContainerRequest)
+    */
+   public static final class Negotiation<T extends ResourceMethodDescriptor>
+   {
+
+      private final int status;
+
+      private final T method;
+
+      private final MediaType mediaType;
+
+      private Negotiation(int status, T method, MediaType mediaType)
+      {
+         this.status = status;
+         this.method = method;
+         this.mediaType = mediaType;
+      }
+
+      /**
+       * @return 200 if resource method found, otherwise status of error
+       *         response: 405 (Method Not Allowed), 415 (Unsupported Media
+       *         Type) or 406 (Not Acceptable)
+       */
+      public int getStatus()
+      {
+         return status;
+      }
+
+      /**
+       * @return most acceptable resource method or <code>null</code> if method
+       *         is not found
+       */
+      public T getMethod()
+      {
+         return method;
+      }
+
+      /**
+       * @return most acceptable media type of response, may be
+       *         <code>null</code>
+       */
+      public MediaType getMediaType()
+      {
+         return mediaType;
+      }
+   }
+
+   /**
+    * Key of content negotiation cache. Media type of request is compared by
+    * type and sub-type only since parameters are not used for matching with
+    * consumed media types. List of acceptable media types is compared by
+    * reference, parsed 'accept' headers are shared between requests, see
+    * {@link org.exoplatform.services.rest.impl.header.HeaderHelper#createAcceptedMediaTypeList(String)}.
+    */
+   private static final class NegotiationKey
+   {
+
+      private final String httpMethod;
+
+      private final String type;
+
+      private final String subtype;
+
+      private final List<MediaType> acceptable;
+
+      private final int hash;
+
+      NegotiationKey(String httpMethod, MediaType contentType, List<MediaType> acceptable)
+      {
+         this.httpMethod = httpMethod;
+         this.type = contentType != null ? contentType.getType() : null;
+         this.subtype = contentType != null ? contentType.getSubtype() : null;
+         this.acceptable = acceptable;
+         int h = httpMethod.hashCode();
+         h = 31 * h + (type != null ? type.hashCode() : 0);
+         h = 31 * h + (subtype != null ? subtype.hashCode() : 0);
+         this.hash = 31 * h + System.identityHashCode(acceptable);
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof NegotiationKey))
+            return false;
+         NegotiationKey other = (NegotiationKey)obj;
+         return hash == other.hash && acceptable == other.acceptable && httpMethod.equals(other.httpMethod)
+            && (type == null ? other.type == null : type.equals(other.type))
+            && (subtype == null ? other.subtype == null : subtype.equals(other.subtype));
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hash;
+      }
+   }
+
+   /**
+    * Most recently used results of content negotiation. Cache is reset each
+    * time when this map is changed.
+    */
+   private transient Map<NegotiationKey, Negotiation<T>> negotiations;
+
+   /**
+    * Incremented each time when cache of content negotiation is reset. Result
+    * of negotiation started before reset must not be cached.
+    */
+   private transient int negotiationGeneration;
+
+   /**
+    * Find the most acceptable resource method for request. Result depends only
+    * on HTTP method, media type and acceptable media types of request so it is
+    * cached and reused for next requests with the same headers.
+    *
+    * @param request See {@link GenericContainerRequest}
+    * @return result of content negotiation
+    */
+   public Negotiation<T> negotiate(GenericContainerRequest request)
+   {
+      String httpMethod = request.getMethod();
+      MediaType contentType = request.getMediaType();
+      List<MediaType> acceptable = request.getAcceptableMediaTypes();
+      NegotiationKey key = new NegotiationKey(httpMethod, contentType, acceptable);
+      Negotiation<T> negotiation;
+      int generation;
+      synchronized (this)
+      {
+         generation = negotiationGeneration;
+         if (negotiations == null)
+         {
+            negotiations = new LinkedHashMap<NegotiationKey, Negotiation<T>>(16, 0.75F, true)
+            {
+               private static final long serialVersionUID = 2524404591283412871L;
+
+               @Override
+               protected boolean removeEldestEntry(Map.Entry<NegotiationKey, Negotiation<T>> eldest)
+               {
+                  return size() > MAX_NEGOTIATIONS;
+               }
+            };
+         }
+         negotiation = negotiations.get(key);
+      }
+      if (negotiation == null)
+      {
+         negotiation = doNegotiate(request, httpMethod, contentType, acceptable);
+         synchronized (this)
+         {
+            if (generation == negotiationGeneration)
+               negotiations.put(key, negotiation);
+         }
+      }
+      return negotiation;
+   }
+
+   private Negotiation<T> doNegotiate(GenericContainerRequest request, String httpMethod, MediaType contentType,
+      List<MediaType> acceptable)
+   {
+      List<T> rmds = get(httpMethod);
+      if (rmds == null || rmds.size() == 0)
+         return new Negotiation<T>(405, null, null);
+
+      List<T> methods;
+      if (contentType == null)
+      {
+         methods = rmds;
+      }
+      else
+      {
+         methods = new ArrayList<T>(rmds.size());
+         for (T rmd : rmds)
+         {
+            if (MediaTypeHelper.isConsume(rmd.consumes(), contentType))
+               methods.add(rmd);
+         }
+      }
+
+      if (methods.isEmpty())
+         return new Negotiation<T>(415, null, null);
+
+      // Get first method with the highest quality value.
+      T best = null;
+      float previousQValue = 0.0F;
+      for (T rmd : methods)
+      {
+         float qValue = MediaTypeHelper.processQuality(acceptable, rmd.produces());
+         if (qValue > previousQValue)
+         {
+            previousQValue = qValue;
+            best = rmd;
+         }
+      }
+
+      if (best == null)
+         return new Negotiation<T>(406, null, null);
+
+      return new Negotiation<T>(200, best, request.getAcceptableMediaType(best.produces()));
+   }
+
+   /**
+    * Remove all cached results of content negotiation.
+    */
+   private synchronized void resetNegotiations()
+   {
+      negotiationGeneration++;
+      if (negotiations != null)
+         negotiations.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public List<T> put(String httpMethod, List<T> resourceMethods)
+   {
+      List<T> previous = super.put(httpMethod, resourceMethods);
+      resetNegotiations();
+      return previous;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void putAll(Map<? extends String, ? extends List<T>> m)
+   {
+      super.putAll(m);
+      resetNegotiations();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public List<T> remove(Object httpMethod)
+   {
+      List<T> previous = super.remove(httpMethod);
+      resetNegotiations();
+      return previous;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void clear()
+   {
+      super.clear();
+      resetNegotiations();
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -95,6 +360,7 @@ public class ResourceMethodMap<T extends ResourceMethodDescriptor> extends HashM
          return;
       List<T> l = getList(httpMethod);
       l.add(resourceMethod);
+      resetNegotiations();
    }
 
    /**
@@ -116,15 +382,18 @@ public class ResourceMethodMap<T extends ResourceMethodDescriptor> extends HashM
       List<T> l = getList(httpMethod);
       l.clear();
       l.add(resourceMethod);
+      resetNegotiations();
    }
 
    /**
-    * Sort each collections in map.
+    * Sort each collections in map. Must be called after lists of resource
+    * methods are changed directly, e.g. through {@link #getList(String)}.
     */
    public void sort()
    {
       for (List<T> l : values())
          Collections.sort(l, RESOURCE_METHOD_COMPARATOR);
+      resetNegotiations();
    }
 
    /**
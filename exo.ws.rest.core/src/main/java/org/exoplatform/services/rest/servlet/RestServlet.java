@@ -24,6 +24,7 @@ import org.exoplatform.container.context.ContextManagerListener;
 import org.exoplatform.container.web.AbstractHttpServlet;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
+import org.exoplatform.services.rest.AsyncContainerResponseWriter;
 import org.exoplatform.services.rest.Connector;
 import org.exoplatform.services.rest.ContainerResponseWriter;
 import org.exoplatform.services.rest.GenericContainerResponse;
@@ -37,7 +38,11 @@ import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
@@ -47,6 +52,15 @@ import javax.ws.rs.ext.MessageBodyWriter;
 
 /**
  * This servlet is front-end for the REST engine.
+ * <p>
+ * If asynchronous processing is enabled for servlet (element
+ * <code>async-supported</code> in web.xml) then resource methods which return
+ * {@link java.util.concurrent.CompletionStage} do not block container thread.
+ * Request is suspended and response is written when result is completed.
+ * Timeout of suspended requests in milliseconds may be set with init
+ * parameter {@link #ASYNC_TIMEOUT}, otherwise default timeout of container is
+ * used.
+ * </p>
  *
  * @author <a href="mailto:andrew00x@gmail.com">Andrey Parfonov</a>
  * @version $Id: $
@@ -61,8 +75,20 @@ public class RestServlet extends AbstractHttpServlet implements Connector
     */
    private static final long serialVersionUID = 2152962763071591181L;
 
+   /**
+    * Name of init parameter which contains timeout of suspended requests in
+    * milliseconds.
+    */
+   public static final String ASYNC_TIMEOUT = "ws.rs.async.timeout";
+
   private List<ComponentRequestLifecycle> transactionalServices = null;
 
+   /**
+    * Timeout of suspended requests, -1 if default timeout of container should
+    * be used.
+    */
+   private long asyncTimeout = -1;
+
    /**
     * {@inheritDoc}
     */
@@ -71,6 +97,18 @@ public class RestServlet extends AbstractHttpServlet implements Connector
    {
       // Register the listener if needed
       ContextManagerListener.registerIfNeeded(getContainer(), config.getServletContext());
+      String timeout = config.getInitParameter(ASYNC_TIMEOUT);
+      if (timeout != null)
+      {
+         try
+         {
+            asyncTimeout = Long.parseLong(timeout.trim());
+         }
+         catch (NumberFormatException e)
+         {
+            LOG.warn("Invalid value of init parameter {}: {}", ASYNC_TIMEOUT, timeout);
+         }
+      }
    }
 
    /**
@@ -96,7 +134,8 @@ public class RestServlet extends AbstractHttpServlet implements Connector
       {
          EnvironmentContext.setCurrent(env);
          ServletContainerRequest request = new ServletContainerRequest(httpRequest);
-         ContainerResponse response = new ContainerResponse(new ServletContainerResponseWriter(httpResponse));
+         ContainerResponse response =
+            new ContainerResponse(new ServletContainerResponseWriter(httpRequest, httpResponse, env));
          requestHandler.handleRequest(request, response);
       }
       catch (Exception e)
@@ -112,52 +151,200 @@ public class RestServlet extends AbstractHttpServlet implements Connector
       }
       finally
       {
-         Map<Object, Throwable> results = RequestLifeCycle.end();
-         for (Entry<Object, Throwable> entry : results.entrySet())
+         endRequest(httpRequest);
+      }
+   }
+
+   /**
+    * End request life cycle of components and reset environment of current
+    * thread.
+    *
+    * @param httpRequest HttpServletRequest
+    */
+   private void endRequest(HttpServletRequest httpRequest)
+   {
+      Map<Object, Throwable> results = RequestLifeCycle.end();
+      for (Entry<Object, Throwable> entry : results.entrySet())
+      {
+         if (entry.getValue() != null)
          {
-            if (entry.getValue() != null)
-            {
-               LOG.error("An error occurred while calling the method endRequest on " + entry.getKey(), entry.getValue());
-            }
-         }
-         EnvironmentContext.setCurrent(null);
-         for (ComponentRequestLifecycle service : getTransactionalServices()) {
-           if (service.isStarted(getContainer())) {
-             if (LOG.isDebugEnabled()) {
-               LOG.debug("The service {} didn't called endRequest, uri = {}, http method = {}. Commit transaction anyway.",
-                         service.getClass().getName(),
-                         httpRequest.getRequestURI(),
-                         httpRequest.getMethod());
-             }
-             service.endRequest(getContainer());
-             if (service.isStarted(getContainer())) {
-               LOG.error("The service {} didn't ended properly even after calling endRequest",
-                         service.getClass().getName(),
-                         httpRequest.getRequestURI(),
-                         httpRequest.getMethod());
-             }
-           }
+            LOG.error("An error occurred while calling the method endRequest on " + entry.getKey(), entry.getValue());
          }
       }
+      EnvironmentContext.setCurrent(null);
+      for (ComponentRequestLifecycle service : getTransactionalServices()) {
+        if (service.isStarted(getContainer())) {
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("The service {} didn't called endRequest, uri = {}, http method = {}. Commit transaction anyway.",
+                      service.getClass().getName(),
+                      httpRequest.getRequestURI(),
+                      httpRequest.getMethod());
+          }
+          service.endRequest(getContainer());
+          if (service.isStarted(getContainer())) {
+            LOG.error("The service {} didn't ended properly even after calling endRequest",
+                      service.getClass().getName(),
+                      httpRequest.getRequestURI(),
+                      httpRequest.getMethod());
+          }
+        }
+      }
    }
 
    /**
     * See {@link ContainerResponseWriter}.
     */
-   class ServletContainerResponseWriter implements ContainerResponseWriter
+   class ServletContainerResponseWriter implements AsyncContainerResponseWriter
    {
 
+      /**
+       * See {@link HttpServletRequest}.
+       */
+      private final HttpServletRequest servletRequest;
+
       /**
        * See {@link HttpServletResponse}.
        */
       private HttpServletResponse servletResponse;
 
       /**
+       * Environment of request, it is restored when suspended request is
+       * resumed.
+       */
+      private final EnvironmentContext env;
+
+      /**
+       * Context of suspended request, <code>null</code> if request is not
+       * suspended.
+       */
+      private AsyncContext asyncContext;
+
+      /**
+       * Set when suspended request is completed or timed out.
+       */
+      private final AtomicBoolean done = new AtomicBoolean();
+
+      /**
+       * @param request HttpServletRequest
        * @param response HttpServletResponse
+       * @param env environment of request
        */
-      ServletContainerResponseWriter(HttpServletResponse response)
+      ServletContainerResponseWriter(HttpServletRequest request, HttpServletResponse response, EnvironmentContext env)
       {
+         this.servletRequest = request;
          this.servletResponse = response;
+         this.env = env;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public boolean suspend()
+      {
+         if (!servletRequest.isAsyncSupported())
+            return false;
+         asyncContext = servletRequest.startAsync(servletRequest, servletResponse);
+         if (asyncTimeout >= 0)
+            asyncContext.setTimeout(asyncTimeout);
+         asyncContext.addListener(new AsyncListener()
+         {
+            public void onTimeout(AsyncEvent event) throws IOException
+            {
+               if (done.compareAndSet(false, true))
+               {
+                  LOG.warn("Timeout of asynchronous request {}, method: {}", servletRequest.getRequestURI(),
+                     servletRequest.getMethod());
+                  if (!servletResponse.isCommitted())
+                     servletResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                  event.getAsyncContext().complete();
+               }
+            }
+
+            public void onError(AsyncEvent event)
+            {
+               if (done.compareAndSet(false, true))
+               {
+                  LOG.debug("Error of asynchronous request {}", servletRequest.getRequestURI(), event.getThrowable());
+                  event.getAsyncContext().complete();
+               }
+            }
+
+            public void onComplete(AsyncEvent event)
+            {
+            }
+
+            public void onStartAsync(AsyncEvent event)
+            {
+            }
+         });
+         return true;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      public void resume(final Runnable task)
+      {
+         if (done.get())
+            // Request is timed out, response is already sent.
+            return;
+         try
+         {
+            // Write response in thread of container, the same as for
+            // synchronous requests.
+            asyncContext.start(new Runnable()
+            {
+               public void run()
+               {
+                  if (!done.compareAndSet(false, true))
+                     return;
+                  // Thread is owned by container, restore its state when done.
+                  ExoContainer previousContainer = ExoContainerContext.getCurrentContainerIfPresent();
+                  ExoContainerContext.setCurrentContainer(getContainer());
+                  RequestLifeCycle.begin(getContainer());
+                  EnvironmentContext.setCurrent(env);
+                  try
+                  {
+                     task.run();
+                  }
+                  catch (RuntimeException e)
+                  {
+                     LOG.warn("An error occurred while completing REST request {}, method: {}",
+                        servletRequest.getRequestURI(), servletRequest.getMethod(), e);
+                     sendServerError();
+                  }
+                  finally
+                  {
+                     endRequest(servletRequest);
+                     ExoContainerContext.setCurrentContainer(previousContainer);
+                     asyncContext.complete();
+                  }
+               }
+            });
+         }
+         catch (IllegalStateException e)
+         {
+            // Request is completed by container, e.g. client disconnected.
+            LOG.debug("Unable resume request {}", servletRequest.getRequestURI(), e);
+         }
+      }
+
+      /**
+       * Send status 500 if response is not committed yet, otherwise client
+       * gets empty response with status 200 after request is completed.
+       */
+      private void sendServerError()
+      {
+         if (servletResponse.isCommitted())
+            return;
+         try
+         {
+            servletResponse.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+         }
+         catch (IOException e)
+         {
+            LOG.debug("Unable send error status for {}", servletRequest.getRequestURI(), e);
+         }
       }
 
       /**
@@ -17,17 +17,14 @@
 package org.exoplatform.services.rest.servlet;
 
 import org.exoplatform.services.rest.impl.ContainerRequest;
-import org.exoplatform.services.rest.impl.InputHeadersMap;
-import org.exoplatform.services.rest.impl.MultivaluedMapImpl;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.security.Principal;
-import java.util.Enumeration;
 
 import jakarta.servlet.http.HttpServletRequest;
-import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriBuilder;
 
 /**
@@ -47,8 +44,18 @@ public final class ServletContainerRequest extends ContainerRequest
     */
    public ServletContainerRequest(HttpServletRequest servletRequest)
    {
-      super(getMethod(servletRequest), getRequestUri(servletRequest), getBaseUri(servletRequest),
-         getEntityStream(servletRequest), getHeader(servletRequest));
+      this(servletRequest, getBaseUri(servletRequest));
+   }
+
+   /**
+    * @param servletRequest HttpServletRequest
+    * @param baseUri base URI of request, see
+    *        {@link #getBaseUri(HttpServletRequest)}
+    */
+   private ServletContainerRequest(HttpServletRequest servletRequest, URI baseUri)
+   {
+      super(getMethod(servletRequest), getRequestUri(servletRequest, baseUri), baseUri,
+         getEntityStream(servletRequest), new ServletRequestHeaders(servletRequest));
       this.servletRequest = servletRequest;
    }
 
@@ -109,15 +116,34 @@ public final class ServletContainerRequest extends ContainerRequest
     * query string and fragment.
     * 
     * @param servletRequest {@link HttpServletRequest}
+    * @param baseUri base URI of request
     * @return newly created URI
     */
-   private static URI getRequestUri(HttpServletRequest servletRequest)
+   private static URI getRequestUri(HttpServletRequest servletRequest, URI baseUri)
    {
       // servletRequest.getQueryString() return part of URI after '?', so it
       // return fragment component also
-      UriBuilder baseBuilder = UriBuilder.fromUri(getBaseUri(servletRequest));
-      return baseBuilder.replacePath(servletRequest.getRequestURI()).replaceQuery(servletRequest.getQueryString())
-         .build();
+      String path = servletRequest.getRequestURI();
+      String query = servletRequest.getQueryString();
+      String authority = baseUri.getRawAuthority();
+      if (authority != null && path != null && path.startsWith("/"))
+      {
+         // Path and query are already encoded by client, in most cases URI
+         // may be parsed directly without UriBuilder.
+         StringBuilder uri = new StringBuilder();
+         uri.append(baseUri.getScheme()).append("://").append(authority).append(path);
+         if (query != null)
+            uri.append('?').append(query);
+         try
+         {
+            return new URI(uri.toString());
+         }
+         catch (URISyntaxException e)
+         {
+            // Not encoded characters, let UriBuilder encode them.
+         }
+      }
+      return UriBuilder.fromUri(baseUri).replacePath(path).replaceQuery(query).build();
    }
 
    /**
@@ -137,29 +163,6 @@ public final class ServletContainerRequest extends ContainerRequest
       return builder.build();
    }
 
-   /**
-    * Get HTTP headers from {@link HttpServletRequest} .
-    * 
-    * @param servletRequest {@link HttpServletRequest}
-    * @return request headers
-    */
-   private static MultivaluedMap<String, String> getHeader(HttpServletRequest servletRequest)
-   {
-      MultivaluedMap<String, String> h = new MultivaluedMapImpl();
-      Enumeration<?> temp = servletRequest.getHeaderNames();
-      while (temp.hasMoreElements())
-      {
-         String k = (String)temp.nextElement();
-
-         Enumeration<?> e = servletRequest.getHeaders(k);
-         while (e.hasMoreElements())
-            h.add(k, (String)e.nextElement());
-
-      }
-
-      return new InputHeadersMap(h);
-   }
-
    /**
     * Get input stream from {@link HttpServletRequest} .
     * 
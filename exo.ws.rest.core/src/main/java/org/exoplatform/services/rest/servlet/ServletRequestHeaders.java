@@ -0,0 +1,188 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.servlet;
+
+import org.exoplatform.services.rest.impl.InputHeadersMap;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Read only case insensitive view of headers of {@link HttpServletRequest}.
+ * Values of header are read from servlet request when header is requested
+ * first time. All headers are copied only if map is iterated, e.g. to get
+ * names of all headers, in this case map behaves exactly as
+ * {@link InputHeadersMap}.
+ *
+ * @version $Id: $
+ */
+final class ServletRequestHeaders extends AbstractMap<String, List<String>> implements
+   MultivaluedMap<String, String>
+{
+
+   /** Marker of header which is absent in request. */
+   private static final List<String> ABSENT = Collections.unmodifiableList(new ArrayList<String>(0));
+
+   private final HttpServletRequest servletRequest;
+
+   /** Already requested headers. Keys are in lower case. */
+   private final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+
+   /** All headers, created when map is iterated first time. */
+   private InputHeadersMap all;
+
+   /**
+    * @param servletRequest servlet request
+    */
+   ServletRequestHeaders(HttpServletRequest servletRequest)
+   {
+      this.servletRequest = servletRequest;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public List<String> get(Object key)
+   {
+      if (all != null)
+         return all.get(key);
+      if (!(key instanceof String))
+         return null;
+
+      String name = ((String)key).toLowerCase();
+      List<String> values = headers.get(name);
+      if (values == null)
+      {
+         values = ABSENT;
+         Enumeration<String> e = servletRequest.getHeaders(name);
+         if (e != null && e.hasMoreElements())
+         {
+            List<String> l = new ArrayList<String>(2);
+            while (e.hasMoreElements())
+               l.add(e.nextElement());
+            values = Collections.unmodifiableList(l);
+         }
+         headers.put(name, values);
+      }
+      return values == ABSENT ? null : values;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean containsKey(Object key)
+   {
+      return get(key) != null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public String getFirst(String key)
+   {
+      List<String> values = get(key);
+      return values != null && values.size() > 0 ? values.get(0) : null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Set<Map.Entry<String, List<String>>> entrySet()
+   {
+      return getAll().entrySet();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Set<String> keySet()
+   {
+      return getAll().keySet();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public Collection<List<String>> values()
+   {
+      return getAll().values();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public int size()
+   {
+      return getAll().size();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void add(String key, String value)
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void putSingle(String key, String value)
+   {
+      throw new UnsupportedOperationException();
+   }
+
+   /**
+    * Copy all headers of servlet request.
+    *
+    * @return all headers
+    */
+   private InputHeadersMap getAll()
+   {
+      if (all == null)
+      {
+         Map<String, List<String>> h = new HashMap<String, List<String>>();
+         Enumeration<String> names = servletRequest.getHeaderNames();
+         while (names != null && names.hasMoreElements())
+         {
+            String name = names.nextElement();
+            List<String> values = get(name);
+            if (values != null)
+               h.put(name, values);
+         }
+         all = new InputHeadersMap(h);
+         headers.clear();
+      }
+      return all;
+   }
+}
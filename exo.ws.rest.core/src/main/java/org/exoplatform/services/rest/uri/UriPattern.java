@@ -108,6 +108,11 @@ public class UriPattern
     */
    private final int numberOfCharacters;
 
+   /**
+    * Literal characters of URI template before the first template variable.
+    */
+   private final String literalPrefix;
+
    /**
     * Compiled URI pattern.
     */
@@ -140,6 +145,7 @@ public class UriPattern
       this.template = parser.getTemplate();
       this.parameterNames = Collections.unmodifiableList(parser.getParameterNames());
       this.numberOfCharacters = parser.getNumberOfLiteralCharacters();
+      this.literalPrefix = parser.getLiteralPrefix();
 
       int[] indxs = parser.getGroupIndexes();
       if (indxs != null)
@@ -221,6 +227,17 @@ public class UriPattern
       return numberOfCharacters;
    }
 
+   /**
+    * Get the literal characters of the template before the first template
+    * variable. If template has not any variables it is the whole template.
+    *
+    * @return literal prefix of the template
+    */
+   public String getLiteralPrefix()
+   {
+      return literalPrefix;
+   }
+
    /**
     * @return list of names
     */
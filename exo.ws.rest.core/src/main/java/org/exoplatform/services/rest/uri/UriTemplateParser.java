@@ -76,6 +76,11 @@ public class UriTemplateParser
     */
    private List<Integer> groupIndexes = new ArrayList<Integer>();
 
+   /**
+    * Encoded literal characters of template before the first parameter.
+    */
+   private String literalPrefix;
+
    /**
     * @param template source URI template
     */
@@ -86,11 +91,15 @@ public class UriTemplateParser
       while (m.find())
       {
          numberOfCharacters += addCharacter(template, start, m.start());
+         if (literalPrefix == null)
+            literalPrefix = normalizedTemplate.toString();
          parseRegex(template.substring(m.start() + 1, m.end() - 1));
          start = m.end();
       }
 
       numberOfCharacters += addCharacter(template, start, template.length());
+      if (literalPrefix == null)
+         literalPrefix = normalizedTemplate.toString();
    }
 
    /**
@@ -103,6 +112,19 @@ public class UriTemplateParser
       return numberOfCharacters;
    }
 
+   /**
+    * Get literal part of the template before the first template parameter.
+    * Characters are encoded in the same way as in the regular expression. If
+    * the template has not any parameters the whole normalized template is
+    * returned.
+    * 
+    * @return literal prefix of the template
+    */
+   public final String getLiteralPrefix()
+   {
+      return literalPrefix;
+   }
+
    /**
     * @return list of names
     */
@@ -0,0 +1,251 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.AsyncContainerResponseWriter;
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.tools.ByteArrayContainerResponseWriter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * @version $Id: $
+ */
+public class AsyncResourceTest extends BaseTest
+{
+
+   @Path("a")
+   public static class Resource1
+   {
+      static volatile CompletableFuture<String> pending;
+
+      @GET
+      @Path("completed")
+      public CompletionStage<String> m0()
+      {
+         return CompletableFuture.completedFuture("completed");
+      }
+
+      @GET
+      @Path("pending")
+      public CompletionStage<String> m1()
+      {
+         pending = new CompletableFuture<String>();
+         return pending;
+      }
+
+      @GET
+      @Path("later")
+      public CompletionStage<Response> m2()
+      {
+         final CompletableFuture<Response> f = new CompletableFuture<Response>();
+         new Thread()
+         {
+            public void run()
+            {
+               try
+               {
+                  Thread.sleep(50);
+               }
+               catch (InterruptedException ignored)
+               {
+               }
+               f.complete(Response.status(201).entity("later").build());
+            }
+         }.start();
+         return f;
+      }
+
+      @GET
+      @Path("failed")
+      public CompletionStage<String> m3()
+      {
+         CompletableFuture<String> f = new CompletableFuture<String>();
+         f.completeExceptionally(new WebApplicationException(404));
+         return f;
+      }
+
+      @GET
+      @Path("opaque")
+      public CompletionStage<String> m5()
+      {
+         final CompletableFuture<String> f = new OpaqueStage<String>();
+         new Thread()
+         {
+            public void run()
+            {
+               try
+               {
+                  Thread.sleep(50);
+               }
+               catch (InterruptedException ignored)
+               {
+               }
+               f.complete("opaque");
+            }
+         }.start();
+         return f;
+      }
+
+      @GET
+      @Path("future")
+      public Future<String> m4()
+      {
+         FutureTask<String> f = new FutureTask<String>(new Runnable()
+         {
+            public void run()
+            {
+            }
+         }, "future");
+         f.run();
+         return f;
+      }
+   }
+
+   /**
+    * Stage which does not support conversion to CompletableFuture.
+    */
+   public static class OpaqueStage<T> extends CompletableFuture<T>
+   {
+      @Override
+      public CompletableFuture<T> toCompletableFuture()
+      {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * Writer which is able to suspend request. Task passed in {@link #resume(Runnable)}
+    * is run by test.
+    */
+   public static class SuspendableWriter extends ByteArrayContainerResponseWriter implements
+      AsyncContainerResponseWriter
+   {
+      boolean suspended;
+
+      final AtomicReference<Runnable> task = new AtomicReference<Runnable>();
+
+      public boolean suspend()
+      {
+         suspended = true;
+         return true;
+      }
+
+      public void resume(Runnable task)
+      {
+         this.task.set(task);
+      }
+   }
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      registry(Resource1.class);
+   }
+
+   @Override
+   public void tearDown() throws Exception
+   {
+      unregistry(Resource1.class);
+      super.tearDown();
+   }
+
+   public void testCompleted() throws Exception
+   {
+      ContainerResponse response = launcher.service("GET", "/a/completed", "", null, null, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("completed", response.getEntity());
+   }
+
+   public void testAwaitWithoutAsyncConnector() throws Exception
+   {
+      ContainerResponse response = launcher.service("GET", "/a/later", "", null, null, null);
+      assertEquals(201, response.getStatus());
+      assertEquals("later", response.getEntity());
+   }
+
+   public void testAwaitOpaqueStage() throws Exception
+   {
+      ContainerResponse response = launcher.service("GET", "/a/opaque", "", null, null, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("opaque", response.getEntity());
+   }
+
+   public void testFailed() throws Exception
+   {
+      assertEquals(404, launcher.service("GET", "/a/failed", "", null, null, null).getStatus());
+   }
+
+   public void testFuture() throws Exception
+   {
+      ContainerResponse response = launcher.service("GET", "/a/future", "", null, null, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("future", response.getEntity());
+   }
+
+   public void testSuspend() throws Exception
+   {
+      SuspendableWriter writer = new SuspendableWriter();
+      ContainerResponse response = launcher.service("GET", "/a/pending", "", null, null, writer, null);
+      assertTrue(writer.suspended);
+      // Response is not written until result is completed.
+      assertNull(writer.task.get());
+      assertNull(writer.getBody());
+      assertNull(ApplicationContextImpl.getCurrent());
+
+      Resource1.pending.complete("pending");
+      Runnable task = writer.task.get();
+      assertNotNull(task);
+      task.run();
+      assertEquals(200, response.getStatus());
+      assertEquals("pending", new String(writer.getBody()));
+      assertNull(ApplicationContextImpl.getCurrent());
+   }
+
+   public void testSuspendFailed() throws Exception
+   {
+      SuspendableWriter writer = new SuspendableWriter();
+      ContainerResponse response = launcher.service("GET", "/a/pending", "", null, null, writer, null);
+      Resource1.pending.completeExceptionally(new WebApplicationException(503));
+      writer.task.get().run();
+      assertEquals(503, response.getStatus());
+   }
+
+   public void testSuspendFailedUnmapped() throws Exception
+   {
+      SuspendableWriter writer = new SuspendableWriter();
+      ContainerResponse response = launcher.service("GET", "/a/pending", "", null, null, writer, null);
+      // There is no ExceptionMapper for this exception.
+      Resource1.pending.completeExceptionally(new IllegalStateException("unmapped"));
+      writer.task.get().run();
+      assertEquals(500, response.getStatus());
+      // Error status is written to connector.
+      assertNotNull(writer.getHeaders());
+      assertNull(ApplicationContextImpl.getCurrent());
+   }
+
+}
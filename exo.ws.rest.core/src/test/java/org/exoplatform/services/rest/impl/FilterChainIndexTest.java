@@ -0,0 +1,124 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.Filter;
+import org.exoplatform.services.rest.FilterDescriptor;
+import org.exoplatform.services.rest.GenericContainerRequest;
+import org.exoplatform.services.rest.ObjectFactory;
+import org.exoplatform.services.rest.RequestFilter;
+
+import java.util.List;
+
+import javax.ws.rs.Path;
+
+import junit.framework.TestCase;
+
+/**
+ * @version $Id: $
+ */
+public class FilterChainIndexTest extends TestCase
+{
+
+   @Filter
+   public static class AnyPathFilter implements RequestFilter
+   {
+      public void doFilter(GenericContainerRequest request)
+      {
+      }
+   }
+
+   @Filter
+   @Path("a/b/{x}")
+   public static class PathFilter1 implements RequestFilter
+   {
+      public void doFilter(GenericContainerRequest request)
+      {
+      }
+   }
+
+   @Filter
+   @Path("a/{x:.*}")
+   public static class PathFilter2 implements RequestFilter
+   {
+      public void doFilter(GenericContainerRequest request)
+      {
+      }
+   }
+
+   private ProviderBinder providers;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      providers = new ApplicationProviders("test");
+   }
+
+   public void testMatchAll()
+   {
+      providers.addRequestFilter(new AnyPathFilter());
+      List<ObjectFactory<FilterDescriptor>> chain = providers.getRequestFilters("/a/b");
+      assertEquals(1, chain.size());
+      // The same chain for any path.
+      assertSame(chain, providers.getRequestFilters("/x/y/z"));
+      assertSame(chain, providers.getRequestFilters(null));
+      try
+      {
+         chain.clear();
+         fail("Chain must not be modifiable. ");
+      }
+      catch (UnsupportedOperationException e)
+      {
+      }
+   }
+
+   public void testSameAsMatchedFilters()
+   {
+      providers.addRequestFilter(new AnyPathFilter());
+      providers.addRequestFilter(new PathFilter1());
+      providers.addRequestFilter(new PathFilter2());
+      String[] paths = {"/a", "/a/b", "/a/b/c", "/a/b/c/d", "/b", "/", "", null};
+      for (String path : paths)
+      {
+         assertEquals(path, providers.getMatchedFilters(path, providers.requestFilters),
+            providers.getRequestFilters(path));
+      }
+      // Chain is cached for path.
+      assertSame(providers.getRequestFilters("/a/b/c"), providers.getRequestFilters("/a/b/c"));
+   }
+
+   public void testInvalidate()
+   {
+      providers.addRequestFilter(new PathFilter1());
+      assertEquals(1, providers.getRequestFilters("/a/b/c").size());
+      assertEquals(0, providers.getResponseFilters("/a/b/c").size());
+      providers.addRequestFilter(new PathFilter2());
+      assertEquals(2, providers.getRequestFilters("/a/b/c").size());
+      assertEquals(1, providers.getRequestFilters("/a/c").size());
+   }
+
+   public void testMaxSize()
+   {
+      providers.addRequestFilter(new PathFilter1());
+      FilterChainIndex index = new FilterChainIndex(providers.requestFilters, 2);
+      for (int i = 0; i < 5; i++)
+         index.getFilters("/a/b/" + i);
+      assertEquals(2, index.size());
+   }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * @version $Id: $
+ */
+public class ProvidersRegistryTest extends TestCase
+{
+
+   @Provider
+   @Produces("text/plain")
+   public static class StringWriter implements MessageBodyWriter<String>
+   {
+      public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         return type == String.class;
+      }
+
+      public long getSize(String t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         return -1;
+      }
+
+      public void writeTo(String t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+         MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException,
+         WebApplicationException
+      {
+      }
+   }
+
+   private ProvidersRegistry registry;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      registry = new ProvidersRegistry();
+   }
+
+   public void testSharedProviders()
+   {
+      ApplicationProviders ap = new ApplicationProviders("app");
+      registry.addProviders(ap);
+      ProviderBinder providers = registry.getApplicationProviders("app");
+      assertSame(providers, registry.getApplicationProviders("app"));
+      assertSame(ap, ((MergedProviders)providers).getApplicationProviders());
+      assertSame(ap, registry.getProviders("app"));
+   }
+
+   public void testNoApplication()
+   {
+      ProviderBinder providers = registry.getApplicationProviders(null);
+      assertNotNull(providers);
+      assertSame(providers, registry.getApplicationProviders("unknown"));
+      assertNull(((MergedProviders)providers).getApplicationProviders());
+      assertNull(registry.getProviders(null));
+      try
+      {
+         providers.addMessageBodyWriter(new StringWriter());
+         fail("Default providers must not be modified. ");
+      }
+      catch (UnsupportedOperationException e)
+      {
+         // expected
+      }
+   }
+
+   public void testApplicationPrecedence()
+   {
+      ApplicationProviders ap = new ApplicationProviders("app");
+      ap.addMessageBodyWriter(new StringWriter());
+      registry.addProviders(ap);
+      ProviderBinder providers = registry.getApplicationProviders("app");
+      MessageBodyWriter<String> writer =
+         providers.getMessageBodyWriter(String.class, null, null, MediaType.TEXT_PLAIN_TYPE);
+      assertEquals(StringWriter.class, writer.getClass());
+      // Default provider used if application has not own one.
+      MessageBodyWriter<byte[]> bytes =
+         providers.getMessageBodyWriter(byte[].class, null, null, MediaType.TEXT_PLAIN_TYPE);
+      assertNotNull(bytes);
+      // Other applications are not affected.
+      writer =
+         registry.getApplicationProviders(null).getMessageBodyWriter(String.class, null, null,
+            MediaType.TEXT_PLAIN_TYPE);
+      assertNotSame(StringWriter.class, writer.getClass());
+   }
+
+   public void testReplaceProviders()
+   {
+      registry.addProviders(new ApplicationProviders("app"));
+      ProviderBinder providers = registry.getApplicationProviders("app");
+      ApplicationProviders ap = new ApplicationProviders("app");
+      ap.addMessageBodyWriter(new StringWriter());
+      registry.addProviders(ap);
+      ProviderBinder replaced = registry.getApplicationProviders("app");
+      assertNotSame(providers, replaced);
+      assertEquals(StringWriter.class,
+         replaced.getMessageBodyWriter(String.class, null, null, MediaType.TEXT_PLAIN_TYPE).getClass());
+   }
+
+   public void testProvidersAddedAfterPublication()
+   {
+      ApplicationProviders ap = new ApplicationProviders("app");
+      registry.addProviders(ap);
+      ProviderBinder providers = registry.getApplicationProviders("app");
+      providers.addMessageBodyWriter(new StringWriter());
+      assertEquals(StringWriter.class,
+         providers.getMessageBodyWriter(String.class, null, null, MediaType.TEXT_PLAIN_TYPE).getClass());
+      assertNotNull(ap.getMessageBodyWriter(String.class, null, null, MediaType.TEXT_PLAIN_TYPE));
+   }
+
+}
@@ -17,6 +17,11 @@
 package org.exoplatform.services.rest.impl;
 
 import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.ObjectFactory;
+import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -159,4 +164,81 @@ public class ResourceBinderTest extends BaseTest
       }
    }
 
+   //-------------------------------------
+
+   public void testMatchedResource()
+   {
+      binder.addResource(MatchResource1.class, null);
+      binder.addResource(MatchResource2.class, null);
+      binder.addResource(MatchResource3.class, null);
+      binder.addResource(MatchResource4.class, null);
+      binder.addResource(Resource.class, null);
+
+      List<String> values = new ArrayList<String>();
+      assertMatched(MatchResource1.class, "/x/y/z", values);
+      assertMatched(MatchResource1.class, "/x/y/z/", values);
+      // literal template is more specific then template with variable
+      assertMatched(MatchResource2.class, "/x/y/w", values);
+      assertEquals("w", values.get(0));
+      // MatchResource2 has not sub-resources, tail '/k' can't be served by it
+      assertMatched(MatchResource3.class, "/x/y/w/k", values);
+      assertMatched(MatchResource4.class, "/q", values);
+      assertMatched(MatchResource4.class, "/x", values);
+      assertMatched(Resource.class, "/a/b/c/d", values);
+      assertEquals("c", values.get(0));
+      assertMatched(MatchResource4.class, "/a/b", values);
+
+      binder.removeResource(MatchResource1.class);
+      assertMatched(MatchResource2.class, "/x/y/z", values);
+      binder.removeResource(MatchResource4.class);
+      assertNull(binder.getMatchedResource("/q", values));
+      binder.clear();
+      assertNull(binder.getMatchedResource("/x/y/z", values));
+   }
+
+   private void assertMatched(Class<?> expected, String path, List<String> values)
+   {
+      ObjectFactory<AbstractResourceDescriptor> resource = binder.getMatchedResource(path, values);
+      assertNotNull("Not matched " + path, resource);
+      assertEquals(expected, resource.getObjectModel().getObjectClass());
+   }
+
+   @Path("/x/y/z")
+   public static class MatchResource1
+   {
+      @GET
+      public void m0()
+      {
+      }
+   }
+
+   @Path("/x/y/{v}")
+   public static class MatchResource2
+   {
+      @GET
+      public void m0()
+      {
+      }
+   }
+
+   @Path("/x/{u}")
+   public static class MatchResource3
+   {
+      @GET
+      @Path("{v}/{w}")
+      public void m0()
+      {
+      }
+   }
+
+   @Path("/")
+   public static class MatchResource4
+   {
+      @GET
+      @Path("{v}")
+      public void m0()
+      {
+      }
+   }
+
 }
@@ -0,0 +1,188 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.ApplicationContext;
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.RequestHandler;
+import org.exoplatform.services.rest.RunOnVirtualThread;
+import org.exoplatform.services.rest.impl.resource.AbstractResourceDescriptorImpl;
+import org.exoplatform.services.rest.resource.ResourceMethodDescriptor;
+import org.exoplatform.services.rest.resource.ResourceMethodMap;
+import org.exoplatform.services.rest.tools.DummyContainerResponseWriter;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.WebApplicationException;
+
+/**
+ * @version $Id: $
+ */
+public class VirtualThreadExecutorTest extends BaseTest
+{
+
+   @Path("a")
+   public static class Resource1
+   {
+      static volatile ApplicationContext seenContext;
+
+      static volatile EnvironmentContext seenEnv;
+
+      static volatile Thread seenThread;
+
+      @GET
+      @RunOnVirtualThread
+      public String m0()
+      {
+         seenContext = ApplicationContextImpl.getCurrent();
+         seenEnv = EnvironmentContext.getCurrent();
+         seenThread = Thread.currentThread();
+         return "m0";
+      }
+
+      @POST
+      @RunOnVirtualThread
+      public CompletionStage<String> m1()
+      {
+         return CompletableFuture.completedFuture("m1");
+      }
+
+      @PUT
+      @RunOnVirtualThread
+      public synchronized String m2()
+      {
+         throw new WebApplicationException(409);
+      }
+
+      @DELETE
+      @RunOnVirtualThread(false)
+      public String m3()
+      {
+         return "m3";
+      }
+   }
+
+   /** Executor which starts new platform thread for each task. */
+   private static final Executor THREAD_PER_TASK = new Executor()
+   {
+      public void execute(Runnable command)
+      {
+         new Thread(command).start();
+      }
+   };
+
+   private ResourceMethodMap<ResourceMethodDescriptor> rmm;
+
+   private ApplicationContextImpl context;
+
+   private EnvironmentContext env;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      rmm = new AbstractResourceDescriptorImpl(Resource1.class).getResourceMethods();
+      ContainerRequest request =
+         new ContainerRequest("GET", URI.create("/a"), URI.create(""), null, new MultivaluedMapImpl());
+      context =
+         new ApplicationContextImpl(request, new ContainerResponse(new AsyncResourceTest.SuspendableWriter()),
+            ProviderBinder.getInstance());
+      env = new EnvironmentContext();
+      ApplicationContextImpl.setCurrent(context);
+      EnvironmentContext.setCurrent(env);
+   }
+
+   @Override
+   public void tearDown() throws Exception
+   {
+      ApplicationContextImpl.setCurrent(null);
+      EnvironmentContext.setCurrent(null);
+      super.tearDown();
+   }
+
+   public void testContextPropagation() throws Exception
+   {
+      assertEquals("m0", invoke("GET").get(5, TimeUnit.SECONDS));
+      assertSame(context, Resource1.seenContext);
+      assertSame(env, Resource1.seenEnv);
+      assertNotSame(Thread.currentThread(), Resource1.seenThread);
+      // Context of current thread is not changed.
+      assertSame(context, ApplicationContextImpl.getCurrent());
+      assertSame(env, EnvironmentContext.getCurrent());
+   }
+
+   public void testCompletionStage() throws Exception
+   {
+      assertEquals("m1", invoke("POST").get(5, TimeUnit.SECONDS));
+   }
+
+   public void testFailure() throws Exception
+   {
+      try
+      {
+         invoke("PUT").get(5, TimeUnit.SECONDS);
+         fail("ExecutionException expected. ");
+      }
+      catch (ExecutionException e)
+      {
+         assertTrue(e.getCause() instanceof WebApplicationException);
+         assertEquals(409, ((WebApplicationException)e.getCause()).getResponse().getStatus());
+      }
+   }
+
+   public void testEnabled()
+   {
+      assertEquals(VirtualThreadExecutor.isSupported(), VirtualThreadExecutor.isEnabled(rmm.getFirst("GET"), context));
+      Executor previous = VirtualThreadExecutor.setExecutor(THREAD_PER_TASK);
+      try
+      {
+         assertTrue(VirtualThreadExecutor.isEnabled(rmm.getFirst("GET"), context));
+         // Synchronized method pins carrier thread.
+         assertFalse(VirtualThreadExecutor.isEnabled(rmm.getFirst("PUT"), context));
+         // Method is excluded explicitly.
+         context.getProperties().put(RequestHandler.WS_RS_VIRTUAL_THREADS, "true");
+         assertFalse(VirtualThreadExecutor.isEnabled(rmm.getFirst("DELETE"), context));
+
+         // Connector is not able to suspend request, request thread waits for result anyway.
+         ApplicationContextImpl syncContext =
+            new ApplicationContextImpl(context.getContainerRequest(), new ContainerResponse(
+               new DummyContainerResponseWriter()), ProviderBinder.getInstance());
+         assertFalse(VirtualThreadExecutor.isEnabled(rmm.getFirst("GET"), syncContext));
+      }
+      finally
+      {
+         VirtualThreadExecutor.setExecutor(previous);
+      }
+   }
+
+   private CompletableFuture<Object> invoke(String method)
+   {
+      ResourceMethodDescriptor rmd = rmm.getFirst(method);
+      return VirtualThreadExecutor.invoke(THREAD_PER_TASK, rmd.getMethodInvoker(), new Resource1(), rmd, context);
+   }
+
+}
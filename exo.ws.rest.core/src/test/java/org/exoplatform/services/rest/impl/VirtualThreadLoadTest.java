@@ -0,0 +1,193 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.RequestHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+/**
+ * Requests processed by {@link RequestHandlerImpl} with attribute
+ * {@link RequestHandler#WS_RS_VIRTUAL_THREADS} set. Executor which starts new
+ * thread for each task is used instead of virtual threads, so test does not
+ * depend on Java runtime.
+ *
+ * @version $Id: $
+ */
+public class VirtualThreadLoadTest extends BaseTest
+{
+
+   /** Number of request threads, e.g. worker threads of servlet container. */
+   private static final int REQUEST_THREADS = 2;
+
+   private static final int REQUESTS = 32;
+
+   private static final Executor THREAD_PER_TASK = new Executor()
+   {
+      public void execute(Runnable command)
+      {
+         new Thread(command).start();
+      }
+   };
+
+   @Path("blocking")
+   public static class BlockingResource
+   {
+      static final AtomicInteger running = new AtomicInteger();
+
+      static final AtomicInteger maxRunning = new AtomicInteger();
+
+      static volatile CountDownLatch release = new CountDownLatch(0);
+
+      static volatile Thread seenThread;
+
+      @GET
+      public String m0() throws InterruptedException
+      {
+         seenThread = Thread.currentThread();
+         int n = running.incrementAndGet();
+         for (int max = maxRunning.get(); n > max && !maxRunning.compareAndSet(max, n); max = maxRunning.get())
+         {
+         }
+         try
+         {
+            // Simulate call to database or other remote system.
+            release.await();
+         }
+         finally
+         {
+            running.decrementAndGet();
+         }
+         return "done";
+      }
+   }
+
+   private Executor previousExecutor;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      registry(BlockingResource.class);
+      previousExecutor = VirtualThreadExecutor.setExecutor(THREAD_PER_TASK);
+      RequestHandlerImpl.setProperty(RequestHandler.WS_RS_VIRTUAL_THREADS, "true");
+      BlockingResource.running.set(0);
+      BlockingResource.maxRunning.set(0);
+      BlockingResource.release = new CountDownLatch(0);
+      BlockingResource.seenThread = null;
+   }
+
+   @Override
+   public void tearDown() throws Exception
+   {
+      BlockingResource.release.countDown();
+      RequestHandlerImpl.setProperty(RequestHandler.WS_RS_VIRTUAL_THREADS, null);
+      VirtualThreadExecutor.setExecutor(previousExecutor);
+      unregistry(BlockingResource.class);
+      super.tearDown();
+   }
+
+   public void testOffloaded() throws Exception
+   {
+      AsyncResourceTest.SuspendableWriter writer = new AsyncResourceTest.SuspendableWriter();
+      ContainerResponse response = launcher.service("GET", "/blocking", "", null, null, writer, null);
+      assertTrue(writer.suspended);
+      awaitResume(writer).run();
+      assertEquals(200, response.getStatus());
+      assertEquals("done", new String(writer.getBody()));
+      assertNotNull(BlockingResource.seenThread);
+      assertNotSame(Thread.currentThread(), BlockingResource.seenThread);
+   }
+
+   public void testBlockedWithoutAsyncConnector() throws Exception
+   {
+      ContainerResponse response = launcher.service("GET", "/blocking", "", null, null, null);
+      // Request thread executes method and response is ready when request is processed.
+      assertEquals(200, response.getStatus());
+      assertEquals("done", response.getEntity());
+      assertSame(Thread.currentThread(), BlockingResource.seenThread);
+   }
+
+   /**
+    * Methods of all requests are blocked at the same time although there are
+    * only few request threads.
+    */
+   public void testRequestThreadsReleased() throws Exception
+   {
+      BlockingResource.release = new CountDownLatch(1);
+      ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+      List<AsyncResourceTest.SuspendableWriter> writers = new ArrayList<AsyncResourceTest.SuspendableWriter>();
+      List<Future<ContainerResponse>> responses = new ArrayList<Future<ContainerResponse>>();
+      try
+      {
+         for (int i = 0; i < REQUESTS; i++)
+         {
+            final AsyncResourceTest.SuspendableWriter writer = new AsyncResourceTest.SuspendableWriter();
+            writers.add(writer);
+            responses.add(requestThreads.submit(new Callable<ContainerResponse>()
+            {
+               public ContainerResponse call() throws Exception
+               {
+                  return launcher.service("GET", "/blocking", "", null, null, writer, null);
+               }
+            }));
+         }
+         long deadline = System.currentTimeMillis() + 30000;
+         while (BlockingResource.running.get() < REQUESTS && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+         assertEquals(REQUESTS, BlockingResource.maxRunning.get());
+         BlockingResource.release.countDown();
+
+         for (int i = 0; i < REQUESTS; i++)
+         {
+            ContainerResponse response = responses.get(i).get(30, TimeUnit.SECONDS);
+            awaitResume(writers.get(i)).run();
+            assertEquals(200, response.getStatus());
+         }
+         assertEquals(REQUESTS, BlockingResource.maxRunning.get());
+      }
+      finally
+      {
+         BlockingResource.release.countDown();
+         requestThreads.shutdown();
+      }
+   }
+
+   private static Runnable awaitResume(AsyncResourceTest.SuspendableWriter writer) throws InterruptedException
+   {
+      long deadline = System.currentTimeMillis() + 30000;
+      while (writer.task.get() == null && System.currentTimeMillis() < deadline)
+         Thread.sleep(10);
+      Runnable task = writer.task.get();
+      assertNotNull("Request is not resumed. ", task);
+      return task;
+   }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.header;
+
+import org.exoplatform.services.rest.BaseTest;
+
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @version $Id: $
+ */
+public class HeaderValueCacheTest extends BaseTest
+{
+
+   private static class CountingCache extends HeaderValueCache<String>
+   {
+      int parsed;
+
+      CountingCache(int maxSize, int maxLength)
+      {
+         super(maxSize, maxLength);
+      }
+
+      @Override
+      protected String parse(String header)
+      {
+         parsed++;
+         return header.toUpperCase();
+      }
+   }
+
+   public void testCounters()
+   {
+      CountingCache cache = new CountingCache(8, 64);
+      assertEquals("A", cache.get("a"));
+      assertEquals("A", cache.get("a"));
+      assertEquals("B", cache.get("b"));
+      assertEquals(2, cache.parsed);
+      assertEquals(1, cache.getHitCount());
+      assertEquals(2, cache.getMissCount());
+      assertEquals(2, cache.size());
+   }
+
+   public void testMaxSize()
+   {
+      CountingCache cache = new CountingCache(4, 64);
+      for (int i = 0; i < 100; i++)
+      {
+         cache.get("h" + i);
+         assertTrue(cache.size() <= 4);
+      }
+      assertEquals(100, cache.parsed);
+   }
+
+   public void testMaxLength()
+   {
+      CountingCache cache = new CountingCache(4, 3);
+      cache.get("long");
+      cache.get("long");
+      assertEquals(2, cache.parsed);
+      assertEquals(0, cache.size());
+   }
+
+   public void testAcceptMediaTypeList()
+   {
+      String header = "text/xml;q=0.8, application/json";
+      HeaderValueCache<List<AcceptMediaType>> cache = HeaderHelper.getAcceptMediaTypeCache();
+      long hits = cache.getHitCount();
+      List<AcceptMediaType> l = HeaderHelper.createAcceptedMediaTypeList(header);
+      assertSame(l, HeaderHelper.createAcceptedMediaTypeList(header));
+      assertTrue(cache.getHitCount() > hits);
+      assertEquals("json", l.get(0).getSubtype());
+      try
+      {
+         l.clear();
+         fail("Shared list must be unmodifiable. ");
+      }
+      catch (UnsupportedOperationException e)
+      {
+         // expected
+      }
+   }
+
+   public void testAcceptLanguageList()
+   {
+      String header = "en-gb;q=0.5, fr";
+      List<AcceptLanguage> l = HeaderHelper.createAcceptedLanguageList(header);
+      assertSame(l, HeaderHelper.createAcceptedLanguageList(header));
+      assertEquals("fr", l.get(0).getPrimaryTag());
+   }
+
+   public void testContentType()
+   {
+      MediaType mediaType = HeaderHelper.createMediaType("text/plain;charset=utf-8");
+      assertSame(mediaType, HeaderHelper.createMediaType("text/plain;charset=utf-8"));
+      assertEquals("utf-8", mediaType.getParameters().get("charset"));
+      assertNull(HeaderHelper.createMediaType(null));
+      // Boundary is unique for each request.
+      String multipart = "multipart/form-data;boundary=abc";
+      assertNotSame(HeaderHelper.createMediaType(multipart), HeaderHelper.createMediaType(multipart));
+   }
+
+}
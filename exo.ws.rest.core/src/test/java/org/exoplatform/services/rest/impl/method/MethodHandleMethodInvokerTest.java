@@ -0,0 +1,120 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.method;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.SingletonObjectFactory;
+import org.exoplatform.services.rest.impl.ContainerResponse;
+import org.exoplatform.services.rest.impl.resource.AbstractResourceDescriptorImpl;
+import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
+import org.exoplatform.services.rest.tools.ByteArrayContainerResponseWriter;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * @version $Id: $
+ */
+public class MethodHandleMethodInvokerTest extends BaseTest
+{
+
+   @Path("a")
+   public static class Resource1
+   {
+      @GET
+      @Path("{x}")
+      public String m0(@PathParam("x") String x, @QueryParam("y") int y)
+      {
+         return x + y;
+      }
+
+      @GET
+      @Path("wae/1")
+      public void m1()
+      {
+         throw new WebApplicationException(Response.status(409).entity("conflict").type("text/plain").build());
+      }
+
+      @GET
+      @Path("error/1")
+      public void m2()
+      {
+         throw new IllegalStateException("error");
+      }
+
+      @Path("sub")
+      public SubResource m3()
+      {
+         return new SubResource();
+      }
+   }
+
+   public static class SubResource
+   {
+      @GET
+      public String m0()
+      {
+         return "sub";
+      }
+   }
+
+   private Resource1 resource;
+
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      resource = new Resource1();
+      AbstractResourceDescriptor descriptor =
+         new AbstractResourceDescriptorImpl(resource, new MethodHandleMethodInvokerFactory());
+      binder.addResource(new SingletonObjectFactory<AbstractResourceDescriptor>(descriptor, resource));
+      assertTrue(descriptor.getSubResourceLocators().values().iterator().next().getMethodInvoker()
+         instanceof MethodHandleMethodInvoker);
+   }
+
+   public void tearDown() throws Exception
+   {
+      unregistry(resource);
+      super.tearDown();
+   }
+
+   public void testInvoke() throws Exception
+   {
+      assertEquals("b7", launcher.service("GET", "/a/b?y=7", "", null, null, null).getEntity());
+      assertEquals("sub", launcher.service("GET", "/a/sub", "", null, null, null).getEntity());
+   }
+
+   public void testWebApplicationException() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response = launcher.service("GET", "/a/wae/1", "", null, null, writer, null);
+      assertEquals(409, response.getStatus());
+      assertEquals("conflict", new String(writer.getBody()));
+   }
+
+   public void testUncheckedException() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response = launcher.service("GET", "/a/error/1", "", null, null, writer, null);
+      assertEquals(500, response.getStatus());
+      assertEquals("error", new String(writer.getBody()));
+   }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.method;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.impl.ApplicationContextImpl;
+import org.exoplatform.services.rest.impl.ContainerRequest;
+import org.exoplatform.services.rest.impl.ContainerResponse;
+import org.exoplatform.services.rest.impl.MultivaluedMapImpl;
+import org.exoplatform.services.rest.impl.ProviderBinder;
+import org.exoplatform.services.rest.impl.resource.AbstractResourceDescriptorImpl;
+import org.exoplatform.services.rest.method.MethodInvoker;
+import org.exoplatform.services.rest.method.MethodParameter;
+import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
+import org.exoplatform.services.rest.resource.GenericMethodResource;
+import org.exoplatform.services.rest.resource.ResourceMethodDescriptor;
+import org.exoplatform.services.rest.tools.DummyContainerResponseWriter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+/**
+ * @version $Id: $
+ */
+public class ParameterResolverBindingTest extends BaseTest
+{
+
+   @Path("a/{p1}/{p2}")
+   public static class Resource1
+   {
+      @GET
+      public String m0(@PathParam("p1") String p1, @PathParam("p2") int p2, @QueryParam("q1") String q1,
+         @QueryParam("q2") List<Integer> q2, @QueryParam("q3") @DefaultValue("z") String q3)
+      {
+         return p1 + p2 + q1 + q2 + q3;
+      }
+   }
+
+   @Path("b")
+   public static class Resource2
+   {
+      @GET
+      public String m0(@QueryParam("q1") String q1, @QueryParam("q2") int q2)
+      {
+         return q1 + q2;
+      }
+   }
+
+   /**
+    * Parameter which is not {@link MethodParameterImpl}, so it has no
+    * prepared resolver.
+    */
+   private static class OtherParameter implements MethodParameter
+   {
+      private final MethodParameter delegate;
+
+      OtherParameter(MethodParameter delegate)
+      {
+         this.delegate = delegate;
+      }
+
+      public Annotation[] getAnnotations()
+      {
+         return delegate.getAnnotations();
+      }
+
+      public Annotation getAnnotation()
+      {
+         return delegate.getAnnotation();
+      }
+
+      public boolean isEncoded()
+      {
+         return delegate.isEncoded();
+      }
+
+      public String getDefaultValue()
+      {
+         return delegate.getDefaultValue();
+      }
+
+      public Type getGenericType()
+      {
+         return delegate.getGenericType();
+      }
+
+      public Class<?> getParameterClass()
+      {
+         return delegate.getParameterClass();
+      }
+   }
+
+   public void testSeveralParameters() throws Exception
+   {
+      registry(Resource1.class);
+      try
+      {
+         assertEquals("x5y[1, 2]z", launcher.service("GET", "/a/x/5?q1=y&q2=1&q2=2", "", null, null, null)
+            .getEntity());
+         assertEquals("u0vnullw", launcher.service("GET", "/a/u/0?q1=v&q3=w", "", null, null, null).getEntity());
+      }
+      finally
+      {
+         unregistry(Resource1.class);
+      }
+   }
+
+   public void testResolversBoundOnce() throws Exception
+   {
+      AbstractResourceDescriptor descriptor = new AbstractResourceDescriptorImpl(Resource1.class);
+      ResourceMethodDescriptor method = descriptor.getResourceMethods().getList("GET").get(0);
+      List<MethodParameter> parameters = method.getMethodParameters();
+      assertEquals(5, parameters.size());
+
+      // Resolver keeps its TypeProducer, so the same resolver means the same
+      // producer as well.
+      Object[] resolvers = new Object[parameters.size()];
+      for (int i = 0; i < parameters.size(); i++)
+      {
+         MethodParameterImpl mp = (MethodParameterImpl)parameters.get(i);
+         resolvers[i] = mp.getParameterResolver();
+         assertNotNull(resolvers[i]);
+      }
+
+      Resource1 resource = new Resource1();
+      for (int n = 0; n < 3; n++)
+      {
+         ContainerRequest request =
+            new ContainerRequest("GET", URI.create("/a/x/" + n + "?q1=y"), URI.create(""), null,
+               new MultivaluedMapImpl());
+         ApplicationContextImpl context =
+            new ApplicationContextImpl(request, new ContainerResponse(new DummyContainerResponseWriter()),
+               ProviderBinder.getInstance());
+         assertTrue(descriptor.getUriPattern().match("/a/x/" + n, context.getParameterValues()));
+         context.setParameterNames(descriptor.getUriPattern().getParameterNames());
+         assertEquals("x" + n + "ynullz", method.getMethodInvoker().invokeMethod(resource, method, context));
+
+         for (int i = 0; i < parameters.size(); i++)
+         {
+            MethodParameterImpl mp = (MethodParameterImpl)parameters.get(i);
+            assertSame(resolvers[i], mp.getParameterResolver());
+         }
+      }
+   }
+
+   public void testFallbackForOtherParameters() throws Exception
+   {
+      AbstractResourceDescriptor descriptor = new AbstractResourceDescriptorImpl(Resource2.class);
+      final ResourceMethodDescriptor method = descriptor.getResourceMethods().getList("GET").get(0);
+      final List<MethodParameter> parameters = new ArrayList<MethodParameter>();
+      for (MethodParameter mp : method.getMethodParameters())
+         parameters.add(new OtherParameter(mp));
+
+      GenericMethodResource other = new GenericMethodResource()
+      {
+         public Method getMethod()
+         {
+            return method.getMethod();
+         }
+
+         public List<MethodParameter> getMethodParameters()
+         {
+            return parameters;
+         }
+
+         public AbstractResourceDescriptor getParentResource()
+         {
+            return method.getParentResource();
+         }
+
+         public MethodInvoker getMethodInvoker()
+         {
+            return method.getMethodInvoker();
+         }
+
+         public Class<?> getResponseType()
+         {
+            return method.getResponseType();
+         }
+      };
+
+      ContainerRequest request =
+         new ContainerRequest("GET", URI.create("/b?q1=x&q2=3"), URI.create(""), null, new MultivaluedMapImpl());
+      ApplicationContextImpl context =
+         new ApplicationContextImpl(request, new ContainerResponse(new DummyContainerResponseWriter()),
+            ProviderBinder.getInstance());
+      assertEquals("x3", new DefaultMethodInvoker().invokeMethod(new Resource2(), other, context));
+   }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @version $Id: $
+ */
+public class BufferPoolTest extends TestCase
+{
+
+   public void testAcquireRelease()
+   {
+      BufferPool pool = new BufferPool(16, 100, 1024);
+      byte[] b = pool.acquire(10);
+      assertEquals(16, b.length);
+      assertEquals(32, pool.acquire(17).length);
+      assertEquals(100, pool.acquire(65).length);
+      assertEquals(100, pool.acquire(1000).length);
+      assertEquals(0, pool.getHitCount());
+      pool.release(b);
+      assertEquals(16, pool.getPooledBytes());
+      assertSame(b, pool.acquire(16));
+      assertEquals(0, pool.getPooledBytes());
+      assertEquals(1, pool.getHitCount());
+      assertEquals(5, pool.getAcquireCount());
+      assertEquals(0.2D, pool.getHitRatio(), 0.0001D);
+      // Buffer which is not from pool.
+      pool.release(new byte[20]);
+      assertEquals(0, pool.getPooledBytes());
+   }
+
+   public void testMaxPooledBytes()
+   {
+      BufferPool pool = new BufferPool(16, 64, 100);
+      pool.release(pool.acquire(64));
+      pool.release(pool.acquire(64));
+      byte[] b1 = pool.acquire(64);
+      byte[] b2 = pool.acquire(64);
+      pool.release(b1);
+      pool.release(b2);
+      assertEquals(64, pool.getPooledBytes());
+   }
+
+   public void testGrowBuffer() throws Exception
+   {
+      BufferPool pool = new BufferPool(8, 64, 1024);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      PooledOutputStream pooled = new PooledOutputStream(out, pool, 8);
+      byte[] data = new byte[200];
+      for (int i = 0; i < data.length; i++)
+         data[i] = (byte)i;
+      for (int i = 0; i < 40; i++)
+         pooled.write(data[i]);
+      // Buffer grows, nothing written yet.
+      assertEquals(0, out.size());
+      pooled.write(data, 40, 30);
+      // Max size of buffer reached, first part is flushed.
+      assertTrue(out.size() > 0);
+      pooled.write(data, 70, 130);
+      pooled.flush();
+      assertTrue(Arrays.equals(data, out.toByteArray()));
+      pooled.release();
+      assertTrue(pool.getPooledBytes() > 0);
+      // Reuse buffer.
+      pooled = new PooledOutputStream(new ByteArrayOutputStream(), pool, 8);
+      pooled.release();
+      assertTrue(pool.getHitCount() > 0);
+   }
+
+   public void testWriteAfterRelease() throws Exception
+   {
+      BufferPool pool = new BufferPool(8, 64, 1024);
+      PooledOutputStream pooled = new PooledOutputStream(new ByteArrayOutputStream(), pool, 8);
+      pooled.write(1);
+      pooled.release();
+      try
+      {
+         pooled.write(1);
+         fail("IOException expected");
+      }
+      catch (IOException e)
+      {
+      }
+      try
+      {
+         pooled.write(new byte[4], 0, 4);
+         fail("IOException expected");
+      }
+      catch (IOException e)
+      {
+      }
+      try
+      {
+         pooled.flush();
+         fail("IOException expected");
+      }
+      catch (IOException e)
+      {
+      }
+      // Closing of released stream does nothing.
+      pooled.close();
+   }
+}
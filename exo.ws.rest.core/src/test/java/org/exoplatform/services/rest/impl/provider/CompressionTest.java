@@ -0,0 +1,251 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.ExtHttpHeaders;
+import org.exoplatform.services.rest.RequestHandler;
+import org.exoplatform.services.rest.impl.ContainerResponse;
+import org.exoplatform.services.rest.impl.MultivaluedMapImpl;
+import org.exoplatform.services.rest.impl.RequestHandlerImpl;
+import org.exoplatform.services.rest.tools.ByteArrayContainerResponseWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+/**
+ * @version $Id: $
+ */
+public class CompressionTest extends BaseTest
+{
+
+   private static final String DATA;
+   static
+   {
+      StringBuilder b = new StringBuilder();
+      for (int i = 0; i < 200; i++)
+         b.append("to be or not to be ").append(i).append('\n');
+      DATA = b.toString();
+   }
+
+   @Path("/compression")
+   public static class Resource1
+   {
+      @GET
+      @Path("text")
+      @Produces("text/plain")
+      public String m1()
+      {
+         return DATA;
+      }
+
+      @GET
+      @Path("small")
+      @Produces("text/plain")
+      public String m2()
+      {
+         return "to be or not to be";
+      }
+
+      @GET
+      @Path("zip")
+      @Produces("application/zip")
+      public byte[] m3()
+      {
+         return DATA.getBytes();
+      }
+
+      @GET
+      @Path("badlength")
+      @Produces("text/plain")
+      public Response m4()
+      {
+         return Response.ok(DATA).header(HttpHeaders.CONTENT_LENGTH, "unknown").build();
+      }
+
+      @GET
+      @Path("tagged")
+      @Produces("text/plain")
+      public Response m5()
+      {
+         return Response.ok(DATA).tag(new EntityTag("v1")).header(ExtHttpHeaders.ACCEPT_RANGES, "bytes").build();
+      }
+
+      @GET
+      @Path("taggedstring")
+      @Produces("text/plain")
+      public Response m6()
+      {
+         return Response.ok(DATA).header(HttpHeaders.ETAG, "\"v2\"").build();
+      }
+   }
+
+   private Resource1 resource;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      RequestHandlerImpl.setProperty(RequestHandler.WS_RS_COMPRESSION, "true");
+      resource = new Resource1();
+      registry(resource);
+   }
+
+   @Override
+   public void tearDown() throws Exception
+   {
+      unregistry(resource);
+      RequestHandlerImpl.setProperty(RequestHandler.WS_RS_COMPRESSION, null);
+      super.tearDown();
+   }
+
+   public void testGzip() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response =
+         launcher.service("GET", "/compression/text", "", acceptEncoding("deflate;q=0.5, gzip"), null, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("gzip", response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHttpHeaders().getFirst(HttpHeaders.VARY));
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_LENGTH));
+      assertTrue(writer.getBody().length < DATA.length());
+      assertEquals(DATA, read(new GZIPInputStream(new ByteArrayInputStream(writer.getBody()))));
+   }
+
+   public void testEntityTag() throws Exception
+   {
+      ContainerResponse response =
+         launcher.service("GET", "/compression/tagged", "", acceptEncoding("gzip"), null, null);
+      assertEquals("gzip", response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(new EntityTag("v1", true), response.getHttpHeaders().getFirst(HttpHeaders.ETAG));
+      assertNull(response.getHttpHeaders().getFirst(ExtHttpHeaders.ACCEPT_RANGES));
+
+      response = launcher.service("GET", "/compression/taggedstring", "", acceptEncoding("gzip"), null, null);
+      assertEquals("W/\"v2\"", response.getHttpHeaders().getFirst(HttpHeaders.ETAG));
+
+      // Not compressed, tag is not changed.
+      response = launcher.service("GET", "/compression/tagged", "", acceptEncoding("identity"), null, null);
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(new EntityTag("v1"), response.getHttpHeaders().getFirst(HttpHeaders.ETAG));
+      assertEquals("bytes", response.getHttpHeaders().getFirst(ExtHttpHeaders.ACCEPT_RANGES));
+   }
+
+   public void testDeflate() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response =
+         launcher.service("GET", "/compression/text", "", acceptEncoding("deflate, gzip;q=0"), null, writer, null);
+      assertEquals("deflate", response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(DATA, read(new InflaterInputStream(new ByteArrayInputStream(writer.getBody()))));
+
+      // Deflaters are reused.
+      long created = CompressingEntityWriter.getDeflaterPool().getCreateCount();
+      for (int i = 0; i < 10; i++)
+         launcher.service("GET", "/compression/text", "", acceptEncoding("deflate"), null, writer, null);
+      assertEquals(created, CompressingEntityWriter.getDeflaterPool().getCreateCount());
+   }
+
+   public void testNotCompressed() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      // not accepted by client
+      ContainerResponse response =
+         launcher.service("GET", "/compression/text", "", new MultivaluedMapImpl(), null, writer, null);
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(DATA, new String(writer.getBody()));
+
+      response = launcher.service("GET", "/compression/text", "", acceptEncoding("identity"), null, writer, null);
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(DATA, new String(writer.getBody()));
+
+      // less then threshold
+      response = launcher.service("GET", "/compression/small", "", acceptEncoding("gzip"), null, writer, null);
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHttpHeaders().getFirst(HttpHeaders.VARY));
+      assertEquals("to be or not to be", new String(writer.getBody()));
+
+      // compressed already
+      response = launcher.service("GET", "/compression/zip", "", acceptEncoding("gzip"), null, writer, null);
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertNull(response.getHttpHeaders().getFirst(HttpHeaders.VARY));
+      assertEquals(DATA, new String(writer.getBody()));
+   }
+
+   public void testInvalidNumbers() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      // Invalid Content-Length, size of entity is unknown.
+      ContainerResponse response =
+         launcher.service("GET", "/compression/badlength", "", acceptEncoding("gzip"), null, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("gzip", response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      assertEquals(DATA, read(new GZIPInputStream(new ByteArrayInputStream(writer.getBody()))));
+
+      // Invalid threshold, default value is used.
+      RequestHandlerImpl.setProperty(RequestHandler.WS_RS_COMPRESSION_THRESHOLD, "large");
+      try
+      {
+         response = launcher.service("GET", "/compression/small", "", acceptEncoding("gzip"), null, writer, null);
+         assertEquals(200, response.getStatus());
+         assertNull(response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+         response = launcher.service("GET", "/compression/text", "", acceptEncoding("gzip"), null, writer, null);
+         assertEquals("gzip", response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+      }
+      finally
+      {
+         RequestHandlerImpl.setProperty(RequestHandler.WS_RS_COMPRESSION_THRESHOLD, null);
+      }
+   }
+
+   public void testNegotiate() throws Exception
+   {
+      assertNull(CompressingEntityWriter.negotiate(null));
+      assertNull(CompressingEntityWriter.negotiate("br"));
+      assertEquals("gzip", CompressingEntityWriter.negotiate("*"));
+      assertEquals("gzip", CompressingEntityWriter.negotiate("x-gzip"));
+      assertEquals("deflate", CompressingEntityWriter.negotiate("*, gzip;q=0"));
+      assertEquals("deflate", CompressingEntityWriter.negotiate("gzip;q=0.2, deflate;q=0.8"));
+   }
+
+   private static MultivaluedMap<String, String> acceptEncoding(String value)
+   {
+      MultivaluedMap<String, String> headers = new MultivaluedMapImpl();
+      headers.putSingle(HttpHeaders.ACCEPT_ENCODING, value);
+      return headers;
+   }
+
+   private static String read(InputStream in) throws Exception
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[1024];
+      int r;
+      while ((r = in.read(buf)) != -1)
+         out.write(buf, 0, r);
+      return new String(out.toByteArray());
+   }
+}
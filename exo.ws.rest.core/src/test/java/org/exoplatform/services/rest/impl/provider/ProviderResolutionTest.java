@@ -0,0 +1,195 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.impl.ApplicationProviders;
+import org.exoplatform.services.rest.impl.ProviderBinder;
+import org.exoplatform.services.rest.provider.RequestIndependentProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * @version $Id: $
+ */
+public class ProviderResolutionTest extends BaseTest
+{
+
+   public static class Foo
+   {
+   }
+
+   public static class Bar
+   {
+   }
+
+   @Provider
+   @Produces("text/foo")
+   @Consumes("text/foo")
+   public static class FooProvider implements MessageBodyReader<Foo>, MessageBodyWriter<Foo>,
+      RequestIndependentProvider
+   {
+      int checks;
+
+      public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         checks++;
+         return type == Foo.class;
+      }
+
+      public Foo readFrom(Class<Foo> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+         MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException
+      {
+         return new Foo();
+      }
+
+      public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         checks++;
+         return type == Foo.class;
+      }
+
+      public long getSize(Foo t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         return -1;
+      }
+
+      public void writeTo(Foo t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+         MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException,
+         WebApplicationException
+      {
+      }
+   }
+
+   @Provider
+   @Produces("text/bar")
+   public static class BarWriter implements MessageBodyWriter<Bar>
+   {
+      int checks;
+
+      boolean writeable = true;
+
+      public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         checks++;
+         return writeable && type == Bar.class;
+      }
+
+      public long getSize(Bar t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+      {
+         return -1;
+      }
+
+      public void writeTo(Bar t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+         MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException,
+         WebApplicationException
+      {
+      }
+   }
+
+   private static final MediaType FOO = new MediaType("text", "foo");
+
+   /** Set of providers without embedded providers. */
+   private ProviderBinder applicationProviders;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      applicationProviders = new ApplicationProviders("test");
+   }
+
+   public void testSingletonResolvedOnce() throws Exception
+   {
+      FooProvider foo = new FooProvider();
+      applicationProviders.addMessageBodyReader(foo);
+      applicationProviders.addMessageBodyWriter(foo);
+
+      MessageBodyWriter<Foo> writer = applicationProviders.getMessageBodyWriter(Foo.class, Foo.class, null, FOO);
+      assertSame(foo, writer);
+      int checks = foo.checks;
+      for (int i = 0; i < 10; i++)
+         assertSame(foo, applicationProviders.getMessageBodyWriter(Foo.class, Foo.class, null, FOO));
+      assertEquals(checks, foo.checks);
+
+      MessageBodyReader<Foo> reader = applicationProviders.getMessageBodyReader(Foo.class, Foo.class, null, FOO);
+      assertSame(foo, reader);
+      checks = foo.checks;
+      assertSame(foo, applicationProviders.getMessageBodyReader(Foo.class, Foo.class, null, FOO));
+      assertEquals(checks, foo.checks);
+
+      // Annotations are not part of cache key, provider is checked each time.
+      Annotation[] annotations = FooProvider.class.getAnnotations();
+      assertSame(foo, applicationProviders.getMessageBodyWriter(Foo.class, Foo.class, annotations, FOO));
+      assertEquals(checks + 1, foo.checks);
+   }
+
+   public void testMissingProviderResolvedOnce() throws Exception
+   {
+      assertNull(applicationProviders.getMessageBodyWriter(Foo.class, Foo.class, null, FOO));
+      assertNull(applicationProviders.getMessageBodyWriter(Foo.class, Foo.class, null, FOO));
+      // Cache must be dropped when new writer added.
+      FooProvider foo = new FooProvider();
+      applicationProviders.addMessageBodyWriter(foo);
+      assertSame(foo, applicationProviders.getMessageBodyWriter(Foo.class, Foo.class, null, FOO));
+   }
+
+   public void testProviderNotMarkedCheckedEachTime() throws Exception
+   {
+      BarWriter bar = new BarWriter();
+      applicationProviders.addMessageBodyWriter(bar);
+      MediaType mediaType = new MediaType("text", "bar");
+      assertSame(bar, applicationProviders.getMessageBodyWriter(Bar.class, Bar.class, null, mediaType));
+      assertSame(bar, applicationProviders.getMessageBodyWriter(Bar.class, Bar.class, null, mediaType));
+      assertEquals(2, bar.checks);
+      bar.writeable = false;
+      assertNull(applicationProviders.getMessageBodyWriter(Bar.class, Bar.class, null, mediaType));
+      assertFalse(applicationProviders.getAcceptableWriterMediaTypes(Bar.class, Bar.class, null).contains(mediaType));
+      bar.writeable = true;
+      assertTrue(applicationProviders.getAcceptableWriterMediaTypes(Bar.class, Bar.class, null).contains(mediaType));
+   }
+
+   public void testAcceptableWriterMediaTypes() throws Exception
+   {
+      FooProvider foo = new FooProvider();
+      applicationProviders.addMessageBodyWriter(foo);
+      List<MediaType> mediaTypes = applicationProviders.getAcceptableWriterMediaTypes(Foo.class, Foo.class, null);
+      assertTrue(mediaTypes.contains(FOO));
+      int checks = foo.checks;
+      // Caller may modify result.
+      mediaTypes.clear();
+      assertEquals(mediaTypes.size(), 0);
+      mediaTypes = applicationProviders.getAcceptableWriterMediaTypes(Foo.class, Foo.class, null);
+      assertTrue(mediaTypes.contains(FOO));
+      assertEquals(checks, foo.checks);
+   }
+
+}
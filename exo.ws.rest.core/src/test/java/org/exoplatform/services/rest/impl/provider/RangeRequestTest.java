@@ -0,0 +1,319 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.provider;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.ExtHttpHeaders;
+import org.exoplatform.services.rest.SeekableEntity;
+import org.exoplatform.services.rest.impl.ContainerResponse;
+import org.exoplatform.services.rest.impl.MultivaluedMapImpl;
+import org.exoplatform.services.rest.tools.ByteArrayContainerResponseWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.List;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+/**
+ * @version $Id: $
+ */
+public class RangeRequestTest extends BaseTest
+{
+
+   private static final String DATA = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+   private static File file;
+
+   @Path("/range")
+   public static class Resource1
+   {
+      @GET
+      @Path("file")
+      @Produces("text/plain")
+      public File m1()
+      {
+         return file;
+      }
+
+      @GET
+      @Path("tagged")
+      @Produces("text/plain")
+      public Response m2()
+      {
+         return Response.ok(file).tag(new EntityTag("v1")).build();
+      }
+
+      @GET
+      @Path("seekable")
+      @Produces("text/plain")
+      public SeekableEntity m3()
+      {
+         return new BytesEntity(DATA.getBytes());
+      }
+   }
+
+   /**
+    * SeekableEntity backed by byte array.
+    */
+   public static class BytesEntity implements SeekableEntity
+   {
+      private final byte[] bytes;
+
+      public BytesEntity(byte[] bytes)
+      {
+         this.bytes = bytes;
+      }
+
+      public long getLength()
+      {
+         return bytes.length;
+      }
+
+      public long getLastModified()
+      {
+         return -1;
+      }
+
+      public SeekableByteChannel openChannel() throws IOException
+      {
+         return new SeekableByteChannel()
+         {
+            private int position;
+
+            private boolean open = true;
+
+            public int read(ByteBuffer dst)
+            {
+               if (position >= bytes.length)
+                  return -1;
+               int n = Math.min(dst.remaining(), bytes.length - position);
+               dst.put(bytes, position, n);
+               position += n;
+               return n;
+            }
+
+            public int write(ByteBuffer src)
+            {
+               throw new UnsupportedOperationException();
+            }
+
+            public long position()
+            {
+               return position;
+            }
+
+            public SeekableByteChannel position(long newPosition)
+            {
+               position = (int)newPosition;
+               return this;
+            }
+
+            public long size()
+            {
+               return bytes.length;
+            }
+
+            public SeekableByteChannel truncate(long size)
+            {
+               throw new UnsupportedOperationException();
+            }
+
+            public boolean isOpen()
+            {
+               return open;
+            }
+
+            public void close()
+            {
+               open = false;
+            }
+         };
+      }
+   }
+
+   private Resource1 resource;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      file = File.createTempFile("rangetest", null);
+      FileOutputStream out = new FileOutputStream(file);
+      out.write(DATA.getBytes());
+      out.close();
+      resource = new Resource1();
+      registry(resource);
+   }
+
+   @Override
+   public void tearDown() throws Exception
+   {
+      unregistry(resource);
+      file.delete();
+      super.tearDown();
+   }
+
+   public void testWholeEntity() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response =
+         launcher.service("GET", "/range/file", "", new MultivaluedMapImpl(), null, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("bytes", response.getHttpHeaders().getFirst(ExtHttpHeaders.ACCEPT_RANGES));
+      assertEquals(Integer.toString(DATA.length()), response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_LENGTH)
+         .toString());
+      assertEquals(DATA, new String(writer.getBody()));
+   }
+
+   public void testSingleRange() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response = launcher.service("GET", "/range/file", "", range("bytes=10-15"), null, writer, null);
+      assertEquals(206, response.getStatus());
+      assertEquals("bytes 10-15/36", response.getHttpHeaders().getFirst(ExtHttpHeaders.CONTENTRANGE));
+      assertEquals("6", response.getHttpHeaders().getFirst(HttpHeaders.CONTENT_LENGTH).toString());
+      assertEquals("text/plain", response.getContentType().toString());
+      assertEquals("abcdef", new String(writer.getBody()));
+
+      response = launcher.service("GET", "/range/file", "", range("bytes=-4"), null, writer, null);
+      assertEquals(206, response.getStatus());
+      assertEquals("bytes 32-35/36", response.getHttpHeaders().getFirst(ExtHttpHeaders.CONTENTRANGE));
+      assertEquals("wxyz", new String(writer.getBody()));
+
+      response = launcher.service("GET", "/range/file", "", range("bytes=30-"), null, writer, null);
+      assertEquals(206, response.getStatus());
+      assertEquals("uvwxyz", new String(writer.getBody()));
+   }
+
+   public void testMultipleRanges() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response =
+         launcher.service("GET", "/range/seekable", "", range("bytes=0-1, 20-21,1-2"), null, writer, null);
+      assertEquals(206, response.getStatus());
+      String contentType = response.getContentType().toString();
+      assertTrue(contentType, contentType.startsWith("multipart/byteranges"));
+      String boundary = response.getContentType().getParameters().get("boundary");
+      assertNotNull(boundary);
+      assertNull(response.getHttpHeaders().getFirst(ExtHttpHeaders.CONTENTRANGE));
+
+      String body = new String(writer.getBody(), "ISO-8859-1");
+      assertEquals(Integer.toString(writer.getBody().length), response.getHttpHeaders().getFirst(
+         HttpHeaders.CONTENT_LENGTH).toString());
+      String expected =
+         "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-2/36\r\n\r\n012" //
+            + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 20-21/36\r\n\r\nkl" //
+            + "\r\n--" + boundary + "--\r\n";
+      assertEquals(expected, body);
+   }
+
+   public void testNotSatisfiable() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response = launcher.service("GET", "/range/file", "", range("bytes=100-"), null, writer, null);
+      assertEquals(416, response.getStatus());
+      assertEquals("bytes */36", response.getHttpHeaders().getFirst(ExtHttpHeaders.CONTENTRANGE));
+      assertNull(writer.getBody());
+
+      // Invalid header is ignored.
+      response = launcher.service("GET", "/range/file", "", range("bytes=5-2"), null, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals(DATA, new String(writer.getBody()));
+   }
+
+   public void testIfRange() throws Exception
+   {
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      MultivaluedMap<String, String> headers = range("bytes=0-3");
+      headers.putSingle(ExtHttpHeaders.IF_RANGE, "\"v1\"");
+      ContainerResponse response = launcher.service("GET", "/range/tagged", "", headers, null, writer, null);
+      assertEquals(206, response.getStatus());
+      assertEquals("0123", new String(writer.getBody()));
+
+      headers.putSingle(ExtHttpHeaders.IF_RANGE, "\"v0\"");
+      response = launcher.service("GET", "/range/tagged", "", headers, null, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals(DATA, new String(writer.getBody()));
+      assertEquals(new EntityTag("v1"), response.getHttpHeaders().getFirst(HttpHeaders.ETAG));
+   }
+
+   public void testTransferToChannel() throws Exception
+   {
+      File target = File.createTempFile("rangetest", null);
+      try
+      {
+         FileOutputStream out = new FileOutputStream(target);
+         try
+         {
+            out.write('>');
+            SeekableByteChannel channel = new FileInputStream(file).getChannel();
+            try
+            {
+               IOHelper.transfer(channel, 10, 6, out);
+            }
+            finally
+            {
+               channel.close();
+            }
+         }
+         finally
+         {
+            out.close();
+         }
+         byte[] result = new byte[(int)target.length()];
+         FileInputStream in = new FileInputStream(target);
+         assertEquals(result.length, in.read(result));
+         in.close();
+         assertEquals(">abcdef", new String(result));
+      }
+      finally
+      {
+         target.delete();
+      }
+   }
+
+   public void testParse() throws Exception
+   {
+      assertNull(ByteRange.parse("items=0-1", 10));
+      assertNull(ByteRange.parse("bytes=a-b", 10));
+      assertNull(ByteRange.parse("bytes=", 10));
+      assertTrue(ByteRange.parse("bytes=10-", 10).isEmpty());
+      List<ByteRange> ranges = ByteRange.parse("bytes=5-6,0-1,2-3,,-2", 10);
+      assertEquals(3, ranges.size());
+      assertEquals(new ByteRange(0, 3), ranges.get(0));
+      assertEquals(new ByteRange(5, 6), ranges.get(1));
+      assertEquals(new ByteRange(8, 9), ranges.get(2));
+   }
+
+   private static MultivaluedMap<String, String> range(String range)
+   {
+      MultivaluedMap<String, String> headers = new MultivaluedMapImpl();
+      headers.putSingle(ExtHttpHeaders.RANGE, range);
+      return headers;
+   }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.resource;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.resource.AbstractResourceDescriptor;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+
+/**
+ * @version $Id: $
+ */
+public class ResourceDescriptorCacheTest extends BaseTest
+{
+
+   public void testCacheHit()
+   {
+      ResourceDescriptorCache cache = new ResourceDescriptorCache(null);
+      AbstractResourceDescriptor d1 = cache.getDescriptor(new SubResource1());
+      AbstractResourceDescriptor d2 = cache.getDescriptor(new SubResource1());
+      assertSame(d1, d2);
+      assertEquals(SubResource1.class, d1.getObjectClass());
+      // HEAD and OPTIONS are added by default.
+      assertEquals(1, d1.getResourceMethods().getList("GET").size());
+      assertEquals(1, d1.getSubResourceMethods().size());
+      assertEquals(1, cache.getMissCount());
+      assertEquals(1, cache.getHitCount());
+   }
+
+   public void testClear()
+   {
+      ResourceDescriptorCache cache = new ResourceDescriptorCache(null);
+      AbstractResourceDescriptor d1 = cache.getDescriptor(new SubResource1());
+      cache.getDescriptor(new SubResource2());
+      assertEquals(2, cache.size());
+      assertEquals(2, cache.getMissCount());
+      cache.clear();
+      assertEquals(0, cache.size());
+      assertNotSame(d1, cache.getDescriptor(new SubResource1()));
+      assertEquals(3, cache.getMissCount());
+   }
+
+   public void testLocator() throws Exception
+   {
+      registry(Resource1.class);
+      for (int i = 0; i < 3; i++)
+      {
+         assertEquals("sub", launcher.service("GET", "/a/sub", "", null, null, null).getEntity());
+      }
+      unregistry(Resource1.class);
+   }
+
+   @Path("a")
+   public static class Resource1
+   {
+      @Path("sub")
+      public SubResource1 m0()
+      {
+         return new SubResource1();
+      }
+   }
+
+   public static class SubResource1
+   {
+      @GET
+      public String m0()
+      {
+         return "sub";
+      }
+
+      @GET
+      @Path("b")
+      public String m1()
+      {
+         return "sub-b";
+      }
+   }
+
+   public static class SubResource2
+   {
+      @GET
+      public String m0()
+      {
+         return "sub2";
+      }
+   }
+}
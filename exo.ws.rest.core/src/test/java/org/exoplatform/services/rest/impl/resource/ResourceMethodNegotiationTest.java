@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.impl.resource;
+
+import org.exoplatform.services.rest.BaseTest;
+import org.exoplatform.services.rest.impl.ContainerRequest;
+import org.exoplatform.services.rest.impl.MultivaluedMapImpl;
+import org.exoplatform.services.rest.resource.ResourceMethodDescriptor;
+import org.exoplatform.services.rest.resource.ResourceMethodMap;
+import org.exoplatform.services.rest.resource.ResourceMethodMap.Negotiation;
+
+import java.net.URI;
+import java.util.List;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * @version $Id: $
+ */
+public class ResourceMethodNegotiationTest extends BaseTest
+{
+
+   @Path("a")
+   public static class Resource1
+   {
+      @GET
+      @Produces("text/plain")
+      public String m0()
+      {
+         return "m0";
+      }
+
+      @GET
+      @Produces("application/json")
+      public String m1()
+      {
+         return "m1";
+      }
+
+      @POST
+      @Consumes("text/plain")
+      public void m2(String entity)
+      {
+      }
+   }
+
+   private ResourceMethodMap<ResourceMethodDescriptor> rmm;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      rmm = new AbstractResourceDescriptorImpl(Resource1.class).getResourceMethods();
+   }
+
+   public void testNegotiation()
+   {
+      Negotiation<ResourceMethodDescriptor> n = rmm.negotiate(request("GET", null, "application/json"));
+      assertEquals(200, n.getStatus());
+      assertEquals("m1", n.getMethod().getMethod().getName());
+      assertEquals(MediaType.APPLICATION_JSON_TYPE, n.getMediaType());
+
+      n = rmm.negotiate(request("GET", null, "text/plain;q=0.5,application/json;q=0.4"));
+      assertEquals("m0", n.getMethod().getMethod().getName());
+      assertEquals(MediaType.TEXT_PLAIN_TYPE, n.getMediaType());
+   }
+
+   public void testFailures()
+   {
+      assertEquals(405, rmm.negotiate(request("PUT", null, null)).getStatus());
+      assertEquals(415, rmm.negotiate(request("POST", "text/xml", null)).getStatus());
+      assertEquals(406, rmm.negotiate(request("GET", null, "text/xml")).getStatus());
+      // Unsupported HTTP method must not be added in map.
+      assertNull(rmm.get("PUT"));
+   }
+
+   public void testCache()
+   {
+      Negotiation<ResourceMethodDescriptor> n1 = rmm.negotiate(request("GET", null, "application/json"));
+      Negotiation<ResourceMethodDescriptor> n2 = rmm.negotiate(request("GET", null, "application/json"));
+      assertSame(n1, n2);
+      // Parameters of content type are not used for negotiation.
+      n1 = rmm.negotiate(request("POST", "text/plain;charset=utf-8", null));
+      n2 = rmm.negotiate(request("POST", "text/plain;charset=iso-8859-1", null));
+      assertSame(n1, n2);
+      assertEquals(200, n1.getStatus());
+      // Changing of map resets cache.
+      rmm.sort();
+      assertNotSame(n1, rmm.negotiate(request("POST", "text/plain;charset=utf-8", null)));
+   }
+
+   public void testResetDuringNegotiation()
+   {
+      ContainerRequest request = new ContainerRequest("GET", URI.create("/a"), URI.create(""), null,
+         new MultivaluedMapImpl())
+      {
+         @Override
+         public MediaType getAcceptableMediaType(List<MediaType> mediaTypes)
+         {
+            // Map is changed while negotiation is in progress.
+            rmm.sort();
+            return super.getAcceptableMediaType(mediaTypes);
+         }
+      };
+      Negotiation<ResourceMethodDescriptor> n = rmm.negotiate(request);
+      assertEquals(200, n.getStatus());
+      // Result computed before reset must not be cached.
+      assertNotSame(n, rmm.negotiate(request("GET", null, null)));
+   }
+
+   private ContainerRequest request(String method, String contentType, String accept)
+   {
+      MultivaluedMap<String, String> headers = new MultivaluedMapImpl();
+      if (contentType != null)
+         headers.putSingle("Content-Type", contentType);
+      if (accept != null)
+         headers.putSingle("Accept", accept);
+      return new ContainerRequest(method, URI.create("/a"), URI.create(""), null, headers);
+   }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.servlet;
+
+import junit.framework.TestCase;
+
+import org.exoplatform.services.test.mock.MockHttpServletRequest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * @version $Id: $
+ */
+public class ServletContainerRequestTest extends TestCase
+{
+
+   /**
+    * Counts access to headers of request.
+    */
+   private static class CountingRequest extends MockHttpServletRequest
+   {
+      private final List<String> requested = new ArrayList<String>();
+
+      private int namesRequested;
+
+      CountingRequest(String url, Map<String, List<String>> headers)
+      {
+         super(url, null, 0, "GET", headers);
+      }
+
+      @Override
+      public Enumeration getHeaders(String name)
+      {
+         requested.add(name);
+         return super.getHeaders(name);
+      }
+
+      @Override
+      public Enumeration getHeaderNames()
+      {
+         namesRequested++;
+         return super.getHeaderNames();
+      }
+   }
+
+   public void testLazyHeaders() throws Exception
+   {
+      Map<String, List<String>> headers = new HashMap<String, List<String>>();
+      headers.put("Accept", Arrays.asList("text/plain"));
+      headers.put("X-Test", Arrays.asList("a", "b"));
+      CountingRequest servletRequest = new CountingRequest("http://localhost:8080/context/a/b", headers);
+      ServletContainerRequest request = new ServletContainerRequest(servletRequest);
+      assertTrue(servletRequest.requested.isEmpty());
+      assertEquals(0, servletRequest.namesRequested);
+
+      MultivaluedMap<String, String> h = request.getRequestHeaders();
+      assertEquals("text/plain", h.getFirst("accept"));
+      assertEquals(Arrays.asList("a", "b"), h.get("x-test"));
+      assertEquals(Arrays.asList("a", "b"), request.getRequestHeader("X-TEST"));
+      assertNull(h.get("Content-Type"));
+      assertFalse(h.containsKey("content-type"));
+      assertEquals(3, servletRequest.requested.size());
+      assertEquals(0, servletRequest.namesRequested);
+
+      // Requested once.
+      h.getFirst("Accept");
+      h.get("content-type");
+      assertEquals(3, servletRequest.requested.size());
+
+      // Iteration copies all headers.
+      assertEquals(2, h.size());
+      assertTrue(h.keySet().contains("x-test"));
+      assertEquals(1, servletRequest.namesRequested);
+      assertEquals(Arrays.asList("a", "b"), h.get("X-Test"));
+
+      try
+      {
+         h.putSingle("accept", "text/xml");
+         fail("UnsupportedOperationException expected");
+      }
+      catch (UnsupportedOperationException e)
+      {
+      }
+   }
+
+   public void testUris() throws Exception
+   {
+      HttpServletRequest servletRequest =
+         new MockHttpServletRequest("http://localhost:8080/context/a/b%20c?x=1&y=%7B", null, 0, "GET", null);
+      ServletContainerRequest request = new ServletContainerRequest(servletRequest);
+      assertEquals(new URI("http://localhost:8080/context"), request.getBaseUri());
+      assertEquals(new URI("http://localhost:8080/context/a/b%20c?x=1&y=%7B"), request.getRequestUri());
+      assertEquals("/a/b c", request.getRequestUri().getPath().substring(request.getBaseUri().getPath().length()));
+
+      // Not encoded characters.
+      servletRequest = new MockHttpServletRequest("http://localhost:8080/context/a?x=1 2", null, 0, "GET", null);
+      request = new ServletContainerRequest(servletRequest);
+      assertEquals(new URI("http://localhost:8080/context/a?x=1%202"), request.getRequestUri());
+   }
+}
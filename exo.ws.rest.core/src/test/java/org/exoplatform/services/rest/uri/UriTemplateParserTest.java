@@ -137,6 +137,16 @@ public class UriTemplateParserTest extends TestCase
       testNames(p.getParameterNames(), "x", "y", "z");
    }
 
+   public void testLiteralPrefix()
+   {
+      assertEquals("/a/b", new UriTemplateParser("/a/b").getLiteralPrefix());
+      assertEquals("/a/", new UriTemplateParser("/a/{x}/b").getLiteralPrefix());
+      assertEquals("/a/b", new UriTemplateParser("/a/b{x}").getLiteralPrefix());
+      assertEquals("/", new UriTemplateParser("/{x}/{y:.+}").getLiteralPrefix());
+      assertEquals("/a%20/", new UriTemplateParser("/a /{x}").getLiteralPrefix());
+      assertEquals("", new UriTemplateParser("").getLiteralPrefix());
+   }
+
    private static void testNames(List<String> templateVariables, String... names)
    {
       assertEquals(names.length, templateVariables.size());
@@ -0,0 +1,469 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.ext.proxy;
+
+import org.exoplatform.common.http.client.HTTPConnection;
+import org.exoplatform.common.http.client.ProtocolNotSuppException;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool of keep-alive {@link HTTPConnection}s. Connections are grouped by route
+ * (scheme, host and port). Connection is checked out with
+ * {@link #acquire(URL)} and must be returned with
+ * {@link #release(HTTPConnection, boolean)} when response is consumed, until
+ * then it is not shared with other callers.
+ * <p>
+ * Number of connections is limited per route and in total. If limit is
+ * reached caller waits for released connection at most
+ * <code>acquireTimeout</code> milliseconds. Connections which stay idle longer
+ * then <code>idleTimeout</code> are closed. Before reuse connection is checked
+ * that it has no requests in progress and its socket is not closed, see
+ * {@link HTTPConnection#isAlive()}. Socket closed by server without notice is
+ * detected when request is sent, then idempotent request is retried once
+ * with new socket by HTTP client.
+ * </p>
+ * <p>
+ * Connection returns its socket to
+ * {@link org.exoplatform.common.http.client.ConnectionManager} when response
+ * is read, unless sharing of sockets is disabled. So limits of this pool bound
+ * number of requests in progress per route and in total, not number of open
+ * sockets. Idle sockets are limited by properties of
+ * <code>ConnectionManager</code>.
+ * </p>
+ *
+ * @version $Id: $
+ */
+public class HttpConnectionPool
+{
+
+   /** Default max number of connections per route. */
+   public static final int DEFAULT_MAX_PER_ROUTE = 20;
+
+   /** Default max number of connections in pool. */
+   public static final int DEFAULT_MAX_TOTAL = 200;
+
+   /** Default time (ms) after which idle connection is closed. */
+   public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+   /** Default max time (ms) to wait for free connection. */
+   public static final long DEFAULT_ACQUIRE_TIMEOUT = 10000;
+
+   private static final class Entry
+   {
+      private final String route;
+
+      private final HTTPConnection connection;
+
+      private long idleSince;
+
+      private Entry(String route, HTTPConnection connection)
+      {
+         this.route = route;
+         this.connection = connection;
+      }
+   }
+
+   private final int maxPerRoute;
+
+   private final int maxTotal;
+
+   private final long idleTimeout;
+
+   private final long acquireTimeout;
+
+   /** Idle connections per route, most recently used first. */
+   private final Map<String, LinkedList<Entry>> idle = new HashMap<String, LinkedList<Entry>>();
+
+   /** Number of leased and idle connections per route. */
+   private final Map<String, int[]> allocated = new HashMap<String, int[]>();
+
+   private final Map<HTTPConnection, Entry> leased = new IdentityHashMap<HTTPConnection, Entry>();
+
+   private int total;
+
+   /** Time of next check of idle connections of all routes. */
+   private long nextSweep;
+
+   private int idleCount;
+
+   private long createCount;
+
+   private long reuseCount;
+
+   private long evictCount;
+
+   private long timeoutCount;
+
+   /**
+    * @param maxPerRoute max number of connections per route
+    * @param maxTotal max number of connections in pool
+    * @param idleTimeout time (ms) after which idle connection is closed
+    * @param acquireTimeout max time (ms) to wait for free connection
+    */
+   public HttpConnectionPool(int maxPerRoute, int maxTotal, long idleTimeout, long acquireTimeout)
+   {
+      if (maxPerRoute < 1 || maxTotal < 1)
+         throw new IllegalArgumentException("Max number of connections may not be less then 1. ");
+      this.maxPerRoute = maxPerRoute;
+      this.maxTotal = maxTotal;
+      this.idleTimeout = idleTimeout;
+      this.acquireTimeout = acquireTimeout;
+   }
+
+   public HttpConnectionPool()
+   {
+      this(DEFAULT_MAX_PER_ROUTE, DEFAULT_MAX_TOTAL, DEFAULT_IDLE_TIMEOUT, DEFAULT_ACQUIRE_TIMEOUT);
+   }
+
+   /**
+    * Get connection for route of <code>url</code>. Idle connection is reused
+    * if there is any, otherwise new one is created if limits allow it.
+    *
+    * @param url URL
+    * @return connection
+    * @throws ProtocolNotSuppException if protocol of <code>url</code> is not
+    *         supported
+    * @throws IOException if there is no free connection after
+    *         <code>acquireTimeout</code>
+    */
+   public HTTPConnection acquire(URL url) throws ProtocolNotSuppException, IOException
+   {
+      String route = getRoute(url);
+      List<HTTPConnection> discarded = new ArrayList<HTTPConnection>();
+      try
+      {
+         synchronized (this)
+         {
+            long now = System.currentTimeMillis();
+            long deadline = now + acquireTimeout;
+            // Connections to routes which are not used any more are closed
+            // here, there is no background thread for it.
+            if (now >= nextSweep)
+               evictExpired(now, discarded);
+            while (true)
+            {
+               LinkedList<Entry> list = idle.get(route);
+               while (list != null && !list.isEmpty())
+               {
+                  Entry entry = list.removeFirst();
+                  idleCount--;
+                  if (now - entry.idleSince < idleTimeout && isReusable(entry.connection))
+                  {
+                     leased.put(entry.connection, entry);
+                     reuseCount++;
+                     return entry.connection;
+                  }
+                  evictCount++;
+                  deallocate(entry, discarded);
+               }
+               if (list != null)
+                  idle.remove(route);
+               if (getAllocated(route) < maxPerRoute)
+               {
+                  if (total >= maxTotal)
+                     evictOldest(discarded);
+                  if (total < maxTotal)
+                  {
+                     allocate(route);
+                     break;
+                  }
+               }
+               long timeout = deadline - now;
+               if (timeout <= 0)
+               {
+                  timeoutCount++;
+                  throw new IOException("Timeout waiting for connection to " + route);
+               }
+               try
+               {
+                  wait(timeout);
+               }
+               catch (InterruptedException e)
+               {
+                  Thread.currentThread().interrupt();
+                  throw new IOException("Interrupted while waiting for connection to " + route, e);
+               }
+               now = System.currentTimeMillis();
+            }
+         }
+      }
+      finally
+      {
+         close(discarded);
+      }
+
+      // Connection is created out of lock, slot for it is already reserved.
+      HTTPConnection connection = null;
+      try
+      {
+         connection = new HTTPConnection(url);
+         return connection;
+      }
+      finally
+      {
+         synchronized (this)
+         {
+            if (connection != null)
+            {
+               leased.put(connection, new Entry(route, connection));
+               createCount++;
+            }
+            else
+            {
+               deallocate(route);
+               notifyAll();
+            }
+         }
+      }
+   }
+
+   /**
+    * Return connection to the pool.
+    *
+    * @param connection connection obtained from {@link #acquire(URL)}
+    * @param reusable <code>false</code> if connection is in unknown state, e.g.
+    *        response was not read completely. Such connection is closed.
+    */
+   public void release(HTTPConnection connection, boolean reusable)
+   {
+      List<HTTPConnection> discarded = new ArrayList<HTTPConnection>(1);
+      synchronized (this)
+      {
+         Entry entry = leased.remove(connection);
+         if (entry == null)
+            return;
+         if (reusable && idleTimeout > 0 && isReusable(connection))
+         {
+            LinkedList<Entry> list = idle.get(entry.route);
+            if (list == null)
+            {
+               list = new LinkedList<Entry>();
+               idle.put(entry.route, list);
+            }
+            entry.idleSince = System.currentTimeMillis();
+            list.addFirst(entry);
+            idleCount++;
+         }
+         else
+         {
+            deallocate(entry, discarded);
+         }
+         notifyAll();
+      }
+      close(discarded);
+   }
+
+   /**
+    * Close connections which stay idle longer then <code>idleTimeout</code>.
+    */
+   public void closeExpired()
+   {
+      List<HTTPConnection> discarded = new ArrayList<HTTPConnection>();
+      synchronized (this)
+      {
+         evictExpired(System.currentTimeMillis(), discarded);
+         if (!discarded.isEmpty())
+            notifyAll();
+      }
+      close(discarded);
+   }
+
+   /**
+    * Close all idle connections. Leased connections are closed when they are
+    * released.
+    */
+   public void shutdown()
+   {
+      List<HTTPConnection> discarded = new ArrayList<HTTPConnection>();
+      synchronized (this)
+      {
+         for (LinkedList<Entry> list : idle.values())
+         {
+            for (Entry entry : list)
+               deallocate(entry, discarded);
+            list.clear();
+         }
+         idle.clear();
+         idleCount = 0;
+         notifyAll();
+      }
+      close(discarded);
+   }
+
+   /**
+    * @return number of created connections
+    */
+   public synchronized long getCreateCount()
+   {
+      return createCount;
+   }
+
+   /**
+    * @return number of times when idle connection was reused
+    */
+   public synchronized long getReuseCount()
+   {
+      return reuseCount;
+   }
+
+   /**
+    * @return number of idle connections closed because of timeout, failed
+    *         health check or to make place for connection to other route
+    */
+   public synchronized long getEvictCount()
+   {
+      return evictCount;
+   }
+
+   /**
+    * @return number of times when caller did not get connection in
+    *         <code>acquireTimeout</code>
+    */
+   public synchronized long getTimeoutCount()
+   {
+      return timeoutCount;
+   }
+
+   /**
+    * @return number of connections currently in use
+    */
+   public synchronized int getLeasedCount()
+   {
+      return leased.size();
+   }
+
+   /**
+    * @return number of idle connections
+    */
+   public synchronized int getIdleCount()
+   {
+      return idleCount;
+   }
+
+   /**
+    * @return number of routes for which pool keeps connections
+    */
+   public synchronized int getRouteCount()
+   {
+      return allocated.size();
+   }
+
+   /**
+    * @param connection connection
+    * @return <code>true</code> if connection has no requests in progress and
+    *         its sockets are not closed
+    */
+   private static boolean isReusable(HTTPConnection connection)
+   {
+      return connection.isIdle() && connection.isAlive();
+   }
+
+   static String getRoute(URL url)
+   {
+      int port = url.getPort();
+      if (port == -1)
+         port = url.getDefaultPort();
+      return url.getProtocol().toLowerCase() + "://" + url.getHost().toLowerCase() + ":" + port;
+   }
+
+   private void evictExpired(long now, List<HTTPConnection> discarded)
+   {
+      for (Iterator<LinkedList<Entry>> i = idle.values().iterator(); i.hasNext();)
+      {
+         LinkedList<Entry> list = i.next();
+         // The oldest connections are at the end of list.
+         while (!list.isEmpty() && now - list.getLast().idleSince >= idleTimeout)
+         {
+            idleCount--;
+            evictCount++;
+            deallocate(list.removeLast(), discarded);
+         }
+         if (list.isEmpty())
+            i.remove();
+      }
+      nextSweep = now + Math.max(idleTimeout, 1000);
+   }
+
+   /**
+    * Close the least recently used idle connection to free slot in pool.
+    */
+   private void evictOldest(List<HTTPConnection> discarded)
+   {
+      LinkedList<Entry> oldest = null;
+      for (LinkedList<Entry> list : idle.values())
+      {
+         if (!list.isEmpty() && (oldest == null || list.getLast().idleSince < oldest.getLast().idleSince))
+            oldest = list;
+      }
+      if (oldest != null)
+      {
+         Entry entry = oldest.removeLast();
+         if (oldest.isEmpty())
+            idle.remove(entry.route);
+         idleCount--;
+         evictCount++;
+         deallocate(entry, discarded);
+      }
+   }
+
+   private int getAllocated(String route)
+   {
+      int[] count = allocated.get(route);
+      return count == null ? 0 : count[0];
+   }
+
+   private void allocate(String route)
+   {
+      int[] count = allocated.get(route);
+      if (count == null)
+      {
+         count = new int[1];
+         allocated.put(route, count);
+      }
+      count[0]++;
+      total++;
+   }
+
+   private void deallocate(Entry entry, List<HTTPConnection> discarded)
+   {
+      deallocate(entry.route);
+      discarded.add(entry.connection);
+   }
+
+   private void deallocate(String route)
+   {
+      int[] count = allocated.get(route);
+      if (count != null && --count[0] == 0)
+         allocated.remove(route);
+      total--;
+   }
+
+   private static void close(List<HTTPConnection> connections)
+   {
+      for (HTTPConnection connection : connections)
+         connection.stop();
+   }
+}
@@ -22,23 +22,34 @@ import org.exoplatform.common.http.client.HttpOutputStream;
 import org.exoplatform.common.http.client.ModuleException;
 import org.exoplatform.common.http.client.NVPair;
 import org.exoplatform.common.http.client.ProtocolNotSuppException;
+import org.exoplatform.management.annotations.Managed;
+import org.exoplatform.management.annotations.ManagedDescription;
+import org.exoplatform.management.jmx.annotations.NameTemplate;
+import org.exoplatform.management.jmx.annotations.Property;
+import org.exoplatform.management.rest.annotations.RESTEndpoint;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
+import org.exoplatform.services.rest.ApplicationContext;
+import org.exoplatform.services.rest.impl.ApplicationContextImpl;
+import org.exoplatform.services.rest.impl.provider.BufferPool;
 import org.exoplatform.services.rest.resource.ResourceContainer;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -48,6 +59,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.core.Response.ResponseBuilder;
 
@@ -56,128 +68,112 @@ import javax.ws.rs.core.Response.ResponseBuilder;
  * @version $Id$
  */
 @Path("proxy")
+@Managed
+@ManagedDescription("Proxy service")
+@NameTemplate(@Property(key = "service", value = "proxy"))
+@RESTEndpoint(path = "proxy")
 public class ProxyService implements ResourceContainer
 {
    protected static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
 
+   /**
+    * Max number of pooled connections per (scheme, host, port), i.e. max
+    * number of proxied requests in progress. Idle sockets are limited
+    * separately, see {@link HttpConnectionPool}.
+    */
+   public static final String POOL_MAX_PER_ROUTE = "exo.ws.rest.proxy.pool.maxPerRoute";
+
+   /** Max number of pooled connections, i.e. max number of proxied requests in progress. */
+   public static final String POOL_MAX_TOTAL = "exo.ws.rest.proxy.pool.maxTotal";
+
+   /** Time (ms) after which idle pooled connection is closed. */
+   public static final String POOL_IDLE_TIMEOUT = "exo.ws.rest.proxy.pool.idleTimeout";
+
+   /** Max time (ms) to wait for free pooled connection. */
+   public static final String POOL_ACQUIRE_TIMEOUT = "exo.ws.rest.proxy.pool.acquireTimeout";
+
    private static final Log LOG = ExoLogger.getLogger(ProxyService.class);
 
+   /** Max number of bytes which are read but not written yet in each direction of proxy request. */
+   public static final String MAX_IN_FLIGHT_BYTES = "exo.ws.rest.proxy.maxInFlightBytes";
+
+   /** Max total size of buffers kept for reuse. */
+   public static final String BUFFERS_MAX_SIZE = "exo.ws.rest.proxy.buffers.maxSize";
+
+   public static final int DEFAULT_MAX_IN_FLIGHT_BYTES = 65536;
+
+   public static final long DEFAULT_BUFFERS_MAX_SIZE = 4 * 1024 * 1024;
+
+   private final HttpConnectionPool pool;
+
+   private final int maxInFlightBytes;
+
+   private final BufferPool buffers;
+
+   private final ProxyStatistics statistics = new ProxyStatistics();
+
+   public ProxyService()
+   {
+      this.maxInFlightBytes = Math.max(1, Integer.getInteger(MAX_IN_FLIGHT_BYTES, DEFAULT_MAX_IN_FLIGHT_BYTES));
+      this.buffers =
+         new BufferPool(maxInFlightBytes, maxInFlightBytes, Long.getLong(BUFFERS_MAX_SIZE, DEFAULT_BUFFERS_MAX_SIZE));
+      this.pool =
+         new HttpConnectionPool(Integer.getInteger(POOL_MAX_PER_ROUTE, HttpConnectionPool.DEFAULT_MAX_PER_ROUTE),
+            Integer.getInteger(POOL_MAX_TOTAL, HttpConnectionPool.DEFAULT_MAX_TOTAL), Long.getLong(POOL_IDLE_TIMEOUT,
+               HttpConnectionPool.DEFAULT_IDLE_TIMEOUT), Long.getLong(POOL_ACQUIRE_TIMEOUT,
+               HttpConnectionPool.DEFAULT_ACQUIRE_TIMEOUT));
+   }
+
    @DELETE
    public Response doProxyDelete(@Context HttpHeaders headers, @Context UriInfo uriInfo,
       @QueryParam("url") String urlParam)
    {
-      if (urlParam == null)
-      {
-         IllegalArgumentException e = new IllegalArgumentException("'url' parameter not found in proxy request");
-         throw new WebApplicationException(e, createErrorResponse(e, 404));
-      }
-      try
-      {
-         URL url = new URL(urlParam);
-         HTTPConnection conn = new HTTPConnection(url);
-         conn.setTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
-         NVPair[] headerPairs = toNVPair(headers.getRequestHeaders(), //
-            Collections.singleton(new CaseInsensitiveStringWrapper(HttpHeaders.HOST)));
-         conn.setAllowUserInteraction(false);
-         NVPair credentials = getCredentials(url);
-         if (credentials != null)
-         {
-            conn.addBasicAuthorization(null, credentials.getName(), credentials.getValue());
-         }
-         HTTPResponse resp = conn.Delete(url.getFile(), headerPairs);
-         if (resp.getStatusCode() >= 300)
-         {
-            if (LOG.isDebugEnabled())
-            {
-               // Do not read data if debug is off.
-               // Client may get empty response, may not read stream twice.
-               LOG.debug("DELETE. received status " + resp.getStatusCode() + ", " + resp.getReasonLine());
-               byte[] data = resp.getData();
-               if (data != null)
-               {
-                  LOG.debug("DELETE. Text : " + new String(data));
-               }
-            }
-         }
-         return createResponse(resp);
-      }
-      catch (MalformedURLException mue)
-      {
-         throw new WebApplicationException(mue, createErrorResponse(mue, 400));
-      }
-      catch (ProtocolNotSuppException pnse)
-      {
-         throw new WebApplicationException(pnse, createErrorResponse(pnse, 400));
-      }
-      catch (IOException ioe)
-      {
-         throw new WebApplicationException(ioe, createErrorResponse(ioe, 500));
-      }
-      catch (ModuleException me)
-      {
-         throw new WebApplicationException(me, createErrorResponse(me, 500));
-      }
+      return doProxy("DELETE", headers, urlParam, null);
    }
 
    @GET
    public Response doProxyGet(@Context HttpHeaders headers, @Context UriInfo uriInfo, @QueryParam("url") String urlParam)
    {
-      if (urlParam == null)
-      {
-         IllegalArgumentException e = new IllegalArgumentException("'url' parameter not found in proxy request");
-         throw new WebApplicationException(e, createErrorResponse(e, 404));
-      }
-      try
-      {
-         URL url = new URL(urlParam);
-         HTTPConnection conn = new HTTPConnection(url);
-         conn.setTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
-         NVPair[] headerPairs = toNVPair(headers.getRequestHeaders(), //
-            Collections.singleton(new CaseInsensitiveStringWrapper(HttpHeaders.HOST)));
-         conn.setAllowUserInteraction(false);
-         NVPair credentials = getCredentials(url);
-         if (credentials != null)
-         {
-            conn.addBasicAuthorization(null, credentials.getName(), credentials.getValue());
-         }
-         HTTPResponse resp = conn.Get(url.getFile(), (NVPair[])null, headerPairs);
-         if (resp.getStatusCode() >= 300)
-         {
-            if (LOG.isDebugEnabled())
-            {
-               // Do not read data if debug is off.
-               // Client may get empty response, may not read stream twice.
-               LOG.debug("GET. received status " + resp.getStatusCode() + ", " + resp.getReasonLine());
-               byte[] data = resp.getData();
-               if (data != null)
-               {
-                  LOG.debug("GET. Text : " + new String(data));
-               }
-            }
-         }
-         return createResponse(resp);
-      }
-      catch (MalformedURLException mue)
-      {
-         throw new WebApplicationException(mue, createErrorResponse(mue, 400));
-      }
-      catch (ProtocolNotSuppException pnse)
-      {
-         throw new WebApplicationException(pnse, createErrorResponse(pnse, 400));
-      }
-      catch (IOException ioe)
-      {
-         throw new WebApplicationException(ioe, createErrorResponse(ioe, 500));
-      }
-      catch (ModuleException me)
-      {
-         throw new WebApplicationException(me, createErrorResponse(me, 500));
-      }
+      return doProxy("GET", headers, urlParam, null);
+   }
+
+   @HEAD
+   public Response doProxyHead(@Context HttpHeaders headers, @Context UriInfo uriInfo,
+      @QueryParam("url") String urlParam)
+   {
+      return doProxy("HEAD", headers, urlParam, null);
    }
 
    @POST
    public Response doProxyPost(@Context HttpHeaders headers, @Context UriInfo uriInfo,
       @QueryParam("url") String urlParam, InputStream entity)
+   {
+      return doProxy("POST", headers, urlParam, entity);
+   }
+
+   @PUT
+   public Response doProxyPut(@Context HttpHeaders headers, @Context UriInfo uriInfo,
+      @QueryParam("url") String urlParam, InputStream entity)
+   {
+      return doProxy("PUT", headers, urlParam, entity);
+   }
+
+   /**
+    * Send request to <code>urlParam</code>. Request entity, if any, is
+    * forwarded while it is read from client, so slow upstream slows down
+    * reading of request. If length of entity is unknown it is sent with chunked
+    * transfer coding. Note that HTTP client buffers such entity if version of
+    * HTTP protocol of remote server is not known yet, i.e. for the first request
+    * over new connection. Response entity is not read
+    * here, it is streamed to client when response is written.
+    *
+    * @param method HTTP method
+    * @param headers request headers
+    * @param urlParam URL of remote resource
+    * @param entity request entity or <code>null</code>
+    * @return response
+    */
+   private Response doProxy(String method, HttpHeaders headers, String urlParam, InputStream entity)
    {
       if (urlParam == null)
       {
@@ -185,52 +181,76 @@ public class ProxyService implements ResourceContainer
          throw new WebApplicationException(e, createErrorResponse(e, 404));
       }
 
+      long start = System.nanoTime();
       try
       {
          URL url = new URL(urlParam);
-         HTTPConnection conn = new HTTPConnection(url);
-         conn.setTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
-         NVPair[] headerPairs = toNVPair(headers.getRequestHeaders(), //
-            Collections.singleton(new CaseInsensitiveStringWrapper(HttpHeaders.HOST)));
-         conn.setAllowUserInteraction(false);
-         NVPair credentials = getCredentials(url);
-         if (credentials != null)
-         {
-            conn.addBasicAuthorization(null, credentials.getName(), credentials.getValue());
-         }
-         HTTPResponse resp = null;
-         if (entity != null)
+         HTTPConnection conn = acquireConnection(url);
+         boolean done = false;
+         try
          {
-            HttpOutputStream stream = new HttpOutputStream();
-            resp = conn.Post(url.getFile(), stream, headerPairs);
-            byte[] buf = new byte[1024];
-            int r = -1;
-            while ((r = entity.read(buf)) != -1)
+            Set<CaseInsensitiveStringWrapper> skip = new HashSet<CaseInsensitiveStringWrapper>();
+            skip.add(new CaseInsensitiveStringWrapper(HttpHeaders.HOST));
+            if (entity != null)
             {
-               stream.write(buf, 0, r);
+               // Length of entity is set by HttpOutputStream.
+               skip.add(new CaseInsensitiveStringWrapper(HttpHeaders.CONTENT_LENGTH));
+               skip.add(new CaseInsensitiveStringWrapper("Transfer-Encoding"));
+            }
+            NVPair[] headerPairs = toNVPair(headers.getRequestHeaders(), skip);
+            HTTPResponse resp;
+            if (entity != null)
+            {
+               int length = getContentLength(headers);
+               HttpOutputStream stream = length >= 0 ? new HttpOutputStream(length) : new HttpOutputStream();
+               if ("POST".equals(method))
+                  resp = conn.Post(url.getFile(), stream, headerPairs);
+               else
+                  resp = conn.Put(url.getFile(), stream, headerPairs);
+               pipe(entity, stream, false, start);
+               stream.close();
+            }
+            else if ("GET".equals(method))
+            {
+               resp = conn.Get(url.getFile(), (NVPair[])null, headerPairs);
+            }
+            else if ("HEAD".equals(method))
+            {
+               resp = conn.Head(url.getFile(), (NVPair[])null, headerPairs);
+            }
+            else if ("DELETE".equals(method))
+            {
+               resp = conn.Delete(url.getFile(), headerPairs);
+            }
+            else if ("POST".equals(method))
+            {
+               resp = conn.Post(url.getFile(), (NVPair[])null, headerPairs);
+            }
+            else
+            {
+               resp = conn.Put(url.getFile(), new byte[0], headerPairs);
             }
-            stream.close();
-         }
-         else
-         {
-            resp = conn.Post(url.getFile(), (NVPair[])null, headerPairs);
-         }
 
-         if (resp.getStatusCode() >= 300)
+            // Waits for headers of response.
+            int status = resp.getStatusCode();
+            statistics.addUpstreamTimeToFirstByte(System.nanoTime() - start);
+            if (status >= 300 && LOG.isDebugEnabled())
+            {
+               // Body of response is not logged, it is streamed to client.
+               LOG.debug(method + ". received status " + status + ", " + resp.getReasonLine());
+            }
+            Response response = createResponse(conn, resp, "HEAD".equals(method), start);
+            done = true;
+            return response;
+         }
+         finally
          {
-            if (LOG.isDebugEnabled())
+            if (!done)
             {
-               // Do not read data if debug is off.
-               // Client may get empty response, may not read stream twice.
-               LOG.debug("POST. received status " + resp.getStatusCode() + ", " + resp.getReasonLine());
-               byte[] data = resp.getData();
-               if (data != null)
-               {
-                  LOG.debug("POST. Text : " + new String(data));
-               }
+               // Connection state is unknown, do not reuse it.
+               pool.release(conn, false);
             }
          }
-         return createResponse(resp);
       }
       catch (MalformedURLException mue)
       {
@@ -250,79 +270,197 @@ public class ProxyService implements ResourceContainer
       }
    }
 
-   @PUT
-   public Response doProxyPut(@Context HttpHeaders headers, @Context UriInfo uriInfo,
-      @QueryParam("url") String urlParam, InputStream entity)
+   /**
+    * @param headers request headers
+    * @return value of Content-Length header or -1 if it is not set or invalid
+    */
+   private int getContentLength(HttpHeaders headers)
    {
-      if (urlParam == null)
+      String length = headers.getRequestHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
+      if (length != null)
       {
-         IllegalArgumentException e = new IllegalArgumentException("'url' parameter not found in proxy request");
-         throw new WebApplicationException(e, createErrorResponse(e, 404));
+         try
+         {
+            return Integer.parseInt(length.trim());
+         }
+         catch (NumberFormatException e)
+         {
+            if (LOG.isDebugEnabled())
+               LOG.debug("Invalid Content-Length: " + length);
+         }
       }
+      return -1;
+   }
 
+   /**
+    * Copy <code>in</code> to <code>out</code>. Not more then
+    * <code>maxInFlightBytes</code> bytes are read before they are written, so
+    * each side may not be faster then other one.
+    *
+    * @param in source
+    * @param out destination
+    * @param downstream <code>true</code> if response is copied to client,
+    *        <code>false</code> if request is copied to upstream
+    * @param start start time of proxy request in nanoseconds
+    * @return number of copied bytes
+    * @throws IOException if any i/o error occurs
+    */
+   private long pipe(InputStream in, OutputStream out, boolean downstream, long start) throws IOException
+   {
+      byte[] buf = buffers.acquire(maxInFlightBytes);
       try
       {
-         URL url = new URL(urlParam);
-         HTTPConnection conn = new HTTPConnection(url);
-         conn.setTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
-         NVPair[] headerPairs = toNVPair(headers.getRequestHeaders(), //
-            Collections.singleton(new CaseInsensitiveStringWrapper(HttpHeaders.HOST)));
-         conn.setAllowUserInteraction(false);
-         NVPair credentials = getCredentials(url);
-         if (credentials != null)
-         {
-            conn.addBasicAuthorization(null, credentials.getName(), credentials.getValue());
-         }
-         HTTPResponse resp = null;
-         if (entity != null)
+         int len = Math.min(buf.length, maxInFlightBytes);
+         long total = 0;
+         int r;
+         while ((r = in.read(buf, 0, len)) != -1)
          {
-            HttpOutputStream stream = new HttpOutputStream();
-            resp = conn.Put(url.getFile(), stream, headerPairs);
-            byte[] buf = new byte[1024];
-            int r = -1;
-            while ((r = entity.read(buf)) != -1)
+            if (r == 0)
+               continue;
+            if (downstream)
             {
-               stream.write(buf, 0, r);
+               if (total == 0)
+                  statistics.addDownstreamTimeToFirstByte(System.nanoTime() - start);
+               out.write(buf, 0, r);
+               // Send data to client as soon as it is received.
+               out.flush();
+               statistics.addDownstreamBytes(r);
             }
-            stream.close();
-         }
-         else
-         {
-            resp = conn.Put(url.getFile(), new byte[0], headerPairs);
-         }
-
-         if (resp.getStatusCode() >= 300)
-         {
-            if (LOG.isDebugEnabled())
+            else
             {
-               // Do not read data if debug is off.
-               // Client may get empty response, may not read stream twice.
-               LOG.debug("PUT. received status " + resp.getStatusCode() + ", " + resp.getReasonLine());
-               byte[] data = resp.getData();
-               if (data != null)
-               {
-                  LOG.debug("PUT Received : " + new String(data));
-               }
+               out.write(buf, 0, r);
+               statistics.addUpstreamBytes(r);
             }
+            total += r;
          }
-         return createResponse(resp);
+         return total;
       }
-      catch (MalformedURLException mue)
-      {
-         throw new WebApplicationException(mue, createErrorResponse(mue, 400));
-      }
-      catch (ProtocolNotSuppException pnse)
+      finally
       {
-         throw new WebApplicationException(pnse, createErrorResponse(pnse, 400));
+         buffers.release(buf);
       }
-      catch (IOException ioe)
-      {
-         throw new WebApplicationException(ioe, createErrorResponse(ioe, 500));
-      }
-      catch (ModuleException me)
+   }
+
+   @Managed
+   @ManagedDescription("Number of connections created by proxy")
+   public long getConnectionCreateCount()
+   {
+      return pool.getCreateCount();
+   }
+
+   @Managed
+   @ManagedDescription("Number of times when pooled connection was reused")
+   public long getConnectionReuseCount()
+   {
+      return pool.getReuseCount();
+   }
+
+   @Managed
+   @ManagedDescription("Number of idle connections closed by pool")
+   public long getConnectionEvictCount()
+   {
+      return pool.getEvictCount();
+   }
+
+   @Managed
+   @ManagedDescription("Number of times when proxy failed to get connection in time")
+   public long getConnectionTimeoutCount()
+   {
+      return pool.getTimeoutCount();
+   }
+
+   @Managed
+   @ManagedDescription("Number of connections in use")
+   public int getLeasedConnectionCount()
+   {
+      return pool.getLeasedCount();
+   }
+
+   @Managed
+   @ManagedDescription("Number of idle connections in pool")
+   public int getIdleConnectionCount()
+   {
+      return pool.getIdleCount();
+   }
+
+   @Managed
+   @ManagedDescription("Number of bytes of request bodies sent to remote servers")
+   public long getUpstreamBytes()
+   {
+      return statistics.getUpstreamBytes();
+   }
+
+   @Managed
+   @ManagedDescription("Number of bytes of response bodies sent to clients")
+   public long getDownstreamBytes()
+   {
+      return statistics.getDownstreamBytes();
+   }
+
+   @Managed
+   @ManagedDescription("Average time (ms) until headers of response are received from remote server")
+   public double getAverageUpstreamTimeToFirstByte()
+   {
+      return statistics.getAverageUpstreamTimeToFirstByte();
+   }
+
+   @Managed
+   @ManagedDescription("Average time (ms) until first byte of response body is sent to client")
+   public double getAverageDownstreamTimeToFirstByte()
+   {
+      return statistics.getAverageDownstreamTimeToFirstByte();
+   }
+
+   @Managed
+   @ManagedDescription("Max number of bytes which are read but not written yet in each direction of request")
+   public int getMaxInFlightBytes()
+   {
+      return maxInFlightBytes;
+   }
+
+   @Managed
+   @ManagedDescription("Close all idle connections")
+   public void closeIdleConnections()
+   {
+      pool.shutdown();
+   }
+
+   /**
+    * @return pool of connections used by this service
+    */
+   protected HttpConnectionPool getConnectionPool()
+   {
+      return pool;
+   }
+
+   /**
+    * @return statistics of data streamed by this service
+    */
+   protected ProxyStatistics getStatistics()
+   {
+      return statistics;
+   }
+
+   /**
+    * Get connection from pool and configure it for request to <code>url</code>.
+    *
+    * @param url URL
+    * @return connection
+    * @throws ProtocolNotSuppException if protocol of <code>url</code> is not
+    *         supported
+    * @throws IOException if there is no free connection
+    */
+   private HTTPConnection acquireConnection(URL url) throws ProtocolNotSuppException, IOException
+   {
+      HTTPConnection conn = pool.acquire(url);
+      conn.setTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
+      conn.setAllowUserInteraction(false);
+      NVPair credentials = getCredentials(url);
+      if (credentials != null)
       {
-         throw new WebApplicationException(me, createErrorResponse(me, 500));
+         conn.addBasicAuthorization(null, credentials.getName(), credentials.getValue());
       }
+      return conn;
    }
 
    /**
@@ -338,12 +476,19 @@ public class ProxyService implements ResourceContainer
    }
 
    /**
-    * Creates the response from HTTP response.
+    * Creates the response from HTTP response. Connection is returned to the
+    * pool when entity of response is written to client, or when processing of
+    * request is finished if entity is not written, e.g. it is replaced by
+    * filter. Response to HEAD request has no entity, connection is returned to
+    * the pool immediately.
     *
+    * @param conn the connection which is used for request
     * @param httpResponse the http response
+    * @param head <code>true</code> if request method is HEAD
+    * @param start start time of proxy request in nanoseconds
     * @return response Response
     */
-   private Response createResponse(HTTPResponse httpResponse)
+   private Response createResponse(HTTPConnection conn, HTTPResponse httpResponse, boolean head, long start)
    {
       ResponseBuilder responseBuilder;
       try
@@ -354,7 +499,26 @@ public class ProxyService implements ResourceContainer
             String headerName = en.nextElement();
             responseBuilder.header(headerName, httpResponse.getHeader(headerName));
          }
-         return responseBuilder.entity(httpResponse.getInputStream()).build();
+         if (head)
+         {
+            // Make sure that response is read to the end.
+            httpResponse.getData();
+            pool.release(conn, true);
+            return responseBuilder.build();
+         }
+         final ProxyResponseEntity entity = new ProxyResponseEntity(httpResponse.getInputStream(), conn, start);
+         ApplicationContext context = ApplicationContextImpl.getCurrent();
+         if (context instanceof ApplicationContextImpl)
+         {
+            ((ApplicationContextImpl)context).addCompletionCallback(new Runnable()
+            {
+               public void run()
+               {
+                  entity.abort();
+               }
+            });
+         }
+         return responseBuilder.entity(entity).build();
       }
       catch (IOException e)
       {
@@ -405,6 +569,84 @@ public class ProxyService implements ResourceContainer
       return hds.toArray(new NVPair[hds.size()]);
    }
 
+   /**
+    * Entity of response which pipes body of upstream response to client.
+    * Connection is returned to the pool when body is read to the end,
+    * otherwise it is closed since unread data would break next response.
+    * Connection is returned to the pool only once.
+    */
+   private final class ProxyResponseEntity implements StreamingOutput
+   {
+
+      private final InputStream in;
+
+      private final HTTPConnection conn;
+
+      private final long start;
+
+      private final AtomicBoolean released = new AtomicBoolean();
+
+      private ProxyResponseEntity(InputStream in, HTTPConnection conn, long start)
+      {
+         this.in = in;
+         this.conn = conn;
+         this.start = start;
+      }
+
+      public void write(OutputStream output) throws IOException
+      {
+         boolean eof = false;
+         try
+         {
+            pipe(in, output, true, start);
+            eof = true;
+         }
+         finally
+         {
+            if (eof)
+            {
+               in.close();
+               release(true);
+            }
+            else
+            {
+               // Abort transfer, do not read rest of data.
+               abort();
+            }
+         }
+      }
+
+      /**
+       * Close connection if entity is not written completely.
+       */
+      void abort()
+      {
+         if (!release(false))
+            return;
+         try
+         {
+            in.close();
+         }
+         catch (IOException e)
+         {
+            if (LOG.isDebugEnabled())
+               LOG.debug(e.getMessage(), e);
+         }
+      }
+
+      /**
+       * @param reusable see {@link HttpConnectionPool#release(HTTPConnection, boolean)}
+       * @return <code>false</code> if connection is already released
+       */
+      private boolean release(boolean reusable)
+      {
+         if (!released.compareAndSet(false, true))
+            return false;
+         pool.release(conn, reusable);
+         return true;
+      }
+   }
+
    private class CaseInsensitiveStringWrapper
    {
 
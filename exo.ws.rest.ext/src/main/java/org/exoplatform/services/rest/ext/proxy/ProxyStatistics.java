@@ -0,0 +1,131 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.ext.proxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of data streamed by {@link ProxyService}. Upstream is remote
+ * server, downstream is client of proxy. Time to first byte is measured from
+ * start of proxy request until response headers are received from upstream
+ * and until first byte of response body is written to downstream.
+ *
+ * @version $Id: $
+ */
+public final class ProxyStatistics
+{
+
+   private final AtomicLong upstreamBytes = new AtomicLong();
+
+   private final AtomicLong downstreamBytes = new AtomicLong();
+
+   private final AtomicLong upstreamResponses = new AtomicLong();
+
+   private final AtomicLong upstreamTimeToFirstByte = new AtomicLong();
+
+   private final AtomicLong downstreamResponses = new AtomicLong();
+
+   private final AtomicLong downstreamTimeToFirstByte = new AtomicLong();
+
+   /**
+    * @param bytes number of bytes of request body sent to upstream
+    */
+   public void addUpstreamBytes(long bytes)
+   {
+      upstreamBytes.addAndGet(bytes);
+   }
+
+   /**
+    * @param bytes number of bytes of response body sent to downstream
+    */
+   public void addDownstreamBytes(long bytes)
+   {
+      downstreamBytes.addAndGet(bytes);
+   }
+
+   /**
+    * @param nanos time until headers of response are received from upstream
+    */
+   public void addUpstreamTimeToFirstByte(long nanos)
+   {
+      upstreamResponses.incrementAndGet();
+      upstreamTimeToFirstByte.addAndGet(nanos);
+   }
+
+   /**
+    * @param nanos time until first byte of response body is sent to
+    *        downstream
+    */
+   public void addDownstreamTimeToFirstByte(long nanos)
+   {
+      downstreamResponses.incrementAndGet();
+      downstreamTimeToFirstByte.addAndGet(nanos);
+   }
+
+   /**
+    * @return total number of bytes of request bodies sent to upstream
+    */
+   public long getUpstreamBytes()
+   {
+      return upstreamBytes.get();
+   }
+
+   /**
+    * @return total number of bytes of response bodies sent to downstream
+    */
+   public long getDownstreamBytes()
+   {
+      return downstreamBytes.get();
+   }
+
+   /**
+    * @return number of responses received from upstream
+    */
+   public long getUpstreamResponseCount()
+   {
+      return upstreamResponses.get();
+   }
+
+   /**
+    * @return average upstream time to first byte in milliseconds
+    */
+   public double getAverageUpstreamTimeToFirstByte()
+   {
+      return average(upstreamTimeToFirstByte.get(), upstreamResponses.get());
+   }
+
+   /**
+    * @return number of non-empty response bodies sent to downstream
+    */
+   public long getDownstreamResponseCount()
+   {
+      return downstreamResponses.get();
+   }
+
+   /**
+    * @return average downstream time to first byte in milliseconds
+    */
+   public double getAverageDownstreamTimeToFirstByte()
+   {
+      return average(downstreamTimeToFirstByte.get(), downstreamResponses.get());
+   }
+
+   private static double average(long nanos, long count)
+   {
+      return count == 0 ? 0.0D : nanos / 1000000.0D / count;
+   }
+}
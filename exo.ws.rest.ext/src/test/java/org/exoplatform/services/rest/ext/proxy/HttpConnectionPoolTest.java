@@ -0,0 +1,157 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.ext.proxy;
+
+import junit.framework.TestCase;
+
+import org.exoplatform.common.http.client.HTTPConnection;
+import org.exoplatform.common.http.client.ProtocolNotSuppException;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * @version $Id: $
+ */
+public class HttpConnectionPoolTest extends TestCase
+{
+
+   public void testReuse() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool();
+      HTTPConnection conn = pool.acquire(new URL("http://localhost:8080/a"));
+      assertEquals(1, pool.getLeasedCount());
+      pool.release(conn, true);
+      assertEquals(0, pool.getLeasedCount());
+      assertEquals(1, pool.getIdleCount());
+      assertSame(conn, pool.acquire(new URL("http://LOCALHOST:8080/b?c=d")));
+      assertEquals(1, pool.getCreateCount());
+      assertEquals(1, pool.getReuseCount());
+   }
+
+   public void testRoutes() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool();
+      HTTPConnection conn = pool.acquire(new URL("http://localhost/a"));
+      pool.release(conn, true);
+      assertSame(conn, pool.acquire(new URL("http://localhost:80/a")));
+      pool.release(conn, true);
+      assertNotSame(conn, pool.acquire(new URL("http://localhost:8080/a")));
+      assertEquals(2, pool.getRouteCount());
+      assertEquals(1, pool.getIdleCount());
+   }
+
+   public void testUnsupportedProtocol() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool(1, 1, 30000, 100);
+      try
+      {
+         pool.acquire(new URL("ftp://localhost/a"));
+         fail("ProtocolNotSuppException expected");
+      }
+      catch (ProtocolNotSuppException e)
+      {
+      }
+      // Reserved slot must be freed.
+      assertEquals(0, pool.getRouteCount());
+      assertNotNull(pool.acquire(new URL("http://localhost/a")));
+   }
+
+   public void testNotReusable() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool();
+      HTTPConnection conn = pool.acquire(new URL("http://localhost:8080/a"));
+      pool.release(conn, false);
+      assertEquals(0, pool.getIdleCount());
+      assertEquals(0, pool.getRouteCount());
+      assertNotSame(conn, pool.acquire(new URL("http://localhost:8080/a")));
+      // Second release of the same connection is ignored.
+      pool.release(conn, true);
+      assertEquals(0, pool.getIdleCount());
+   }
+
+   public void testMaxPerRoute() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool(1, 10, 30000, 100);
+      pool.acquire(new URL("http://localhost:8080/a"));
+      pool.acquire(new URL("http://localhost:8081/a"));
+      try
+      {
+         pool.acquire(new URL("http://localhost:8080/b"));
+         fail("IOException expected");
+      }
+      catch (IOException e)
+      {
+      }
+      assertEquals(1, pool.getTimeoutCount());
+      assertEquals(2, pool.getLeasedCount());
+   }
+
+   public void testWaitForRelease() throws Exception
+   {
+      final HttpConnectionPool pool = new HttpConnectionPool(1, 1, 30000, 10000);
+      final HTTPConnection conn = pool.acquire(new URL("http://localhost:8080/a"));
+      Thread t = new Thread()
+      {
+         public void run()
+         {
+            try
+            {
+               Thread.sleep(100);
+            }
+            catch (InterruptedException e)
+            {
+            }
+            pool.release(conn, true);
+         }
+      };
+      t.start();
+      assertSame(conn, pool.acquire(new URL("http://localhost:8080/b")));
+      t.join();
+      assertEquals(0, pool.getTimeoutCount());
+   }
+
+   public void testMaxTotalEvictsIdle() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool(5, 1, 30000, 100);
+      HTTPConnection conn = pool.acquire(new URL("http://localhost:8080/a"));
+      pool.release(conn, true);
+      HTTPConnection other = pool.acquire(new URL("http://localhost:8081/a"));
+      assertNotSame(conn, other);
+      assertEquals(1, pool.getEvictCount());
+      assertEquals(0, pool.getIdleCount());
+      assertEquals(1, pool.getRouteCount());
+   }
+
+   public void testIdleTimeout() throws Exception
+   {
+      HttpConnectionPool pool = new HttpConnectionPool(5, 5, 50, 100);
+      HTTPConnection conn = pool.acquire(new URL("http://localhost:8080/a"));
+      pool.release(conn, true);
+      Thread.sleep(100);
+      assertNotSame(conn, pool.acquire(new URL("http://localhost:8080/a")));
+      assertEquals(1, pool.getEvictCount());
+      assertEquals(0, pool.getReuseCount());
+
+      HTTPConnection other = pool.acquire(new URL("http://localhost:8081/a"));
+      pool.release(other, true);
+      Thread.sleep(100);
+      pool.closeExpired();
+      assertEquals(0, pool.getIdleCount());
+      assertEquals(2, pool.getEvictCount());
+   }
+}
@@ -0,0 +1,391 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ * Copyright (C) 2020 Meeds Association
+ * contact@meeds.io
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.exoplatform.services.rest.ext.proxy;
+
+import org.exoplatform.services.rest.ContainerResponseWriter;
+import org.exoplatform.services.rest.GenericContainerResponse;
+import org.exoplatform.services.rest.ext.BaseTest;
+import org.exoplatform.services.rest.impl.ContainerResponse;
+import org.exoplatform.services.rest.impl.MultivaluedMapImpl;
+import org.exoplatform.services.rest.tools.ByteArrayContainerResponseWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.util.Arrays;
+
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * @version $Id: $
+ */
+public class ProxyServiceTest extends BaseTest
+{
+
+   /**
+    * Simple HTTP/1.1 server. Responds to GET with {@link #DATA}, to POST and
+    * PUT with request body which it received, to HEAD with headers only. If
+    * <code>dropIdle</code> is <code>true</code> server closes socket after
+    * each response without notice.
+    */
+   private static class Server extends Thread
+   {
+      private final ServerSocket socket;
+
+      private volatile int connections;
+
+      private volatile boolean chunked;
+
+      private volatile boolean dropIdle;
+
+      Server() throws IOException
+      {
+         socket = new ServerSocket(0);
+         setDaemon(true);
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (true)
+            {
+               final Socket s = socket.accept();
+               connections++;
+               Thread t = new Thread()
+               {
+                  public void run()
+                  {
+                     try
+                     {
+                        serve(s);
+                     }
+                     catch (IOException e)
+                     {
+                     }
+                  }
+               };
+               t.setDaemon(true);
+               t.start();
+            }
+         }
+         catch (IOException e)
+         {
+         }
+      }
+
+      private void serve(Socket s) throws IOException
+      {
+         InputStream in = s.getInputStream();
+         OutputStream out = s.getOutputStream();
+         String line;
+         while ((line = readLine(in)) != null)
+         {
+            String method = line.substring(0, line.indexOf(' '));
+            boolean isChunked = false;
+            int length = -1;
+            while ((line = readLine(in)) != null && line.length() > 0)
+            {
+               String header = line.toLowerCase();
+               if (header.startsWith("transfer-encoding:") && header.contains("chunked"))
+                  isChunked = true;
+               else if (header.startsWith("content-length:"))
+                  length = Integer.parseInt(header.substring(15).trim());
+            }
+            chunked = isChunked;
+            byte[] body = DATA;
+            if (isChunked)
+            {
+               body = readChunked(in);
+            }
+            else if (length >= 0)
+            {
+               body = new byte[length];
+               for (int i = 0; i < length; i++)
+                  body[i] = (byte)in.read();
+            }
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/octet-stream\r\nContent-Length: " + body.length
+               + "\r\nX-Method: " + method + "\r\n\r\n").getBytes("ISO-8859-1"));
+            if (!"HEAD".equals(method))
+               out.write(body);
+            out.flush();
+            if (dropIdle)
+            {
+               s.close();
+               return;
+            }
+         }
+      }
+
+      private static byte[] readChunked(InputStream in) throws IOException
+      {
+         ByteArrayOutputStream body = new ByteArrayOutputStream();
+         while (true)
+         {
+            String size = readLine(in);
+            int semi = size.indexOf(';');
+            int len = Integer.parseInt((semi < 0 ? size : size.substring(0, semi)).trim(), 16);
+            if (len == 0)
+            {
+               // trailers
+               while (readLine(in).length() > 0)
+               {
+               }
+               return body.toByteArray();
+            }
+            for (int i = 0; i < len; i++)
+               body.write(in.read());
+            readLine(in);
+         }
+      }
+
+      private static String readLine(InputStream in) throws IOException
+      {
+         StringBuilder line = new StringBuilder();
+         int c;
+         while ((c = in.read()) != -1 && c != '\n')
+         {
+            if (c != '\r')
+               line.append((char)c);
+         }
+         return c == -1 && line.length() == 0 ? null : line.toString();
+      }
+   }
+
+   private static final byte[] DATA = new byte[300000];
+   static
+   {
+      for (int i = 0; i < DATA.length; i++)
+         DATA[i] = (byte)i;
+   }
+
+   private static final int MAX_PER_ROUTE = 2;
+
+   private Server server;
+
+   private ProxyService proxy;
+
+   @Override
+   public void setUp() throws Exception
+   {
+      super.setUp();
+      server = new Server();
+      server.start();
+      proxy = new ProxyService();
+      binder.addResource(proxy, null);
+   }
+
+   @Override
+   public void tearDown() throws Exception
+   {
+      binder.removeResource(ProxyService.class);
+      proxy.closeIdleConnections();
+      server.socket.close();
+      super.tearDown();
+   }
+
+   public void testGet() throws Exception
+   {
+      for (int i = 0; i < 3; i++)
+      {
+         ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+         ContainerResponse response = launcher.service("GET", proxyUri(), "", null, null, writer, null);
+         assertEquals(200, response.getStatus());
+         assertEquals("GET", response.getHttpHeaders().getFirst("X-Method"));
+         assertTrue(Arrays.equals(DATA, writer.getBody()));
+      }
+      // Keep-alive connection is reused.
+      assertEquals(1, server.connections);
+      assertEquals(1, proxy.getConnectionCreateCount());
+      assertEquals(2, proxy.getConnectionReuseCount());
+      assertEquals(0, proxy.getLeasedConnectionCount());
+      assertEquals(3L * DATA.length, proxy.getDownstreamBytes());
+      assertEquals(3, proxy.getStatistics().getUpstreamResponseCount());
+      assertEquals(3, proxy.getStatistics().getDownstreamResponseCount());
+   }
+
+   public void testUpstreamClosedIdle() throws Exception
+   {
+      server.dropIdle = true;
+      for (int i = 0; i < 3; i++)
+      {
+         ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+         ContainerResponse response = launcher.service("GET", proxyUri(), "", null, null, writer, null);
+         assertEquals(200, response.getStatus());
+         assertTrue(Arrays.equals(DATA, writer.getBody()));
+      }
+      // Pooled connection is reused, request is retried with new socket.
+      assertEquals(3, server.connections);
+      assertEquals(2, proxy.getConnectionReuseCount());
+   }
+
+   public void testPost() throws Exception
+   {
+      MultivaluedMapImpl headers = new MultivaluedMapImpl();
+      headers.putSingle("Content-Type", "application/octet-stream");
+      headers.putSingle("Content-Length", Integer.toString(DATA.length));
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response = launcher.service("POST", proxyUri(), "", headers, DATA, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("POST", response.getHttpHeaders().getFirst("X-Method"));
+      // Length is known, entity is not buffered by HTTP client.
+      assertFalse(server.chunked);
+      assertTrue(Arrays.equals(DATA, writer.getBody()));
+      assertEquals(DATA.length, proxy.getUpstreamBytes());
+      assertEquals(DATA.length, proxy.getDownstreamBytes());
+   }
+
+   public void testPut() throws Exception
+   {
+      // HTTP client must know version of server to use chunked transfer coding.
+      launcher.service("GET", proxyUri(), "", null, null, new ByteArrayContainerResponseWriter(), null);
+
+      MultivaluedMapImpl headers = new MultivaluedMapImpl();
+      headers.putSingle("Content-Type", "application/octet-stream");
+      ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+      ContainerResponse response = launcher.service("PUT", proxyUri(), "", headers, DATA, writer, null);
+      assertEquals(200, response.getStatus());
+      assertEquals("PUT", response.getHttpHeaders().getFirst("X-Method"));
+      assertTrue(server.chunked);
+      assertTrue(Arrays.equals(DATA, writer.getBody()));
+      assertEquals(DATA.length, proxy.getUpstreamBytes());
+      assertEquals(1, server.connections);
+   }
+
+   public void testBrokenDownstream() throws Exception
+   {
+      ContainerResponseWriter writer = new ContainerResponseWriter()
+      {
+         @SuppressWarnings("unchecked")
+         public void writeBody(GenericContainerResponse response, MessageBodyWriter entityWriter) throws IOException
+         {
+            OutputStream out = new OutputStream()
+            {
+               private int count;
+
+               public void write(int b) throws IOException
+               {
+                  write(new byte[]{(byte)b}, 0, 1);
+               }
+
+               public void write(byte[] b, int off, int len) throws IOException
+               {
+                  count += len;
+                  if (count > 1000)
+                     throw new IOException("Connection closed by client");
+               }
+            };
+            Object entity = response.getEntity();
+            entityWriter.writeTo(entity, entity.getClass(), response.getEntityType(), null,
+               response.getContentType(), response.getHttpHeaders(), out);
+         }
+
+         public void writeHeaders(GenericContainerResponse response) throws IOException
+         {
+         }
+      };
+      try
+      {
+         launcher.service("GET", proxyUri(), "", null, null, writer, null);
+      }
+      catch (Exception e)
+      {
+         // client gone
+      }
+      // Connection with unread data is not reused.
+      assertEquals(0, proxy.getLeasedConnectionCount());
+      assertEquals(0, proxy.getIdleConnectionCount());
+
+      ByteArrayContainerResponseWriter writer2 = new ByteArrayContainerResponseWriter();
+      launcher.service("GET", proxyUri(), "", null, null, writer2, null);
+      assertTrue(Arrays.equals(DATA, writer2.getBody()));
+      assertEquals(2, proxy.getConnectionCreateCount());
+   }
+
+   public void testHead() throws Exception
+   {
+      useSmallPool();
+      for (int i = 0; i < MAX_PER_ROUTE + 1; i++)
+      {
+         ByteArrayContainerResponseWriter writer = new ByteArrayContainerResponseWriter();
+         ContainerResponse response = launcher.service("HEAD", proxyUri(), "", null, null, writer, null);
+         assertEquals(200, response.getStatus());
+         assertEquals("HEAD", response.getHttpHeaders().getFirst("X-Method"));
+         assertEquals(Integer.toString(DATA.length), response.getHttpHeaders().getFirst("Content-Length"));
+         assertNull(writer.getBody());
+         // Connection is released without waiting for entity to be written.
+         assertEquals(0, proxy.getLeasedConnectionCount());
+      }
+      assertEquals(1, proxy.getConnectionCreateCount());
+      assertEquals(0, proxy.getConnectionTimeoutCount());
+   }
+
+   public void testEntityNotWritten() throws Exception
+   {
+      useSmallPool();
+      // Entity is dropped, e.g. it is replaced by filter.
+      ContainerResponseWriter writer = new ContainerResponseWriter()
+      {
+         @SuppressWarnings("unchecked")
+         public void writeBody(GenericContainerResponse response, MessageBodyWriter entityWriter) throws IOException
+         {
+         }
+
+         public void writeHeaders(GenericContainerResponse response) throws IOException
+         {
+         }
+      };
+      for (int i = 0; i < MAX_PER_ROUTE + 1; i++)
+      {
+         ContainerResponse response = launcher.service("GET", proxyUri(), "", null, null, writer, null);
+         assertEquals(200, response.getStatus());
+         assertEquals(0, proxy.getLeasedConnectionCount());
+      }
+      assertEquals(0, proxy.getConnectionTimeoutCount());
+   }
+
+   /**
+    * Replace proxy with one which uses pool with {@link #MAX_PER_ROUTE}
+    * connections per route and short timeout of waiting for free connection.
+    */
+   private void useSmallPool()
+   {
+      binder.removeResource(ProxyService.class);
+      proxy.closeIdleConnections();
+      System.setProperty(ProxyService.POOL_MAX_PER_ROUTE, Integer.toString(MAX_PER_ROUTE));
+      System.setProperty(ProxyService.POOL_ACQUIRE_TIMEOUT, "1000");
+      try
+      {
+         proxy = new ProxyService();
+      }
+      finally
+      {
+         System.clearProperty(ProxyService.POOL_MAX_PER_ROUTE);
+         System.clearProperty(ProxyService.POOL_ACQUIRE_TIMEOUT);
+      }
+      binder.addResource(proxy, null);
+   }
+
+   private String proxyUri() throws Exception
+   {
+      return "/proxy?url=" + URLEncoder.encode("http://localhost:" + server.socket.getLocalPort() + "/data", "UTF-8");
+   }
+}
@@ -103,7 +103,11 @@ public class MockHttpServletRequest implements HttpServletRequest
       this.length = length;
       this.method = method;
       if (headers != null)
-         this.headers.putAll(headers);
+      {
+         // HashMap.putAll does not use put, so keys must be added one by one
+         for (Map.Entry<String, List<String>> e : headers.entrySet())
+            this.headers.put(e.getKey(), e.getValue());
+      }
       String queryString = getQueryString();
       if (queryString != null)
       {
@@ -219,8 +223,8 @@ public class MockHttpServletRequest implements HttpServletRequest
     */
    public Enumeration getHeaders(String name)
    {
-      ArrayList values = (ArrayList)headers.get(name);
-      if (values.size() > 0)
+      List values = headers.get(name);
+      if (values != null && values.size() > 0)
          return new EnumerationImpl(values.iterator());
 
       return new EnumerationImpl(Collections.EMPTY_LIST.iterator());